@@ -0,0 +1,110 @@
+package org.hibernate.omm.benchmark;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.omm.benchmark.model.Book;
+import org.hibernate.omm.benchmark.model.City;
+import org.hibernate.omm.benchmark.model.Country;
+import org.hibernate.omm.benchmark.model.Province;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of whole Hibernate units of work (translation, binding, execution and decoding) against the in-memory
+ * backend, so the cost of Chameleon and Hibernate is measured without network or server in the way.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EndToEndBenchmarks {
+
+    private static final int BOOK_COUNT = 1_000;
+    private static final int CITY_COUNT = 100;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    private long nextBookId;
+
+    private long nextLoadedBookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = OfflineSessionFactory.buildInMemory();
+        sessionFactory.inTransaction(session -> {
+            var country = new Country();
+            country.id = 1;
+            country.name = "China";
+            session.persist(country);
+            var province = new Province();
+            province.id = 1;
+            province.country = country;
+            province.name = "Jilin";
+            session.persist(province);
+            for (int i = 1; i <= CITY_COUNT; i++) {
+                var city = new City();
+                city.id = i;
+                city.province = province;
+                city.name = "City " + i;
+                session.persist(city);
+            }
+            for (long i = 1; i <= BOOK_COUNT; i++) {
+                session.persist(createBook(i));
+            }
+        });
+        nextBookId = BOOK_COUNT + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Book loadByPrimaryKey() {
+        var id = nextLoadedBookId++ % BOOK_COUNT + 1;
+        return sessionFactory.fromTransaction(session -> session.find(Book.class, id));
+    }
+
+    @Benchmark
+    public List<City> multiJoinQuery() {
+        return sessionFactory.fromTransaction(session -> session.createSelectionQuery(
+                        "from City c join fetch c.province p join fetch p.country where c.name = :name and p.name = :provinceName",
+                        City.class)
+                .setParameter("name", "City 42")
+                .setParameter("provinceName", "Jilin")
+                .getResultList());
+    }
+
+    @Benchmark
+    public void insertAndCommit() {
+        var book = createBook(nextBookId++);
+        sessionFactory.inTransaction(session -> session.persist(book));
+    }
+
+    @Benchmark
+    public void optimisticLockUpdate() {
+        var id = nextLoadedBookId++ % BOOK_COUNT + 1;
+        sessionFactory.inTransaction(session -> session.find(Book.class, id).publicationYear++);
+    }
+
+    private static Book createBook(long id) {
+        var book = new Book();
+        book.id = id;
+        book.title = "Book " + id;
+        book.author = "Author " + id % 100;
+        book.publicationYear = 1800 + (int) (id % 200);
+        return book;
+    }
+}
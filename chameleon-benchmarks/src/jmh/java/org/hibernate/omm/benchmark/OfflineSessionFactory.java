@@ -0,0 +1,58 @@
+package org.hibernate.omm.benchmark;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.omm.benchmark.model.Book;
+import org.hibernate.omm.benchmark.model.City;
+import org.hibernate.omm.benchmark.model.Country;
+import org.hibernate.omm.benchmark.model.Province;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.dialect.MongoDialect;
+import org.hibernate.omm.jdbc.MongoConnectionProvider;
+
+/**
+ * Builds a {@link SessionFactoryImplementor} over the benchmark model without any MongoDB server around: the dialect
+ * is configured explicitly (for MongoDB 7.0) and JDBC metadata access is disabled on boot, so no connection is ever
+ * opened unless a benchmark does so; {@link com.mongodb.client.MongoClient} itself connects lazily.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class OfflineSessionFactory {
+
+    private OfflineSessionFactory() {
+    }
+
+    public static SessionFactoryImplementor build() {
+        var cfg = createConfiguration();
+        cfg.setProperty(MongoAvailableSettings.MONGODB_CONNECTION_URL, "mongodb://localhost:27017");
+        return (SessionFactoryImplementor) cfg.buildSessionFactory();
+    }
+
+    /**
+     * @return session factory working against {@link org.hibernate.omm.memory.InMemoryMongoClient}, for benchmarks
+     * running whole units of work
+     */
+    public static SessionFactoryImplementor buildInMemory() {
+        var cfg = createConfiguration();
+        cfg.setProperty(MongoAvailableSettings.MONGODB_BACKEND, MongoConnectionProvider.IN_MEMORY_BACKEND);
+        return (SessionFactoryImplementor) cfg.buildSessionFactory();
+    }
+
+    private static Configuration createConfiguration() {
+        var cfg = new Configuration();
+        cfg.setProperty(AvailableSettings.DIALECT, MongoDialect.class.getName());
+        cfg.setProperty(AvailableSettings.CONNECTION_PROVIDER, MongoConnectionProvider.class.getName());
+        cfg.setProperty(AvailableSettings.ALLOW_METADATA_ON_BOOT, "false");
+        // the server version the dialect would otherwise resolve from JDBC metadata, enabling find commands
+        cfg.setProperty(AvailableSettings.JAKARTA_HBM2DDL_DB_MAJOR_VERSION, "7");
+        cfg.setProperty(AvailableSettings.JAKARTA_HBM2DDL_DB_MINOR_VERSION, "0");
+        cfg.setProperty(MongoAvailableSettings.MONGODB_DATABASE, "benchmark");
+        cfg.addAnnotatedClass(Book.class);
+        cfg.addAnnotatedClass(Country.class);
+        cfg.addAnnotatedClass(Province.class);
+        cfg.addAnnotatedClass(City.class);
+        return cfg;
+    }
+}
@@ -0,0 +1,137 @@
+package org.hibernate.omm.benchmark;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.spi.QueryOptions;
+import org.hibernate.query.sqm.internal.QuerySqmImpl;
+import org.hibernate.query.sqm.tree.SqmDmlStatement;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.hibernate.sql.ast.SqlAstTranslatorFactory;
+import org.hibernate.sql.ast.tree.MutationStatement;
+import org.hibernate.sql.ast.tree.Statement;
+import org.hibernate.sql.ast.tree.select.SelectStatement;
+import org.hibernate.sql.exec.spi.JdbcOperation;
+import org.hibernate.sql.exec.spi.JdbcParameterBindings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Throughput of rendering SQL AST into MongoDB command through the dialect's {@link SqlAstTranslatorFactory}, i.e.
+ * {@link org.hibernate.omm.ast.AbstractMongoSqlAstTranslator} and its subclasses.
+ * <p>
+ * The HQL to SQM to SQL AST conversion belongs to Hibernate core, so it is done once per shape when set up and only
+ * the Mongo specific rendering is measured.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TranslationBenchmarks {
+
+    public enum Shape {
+        /**
+         * The shape of loading entity by primary key.
+         */
+        PK_LOAD("from Book where id = :id"),
+        /**
+         * Multiple {@code $lookup} stages in the spirit of {@code SimpleJoinTests}.
+         */
+        MULTI_JOIN("from City c join fetch c.province p join fetch p.country where c.name = :name and p.name = :provinceName"),
+        IN_LIST("from Book where id in :ids"),
+        /**
+         * The shape of updating versioned entity, i.e. checking the version and bumping it.
+         */
+        OPTIMISTIC_LOCK_UPDATE("update Book set title = :title, version = :newVersion where id = :id and version = :version"),
+        BULK_DELETE("delete from Book where publicationYear < :year");
+
+        private final String hql;
+
+        Shape(String hql) {
+            this.hql = hql;
+        }
+    }
+
+    @Param
+    public Shape shape;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    private SqlAstTranslatorFactory translatorFactory;
+
+    private Statement sqlAst;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = OfflineSessionFactory.build();
+        translatorFactory = sessionFactory.getJdbcServices().getJdbcEnvironment().getSqlAstTranslatorFactory();
+        sqlAst = interpret(shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public String translate() {
+        JdbcOperation jdbcOperation;
+        if (sqlAst instanceof SelectStatement selectStatement) {
+            jdbcOperation = translatorFactory.buildSelectTranslator(sessionFactory, selectStatement)
+                    .translate(JdbcParameterBindings.NO_BINDINGS, QueryOptions.NONE);
+        } else {
+            jdbcOperation = translatorFactory.buildMutationTranslator(sessionFactory, (MutationStatement) sqlAst)
+                    .translate(JdbcParameterBindings.NO_BINDINGS, QueryOptions.NONE);
+        }
+        return jdbcOperation.getSqlString();
+    }
+
+    private Statement interpret(Shape shape) {
+        try (var session = (SessionImplementor) sessionFactory.openSession()) {
+            var query = (QuerySqmImpl<?>) session.createQuery(shape.hql);
+            switch (shape) {
+                case PK_LOAD -> query.setParameter("id", 1L);
+                case MULTI_JOIN -> query.setParameter("name", "Changchun").setParameter("provinceName", "Jilin");
+                case IN_LIST -> query.setParameterList("ids", LongStream.rangeClosed(1, 20).boxed().toList());
+                case OPTIMISTIC_LOCK_UPDATE -> query.setParameter("title", "War and Peace")
+                        .setParameter("newVersion", 2)
+                        .setParameter("id", 1L)
+                        .setParameter("version", 1);
+                case BULK_DELETE -> query.setParameter("year", 1900);
+            }
+            var sqmTranslatorFactory = sessionFactory.getQueryEngine().getSqmTranslatorFactory();
+            var sqmStatement = query.getSqmStatement();
+            if (sqmStatement instanceof SqmSelectStatement<?> sqmSelectStatement) {
+                return sqmTranslatorFactory.createSelectTranslator(
+                        sqmSelectStatement,
+                        query.getQueryOptions(),
+                        query.getDomainParameterXref(),
+                        query.getQueryParameterBindings(),
+                        session.getLoadQueryInfluencers(),
+                        sessionFactory,
+                        false
+                ).translate().getSqlAst();
+            }
+            return sqmTranslatorFactory.createMutationTranslator(
+                    (SqmDmlStatement<?>) sqmStatement,
+                    query.getQueryOptions(),
+                    query.getDomainParameterXref(),
+                    query.getQueryParameterBindings(),
+                    session.getLoadQueryInfluencers(),
+                    sessionFactory
+            ).translate().getSqlAst();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.hibernate.omm.benchmark.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@Entity(name = "Book")
+@Table(name = "books")
+public class Book {
+    @Id
+    public Long id;
+
+    public String title;
+
+    public String author;
+
+    public int publicationYear;
+
+    @Version
+    public int version;
+}
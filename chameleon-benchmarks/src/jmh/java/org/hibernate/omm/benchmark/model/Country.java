@@ -0,0 +1,18 @@
+package org.hibernate.omm.benchmark.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@Entity(name = "Country")
+@Table(name = "countries")
+public class Country {
+    @Id
+    public int id;
+
+    public String name;
+}
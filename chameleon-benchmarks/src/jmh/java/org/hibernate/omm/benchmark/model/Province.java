@@ -0,0 +1,22 @@
+package org.hibernate.omm.benchmark.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@Entity(name = "Province")
+@Table(name = "provinces")
+public class Province {
+    @Id
+    public int id;
+
+    @ManyToOne
+    public Country country;
+
+    public String name;
+}
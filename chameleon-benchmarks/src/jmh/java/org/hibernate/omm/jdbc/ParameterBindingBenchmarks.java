@@ -0,0 +1,120 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.BsonDocument;
+import org.hibernate.omm.metrics.MongoMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of binding the JDBC parameters of a {@link MongoPreparedStatement} and producing the command to send, i.e.
+ * the {@code setXxx()} calls Hibernate makes followed by {@link MongoPreparedStatement#getDeParameterizedBsonCommand()}.
+ * <p>
+ * The {@link MongoClient} connects lazily and the {@link ClientSession} is a stub failing on any use, as no command is
+ * executed.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParameterBindingBenchmarks {
+
+    private static final int IN_LIST_SIZE = 20;
+
+    private static final Timestamp PUBLISHED_AT = new Timestamp(1_700_000_000_000L);
+
+    private static final BigDecimal PRICE = new BigDecimal("1234.56");
+
+    private static final String[] TAGS = {"classic", "novel", "russian", "war"};
+
+    public enum Shape {
+        FIND_BY_ID("{ find: \"books\", filter: { _id: { $eq: ? } }, projection: { f0: \"$_id\", f1: \"$title\", _id: 0 } }"),
+        INSERT("{ insert: \"books\", documents: [ { _id: ?, title: ?, author: ?, price: ?, publishedAt: ?, tags: ? } ] }"),
+        IN_LIST("{ find: \"books\", filter: { _id: { $in: [" + "?, ".repeat(IN_LIST_SIZE - 1)
+                + "?] } }, projection: { f0: \"$_id\", f1: \"$title\", _id: 0 } }");
+
+        private final String command;
+
+        Shape(String command) {
+            this.command = command;
+        }
+    }
+
+    @Param
+    public Shape shape;
+
+    private MongoClient mongoClient;
+
+    private MongoPreparedStatement preparedStatement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        mongoClient = MongoClients.create("mongodb://localhost:27017");
+        var mongoDatabase = mongoClient.getDatabase("benchmark");
+        var clientSession = (ClientSession) Proxy.newProxyInstance(
+                ClientSession.class.getClassLoader(),
+                new Class<?>[] {ClientSession.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+        var connection = new MongoConnection(
+                mongoDatabase,
+                clientSession,
+                new MongoCommandTemplateCache(MongoCommandTemplateCache.DEFAULT_MAX_SIZE),
+                MongoConnectionSettings.DEFAULT,
+                new MongoServerInfoTracker(),
+                new MongoTransactionRetryPolicy(
+                        MongoTransactionRetryPolicy.DEFAULT_MAX_ATTEMPTS,
+                        MongoTransactionRetryPolicy.DEFAULT_INITIAL_BACKOFF_MILLIS,
+                        MongoTransactionRetryPolicy.DEFAULT_MAX_BACKOFF_MILLIS
+                ),
+                MongoMetrics.NOOP
+        );
+        preparedStatement = (MongoPreparedStatement) connection.prepareStatement(shape.command);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public BsonDocument bind() throws SQLException {
+        switch (shape) {
+            case FIND_BY_ID -> preparedStatement.setLong(1, 1L);
+            case INSERT -> {
+                preparedStatement.setLong(1, 1L);
+                preparedStatement.setString(2, "War and Peace");
+                preparedStatement.setString(3, "Leo Tolstoy");
+                preparedStatement.setBigDecimal(4, PRICE);
+                preparedStatement.setTimestamp(5, PUBLISHED_AT);
+                preparedStatement.setArray(6, new MongoArray(TAGS, "VARCHAR"));
+            }
+            case IN_LIST -> {
+                for (int i = 1; i <= IN_LIST_SIZE; i++) {
+                    preparedStatement.setLong(i, i);
+                }
+            }
+        }
+        return preparedStatement.getDeParameterizedBsonCommand();
+    }
+}
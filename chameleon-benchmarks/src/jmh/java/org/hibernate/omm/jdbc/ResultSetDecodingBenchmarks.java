@@ -0,0 +1,154 @@
+package org.hibernate.omm.jdbc;
+
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.types.Decimal128;
+import org.hibernate.omm.memory.InMemoryCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading every column of every row of a {@link MongoResultSet} through the getter Hibernate would call for
+ * the column's type, over an in-memory cursor of {@value #ROW_COUNT} pre-encoded rows; one operation is one result set.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultSetDecodingBenchmarks {
+
+    private static final int ROW_COUNT = 100;
+
+    @FunctionalInterface
+    private interface ColumnGetter {
+        Object get(ResultSet resultSet, int columnIndex) throws SQLException;
+    }
+
+    private record Column(ColumnGetter getter, BsonValue value) {
+    }
+
+    public enum Shape {
+        /**
+         * {@code id}, {@code title} and {@code publicationYear} of a book.
+         */
+        NARROW,
+        /**
+         * 32 columns of mixed scalar types.
+         */
+        WIDE,
+        /**
+         * Embedded array fields besides the id.
+         */
+        ARRAY,
+        /**
+         * Monetary columns stored as {@code Decimal128}.
+         */
+        DECIMAL128
+    }
+
+    @Param
+    public Shape shape;
+
+    private RawBsonDocument[] documents;
+
+    private List<String> fieldNames;
+
+    private ColumnGetter[] getters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var columns = getColumns(shape);
+        fieldNames = new ArrayList<>(columns.size());
+        getters = new ColumnGetter[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            fieldNames.add("f" + i);
+            getters[i] = columns.get(i).getter();
+        }
+        documents = new RawBsonDocument[ROW_COUNT];
+        var codec = new BsonDocumentCodec();
+        for (int row = 0; row < ROW_COUNT; row++) {
+            var document = new BsonDocument();
+            for (int i = 0; i < columns.size(); i++) {
+                document.append(fieldNames.get(i), columns.get(i).value());
+            }
+            documents[row] = new RawBsonDocument(document, codec);
+        }
+    }
+
+    @Benchmark
+    public void readAllColumns(Blackhole blackhole) throws SQLException {
+        try (var resultSet = new MongoResultSet(new InMemoryCursor<>(Arrays.asList(documents).iterator()), fieldNames)) {
+            while (resultSet.next()) {
+                for (int i = 0; i < getters.length; i++) {
+                    blackhole.consume(getters[i].get(resultSet, i + 1));
+                }
+            }
+        }
+    }
+
+    private static List<Column> getColumns(Shape shape) {
+        return switch (shape) {
+            case NARROW -> List.of(
+                    new Column(ResultSet::getLong, new BsonInt64(1L)),
+                    new Column(ResultSet::getString, new BsonString("War and Peace")),
+                    new Column(ResultSet::getInt, new BsonInt32(1869))
+            );
+            case WIDE -> {
+                var columns = new ArrayList<Column>(32);
+                for (int i = 0; i < 8; i++) {
+                    columns.add(new Column(ResultSet::getLong, new BsonInt64(i)));
+                    columns.add(new Column(ResultSet::getString, new BsonString("value of column " + i)));
+                    columns.add(new Column(ResultSet::getDouble, new BsonDouble(i + 0.5)));
+                    columns.add(new Column(ResultSet::getTimestamp, new BsonDateTime(1_700_000_000_000L + i)));
+                }
+                yield columns;
+            }
+            case ARRAY -> {
+                var tags = new BsonArray();
+                var ratings = new BsonArray();
+                for (int i = 0; i < 10; i++) {
+                    tags.add(new BsonString("tag" + i));
+                    ratings.add(new BsonInt32(i));
+                }
+                yield List.of(
+                        new Column(ResultSet::getLong, new BsonInt64(1L)),
+                        new Column(ResultSet::getArray, tags),
+                        new Column(ResultSet::getArray, ratings)
+                );
+            }
+            case DECIMAL128 -> List.of(
+                    new Column(ResultSet::getLong, new BsonInt64(1L)),
+                    new Column(ResultSet::getBigDecimal, new BsonDecimal128(new Decimal128(new BigDecimal("1234.56")))),
+                    new Column(ResultSet::getBigDecimal, new BsonDecimal128(new Decimal128(new BigDecimal("0.0725")))),
+                    new Column(ResultSet::getBigDecimal, new BsonDecimal128(new Decimal128(new BigDecimal("99999999.99"))))
+            );
+        };
+    }
+}
@@ -0,0 +1,437 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonNull;
+import org.bson.BsonNumber;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Executor of the aggregation pipelines emitted by Chameleon, supporting stages {@code $match}, {@code $project},
+ * {@code $addFields}/{@code $set}, {@code $sort}, {@code $skip}, {@code $limit}, {@code $unwind}, {@code $lookup}
+ * (equality and/or {@code let}/{@code pipeline} forms), {@code $group}, {@code $count}, {@code $facet},
+ * {@code $replaceRoot} and {@code $merge} (on {@code _id}).
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class AggregationPipeline {
+
+    private static final String MATCH_STAGE_NAME = "$match";
+    private static final String MERGE_STAGE_NAME = "$merge";
+
+    private final InMemoryMongoDatabase database;
+
+    AggregationPipeline(InMemoryMongoDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Run the pipeline against the collection; a leading {@code $match} stage is served by its indexes.
+     *
+     * @param store the collection; {@code null} if it doesn't exist
+     */
+    List<BsonDocument> execute(@Nullable DocumentStore store, List<BsonDocument> pipeline,
+            Map<String, BsonValue> variables) {
+        var stages = pipeline;
+        var filter = new BsonDocument();
+        if (!stages.isEmpty() && stages.get(0).containsKey(MATCH_STAGE_NAME)) {
+            filter = stages.get(0).getDocument(MATCH_STAGE_NAME);
+            stages = stages.subList(1, stages.size());
+        }
+        List<BsonDocument> documents = new ArrayList<>();
+        if (store != null) {
+            for (BsonDocument document : store.find(filter, variables)) {
+                documents.add(InMemoryCodecs.copy(document));
+            }
+        }
+        return execute(documents, stages, variables);
+    }
+
+    private List<BsonDocument> execute(List<BsonDocument> documents, List<BsonDocument> stages,
+            Map<String, BsonValue> variables) {
+        for (int i = 0; i < stages.size(); i++) {
+            var stage = stages.get(i);
+            if (stage.size() != 1) {
+                throw InMemoryErrors.badValue("A pipeline stage specification object must contain exactly one field");
+            }
+            var stageName = stage.getFirstKey();
+            if (MERGE_STAGE_NAME.equals(stageName) && i != stages.size() - 1) {
+                throw InMemoryErrors.badValue("$merge can only be the final stage in the pipeline");
+            }
+            var specification = stage.get(stageName);
+            documents = switch (stageName) {
+                case MATCH_STAGE_NAME -> match(documents, specification.asDocument(), variables);
+                case "$project" -> project(documents, specification.asDocument(), variables);
+                case "$addFields", "$set" -> addFields(documents, specification.asDocument(), variables);
+                case "$sort" -> sort(documents, specification.asDocument());
+                case "$skip" -> documents.subList(Math.min(specification.asNumber().intValue(), documents.size()),
+                        documents.size());
+                case "$limit" -> documents.subList(0, Math.min(specification.asNumber().intValue(), documents.size()));
+                case "$unwind" -> unwind(documents, specification);
+                case "$lookup" -> lookup(documents, specification.asDocument(), variables);
+                case "$group" -> group(documents, specification.asDocument(), variables);
+                case "$count" -> documents.isEmpty()
+                        ? List.of()
+                        : List.of(new BsonDocument(specification.asString().getValue(), new BsonInt32(documents.size())));
+                case "$facet" -> List.of(facet(documents, specification.asDocument(), variables));
+                case "$replaceRoot" -> replaceRoot(documents, specification.asDocument(), variables);
+                case MERGE_STAGE_NAME -> merge(documents, specification);
+                default -> throw InMemoryErrors.badValue("Unrecognized pipeline stage name: '" + stageName + "'");
+            };
+        }
+        return documents;
+    }
+
+    private static List<BsonDocument> match(List<BsonDocument> documents, BsonDocument filter,
+            Map<String, BsonValue> variables) {
+        var result = new ArrayList<BsonDocument>(documents.size());
+        for (BsonDocument document : documents) {
+            if (FilterMatcher.matches(document, filter, variables)) {
+                result.add(document);
+            }
+        }
+        return result;
+    }
+
+    private static List<BsonDocument> project(List<BsonDocument> documents, BsonDocument projection,
+            Map<String, BsonValue> variables) {
+        var result = new ArrayList<BsonDocument>(documents.size());
+        for (BsonDocument document : documents) {
+            result.add(Projection.apply(document, projection, variables));
+        }
+        return result;
+    }
+
+    private static List<BsonDocument> addFields(List<BsonDocument> documents, BsonDocument fields,
+            Map<String, BsonValue> variables) {
+        for (BsonDocument document : documents) {
+            var values = new LinkedHashMap<String, BsonValue>();
+            for (Map.Entry<String, BsonValue> field : fields.entrySet()) {
+                values.put(field.getKey(), ExpressionEvaluator.evaluate(field.getValue(), document, variables));
+            }
+            values.forEach((path, value) -> {
+                if (value == null) {
+                    FieldPaths.removeValue(document, path);
+                } else {
+                    FieldPaths.setValue(document, path, value);
+                }
+            });
+        }
+        return documents;
+    }
+
+    private BsonDocument facet(List<BsonDocument> documents, BsonDocument facets, Map<String, BsonValue> variables) {
+        var result = new BsonDocument();
+        for (Map.Entry<String, BsonValue> facet : facets.entrySet()) {
+            var input = new ArrayList<BsonDocument>(documents.size());
+            for (BsonDocument document : documents) {
+                input.add(InMemoryCodecs.copy(document));
+            }
+            var stages = new ArrayList<BsonDocument>();
+            for (BsonValue stage : facet.getValue().asArray()) {
+                stages.add(stage.asDocument());
+            }
+            result.put(facet.getKey(), new BsonArray(execute(input, stages, variables)));
+        }
+        return result;
+    }
+
+    private static List<BsonDocument> replaceRoot(List<BsonDocument> documents, BsonDocument specification,
+            Map<String, BsonValue> variables) {
+        var result = new ArrayList<BsonDocument>(documents.size());
+        for (BsonDocument document : documents) {
+            var newRoot = ExpressionEvaluator.evaluate(specification.get("newRoot", BsonNull.VALUE), document, variables);
+            if (newRoot == null || !newRoot.isDocument()) {
+                throw InMemoryErrors.badValue("'newRoot' expression must evaluate to an object");
+            }
+            result.add(newRoot.asDocument());
+        }
+        return result;
+    }
+
+    /**
+     * Write the documents into the target collection, matched on {@code _id} (the only {@code on} field
+     * supported), outside of any transaction as {@code $merge} is not allowed in one.
+     *
+     * @return no document, as {@code $merge} outputs nothing
+     */
+    private List<BsonDocument> merge(List<BsonDocument> documents, BsonValue specification) {
+        var mergeSpecification = specification.isString()
+                ? new BsonDocument("into", specification)
+                : specification.asDocument();
+        var into = mergeSpecification.get("into");
+        var collectionName = into.isString()
+                ? into.asString().getValue()
+                : into.asDocument().getString("coll").getValue();
+        var on = mergeSpecification.get("on", new BsonString(DocumentStore.ID_FIELD_NAME));
+        if (!on.equals(new BsonString(DocumentStore.ID_FIELD_NAME))
+                && !on.equals(new BsonArray(List.of(new BsonString(DocumentStore.ID_FIELD_NAME))))) {
+            throw InMemoryErrors.badValue("$merge on fields other than _id not supported by in-memory backend");
+        }
+        var whenMatched = mergeSpecification.get("whenMatched", new BsonString("merge"));
+        if (!whenMatched.isString()) {
+            throw InMemoryErrors.badValue("$merge whenMatched pipeline not supported by in-memory backend");
+        }
+        var whenNotMatched = mergeSpecification.getString("whenNotMatched", new BsonString("insert")).getValue();
+
+        var store = database.getOrCreateStore(collectionName);
+        for (BsonDocument document : documents) {
+            var id = document.get(DocumentStore.ID_FIELD_NAME);
+            var idFilter = id == null
+                    ? null
+                    : new BsonDocument(DocumentStore.ID_FIELD_NAME, new BsonDocument("$eq", id));
+            if (idFilter == null || store.find(idFilter, Map.of()).isEmpty()) {
+                switch (whenNotMatched) {
+                    case "insert" -> store.insert(document, null);
+                    case "discard" -> {
+                    }
+                    case "fail" -> throw InMemoryErrors.mergeNoMatchingDocument();
+                    default -> throw InMemoryErrors.badValue("invalid $merge whenNotMatched: " + whenNotMatched);
+                }
+                continue;
+            }
+            switch (whenMatched.asString().getValue()) {
+                case "fail" -> store.insert(document, null);
+                case "keepExisting" -> {
+                }
+                case "replace" -> {
+                    store.delete(idFilter, false, null);
+                    store.insert(document, null);
+                }
+                case "merge" -> {
+                    var fields = InMemoryCodecs.copy(document);
+                    fields.remove(DocumentStore.ID_FIELD_NAME);
+                    if (!fields.isEmpty()) {
+                        store.update(idFilter, new BsonDocument("$set", fields), false, null);
+                    }
+                }
+                default -> throw InMemoryErrors.badValue("invalid $merge whenMatched: " + whenMatched.asString().getValue());
+            }
+        }
+        return List.of();
+    }
+
+    static List<BsonDocument> sort(List<BsonDocument> documents, BsonDocument sort) {
+        Comparator<BsonDocument> comparator = (document1, document2) -> 0;
+        for (Map.Entry<String, BsonValue> entry : sort.entrySet()) {
+            var path = entry.getKey();
+            Comparator<BsonDocument> fieldComparator = (document1, document2) -> BsonValueComparator.INSTANCE.compare(
+                    FieldPaths.getValue(document1, path), FieldPaths.getValue(document2, path));
+            comparator = comparator.thenComparing(entry.getValue().asNumber().intValue() < 0
+                    ? fieldComparator.reversed()
+                    : fieldComparator);
+        }
+        var result = new ArrayList<>(documents);
+        result.sort(comparator);
+        return result;
+    }
+
+    private static List<BsonDocument> unwind(List<BsonDocument> documents, BsonValue specification) {
+        String path;
+        boolean preserveNullAndEmptyArrays = false;
+        if (specification.isDocument()) {
+            path = specification.asDocument().getString("path").getValue();
+            preserveNullAndEmptyArrays = specification.asDocument()
+                    .getBoolean("preserveNullAndEmptyArrays", BsonBoolean.FALSE).getValue();
+        } else {
+            path = specification.asString().getValue();
+        }
+        if (!path.startsWith("$")) {
+            throw InMemoryErrors.badValue("path option to $unwind stage should be prefixed with a '$': " + path);
+        }
+        path = path.substring(1);
+        var result = new ArrayList<BsonDocument>(documents.size());
+        for (BsonDocument document : documents) {
+            var value = FieldPaths.getValue(document, path);
+            if (value != null && value.isArray() && !value.asArray().isEmpty()) {
+                var elements = value.asArray();
+                for (int i = 0; i < elements.size(); i++) {
+                    var unwound = i == elements.size() - 1 ? document : InMemoryCodecs.copy(document);
+                    FieldPaths.setValue(unwound, path, elements.get(i));
+                    result.add(unwound);
+                }
+            } else if (value != null && !value.isNull() && !value.isArray()) {
+                result.add(document);
+            } else if (preserveNullAndEmptyArrays) {
+                if (value != null && value.isArray()) {
+                    FieldPaths.removeValue(document, path);
+                }
+                result.add(document);
+            }
+        }
+        return result;
+    }
+
+    private List<BsonDocument> lookup(List<BsonDocument> documents, BsonDocument specification,
+            Map<String, BsonValue> variables) {
+        var foreignStore = database.getStore(specification.getString("from").getValue());
+        var as = specification.getString("as").getValue();
+        var localField = specification.containsKey("localField") ? specification.getString("localField").getValue() : null;
+        var foreignField = specification.containsKey("foreignField") ? specification.getString("foreignField").getValue() : null;
+        var let = specification.getDocument("let", new BsonDocument());
+        var pipeline = new ArrayList<BsonDocument>();
+        if (specification.containsKey("pipeline")) {
+            specification.getArray("pipeline").forEach(stage -> pipeline.add(stage.asDocument()));
+        }
+        for (BsonDocument document : documents) {
+            Map<String, BsonValue> lookupVariables = variables;
+            if (!let.isEmpty()) {
+                lookupVariables = new HashMap<>(variables);
+                for (Map.Entry<String, BsonValue> entry : let.entrySet()) {
+                    var value = ExpressionEvaluator.evaluate(entry.getValue(), document, variables);
+                    lookupVariables.put(entry.getKey(), value == null ? BsonNull.VALUE : value);
+                }
+            }
+            var foreignPipeline = pipeline;
+            if (localField != null && foreignField != null) {
+                var localValues = new BsonArray();
+                for (BsonValue value : FieldPaths.getQueryValues(document, localField)) {
+                    if (value.isArray()) {
+                        localValues.addAll(value.asArray());
+                    } else {
+                        localValues.add(value);
+                    }
+                }
+                if (localValues.isEmpty()) {
+                    localValues.add(BsonNull.VALUE);
+                }
+                var equalityMatch = new BsonDocument(MATCH_STAGE_NAME,
+                        new BsonDocument(foreignField, new BsonDocument("$in", localValues)));
+                foreignPipeline = new ArrayList<>(pipeline.size() + 1);
+                foreignPipeline.add(equalityMatch);
+                foreignPipeline.addAll(pipeline);
+            }
+            var matched = execute(foreignStore, foreignPipeline, lookupVariables);
+            FieldPaths.setValue(document, as, new BsonArray(new ArrayList<>(matched)));
+        }
+        return documents;
+    }
+
+    private static List<BsonDocument> group(List<BsonDocument> documents, BsonDocument specification,
+            Map<String, BsonValue> variables) {
+        if (!specification.containsKey(DocumentStore.ID_FIELD_NAME)) {
+            throw InMemoryErrors.badValue("a group specification must include an _id");
+        }
+        var idExpression = specification.get(DocumentStore.ID_FIELD_NAME);
+        var groups = new TreeMap<BsonValue, Map<String, Accumulator>>(BsonValueComparator.INSTANCE);
+        for (BsonDocument document : documents) {
+            var key = ExpressionEvaluator.evaluate(idExpression, document, variables);
+            var accumulators = groups.computeIfAbsent(key == null ? BsonNull.VALUE : key, ignored -> {
+                var created = new LinkedHashMap<String, Accumulator>();
+                for (Map.Entry<String, BsonValue> entry : specification.entrySet()) {
+                    if (!DocumentStore.ID_FIELD_NAME.equals(entry.getKey())) {
+                        var accumulatorDocument = entry.getValue().asDocument();
+                        created.put(entry.getKey(), new Accumulator(accumulatorDocument.getFirstKey(),
+                                accumulatorDocument.get(accumulatorDocument.getFirstKey())));
+                    }
+                }
+                return created;
+            });
+            for (Accumulator accumulator : accumulators.values()) {
+                accumulator.accumulate(document, variables);
+            }
+        }
+        var result = new ArrayList<BsonDocument>(groups.size());
+        groups.forEach((key, accumulators) -> {
+            var document = new BsonDocument(DocumentStore.ID_FIELD_NAME, key);
+            accumulators.forEach((field, accumulator) -> document.put(field, accumulator.getResult()));
+            result.add(document);
+        });
+        return result;
+    }
+
+    private static final class Accumulator {
+        private final String operator;
+        private final BsonValue expression;
+        private final BsonArray values = new BsonArray();
+        @Nullable
+        private BsonNumber sum;
+        private long count;
+        @Nullable
+        private BsonValue value;
+        private boolean accumulated;
+
+        Accumulator(String operator, BsonValue expression) {
+            switch (operator) {
+                case "$sum", "$avg", "$min", "$max", "$first", "$last", "$push", "$count" -> {
+                }
+                default -> throw InMemoryErrors.badValue("unknown group operator '" + operator + "'");
+            }
+            this.operator = operator;
+            this.expression = expression;
+        }
+
+        void accumulate(BsonDocument document, Map<String, BsonValue> variables) {
+            if ("$count".equals(operator)) {
+                count++;
+                return;
+            }
+            var evaluated = ExpressionEvaluator.evaluate(expression, document, variables);
+            switch (operator) {
+                case "$sum", "$avg" -> {
+                    if (evaluated != null && evaluated.isNumber()) {
+                        sum = sum == null ? evaluated.asNumber() : ExpressionEvaluator.applyArithmetic("$add", sum, evaluated.asNumber());
+                        count++;
+                    }
+                }
+                case "$min", "$max" -> {
+                    if (evaluated != null && !evaluated.isNull()) {
+                        int result = value == null ? 0 : BsonValueComparator.INSTANCE.compare(evaluated, value);
+                        if (value == null || ("$min".equals(operator) ? result < 0 : result > 0)) {
+                            value = evaluated;
+                        }
+                    }
+                }
+                case "$first" -> {
+                    if (!accumulated) {
+                        value = evaluated;
+                    }
+                }
+                case "$last" -> value = evaluated;
+                default -> {
+                    if (evaluated != null) {
+                        values.add(evaluated);
+                    }
+                }
+            }
+            accumulated = true;
+        }
+
+        BsonValue getResult() {
+            return switch (operator) {
+                case "$sum" -> sum == null ? new BsonInt32(0) : sum;
+                case "$avg" -> {
+                    if (sum == null) {
+                        yield BsonNull.VALUE;
+                    }
+                    if (sum.isDecimal128()) {
+                        yield new BsonDecimal128(new Decimal128(sum.decimal128Value().bigDecimalValue()
+                                .divide(BigDecimal.valueOf(count), MathContext.DECIMAL128)));
+                    }
+                    yield new BsonDouble(sum.doubleValue() / count);
+                }
+                case "$count" -> new BsonInt32((int) count);
+                case "$push" -> values;
+                default -> value == null ? BsonNull.VALUE : value;
+            };
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonBinary;
+import org.bson.BsonDocument;
+import org.bson.BsonNull;
+import org.bson.BsonNumber;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Total order of {@link BsonValue}s following MongoDB's comparison/sort order: values of different types are ordered
+ * by type bracket first (e.g. numbers before strings), and numbers of different types are compared by value, so
+ * {@code 1}, {@code NumberLong(1)} and {@code 1.0} are equal. Missing value ({@code null}) is ordered as BSON null.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class BsonValueComparator implements Comparator<BsonValue> {
+
+    static final BsonValueComparator INSTANCE = new BsonValueComparator();
+
+    private BsonValueComparator() {
+    }
+
+    /**
+     * @return the type bracket of the value; only values of the same bracket are comparable by query operators
+     */
+    static int getTypeBracket(@Nullable BsonValue value) {
+        if (value == null) {
+            return 2;
+        }
+        return switch (value.getBsonType()) {
+            case MIN_KEY -> 1;
+            case NULL, UNDEFINED -> 2;
+            case INT32, INT64, DOUBLE, DECIMAL128 -> 3;
+            case SYMBOL, STRING -> 4;
+            case DOCUMENT -> 5;
+            case ARRAY -> 6;
+            case BINARY -> 7;
+            case OBJECT_ID -> 8;
+            case BOOLEAN -> 9;
+            case DATE_TIME -> 10;
+            case TIMESTAMP -> 11;
+            case REGULAR_EXPRESSION -> 12;
+            case MAX_KEY -> 14;
+            default -> 13;
+        };
+    }
+
+    static boolean isEqual(@Nullable BsonValue value1, @Nullable BsonValue value2) {
+        return INSTANCE.compare(value1, value2) == 0;
+    }
+
+    @Override
+    public int compare(@Nullable BsonValue value1, @Nullable BsonValue value2) {
+        int bracket1 = getTypeBracket(value1);
+        int bracket2 = getTypeBracket(value2);
+        if (bracket1 != bracket2) {
+            return Integer.compare(bracket1, bracket2);
+        }
+        if (value1 == null || value2 == null) {
+            return 0;
+        }
+        return switch (bracket1) {
+            case 3 -> compareNumbers(value1.asNumber(), value2.asNumber());
+            case 4 -> getString(value1).compareTo(getString(value2));
+            case 5 -> compareDocuments(value1.asDocument(), value2.asDocument());
+            case 6 -> compareArrays(value1.asArray(), value2.asArray());
+            case 7 -> compareBinaries(value1.asBinary(), value2.asBinary());
+            case 8 -> value1.asObjectId().getValue().compareTo(value2.asObjectId().getValue());
+            case 9 -> Boolean.compare(value1.asBoolean().getValue(), value2.asBoolean().getValue());
+            case 10 -> Long.compare(value1.asDateTime().getValue(), value2.asDateTime().getValue());
+            case 11 -> value1.asTimestamp().compareTo(value2.asTimestamp());
+            case 12 -> compareRegularExpressions(value1.asRegularExpression(), value2.asRegularExpression());
+            case 13 -> value1.toString().compareTo(value2.toString());
+            default -> 0;
+        };
+    }
+
+    private static String getString(BsonValue value) {
+        return value.getBsonType() == BsonType.SYMBOL ? value.asSymbol().getSymbol() : value.asString().getValue();
+    }
+
+    static int compareNumbers(BsonNumber number1, BsonNumber number2) {
+        if (isIntegral(number1) && isIntegral(number2)) {
+            return Long.compare(number1.longValue(), number2.longValue());
+        }
+        if (number1.isDecimal128() || number2.isDecimal128()) {
+            var decimal1 = toBigDecimal(number1);
+            var decimal2 = toBigDecimal(number2);
+            if (decimal1 != null && decimal2 != null) {
+                return decimal1.compareTo(decimal2);
+            }
+        }
+        return Double.compare(number1.doubleValue(), number2.doubleValue());
+    }
+
+    private static boolean isIntegral(BsonNumber number) {
+        return number.isInt32() || number.isInt64();
+    }
+
+    @Nullable
+    private static BigDecimal toBigDecimal(BsonNumber number) {
+        if (number.isDecimal128()) {
+            var decimal128 = number.asDecimal128().getValue();
+            return decimal128.isNaN() || decimal128.isInfinite() ? null : decimal128.bigDecimalValue();
+        }
+        if (isIntegral(number)) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        var value = number.doubleValue();
+        return Double.isNaN(value) || Double.isInfinite(value) ? null : BigDecimal.valueOf(value);
+    }
+
+    private int compareDocuments(BsonDocument document1, BsonDocument document2) {
+        Iterator<Map.Entry<String, BsonValue>> iterator1 = document1.entrySet().iterator();
+        Iterator<Map.Entry<String, BsonValue>> iterator2 = document2.entrySet().iterator();
+        while (iterator1.hasNext() && iterator2.hasNext()) {
+            var entry1 = iterator1.next();
+            var entry2 = iterator2.next();
+            int result = Integer.compare(getTypeBracket(entry1.getValue()), getTypeBracket(entry2.getValue()));
+            if (result == 0) {
+                result = entry1.getKey().compareTo(entry2.getKey());
+            }
+            if (result == 0) {
+                result = compare(entry1.getValue(), entry2.getValue());
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Boolean.compare(iterator1.hasNext(), iterator2.hasNext());
+    }
+
+    private int compareArrays(BsonArray array1, BsonArray array2) {
+        int size = Math.min(array1.size(), array2.size());
+        for (int i = 0; i < size; i++) {
+            int result = compare(array1.get(i), array2.get(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(array1.size(), array2.size());
+    }
+
+    private static int compareBinaries(BsonBinary binary1, BsonBinary binary2) {
+        int result = Integer.compare(binary1.getData().length, binary2.getData().length);
+        if (result == 0) {
+            result = Byte.compare(binary1.getType(), binary2.getType());
+        }
+        return result == 0 ? Arrays.compareUnsigned(binary1.getData(), binary2.getData()) : result;
+    }
+
+    private static int compareRegularExpressions(BsonRegularExpression regex1, BsonRegularExpression regex2) {
+        int result = regex1.getPattern().compareTo(regex2.getPattern());
+        return result == 0 ? regex1.getOptions().compareTo(regex2.getOptions()) : result;
+    }
+
+    /**
+     * @return hash code consistent with {@link #compare}, i.e. equal values (e.g. {@code 1} and {@code 1.0}) get the
+     * same hash code
+     */
+    static int hash(@Nullable BsonValue value) {
+        if (value == null || value.isNull() || value.getBsonType() == BsonType.UNDEFINED) {
+            return BsonNull.VALUE.hashCode();
+        }
+        if (value.isNumber()) {
+            var decimal = toBigDecimal(value.asNumber());
+            return decimal == null ? Double.hashCode(value.asNumber().doubleValue()) : Double.hashCode(decimal.doubleValue());
+        }
+        if (value.isDocument()) {
+            int result = 1;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                result = 31 * result + (entry.getKey().hashCode() ^ hash(entry.getValue()));
+            }
+            return result;
+        }
+        if (value.isArray()) {
+            int result = 1;
+            for (BsonValue element : value.asArray()) {
+                result = 31 * result + hash(element);
+            }
+            return result;
+        }
+        if (value.getBsonType() == BsonType.SYMBOL) {
+            return value.asSymbol().getSymbol().hashCode();
+        }
+        return value.hashCode();
+    }
+}
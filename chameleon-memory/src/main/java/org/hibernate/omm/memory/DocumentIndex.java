@@ -0,0 +1,132 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.bson.BsonDocument;
+import org.bson.BsonNull;
+import org.bson.BsonValue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Single field secondary index of {@link DocumentStore}, mapping field values to the {@code _id}s of the documents
+ * holding them: either hashed (equality lookups only) or ordered (range scans too). Arrays are indexed by their
+ * elements as well as a whole (multikey), and missing fields as {@code null}.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class DocumentIndex {
+
+    private final String name;
+    private final String fieldPath;
+    private final boolean unique;
+    private final Map<IndexKey, Set<IndexKey>> entries;
+
+    DocumentIndex(String name, String fieldPath, boolean ordered, boolean unique) {
+        this.name = name;
+        this.fieldPath = fieldPath;
+        this.unique = unique;
+        this.entries = ordered
+                ? new TreeMap<>((key1, key2) -> BsonValueComparator.INSTANCE.compare(key1.value(), key2.value()))
+                : new HashMap<>();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getFieldPath() {
+        return fieldPath;
+    }
+
+    boolean isOrdered() {
+        return entries instanceof NavigableMap;
+    }
+
+    private Set<BsonValue> getKeys(BsonDocument document) {
+        var keys = new HashSet<BsonValue>();
+        var values = FieldPaths.getQueryValues(document, fieldPath);
+        if (values.isEmpty()) {
+            keys.add(BsonNull.VALUE);
+        }
+        for (BsonValue value : values) {
+            keys.add(value);
+            if (value.isArray()) {
+                keys.addAll(value.asArray());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return the first key violating uniqueness if the document were added; {@code null} if none
+     */
+    @Nullable
+    BsonValue findDuplicateKey(BsonDocument document, IndexKey id) {
+        if (!unique) {
+            return null;
+        }
+        for (BsonValue key : getKeys(document)) {
+            var ids = entries.get(new IndexKey(key));
+            if (ids != null && (ids.size() > 1 || !ids.contains(id))) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    void add(BsonDocument document, IndexKey id) {
+        for (BsonValue key : getKeys(document)) {
+            entries.computeIfAbsent(new IndexKey(key), ignored -> new LinkedHashSet<>()).add(id);
+        }
+    }
+
+    void remove(BsonDocument document, IndexKey id) {
+        for (BsonValue key : getKeys(document)) {
+            var entryKey = new IndexKey(key);
+            var ids = entries.get(entryKey);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    entries.remove(entryKey);
+                }
+            }
+        }
+    }
+
+    void lookup(BsonValue value, Collection<IndexKey> result) {
+        var ids = entries.get(new IndexKey(value));
+        if (ids != null) {
+            result.addAll(ids);
+        }
+    }
+
+    /**
+     * Range scan of ordered index; the bounds are inclusive if so flagged, and {@code null} means unbounded.
+     */
+    void scan(@Nullable BsonValue lower, boolean lowerInclusive, @Nullable BsonValue upper, boolean upperInclusive,
+            Collection<IndexKey> result) {
+        var navigableEntries = (NavigableMap<IndexKey, Set<IndexKey>>) entries;
+        NavigableMap<IndexKey, Set<IndexKey>> range;
+        if (lower != null && upper != null) {
+            if (BsonValueComparator.INSTANCE.compare(lower, upper) > 0) {
+                return;
+            }
+            range = navigableEntries.subMap(new IndexKey(lower), lowerInclusive, new IndexKey(upper), upperInclusive);
+        } else if (lower != null) {
+            range = navigableEntries.tailMap(new IndexKey(lower), lowerInclusive);
+        } else if (upper != null) {
+            range = navigableEntries.headMap(new IndexKey(upper), upperInclusive);
+        } else {
+            range = navigableEntries;
+        }
+        range.values().forEach(result::addAll);
+    }
+}
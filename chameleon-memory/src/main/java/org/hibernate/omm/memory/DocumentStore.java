@@ -0,0 +1,317 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Documents of an in-memory collection, hashed by {@code _id} in insertion (natural) order, plus the secondary
+ * {@link DocumentIndex}es created on it.
+ * <p>
+ * A query is answered by the first top-level (or {@code $and}ed) field condition some index could serve: equality
+ * or {@code $in} by {@code _id} or any index, or range by ordered index; the candidates are then filtered by the
+ * whole filter, so indexes only narrow the scan down. Otherwise the collection is scanned.
+ * <p>
+ * Not thread-safe; {@link InMemoryMongoClient} serializes the access.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class DocumentStore {
+
+    static final String ID_FIELD_NAME = "_id";
+    private static final String ID_INDEX_NAME = "_id_";
+
+    private final String namespace;
+    private final Map<IndexKey, BsonDocument> documents = new LinkedHashMap<>();
+    private final Map<String, DocumentIndex> indexes = new LinkedHashMap<>();
+
+    /**
+     * Outcome of an update.
+     *
+     * @param matchedCount number of the documents matching the filter
+     * @param modifiedCount number of the documents actually changed
+     */
+    record UpdateOutcome(long matchedCount, long modifiedCount) {
+    }
+
+    DocumentStore(String namespace) {
+        this.namespace = namespace;
+    }
+
+    long count() {
+        return documents.size();
+    }
+
+    /**
+     * @return the stored documents matching the filter, which must not be modified or leaked
+     */
+    List<BsonDocument> find(BsonDocument filter, Map<String, BsonValue> variables) {
+        var result = new ArrayList<BsonDocument>();
+        for (BsonDocument document : getCandidates(filter)) {
+            if (FilterMatcher.matches(document, filter, variables)) {
+                result.add(document);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param document document owned by the store from now on
+     * @return the {@code _id} of the document, generated if absent
+     */
+    BsonValue insert(BsonDocument document, @Nullable InMemoryClientSession session) {
+        var id = document.get(ID_FIELD_NAME);
+        if (id == null) {
+            id = new BsonObjectId();
+        }
+        if (!ID_FIELD_NAME.equals(document.getFirstKey())) {
+            var reordered = new BsonDocument(ID_FIELD_NAME, id);
+            reordered.putAll(document);
+            document.clear();
+            document.putAll(reordered);
+        }
+        if (id.isArray()) {
+            throw InMemoryErrors.badValue("The '_id' value cannot be of type array");
+        }
+        var key = new IndexKey(id);
+        if (documents.containsKey(key)) {
+            throw InMemoryErrors.duplicateKey(namespace, ID_INDEX_NAME, new BsonDocument(ID_FIELD_NAME, id));
+        }
+        checkUniqueIndexes(document, key);
+        add(key, document);
+        if (session != null) {
+            session.recordUndo(() -> remove(key));
+        }
+        return id;
+    }
+
+    UpdateOutcome update(BsonDocument filter, BsonDocument update, boolean multi,
+            @Nullable InMemoryClientSession session) {
+        long matchedCount = 0;
+        long modifiedCount = 0;
+        for (BsonDocument document : find(filter, Map.of())) {
+            matchedCount++;
+            var updated = InMemoryCodecs.copy(document);
+            UpdateApplier.apply(updated, update);
+            var id = document.get(ID_FIELD_NAME);
+            if (!BsonValueComparator.isEqual(id, updated.get(ID_FIELD_NAME))) {
+                throw InMemoryErrors.immutableField(ID_FIELD_NAME);
+            }
+            if (!updated.equals(document)) {
+                var key = new IndexKey(id);
+                replace(key, updated);
+                if (session != null) {
+                    session.recordUndo(() -> replace(key, document));
+                }
+                modifiedCount++;
+            }
+            if (!multi) {
+                break;
+            }
+        }
+        return new UpdateOutcome(matchedCount, modifiedCount);
+    }
+
+    long delete(BsonDocument filter, boolean multi, @Nullable InMemoryClientSession session) {
+        long deletedCount = 0;
+        for (BsonDocument document : find(filter, Map.of())) {
+            var key = new IndexKey(document.get(ID_FIELD_NAME));
+            remove(key);
+            if (session != null) {
+                session.recordUndo(() -> add(key, document));
+            }
+            deletedCount++;
+            if (!multi) {
+                break;
+            }
+        }
+        return deletedCount;
+    }
+
+    /**
+     * @param keys single field index specification, i.e. {@code { field: 1 }} or {@code { field: -1 }} for ordered
+     * index, or {@code { field: "hashed" }} for hashed index
+     * @return the index name
+     */
+    String createIndex(BsonDocument keys, @Nullable String name, boolean unique) {
+        if (keys.size() != 1) {
+            throw InMemoryErrors.badValue("only single field index is supported in memory: " + keys.toJson());
+        }
+        var fieldPath = keys.getFirstKey();
+        var type = keys.get(fieldPath);
+        boolean ordered = type.isNumber();
+        if (!ordered && !(type.isString() && "hashed".equals(type.asString().getValue()))) {
+            throw InMemoryErrors.badValue("unsupported index type: " + type);
+        }
+        var indexName = name != null ? name : fieldPath + '_' + (ordered ? String.valueOf(type.asNumber().intValue()) : "hashed");
+        if (ID_INDEX_NAME.equals(indexName) || indexes.containsKey(indexName)) {
+            return indexName;
+        }
+        var index = new DocumentIndex(indexName, fieldPath, ordered, unique);
+        for (Map.Entry<IndexKey, BsonDocument> entry : documents.entrySet()) {
+            var duplicateKey = index.findDuplicateKey(entry.getValue(), entry.getKey());
+            if (duplicateKey != null) {
+                throw InMemoryErrors.duplicateKey(namespace, indexName, new BsonDocument(fieldPath, duplicateKey));
+            }
+            index.add(entry.getValue(), entry.getKey());
+        }
+        indexes.put(indexName, index);
+        return indexName;
+    }
+
+    private void checkUniqueIndexes(BsonDocument document, IndexKey key) {
+        for (DocumentIndex index : indexes.values()) {
+            var duplicateKey = index.findDuplicateKey(document, key);
+            if (duplicateKey != null) {
+                throw InMemoryErrors.duplicateKey(namespace, index.getName(),
+                        new BsonDocument(index.getFieldPath(), duplicateKey));
+            }
+        }
+    }
+
+    private void add(IndexKey key, BsonDocument document) {
+        documents.put(key, document);
+        for (DocumentIndex index : indexes.values()) {
+            index.add(document, key);
+        }
+    }
+
+    private void remove(IndexKey key) {
+        var document = documents.remove(key);
+        if (document != null) {
+            for (DocumentIndex index : indexes.values()) {
+                index.remove(document, key);
+            }
+        }
+    }
+
+    private void replace(IndexKey key, BsonDocument document) {
+        var previous = documents.get(key);
+        if (previous != null) {
+            for (DocumentIndex index : indexes.values()) {
+                index.remove(previous, key);
+            }
+        }
+        try {
+            checkUniqueIndexes(document, key);
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                for (DocumentIndex index : indexes.values()) {
+                    index.add(previous, key);
+                }
+            }
+            throw e;
+        }
+        documents.put(key, document);
+        for (DocumentIndex index : indexes.values()) {
+            index.add(document, key);
+        }
+    }
+
+    private Collection<BsonDocument> getCandidates(BsonDocument filter) {
+        var keys = planIndexScan(filter);
+        if (keys == null) {
+            return documents.values();
+        }
+        var candidates = new ArrayList<BsonDocument>(keys.size());
+        for (IndexKey key : keys) {
+            var document = documents.get(key);
+            if (document != null) {
+                candidates.add(document);
+            }
+        }
+        return candidates;
+    }
+
+    @Nullable
+    private Collection<IndexKey> planIndexScan(BsonDocument filter) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            var fieldPath = entry.getKey();
+            Collection<IndexKey> keys = null;
+            if ("$and".equals(fieldPath) && entry.getValue().isArray()) {
+                for (BsonValue clause : entry.getValue().asArray()) {
+                    keys = planIndexScan(clause.asDocument());
+                    if (keys != null) {
+                        break;
+                    }
+                }
+            } else if (!fieldPath.startsWith("$")) {
+                keys = planFieldScan(fieldPath, entry.getValue());
+            }
+            if (keys != null) {
+                return keys;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Collection<IndexKey> planFieldScan(String fieldPath, BsonValue condition) {
+        DocumentIndex index = null;
+        if (!ID_FIELD_NAME.equals(fieldPath)) {
+            index = indexes.values().stream()
+                    .filter(candidate -> candidate.getFieldPath().equals(fieldPath))
+                    .findFirst()
+                    .orElse(null);
+            if (index == null) {
+                return null;
+            }
+        }
+        var operators = condition.isDocument() && !condition.asDocument().isEmpty()
+                && condition.asDocument().getFirstKey().startsWith("$") ? condition.asDocument() : null;
+        List<BsonValue> equalValues = null;
+        if (operators == null) {
+            equalValues = List.of(condition);
+        } else if (operators.containsKey("$eq")) {
+            equalValues = List.of(operators.get("$eq"));
+        } else if (operators.get("$in") instanceof BsonArray inValues) {
+            equalValues = inValues;
+        }
+        if (equalValues != null) {
+            if (equalValues.stream().anyMatch(BsonValue::isRegularExpression)) {
+                return null;
+            }
+            var keys = new LinkedHashSet<IndexKey>();
+            for (BsonValue value : equalValues) {
+                if (index == null) {
+                    var key = new IndexKey(value);
+                    if (documents.containsKey(key)) {
+                        keys.add(key);
+                    }
+                } else {
+                    index.lookup(value, keys);
+                }
+            }
+            return keys;
+        }
+        if (index == null || !index.isOrdered()) {
+            return null;
+        }
+        BsonValue lower = null, upper = null;
+        boolean lowerInclusive = false, upperInclusive = false;
+        if (operators.containsKey("$gt") || operators.containsKey("$gte")) {
+            lowerInclusive = !operators.containsKey("$gt");
+            lower = operators.get(lowerInclusive ? "$gte" : "$gt");
+        }
+        if (operators.containsKey("$lt") || operators.containsKey("$lte")) {
+            upperInclusive = !operators.containsKey("$lt");
+            upper = operators.get(upperInclusive ? "$lte" : "$lt");
+        }
+        if (lower == null && upper == null) {
+            return null;
+        }
+        var keys = new LinkedHashSet<IndexKey>();
+        index.scan(lower, lowerInclusive, upper, upperInclusive, keys);
+        return keys;
+    }
+}
@@ -0,0 +1,272 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonNumber;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluator of the aggregation expressions emitted by Chameleon: field paths, variables ({@code $$name}), literals,
+ * comparison, boolean, conditional, arithmetic and array operators.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class ExpressionEvaluator {
+
+    private ExpressionEvaluator() {
+    }
+
+    /**
+     * @param expression aggregation expression
+     * @param current the document field paths are resolved against
+     * @param variables variables defined by {@code $lookup}'s {@code let}
+     * @return the result; {@code null} if missing
+     */
+    @Nullable
+    static BsonValue evaluate(BsonValue expression, BsonDocument current, Map<String, BsonValue> variables) {
+        if (expression.isString()) {
+            var string = expression.asString().getValue();
+            if (string.startsWith("$$")) {
+                return getVariable(string.substring(2), current, variables);
+            }
+            if (string.startsWith("$")) {
+                return FieldPaths.getValue(current, string.substring(1));
+            }
+            return expression;
+        }
+        if (expression.isArray()) {
+            var result = new BsonArray();
+            for (BsonValue element : expression.asArray()) {
+                var value = evaluate(element, current, variables);
+                result.add(value == null ? BsonNull.VALUE : value);
+            }
+            return result;
+        }
+        if (expression.isDocument()) {
+            var document = expression.asDocument();
+            if (document.size() == 1 && document.getFirstKey().startsWith("$")) {
+                var operator = document.getFirstKey();
+                return evaluateOperator(operator, document.get(operator), current, variables);
+            }
+            var result = new BsonDocument();
+            for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+                var value = evaluate(entry.getValue(), current, variables);
+                if (value != null) {
+                    result.put(entry.getKey(), value);
+                }
+            }
+            return result;
+        }
+        return expression;
+    }
+
+    @Nullable
+    private static BsonValue getVariable(String reference, BsonDocument current, Map<String, BsonValue> variables) {
+        var dot = reference.indexOf('.');
+        var name = dot < 0 ? reference : reference.substring(0, dot);
+        BsonValue value = switch (name) {
+            case "ROOT", "CURRENT" -> current;
+            case "REMOVE" -> null;
+            default -> {
+                if (!variables.containsKey(name)) {
+                    throw InMemoryErrors.badValue("Use of undefined variable: " + name);
+                }
+                yield variables.get(name);
+            }
+        };
+        return dot < 0 ? value : FieldPaths.getValue(value, reference.substring(dot + 1));
+    }
+
+    static boolean isTruthy(@Nullable BsonValue value) {
+        if (value == null || value.isNull()) {
+            return false;
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean().getValue();
+        }
+        if (value.isNumber()) {
+            return value.asNumber().doubleValue() != 0;
+        }
+        return true;
+    }
+
+    @Nullable
+    private static BsonValue evaluateOperator(String operator, BsonValue argument, BsonDocument current,
+            Map<String, BsonValue> variables) {
+        switch (operator) {
+            case "$literal":
+                return argument;
+            case "$eq", "$ne", "$gt", "$gte", "$lt", "$lte", "$cmp": {
+                var arguments = evaluateArguments(operator, argument, 2, current, variables);
+                int result = BsonValueComparator.INSTANCE.compare(arguments[0], arguments[1]);
+                return switch (operator) {
+                    case "$eq" -> BsonBoolean.valueOf(result == 0);
+                    case "$ne" -> BsonBoolean.valueOf(result != 0);
+                    case "$gt" -> BsonBoolean.valueOf(result > 0);
+                    case "$gte" -> BsonBoolean.valueOf(result >= 0);
+                    case "$lt" -> BsonBoolean.valueOf(result < 0);
+                    case "$lte" -> BsonBoolean.valueOf(result <= 0);
+                    default -> new BsonInt32(Integer.signum(result));
+                };
+            }
+            case "$and": {
+                for (BsonValue element : toArray(argument)) {
+                    if (!isTruthy(evaluate(element, current, variables))) {
+                        return BsonBoolean.FALSE;
+                    }
+                }
+                return BsonBoolean.TRUE;
+            }
+            case "$or": {
+                for (BsonValue element : toArray(argument)) {
+                    if (isTruthy(evaluate(element, current, variables))) {
+                        return BsonBoolean.TRUE;
+                    }
+                }
+                return BsonBoolean.FALSE;
+            }
+            case "$not": {
+                var arguments = evaluateArguments(operator, argument, 1, current, variables);
+                return BsonBoolean.valueOf(!isTruthy(arguments[0]));
+            }
+            case "$cond": {
+                BsonValue ifExpression, thenExpression, elseExpression;
+                if (argument.isDocument()) {
+                    ifExpression = argument.asDocument().get("if", BsonNull.VALUE);
+                    thenExpression = argument.asDocument().get("then", BsonNull.VALUE);
+                    elseExpression = argument.asDocument().get("else", BsonNull.VALUE);
+                } else {
+                    var array = toArray(argument);
+                    if (array.size() != 3) {
+                        throw InMemoryErrors.badValue("Expression $cond takes exactly 3 arguments");
+                    }
+                    ifExpression = array.get(0);
+                    thenExpression = array.get(1);
+                    elseExpression = array.get(2);
+                }
+                return evaluate(isTruthy(evaluate(ifExpression, current, variables)) ? thenExpression : elseExpression,
+                        current, variables);
+            }
+            case "$ifNull": {
+                var array = toArray(argument);
+                for (int i = 0; i < array.size() - 1; i++) {
+                    var value = evaluate(array.get(i), current, variables);
+                    if (value != null && !value.isNull()) {
+                        return value;
+                    }
+                }
+                return evaluate(array.get(array.size() - 1), current, variables);
+            }
+            case "$add", "$subtract", "$multiply", "$divide", "$mod": {
+                var arguments = evaluateArguments(operator, argument, -1, current, variables);
+                return evaluateArithmetic(operator, arguments);
+            }
+            case "$size": {
+                var value = evaluateArguments(operator, argument, 1, current, variables)[0];
+                if (value == null || !value.isArray()) {
+                    throw InMemoryErrors.badValue("The argument to $size must be an array");
+                }
+                return new BsonInt32(value.asArray().size());
+            }
+            case "$arrayElemAt": {
+                var arguments = evaluateArguments(operator, argument, 2, current, variables);
+                if (arguments[0] == null || arguments[0].isNull()) {
+                    return BsonNull.VALUE;
+                }
+                if (!arguments[0].isArray() || arguments[1] == null || !arguments[1].isNumber()) {
+                    throw InMemoryErrors.badValue("$arrayElemAt takes an array and a numeric index");
+                }
+                var array = arguments[0].asArray();
+                int index = arguments[1].asNumber().intValue();
+                if (index < 0) {
+                    index += array.size();
+                }
+                // out of bounds results in missing value
+                return index < 0 || index >= array.size() ? null : array.get(index);
+            }
+            default:
+                throw InMemoryErrors.badValue("Unrecognized expression '" + operator + "'");
+        }
+    }
+
+    private static BsonArray toArray(BsonValue argument) {
+        return argument.isArray() ? argument.asArray() : new BsonArray(List.of(argument));
+    }
+
+    private static BsonValue[] evaluateArguments(String operator, BsonValue argument, int expectedCount,
+            BsonDocument current, Map<String, BsonValue> variables) {
+        var array = toArray(argument);
+        if (expectedCount >= 0 && array.size() != expectedCount) {
+            throw InMemoryErrors.badValue("Expression " + operator + " takes exactly " + expectedCount + " arguments");
+        }
+        var arguments = new BsonValue[array.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = evaluate(array.get(i), current, variables);
+        }
+        return arguments;
+    }
+
+    @Nullable
+    private static BsonValue evaluateArithmetic(String operator, BsonValue[] arguments) {
+        BsonNumber result = null;
+        for (BsonValue argument : arguments) {
+            if (argument == null || argument.isNull()) {
+                return BsonNull.VALUE;
+            }
+            if (!argument.isNumber()) {
+                throw InMemoryErrors.badValue(operator + " only supports numeric types, not " + argument.getBsonType());
+            }
+            result = result == null ? argument.asNumber() : applyArithmetic(operator, result, argument.asNumber());
+        }
+        return result;
+    }
+
+    static BsonNumber applyArithmetic(String operator, BsonNumber left, BsonNumber right) {
+        if (left.isDecimal128() || right.isDecimal128()) {
+            var leftDecimal = left.decimal128Value().bigDecimalValue();
+            var rightDecimal = right.decimal128Value().bigDecimalValue();
+            BigDecimal result = switch (operator) {
+                case "$add" -> leftDecimal.add(rightDecimal);
+                case "$subtract" -> leftDecimal.subtract(rightDecimal);
+                case "$multiply" -> leftDecimal.multiply(rightDecimal);
+                case "$divide" -> leftDecimal.divide(rightDecimal, MathContext.DECIMAL128);
+                default -> leftDecimal.remainder(rightDecimal);
+            };
+            return new BsonDecimal128(new Decimal128(result));
+        }
+        if (left.isDouble() || right.isDouble() || "$divide".equals(operator)) {
+            double leftDouble = left.doubleValue();
+            double rightDouble = right.doubleValue();
+            return new BsonDouble(switch (operator) {
+                case "$add" -> leftDouble + rightDouble;
+                case "$subtract" -> leftDouble - rightDouble;
+                case "$multiply" -> leftDouble * rightDouble;
+                case "$divide" -> leftDouble / rightDouble;
+                default -> leftDouble % rightDouble;
+            });
+        }
+        long leftLong = left.longValue();
+        long rightLong = right.longValue();
+        long result = switch (operator) {
+            case "$add" -> Math.addExact(leftLong, rightLong);
+            case "$subtract" -> Math.subtractExact(leftLong, rightLong);
+            case "$multiply" -> Math.multiplyExact(leftLong, rightLong);
+            default -> leftLong % rightLong;
+        };
+        return left.isInt32() && right.isInt32() && result == (int) result ? new BsonInt32((int) result) : new BsonInt64(result);
+    }
+}
@@ -0,0 +1,142 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Navigation of dotted field paths (e.g. {@code p1_0.c2_0.name}) within documents.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class FieldPaths {
+
+    private FieldPaths() {
+    }
+
+    /**
+     * Collect the values reached by the path as query operators see them: arrays met halfway are traversed into their
+     * document elements, or indexed by numeric path component.
+     *
+     * @return the values reached; empty if the path is missing
+     */
+    static List<BsonValue> getQueryValues(BsonValue value, String path) {
+        var values = new ArrayList<BsonValue>(1);
+        collectQueryValues(value, path.split("\\."), 0, values);
+        return values;
+    }
+
+    private static void collectQueryValues(BsonValue value, String[] parts, int index, List<BsonValue> values) {
+        if (index == parts.length) {
+            values.add(value);
+            return;
+        }
+        var part = parts[index];
+        if (value.isDocument()) {
+            var child = value.asDocument().get(part);
+            if (child != null) {
+                collectQueryValues(child, parts, index + 1, values);
+            }
+        } else if (value.isArray()) {
+            var array = value.asArray();
+            var arrayIndex = parseArrayIndex(part);
+            if (arrayIndex >= 0 && arrayIndex < array.size()) {
+                collectQueryValues(array.get(arrayIndex), parts, index + 1, values);
+            }
+            for (BsonValue element : array) {
+                if (element.isDocument()) {
+                    collectQueryValues(element, parts, index, values);
+                }
+            }
+        }
+    }
+
+    private static int parseArrayIndex(String part) {
+        if (part.isEmpty() || part.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            if (!Character.isDigit(part.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(part);
+    }
+
+    /**
+     * Get the value of the path as aggregation expressions see it: arrays met halfway are mapped into the arrays of
+     * their elements' values.
+     *
+     * @return the value; {@code null} if missing
+     */
+    @Nullable
+    static BsonValue getValue(@Nullable BsonValue value, String path) {
+        var current = value;
+        for (String part : path.split("\\.")) {
+            current = getChild(current, part);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    @Nullable
+    private static BsonValue getChild(@Nullable BsonValue value, String part) {
+        if (value == null) {
+            return null;
+        }
+        if (value.isDocument()) {
+            return value.asDocument().get(part);
+        }
+        if (value.isArray()) {
+            var result = new BsonArray();
+            for (BsonValue element : value.asArray()) {
+                var child = getChild(element, part);
+                if (child != null) {
+                    result.add(child);
+                }
+            }
+            return result;
+        }
+        return null;
+    }
+
+    /**
+     * Set the value of the path, creating the missing intermediate documents.
+     */
+    static void setValue(BsonDocument document, String path, BsonValue value) {
+        var parts = path.split("\\.");
+        var current = document;
+        for (int i = 0; i < parts.length - 1; i++) {
+            var child = current.get(parts[i]);
+            if (child == null || !child.isDocument()) {
+                child = new BsonDocument();
+                current.put(parts[i], child);
+            }
+            current = child.asDocument();
+        }
+        current.put(parts[parts.length - 1], value);
+    }
+
+    /**
+     * @return whether the path existed
+     */
+    static boolean removeValue(BsonDocument document, String path) {
+        var parts = path.split("\\.");
+        var current = document;
+        for (int i = 0; i < parts.length - 1; i++) {
+            var child = current.get(parts[i]);
+            if (child == null || !child.isDocument()) {
+                return false;
+            }
+            current = child.asDocument();
+        }
+        return current.remove(parts[parts.length - 1]) != null;
+    }
+}
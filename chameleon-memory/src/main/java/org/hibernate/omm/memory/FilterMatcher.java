@@ -0,0 +1,173 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluator of query filters (as of {@code find} or {@code $match}): implicit equality, comparison, {@code $in},
+ * {@code $nin}, {@code $exists}, {@code $size}, logical operators and {@code $expr}, over dotted paths and arrays
+ * with MongoDB semantics (e.g. {@code { tags: "a" }} matches array {@code tags} containing {@code "a"}, and
+ * {@code { f: null }} matches missing {@code f}).
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class FilterMatcher {
+
+    private FilterMatcher() {
+    }
+
+    static boolean matches(BsonDocument document, BsonDocument filter) {
+        return matches(document, filter, Map.of());
+    }
+
+    static boolean matches(BsonDocument document, BsonDocument filter, Map<String, BsonValue> variables) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            if (!matchesEntry(document, entry.getKey(), entry.getValue(), variables)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesEntry(BsonDocument document, String key, BsonValue value,
+            Map<String, BsonValue> variables) {
+        switch (key) {
+            case "$and":
+                for (BsonValue clause : value.asArray()) {
+                    if (!matches(document, clause.asDocument(), variables)) {
+                        return false;
+                    }
+                }
+                return true;
+            case "$or":
+                for (BsonValue clause : value.asArray()) {
+                    if (matches(document, clause.asDocument(), variables)) {
+                        return true;
+                    }
+                }
+                return false;
+            case "$nor":
+                for (BsonValue clause : value.asArray()) {
+                    if (matches(document, clause.asDocument(), variables)) {
+                        return false;
+                    }
+                }
+                return true;
+            case "$expr":
+                return ExpressionEvaluator.isTruthy(ExpressionEvaluator.evaluate(value, document, variables));
+            case "$comment":
+                return true;
+            default:
+                if (key.startsWith("$")) {
+                    throw InMemoryErrors.badValue("unknown top level operator: " + key);
+                }
+                return matchesField(FieldPaths.getQueryValues(document, key), value);
+        }
+    }
+
+    private static boolean isOperatorDocument(BsonValue value) {
+        return value.isDocument() && !value.asDocument().isEmpty() && value.asDocument().getFirstKey().startsWith("$");
+    }
+
+    private static boolean matchesField(List<BsonValue> values, BsonValue condition) {
+        if (!isOperatorDocument(condition)) {
+            return matchesEquality(values, condition);
+        }
+        for (Map.Entry<String, BsonValue> entry : condition.asDocument().entrySet()) {
+            if (!matchesOperator(values, entry.getKey(), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesOperator(List<BsonValue> values, String operator, BsonValue operand) {
+        return switch (operator) {
+            case "$eq" -> matchesEquality(values, operand);
+            case "$ne" -> !matchesEquality(values, operand);
+            case "$gt", "$gte", "$lt", "$lte" -> matchesComparison(values, operator, operand);
+            case "$in" -> matchesIn(values, operand);
+            case "$nin" -> !matchesIn(values, operand);
+            case "$exists" -> values.isEmpty() != ExpressionEvaluator.isTruthy(operand);
+            case "$not" -> !matchesField(values, operand);
+            case "$size" -> values.stream().anyMatch(value -> value.isArray()
+                    && value.asArray().size() == operand.asNumber().intValue());
+            default -> throw InMemoryErrors.badValue("unknown operator: " + operator);
+        };
+    }
+
+    private static boolean matchesIn(List<BsonValue> values, BsonValue operand) {
+        if (!operand.isArray()) {
+            throw InMemoryErrors.badValue("$in needs an array");
+        }
+        for (BsonValue element : operand.asArray()) {
+            if (matchesEquality(values, element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Equality against the values of a path: missing path equals {@code null}, and array equals both as a whole and
+     * by any of its elements.
+     */
+    static boolean matchesEquality(List<BsonValue> values, BsonValue operand) {
+        if (values.isEmpty()) {
+            return operand.isNull();
+        }
+        for (BsonValue value : values) {
+            if (BsonValueComparator.isEqual(value, operand)) {
+                return true;
+            }
+            if (value.isArray()) {
+                for (BsonValue element : value.asArray()) {
+                    if (BsonValueComparator.isEqual(element, operand)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesComparison(List<BsonValue> values, String operator, BsonValue operand) {
+        if (values.isEmpty()) {
+            return operand.isNull() && operator.endsWith("e");
+        }
+        for (BsonValue value : values) {
+            if (compares(value, operator, operand)) {
+                return true;
+            }
+            if (value.isArray()) {
+                for (BsonValue element : value.asArray()) {
+                    if (compares(element, operator, operand)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Comparison operators only match values of the same type bracket, e.g. {@code $gt: 1} never matches strings.
+     */
+    private static boolean compares(@Nullable BsonValue value, String operator, BsonValue operand) {
+        if (BsonValueComparator.getTypeBracket(value) != BsonValueComparator.getTypeBracket(operand)) {
+            return false;
+        }
+        int result = BsonValueComparator.INSTANCE.compare(value, operand);
+        return switch (operator) {
+            case "$gt" -> result > 0;
+            case "$gte" -> result >= 0;
+            case "$lt" -> result < 0;
+            default -> result <= 0;
+        };
+    }
+}
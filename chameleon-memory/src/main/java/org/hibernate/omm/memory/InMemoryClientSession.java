@@ -0,0 +1,93 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.TransactionOptions;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Handler of the in-memory {@link com.mongodb.client.ClientSession}, whose transaction is an undo log of the writes
+ * done within it, replayed backwards on abort.
+ * <p>
+ * Transactions are neither isolated nor checked for write conflicts: their writes are visible to the other sessions
+ * right away, which is good enough for tests and benchmarks running one unit of work at a time.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class InMemoryClientSession {
+
+    private final Object lock;
+    private final ClientSessionOptions options;
+    private final Deque<Runnable> undoLog = new ArrayDeque<>();
+    private boolean transactionActive;
+    private boolean closed;
+
+    InMemoryClientSession(Object lock, ClientSessionOptions options) {
+        this.lock = lock;
+        this.options = options;
+    }
+
+    /**
+     * @param undo action reverting a write of the session, recorded only within a transaction
+     */
+    void recordUndo(Runnable undo) {
+        if (transactionActive) {
+            undoLog.push(undo);
+        }
+    }
+
+    boolean hasActiveTransaction() {
+        return transactionActive;
+    }
+
+    void startTransaction() {
+        startTransaction(TransactionOptions.builder().build());
+    }
+
+    void startTransaction(TransactionOptions transactionOptions) {
+        if (closed) {
+            throw new IllegalStateException("state should be: open");
+        }
+        if (transactionActive) {
+            throw new IllegalStateException("Transaction already in progress");
+        }
+        transactionActive = true;
+    }
+
+    void commitTransaction() {
+        if (!transactionActive) {
+            throw new IllegalStateException("There is no transaction started");
+        }
+        undoLog.clear();
+        transactionActive = false;
+    }
+
+    void abortTransaction() {
+        if (!transactionActive) {
+            throw new IllegalStateException("There is no transaction started");
+        }
+        synchronized (lock) {
+            while (!undoLog.isEmpty()) {
+                undoLog.pop().run();
+            }
+        }
+        transactionActive = false;
+    }
+
+    ClientSessionOptions getOptions() {
+        return options;
+    }
+
+    boolean isCausallyConsistent() {
+        return Boolean.TRUE.equals(options.isCausallyConsistent());
+    }
+
+    void close() {
+        if (transactionActive) {
+            abortTransaction();
+        }
+        closed = true;
+    }
+}
@@ -0,0 +1,51 @@
+package org.hibernate.omm.memory;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWrapper;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+/**
+ * Conversion between the documents of the driver API and the stored {@link BsonDocument}s, which are always deep
+ * copied in and out so the store is never aliased.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class InMemoryCodecs {
+
+    private static final BsonDocumentCodec BSON_DOCUMENT_CODEC = new BsonDocumentCodec();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private InMemoryCodecs() {
+    }
+
+    static BsonDocument copy(BsonDocument document) {
+        return BSON_DOCUMENT_CODEC.decode(new BsonDocumentReader(document), DECODER_CONTEXT);
+    }
+
+    static BsonDocument toBsonDocument(Bson bson, CodecRegistry codecRegistry) {
+        return copy(bson.toBsonDocument(BsonDocument.class, codecRegistry));
+    }
+
+    static BsonDocument toBsonDocument(Object document, CodecRegistry codecRegistry) {
+        if (document instanceof Bson bson) {
+            return toBsonDocument(bson, codecRegistry);
+        }
+        return copy(BsonDocumentWrapper.asBsonDocument(document, codecRegistry));
+    }
+
+    static <T> T decode(BsonDocument document, Class<T> documentClass, CodecRegistry codecRegistry) {
+        if (documentClass == RawBsonDocument.class) {
+            return documentClass.cast(new RawBsonDocument(document, BSON_DOCUMENT_CODEC));
+        }
+        if (documentClass == BsonDocument.class) {
+            return documentClass.cast(copy(document));
+        }
+        return codecRegistry.get(documentClass).decode(new BsonDocumentReader(document), DECODER_CONTEXT);
+    }
+}
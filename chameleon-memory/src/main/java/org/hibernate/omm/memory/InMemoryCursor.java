@@ -0,0 +1,70 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.lang.Nullable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Cursor over query results fully materialized in memory. Public so that tests and benchmarks could feed
+ * {@link org.hibernate.omm.jdbc.MongoResultSet} with documents directly.
+ *
+ * @param <T> document type
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class InMemoryCursor<T> implements MongoCursor<T> {
+
+    private final Iterator<T> iterator;
+    private boolean closed;
+
+    public InMemoryCursor(Iterator<T> iterator) {
+        this.iterator = iterator;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            throw new IllegalStateException("Cursor has been closed");
+        }
+        return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return iterator.next();
+    }
+
+    @Override
+    public int available() {
+        return 0;
+    }
+
+    @Override
+    @Nullable
+    public T tryNext() {
+        return hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    @Nullable
+    public ServerCursor getServerCursor() {
+        return null;
+    }
+
+    @Override
+    public ServerAddress getServerAddress() {
+        return InMemoryErrors.SERVER_ADDRESS;
+    }
+}
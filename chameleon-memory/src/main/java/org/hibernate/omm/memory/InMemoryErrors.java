@@ -0,0 +1,54 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+
+/**
+ * Server errors raised by the in-memory backend, shaped like the ones of a real server so error handling (e.g.
+ * {@link com.mongodb.ErrorCategory}) works the same.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class InMemoryErrors {
+
+    static final ServerAddress SERVER_ADDRESS = new ServerAddress("in-memory");
+
+    private InMemoryErrors() {
+    }
+
+    static MongoCommandException badValue(String message) {
+        return commandException(2, "BadValue", message);
+    }
+
+    static MongoCommandException commandNotFound(String commandName) {
+        return commandException(59, "CommandNotFound", "no such command: '" + commandName + "'");
+    }
+
+    static MongoCommandException duplicateKey(String collectionName, String indexName, BsonDocument key) {
+        return commandException(11000, "DuplicateKey",
+                "E11000 duplicate key error collection: " + collectionName + " index: " + indexName + " dup key: " + key.toJson());
+    }
+
+    static MongoCommandException mergeNoMatchingDocument() {
+        return commandException(13113, "MergeStageNoMatchingDocument",
+                "$merge could not find a matching document in the target collection for at least one document in the source collection");
+    }
+
+    static MongoCommandException immutableField(String fieldName) {
+        return commandException(66, "ImmutableField", "Performing an update on the path '" + fieldName
+                + "' would modify the immutable field '" + fieldName + "'");
+    }
+
+    private static MongoCommandException commandException(int code, String codeName, String message) {
+        var response = new BsonDocument("ok", new BsonDouble(0))
+                .append("errmsg", new BsonString(message))
+                .append("code", new BsonInt32(code))
+                .append("codeName", new BsonString(codeName));
+        return new MongoCommandException(response, SERVER_ADDRESS);
+    }
+}
@@ -0,0 +1,166 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonDocument;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Handler of the in-memory {@link com.mongodb.client.FindIterable} and {@link com.mongodb.client.AggregateIterable},
+ * running the query once iterated. Batch size and time limit are accepted and ignored, results being materialized at
+ * once.
+ *
+ * @param <T> document type
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class InMemoryIterable<T> {
+
+    private final InMemoryMongoDatabase database;
+    private final String collectionName;
+    private final Class<T> documentClass;
+    private final CodecRegistry codecRegistry;
+
+    @Nullable
+    private final List<BsonDocument> pipeline;
+
+    private BsonDocument filter = new BsonDocument();
+    @Nullable
+    private BsonDocument projection;
+    @Nullable
+    private BsonDocument sort;
+    private int skip;
+    private int limit;
+
+    private InMemoryIterable(InMemoryMongoDatabase database, String collectionName, Class<T> documentClass,
+            CodecRegistry codecRegistry, @Nullable List<BsonDocument> pipeline) {
+        this.database = database;
+        this.collectionName = collectionName;
+        this.documentClass = documentClass;
+        this.codecRegistry = codecRegistry;
+        this.pipeline = pipeline;
+    }
+
+    static <T> InMemoryIterable<T> find(InMemoryMongoDatabase database, String collectionName, Class<T> documentClass,
+            CodecRegistry codecRegistry, Bson filter) {
+        var iterable = new InMemoryIterable<>(database, collectionName, documentClass, codecRegistry, null);
+        return iterable.filter(filter);
+    }
+
+    static <T> InMemoryIterable<T> aggregate(InMemoryMongoDatabase database, String collectionName,
+            Class<T> documentClass, CodecRegistry codecRegistry, List<? extends Bson> pipeline) {
+        var stages = new ArrayList<BsonDocument>(pipeline.size());
+        for (Bson stage : pipeline) {
+            stages.add(InMemoryCodecs.toBsonDocument(stage, codecRegistry));
+        }
+        return new InMemoryIterable<>(database, collectionName, documentClass, codecRegistry, stages);
+    }
+
+    InMemoryIterable<T> filter(@Nullable Bson filter) {
+        this.filter = filter == null ? new BsonDocument() : InMemoryCodecs.toBsonDocument(filter, codecRegistry);
+        return this;
+    }
+
+    InMemoryIterable<T> projection(@Nullable Bson projection) {
+        this.projection = projection == null ? null : InMemoryCodecs.toBsonDocument(projection, codecRegistry);
+        return this;
+    }
+
+    InMemoryIterable<T> sort(@Nullable Bson sort) {
+        this.sort = sort == null ? null : InMemoryCodecs.toBsonDocument(sort, codecRegistry);
+        return this;
+    }
+
+    InMemoryIterable<T> skip(int skip) {
+        this.skip = skip;
+        return this;
+    }
+
+    InMemoryIterable<T> limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    InMemoryIterable<T> batchSize(int batchSize) {
+        return this;
+    }
+
+    InMemoryIterable<T> maxTime(long maxTime, TimeUnit timeUnit) {
+        return this;
+    }
+
+    InMemoryIterable<T> allowDiskUse(@Nullable Boolean allowDiskUse) {
+        return this;
+    }
+
+    InMemoryIterable<T> comment(@Nullable String comment) {
+        return this;
+    }
+
+    MongoCursor<T> iterator() {
+        return cursor();
+    }
+
+    MongoCursor<T> cursor() {
+        return new InMemoryCursor<>(execute().iterator());
+    }
+
+    @Nullable
+    T first() {
+        var results = execute();
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    void forEach(Consumer<? super T> action) {
+        execute().forEach(action);
+    }
+
+    <A extends Collection<? super T>> A into(A target) {
+        target.addAll(execute());
+        return target;
+    }
+
+    /**
+     * Run the aggregation pipeline for its trailing {@code $merge} stage ({@code $out} is not supported).
+     */
+    void toCollection() {
+        if (pipeline == null || pipeline.isEmpty() || !pipeline.get(pipeline.size() - 1).containsKey("$merge")) {
+            throw new IllegalStateException("The last stage of the aggregation pipeline must be $merge");
+        }
+        execute();
+    }
+
+    private List<T> execute() {
+        synchronized (database.getLock()) {
+            var store = database.getStore(collectionName);
+            List<BsonDocument> documents;
+            if (pipeline != null) {
+                documents = new AggregationPipeline(database).execute(store, pipeline, Map.of());
+            } else {
+                documents = store == null ? List.of() : store.find(filter, Map.of());
+                if (sort != null) {
+                    documents = AggregationPipeline.sort(documents, sort);
+                }
+                int from = Math.min(skip, documents.size());
+                int to = limit == 0 ? documents.size() : Math.min(from + Math.abs(limit), documents.size());
+                documents = documents.subList(from, to);
+            }
+            var results = new ArrayList<T>(documents.size());
+            for (BsonDocument document : documents) {
+                if (projection != null) {
+                    document = Projection.apply(document, projection, Map.of());
+                }
+                results.add(InMemoryCodecs.decode(document, documentClass, codecRegistry));
+            }
+            return results;
+        }
+    }
+}
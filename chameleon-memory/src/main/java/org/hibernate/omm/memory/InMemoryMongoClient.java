@@ -0,0 +1,77 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link MongoClient} keeping its databases in memory, for tests and benchmarks to run Chameleon without MongoDB
+ * server (see {@link org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_BACKEND}).
+ * <p>
+ * It implements the subset of the driver API Chameleon relies on: CRUD, bulk write, find and aggregate (with the
+ * stages rendered by Chameleon), single field indexes and transactions without isolation; the rest throws
+ * {@link org.hibernate.omm.exception.NotSupportedRuntimeException}. Query semantics (type brackets, array
+ * traversal, null matching missing field) follow the server's. All operations of a client are serialized.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class InMemoryMongoClient {
+
+    private final Object lock = new Object();
+    private final Map<String, Map<String, DocumentStore>> databases = new HashMap<>();
+
+    private InMemoryMongoClient() {
+    }
+
+    /**
+     * @return a new client with no data
+     */
+    public static MongoClient create() {
+        return InMemoryProxies.create(MongoClient.class, new InMemoryMongoClient());
+    }
+
+    Object getLock() {
+        return lock;
+    }
+
+    /**
+     * Must be called holding {@link #getLock()}.
+     */
+    Map<String, DocumentStore> getStores(String databaseName) {
+        return databases.computeIfAbsent(databaseName, ignored -> new HashMap<>());
+    }
+
+    void dropDatabase(String databaseName) {
+        synchronized (lock) {
+            databases.remove(databaseName);
+        }
+    }
+
+    MongoDatabase getDatabase(String databaseName) {
+        return InMemoryMongoDatabase.createProxy(this, databaseName, MongoClientSettings.getDefaultCodecRegistry(),
+                ReadPreference.primary(), ReadConcern.DEFAULT, WriteConcern.ACKNOWLEDGED);
+    }
+
+    ClientSession startSession() {
+        return startSession(ClientSessionOptions.builder().build());
+    }
+
+    ClientSession startSession(ClientSessionOptions options) {
+        return InMemoryProxies.create(ClientSession.class, new InMemoryClientSession(lock, options));
+    }
+
+    void close() {
+        synchronized (lock) {
+            databases.clear();
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.client.result.InsertOneResult;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.hibernate.omm.exception.NotSupportedRuntimeException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Handler of the in-memory {@link MongoCollection}, covering the CRUD, bulk write and index creation methods used by
+ * Chameleon and by tests. The collection is created on first write, as by a real server.
+ *
+ * @param <T> document type
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class InMemoryMongoCollection<T> {
+
+    private final InMemoryMongoDatabase database;
+    private final String name;
+    private final Class<T> documentClass;
+    private final CodecRegistry codecRegistry;
+    private final ReadPreference readPreference;
+    private final ReadConcern readConcern;
+    private final WriteConcern writeConcern;
+
+    InMemoryMongoCollection(InMemoryMongoDatabase database, String name, Class<T> documentClass,
+            CodecRegistry codecRegistry, ReadPreference readPreference, ReadConcern readConcern,
+            WriteConcern writeConcern) {
+        this.database = database;
+        this.name = name;
+        this.documentClass = documentClass;
+        this.codecRegistry = codecRegistry;
+        this.readPreference = readPreference;
+        this.readConcern = readConcern;
+        this.writeConcern = writeConcern;
+    }
+
+    static <T> MongoCollection<T> createProxy(InMemoryMongoDatabase database, String name, Class<T> documentClass,
+            CodecRegistry codecRegistry, ReadPreference readPreference, ReadConcern readConcern,
+            WriteConcern writeConcern) {
+        @SuppressWarnings("unchecked")
+        MongoCollection<T> collection = InMemoryProxies.create(MongoCollection.class, new InMemoryMongoCollection<>(
+                database, name, documentClass, codecRegistry, readPreference, readConcern, writeConcern));
+        return collection;
+    }
+
+    MongoNamespace getNamespace() {
+        return new MongoNamespace(database.getName(), name);
+    }
+
+    Class<T> getDocumentClass() {
+        return documentClass;
+    }
+
+    CodecRegistry getCodecRegistry() {
+        return codecRegistry;
+    }
+
+    ReadPreference getReadPreference() {
+        return readPreference;
+    }
+
+    ReadConcern getReadConcern() {
+        return readConcern;
+    }
+
+    WriteConcern getWriteConcern() {
+        return writeConcern;
+    }
+
+    <D> MongoCollection<D> withDocumentClass(Class<D> newDocumentClass) {
+        return createProxy(database, name, newDocumentClass, codecRegistry, readPreference, readConcern, writeConcern);
+    }
+
+    MongoCollection<T> withCodecRegistry(CodecRegistry newCodecRegistry) {
+        return createProxy(database, name, documentClass, newCodecRegistry, readPreference, readConcern, writeConcern);
+    }
+
+    MongoCollection<T> withReadPreference(ReadPreference newReadPreference) {
+        return createProxy(database, name, documentClass, codecRegistry, newReadPreference, readConcern, writeConcern);
+    }
+
+    MongoCollection<T> withReadConcern(ReadConcern newReadConcern) {
+        return createProxy(database, name, documentClass, codecRegistry, readPreference, newReadConcern, writeConcern);
+    }
+
+    MongoCollection<T> withWriteConcern(WriteConcern newWriteConcern) {
+        return createProxy(database, name, documentClass, codecRegistry, readPreference, readConcern, newWriteConcern);
+    }
+
+    long estimatedDocumentCount() {
+        synchronized (database.getLock()) {
+            var store = database.getStore(name);
+            return store == null ? 0 : store.count();
+        }
+    }
+
+    long countDocuments() {
+        return countDocuments(new BsonDocument());
+    }
+
+    long countDocuments(Bson filter) {
+        var filterDocument = InMemoryCodecs.toBsonDocument(filter, codecRegistry);
+        synchronized (database.getLock()) {
+            var store = database.getStore(name);
+            return store == null ? 0 : store.find(filterDocument, Map.of()).size();
+        }
+    }
+
+    long countDocuments(ClientSession clientSession) {
+        return countDocuments();
+    }
+
+    long countDocuments(ClientSession clientSession, Bson filter) {
+        return countDocuments(filter);
+    }
+
+    FindIterable<T> find() {
+        return find(new BsonDocument(), documentClass);
+    }
+
+    <D> FindIterable<D> find(Class<D> resultClass) {
+        return find(new BsonDocument(), resultClass);
+    }
+
+    FindIterable<T> find(Bson filter) {
+        return find(filter, documentClass);
+    }
+
+    <D> FindIterable<D> find(Bson filter, Class<D> resultClass) {
+        @SuppressWarnings("unchecked")
+        FindIterable<D> iterable = InMemoryProxies.create(FindIterable.class,
+                InMemoryIterable.find(database, name, resultClass, codecRegistry, filter));
+        return iterable;
+    }
+
+    FindIterable<T> find(ClientSession clientSession) {
+        return find();
+    }
+
+    <D> FindIterable<D> find(ClientSession clientSession, Class<D> resultClass) {
+        return find(resultClass);
+    }
+
+    FindIterable<T> find(ClientSession clientSession, Bson filter) {
+        return find(filter);
+    }
+
+    <D> FindIterable<D> find(ClientSession clientSession, Bson filter, Class<D> resultClass) {
+        return find(filter, resultClass);
+    }
+
+    AggregateIterable<T> aggregate(List<? extends Bson> pipeline) {
+        return aggregate(pipeline, documentClass);
+    }
+
+    <D> AggregateIterable<D> aggregate(List<? extends Bson> pipeline, Class<D> resultClass) {
+        @SuppressWarnings("unchecked")
+        AggregateIterable<D> iterable = InMemoryProxies.create(AggregateIterable.class,
+                InMemoryIterable.aggregate(database, name, resultClass, codecRegistry, pipeline));
+        return iterable;
+    }
+
+    AggregateIterable<T> aggregate(ClientSession clientSession, List<? extends Bson> pipeline) {
+        return aggregate(pipeline);
+    }
+
+    <D> AggregateIterable<D> aggregate(ClientSession clientSession, List<? extends Bson> pipeline,
+            Class<D> resultClass) {
+        return aggregate(pipeline, resultClass);
+    }
+
+    InsertOneResult insertOne(T document) {
+        return insertOne(null, document);
+    }
+
+    InsertOneResult insertOne(@Nullable ClientSession clientSession, T document) {
+        var session = getSession(clientSession);
+        var bsonDocument = InMemoryCodecs.toBsonDocument(document, codecRegistry);
+        synchronized (database.getLock()) {
+            return InsertOneResult.acknowledged(database.getOrCreateStore(name).insert(bsonDocument, session));
+        }
+    }
+
+    InsertManyResult insertMany(List<? extends T> documents) {
+        return insertMany(null, documents, new InsertManyOptions());
+    }
+
+    InsertManyResult insertMany(List<? extends T> documents, InsertManyOptions options) {
+        return insertMany(null, documents, options);
+    }
+
+    InsertManyResult insertMany(@Nullable ClientSession clientSession, List<? extends T> documents) {
+        return insertMany(clientSession, documents, new InsertManyOptions());
+    }
+
+    /**
+     * Unordered insertion goes on after a failed document and throws the first failure at the end.
+     */
+    InsertManyResult insertMany(@Nullable ClientSession clientSession, List<? extends T> documents,
+            InsertManyOptions options) {
+        var session = getSession(clientSession);
+        var bsonDocuments = new ArrayList<BsonDocument>(documents.size());
+        for (T document : documents) {
+            bsonDocuments.add(InMemoryCodecs.toBsonDocument(document, codecRegistry));
+        }
+        var insertedIds = new LinkedHashMap<Integer, BsonValue>();
+        RuntimeException failure = null;
+        synchronized (database.getLock()) {
+            var store = database.getOrCreateStore(name);
+            for (int i = 0; i < bsonDocuments.size(); i++) {
+                try {
+                    insertedIds.put(i, store.insert(bsonDocuments.get(i), session));
+                } catch (RuntimeException e) {
+                    if (options.isOrdered()) {
+                        throw e;
+                    }
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return InsertManyResult.acknowledged(insertedIds);
+    }
+
+    UpdateResult updateOne(Bson filter, Bson update) {
+        return update(null, filter, update, false, false);
+    }
+
+    UpdateResult updateOne(@Nullable ClientSession clientSession, Bson filter, Bson update) {
+        return update(clientSession, filter, update, false, false);
+    }
+
+    UpdateResult updateOne(Bson filter, Bson update, UpdateOptions updateOptions) {
+        return update(null, filter, update, false, updateOptions.isUpsert());
+    }
+
+    UpdateResult updateOne(@Nullable ClientSession clientSession, Bson filter, Bson update,
+            UpdateOptions updateOptions) {
+        return update(clientSession, filter, update, false, updateOptions.isUpsert());
+    }
+
+    UpdateResult updateMany(Bson filter, Bson update) {
+        return update(null, filter, update, true, false);
+    }
+
+    UpdateResult updateMany(@Nullable ClientSession clientSession, Bson filter, Bson update) {
+        return update(clientSession, filter, update, true, false);
+    }
+
+    UpdateResult replaceOne(Bson filter, T replacement) {
+        return replaceOne(null, filter, replacement);
+    }
+
+    UpdateResult replaceOne(@Nullable ClientSession clientSession, Bson filter, T replacement) {
+        var replacementDocument = InMemoryCodecs.toBsonDocument(replacement, codecRegistry);
+        if (!UpdateApplier.isReplacement(replacementDocument)) {
+            throw new IllegalArgumentException("Invalid BSON field name " + replacementDocument.getFirstKey());
+        }
+        return update(clientSession, filter, replacementDocument, false, false);
+    }
+
+    DeleteResult deleteOne(Bson filter) {
+        return delete(null, filter, false);
+    }
+
+    DeleteResult deleteOne(@Nullable ClientSession clientSession, Bson filter) {
+        return delete(clientSession, filter, false);
+    }
+
+    DeleteResult deleteMany(Bson filter) {
+        return delete(null, filter, true);
+    }
+
+    DeleteResult deleteMany(@Nullable ClientSession clientSession, Bson filter) {
+        return delete(clientSession, filter, true);
+    }
+
+    BulkWriteResult bulkWrite(List<? extends WriteModel<? extends T>> requests) {
+        return bulkWrite(null, requests, new BulkWriteOptions());
+    }
+
+    BulkWriteResult bulkWrite(List<? extends WriteModel<? extends T>> requests, BulkWriteOptions options) {
+        return bulkWrite(null, requests, options);
+    }
+
+    BulkWriteResult bulkWrite(@Nullable ClientSession clientSession, List<? extends WriteModel<? extends T>> requests) {
+        return bulkWrite(clientSession, requests, new BulkWriteOptions());
+    }
+
+    /**
+     * Server errors of the requests are reported as write errors of {@link MongoBulkWriteException}, as the driver
+     * does; ordered bulk write stops at the first one, while unordered bulk write goes on and reports them all at the
+     * end.
+     */
+    BulkWriteResult bulkWrite(@Nullable ClientSession clientSession, List<? extends WriteModel<? extends T>> requests,
+            BulkWriteOptions options) {
+        int insertedCount = 0;
+        long matchedCount = 0;
+        long modifiedCount = 0;
+        long deletedCount = 0;
+        var inserts = new ArrayList<BulkWriteInsert>();
+        var upserts = new ArrayList<BulkWriteUpsert>();
+        var writeErrors = new ArrayList<BulkWriteError>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                var request = requests.get(i);
+                if (request instanceof InsertOneModel<? extends T> insertOneModel) {
+                    var result = insertOne(clientSession, insertOneModel.getDocument());
+                    inserts.add(new BulkWriteInsert(i, result.getInsertedId()));
+                    insertedCount++;
+                } else if (request instanceof UpdateOneModel<? extends T> updateOneModel) {
+                    var result = update(clientSession, updateOneModel.getFilter(), getUpdate(updateOneModel.getUpdate()), false,
+                            updateOneModel.getOptions().isUpsert());
+                    matchedCount += result.getMatchedCount();
+                    modifiedCount += result.getModifiedCount();
+                    if (result.getUpsertedId() != null) {
+                        upserts.add(new BulkWriteUpsert(i, result.getUpsertedId()));
+                    }
+                } else if (request instanceof UpdateManyModel<? extends T> updateManyModel) {
+                    var result = update(clientSession, updateManyModel.getFilter(), getUpdate(updateManyModel.getUpdate()), true,
+                            false);
+                    matchedCount += result.getMatchedCount();
+                    modifiedCount += result.getModifiedCount();
+                } else if (request instanceof ReplaceOneModel<? extends T> replaceOneModel) {
+                    var result = update(clientSession, replaceOneModel.getFilter(),
+                            InMemoryCodecs.toBsonDocument(replaceOneModel.getReplacement(), codecRegistry), false, false);
+                    matchedCount += result.getMatchedCount();
+                    modifiedCount += result.getModifiedCount();
+                } else if (request instanceof DeleteOneModel<? extends T> deleteOneModel) {
+                    deletedCount += delete(clientSession, deleteOneModel.getFilter(), false).getDeletedCount();
+                } else if (request instanceof DeleteManyModel<? extends T> deleteManyModel) {
+                    deletedCount += delete(clientSession, deleteManyModel.getFilter(), true).getDeletedCount();
+                } else {
+                    throw new NotSupportedRuntimeException(
+                            request.getClass().getSimpleName() + " not supported by in-memory backend");
+                }
+            } catch (MongoCommandException e) {
+                writeErrors.add(new BulkWriteError(e.getErrorCode(), e.getErrorMessage(), new BsonDocument(), i));
+                if (options.isOrdered()) {
+                    break;
+                }
+            }
+        }
+        var result = BulkWriteResult.acknowledged(insertedCount, (int) matchedCount, (int) deletedCount,
+                (int) modifiedCount, upserts, inserts);
+        if (!writeErrors.isEmpty()) {
+            throw new MongoBulkWriteException(result, writeErrors, null, InMemoryErrors.SERVER_ADDRESS, Set.of());
+        }
+        return result;
+    }
+
+    String createIndex(Bson keys) {
+        return createIndex(keys, new IndexOptions());
+    }
+
+    String createIndex(Bson keys, IndexOptions indexOptions) {
+        var keysDocument = InMemoryCodecs.toBsonDocument(keys, codecRegistry);
+        synchronized (database.getLock()) {
+            return database.getOrCreateStore(name).createIndex(keysDocument, indexOptions.getName(), indexOptions.isUnique());
+        }
+    }
+
+    String createIndex(ClientSession clientSession, Bson keys) {
+        return createIndex(keys);
+    }
+
+    String createIndex(ClientSession clientSession, Bson keys, IndexOptions indexOptions) {
+        return createIndex(keys, indexOptions);
+    }
+
+    void drop() {
+        database.dropStore(name);
+    }
+
+    void drop(ClientSession clientSession) {
+        drop();
+    }
+
+    /**
+     * @param upsert whether to insert the document built from the filter and the update if nothing matches
+     */
+    private UpdateResult update(@Nullable ClientSession clientSession, Bson filter, Bson update, boolean multi,
+            boolean upsert) {
+        var session = getSession(clientSession);
+        var filterDocument = InMemoryCodecs.toBsonDocument(filter, codecRegistry);
+        var updateDocument = InMemoryCodecs.toBsonDocument(update, codecRegistry);
+        synchronized (database.getLock()) {
+            var store = upsert ? database.getOrCreateStore(name) : database.getStore(name);
+            if (store == null) {
+                return UpdateResult.acknowledged(0, 0L, null);
+            }
+            var outcome = store.update(filterDocument, updateDocument, multi, session);
+            if (outcome.matchedCount() == 0 && upsert) {
+                var upsertedId = store.insert(UpdateApplier.createUpserted(filterDocument, updateDocument), session);
+                return UpdateResult.acknowledged(0, 0L, upsertedId);
+            }
+            return UpdateResult.acknowledged(outcome.matchedCount(), outcome.modifiedCount(), null);
+        }
+    }
+
+    private DeleteResult delete(@Nullable ClientSession clientSession, Bson filter, boolean multi) {
+        var session = getSession(clientSession);
+        var filterDocument = InMemoryCodecs.toBsonDocument(filter, codecRegistry);
+        synchronized (database.getLock()) {
+            var store = database.getStore(name);
+            return DeleteResult.acknowledged(store == null ? 0 : store.delete(filterDocument, multi, session));
+        }
+    }
+
+    private static Bson getUpdate(@Nullable Bson update) {
+        if (update == null) {
+            throw new NotSupportedRuntimeException("pipeline update not supported by in-memory backend");
+        }
+        return update;
+    }
+
+    @Nullable
+    private static InMemoryClientSession getSession(@Nullable ClientSession clientSession) {
+        if (clientSession == null) {
+            return null;
+        }
+        var session = InMemoryProxies.getHandler(clientSession, InMemoryClientSession.class);
+        if (session == null) {
+            throw new IllegalArgumentException("client session not started by in-memory client: " + clientSession);
+        }
+        return session;
+    }
+
+    @Override
+    public String toString() {
+        return getNamespace().getFullName();
+    }
+}
@@ -0,0 +1,231 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handler of the in-memory {@link MongoDatabase}, whose {@code runCommand} supports {@code buildinfo}, {@code ping},
+ * {@code find}, {@code aggregate}, {@code count} and {@code drop}; any other command fails with
+ * {@code CommandNotFound} error as on a real server.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class InMemoryMongoDatabase {
+
+    static final String SERVER_VERSION = "7.0.0";
+
+    private final InMemoryMongoClient client;
+    private final String name;
+    private final CodecRegistry codecRegistry;
+    private final ReadPreference readPreference;
+    private final ReadConcern readConcern;
+    private final WriteConcern writeConcern;
+
+    InMemoryMongoDatabase(InMemoryMongoClient client, String name, CodecRegistry codecRegistry,
+            ReadPreference readPreference, ReadConcern readConcern, WriteConcern writeConcern) {
+        this.client = client;
+        this.name = name;
+        this.codecRegistry = codecRegistry;
+        this.readPreference = readPreference;
+        this.readConcern = readConcern;
+        this.writeConcern = writeConcern;
+    }
+
+    static MongoDatabase createProxy(InMemoryMongoClient client, String name, CodecRegistry codecRegistry,
+            ReadPreference readPreference, ReadConcern readConcern, WriteConcern writeConcern) {
+        return InMemoryProxies.create(MongoDatabase.class,
+                new InMemoryMongoDatabase(client, name, codecRegistry, readPreference, readConcern, writeConcern));
+    }
+
+    Object getLock() {
+        return client.getLock();
+    }
+
+    /**
+     * Must be called holding {@link #getLock()}.
+     *
+     * @return the collection; {@code null} if it doesn't exist
+     */
+    @Nullable
+    DocumentStore getStore(String collectionName) {
+        return client.getStores(name).get(collectionName);
+    }
+
+    /**
+     * Must be called holding {@link #getLock()}.
+     */
+    DocumentStore getOrCreateStore(String collectionName) {
+        return client.getStores(name).computeIfAbsent(collectionName, ignored -> new DocumentStore(name + '.' + collectionName));
+    }
+
+    void dropStore(String collectionName) {
+        synchronized (getLock()) {
+            client.getStores(name).remove(collectionName);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    CodecRegistry getCodecRegistry() {
+        return codecRegistry;
+    }
+
+    ReadPreference getReadPreference() {
+        return readPreference;
+    }
+
+    ReadConcern getReadConcern() {
+        return readConcern;
+    }
+
+    WriteConcern getWriteConcern() {
+        return writeConcern;
+    }
+
+    MongoDatabase withCodecRegistry(CodecRegistry newCodecRegistry) {
+        return createProxy(client, name, newCodecRegistry, readPreference, readConcern, writeConcern);
+    }
+
+    MongoDatabase withReadPreference(ReadPreference newReadPreference) {
+        return createProxy(client, name, codecRegistry, newReadPreference, readConcern, writeConcern);
+    }
+
+    MongoDatabase withReadConcern(ReadConcern newReadConcern) {
+        return createProxy(client, name, codecRegistry, readPreference, newReadConcern, writeConcern);
+    }
+
+    MongoDatabase withWriteConcern(WriteConcern newWriteConcern) {
+        return createProxy(client, name, codecRegistry, readPreference, readConcern, newWriteConcern);
+    }
+
+    MongoCollection<Document> getCollection(String collectionName) {
+        return getCollection(collectionName, Document.class);
+    }
+
+    <T> MongoCollection<T> getCollection(String collectionName, Class<T> documentClass) {
+        return InMemoryMongoCollection.createProxy(this, collectionName, documentClass, codecRegistry, readPreference,
+                readConcern, writeConcern);
+    }
+
+    void createCollection(String collectionName) {
+        synchronized (getLock()) {
+            getOrCreateStore(collectionName);
+        }
+    }
+
+    Document runCommand(Bson command) {
+        return runCommand(command, Document.class);
+    }
+
+    Document runCommand(Bson command, ReadPreference readPreference) {
+        return runCommand(command, Document.class);
+    }
+
+    <T> T runCommand(Bson command, Class<T> resultClass) {
+        var response = executeCommand(InMemoryCodecs.toBsonDocument(command, codecRegistry));
+        return InMemoryCodecs.decode(response, resultClass, codecRegistry);
+    }
+
+    <T> T runCommand(Bson command, ReadPreference readPreference, Class<T> resultClass) {
+        return runCommand(command, resultClass);
+    }
+
+    Document runCommand(ClientSession clientSession, Bson command) {
+        return runCommand(command, Document.class);
+    }
+
+    Document runCommand(ClientSession clientSession, Bson command, ReadPreference readPreference) {
+        return runCommand(command, Document.class);
+    }
+
+    <T> T runCommand(ClientSession clientSession, Bson command, Class<T> resultClass) {
+        return runCommand(command, resultClass);
+    }
+
+    <T> T runCommand(ClientSession clientSession, Bson command, ReadPreference readPreference, Class<T> resultClass) {
+        return runCommand(command, resultClass);
+    }
+
+    void drop() {
+        client.dropDatabase(name);
+    }
+
+    void drop(ClientSession clientSession) {
+        drop();
+    }
+
+    private BsonDocument executeCommand(BsonDocument command) {
+        var commandName = command.getFirstKey();
+        var response = switch (commandName) {
+            case "buildinfo", "buildInfo" -> new BsonDocument("version", new BsonString(SERVER_VERSION))
+                    .append("versionArray", new BsonArray(List.of(new BsonInt32(7), new BsonInt32(0), new BsonInt32(0),
+                            new BsonInt32(0))));
+            case "ping" -> new BsonDocument();
+            case "find" -> {
+                var iterable = InMemoryIterable.find(this, command.getString(commandName).getValue(),
+                        BsonDocument.class, codecRegistry, command.getDocument("filter", new BsonDocument()));
+                if (command.containsKey("projection")) {
+                    iterable.projection(command.getDocument("projection"));
+                }
+                if (command.containsKey("sort")) {
+                    iterable.sort(command.getDocument("sort"));
+                }
+                if (command.containsKey("skip")) {
+                    iterable.skip(command.getNumber("skip").intValue());
+                }
+                if (command.containsKey("limit")) {
+                    iterable.limit(command.getNumber("limit").intValue());
+                }
+                yield createCursorResponse(command.getString(commandName).getValue(), iterable);
+            }
+            case "aggregate" -> {
+                var pipeline = new ArrayList<BsonDocument>();
+                command.getArray("pipeline").forEach(stage -> pipeline.add(stage.asDocument()));
+                yield createCursorResponse(command.getString(commandName).getValue(), InMemoryIterable.aggregate(this,
+                        command.getString(commandName).getValue(), BsonDocument.class, codecRegistry, pipeline));
+            }
+            case "count" -> {
+                var query = command.getDocument("query", new BsonDocument());
+                synchronized (getLock()) {
+                    var store = getStore(command.getString(commandName).getValue());
+                    yield new BsonDocument("n", new BsonInt32(store == null ? 0 : store.find(query, Map.of()).size()));
+                }
+            }
+            case "drop" -> {
+                dropStore(command.getString(commandName).getValue());
+                yield new BsonDocument();
+            }
+            default -> throw InMemoryErrors.commandNotFound(commandName);
+        };
+        return response.append("ok", new BsonDouble(1.0));
+    }
+
+    private BsonDocument createCursorResponse(String collectionName, InMemoryIterable<BsonDocument> iterable) {
+        var firstBatch = new BsonArray(iterable.into(new ArrayList<BsonValue>()));
+        return new BsonDocument("cursor", new BsonDocument("firstBatch", firstBatch)
+                .append("id", new BsonInt64(0))
+                .append("ns", new BsonString(name + '.' + collectionName)));
+    }
+}
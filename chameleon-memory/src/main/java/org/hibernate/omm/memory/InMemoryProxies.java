@@ -0,0 +1,88 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.lang.Nullable;
+import org.hibernate.omm.exception.NotSupportedRuntimeException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implements the (wide) driver interfaces by dispatching to plain handler objects, which declare only the methods
+ * backed in memory with the same names and erased parameter types as the interface methods (e.g.
+ * {@code insertOne(ClientSession, Object)}); everything else fails fast with {@link NotSupportedRuntimeException}.
+ * <p>
+ * A handler method returning the handler itself returns the proxy, so that fluent interfaces keep chaining.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class InMemoryProxies {
+
+    private static final Map<Class<?>, Map<Method, Optional<Method>>> HANDLER_METHODS = new ConcurrentHashMap<>();
+
+    private InMemoryProxies() {
+    }
+
+    static <T> T create(Class<T> type, Object handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                new HandlerInvocationHandler(type, handler)));
+    }
+
+    /**
+     * @return the handler behind the proxy; {@code null} if it is not an in-memory proxy of the handler type
+     */
+    @Nullable
+    static <H> H getHandler(@Nullable Object proxy, Class<H> handlerType) {
+        if (proxy != null && Proxy.isProxyClass(proxy.getClass())
+                && Proxy.getInvocationHandler(proxy) instanceof HandlerInvocationHandler invocationHandler
+                && handlerType.isInstance(invocationHandler.handler)) {
+            return handlerType.cast(invocationHandler.handler);
+        }
+        return null;
+    }
+
+    private record HandlerInvocationHandler(Class<?> type, Object handler) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "InMemory" + type.getSimpleName() + '[' + handler + ']';
+                };
+            }
+            var handlerMethod = HANDLER_METHODS.computeIfAbsent(handler.getClass(), ignored -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(method, this::findHandlerMethod);
+            if (handlerMethod.isEmpty()) {
+                if (method.isDefault()) {
+                    return InvocationHandler.invokeDefault(proxy, method, args);
+                }
+                throw new NotSupportedRuntimeException(
+                        type.getSimpleName() + '#' + method.getName() + " not supported by in-memory backend");
+            }
+            Object result;
+            try {
+                result = handlerMethod.get().invoke(handler, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return result == handler ? proxy : result;
+        }
+
+        private Optional<Method> findHandlerMethod(Method method) {
+            try {
+                var handlerMethod = handler.getClass().getDeclaredMethod(method.getName(), method.getParameterTypes());
+                handlerMethod.setAccessible(true);
+                return Optional.of(handlerMethod);
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        }
+    }
+}
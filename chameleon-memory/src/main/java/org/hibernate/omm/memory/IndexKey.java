@@ -0,0 +1,24 @@
+package org.hibernate.omm.memory;
+
+import org.bson.BsonValue;
+
+/**
+ * Hash key wrapping {@link BsonValue} with MongoDB equality semantics, e.g. {@code 1} and {@code NumberLong(1)} are
+ * the same key.
+ *
+ * @param value wrapped value
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+record IndexKey(BsonValue value) {
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof IndexKey indexKey && BsonValueComparator.isEqual(value, indexKey.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return BsonValueComparator.hash(value);
+    }
+}
@@ -0,0 +1,70 @@
+package org.hibernate.omm.memory;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+
+/**
+ * Applies projection documents (of {@code find} or {@code $project}): either exclusion of fields, or inclusion of
+ * fields and computed fields (e.g. {@code { f0: "$_id", f1: "$title", _id: 0 }}), {@code _id} being included unless
+ * excluded explicitly.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class Projection {
+
+    private Projection() {
+    }
+
+    static BsonDocument apply(BsonDocument document, BsonDocument projection, Map<String, BsonValue> variables) {
+        boolean inclusion = false;
+        boolean exclusion = false;
+        for (Map.Entry<String, BsonValue> entry : projection.entrySet()) {
+            if (DocumentStore.ID_FIELD_NAME.equals(entry.getKey()) && isFlag(entry.getValue())) {
+                continue;
+            }
+            if (isFlag(entry.getValue()) && !ExpressionEvaluator.isTruthy(entry.getValue())) {
+                exclusion = true;
+            } else {
+                inclusion = true;
+            }
+        }
+        if (inclusion && exclusion) {
+            throw InMemoryErrors.badValue("Cannot do exclusion and inclusion in the same projection: " + projection.toJson());
+        }
+        if (!inclusion) {
+            var result = InMemoryCodecs.copy(document);
+            for (Map.Entry<String, BsonValue> entry : projection.entrySet()) {
+                FieldPaths.removeValue(result, entry.getKey());
+            }
+            return result;
+        }
+        var result = new BsonDocument();
+        var idProjection = projection.get(DocumentStore.ID_FIELD_NAME);
+        if (idProjection == null) {
+            var id = document.get(DocumentStore.ID_FIELD_NAME);
+            if (id != null) {
+                result.put(DocumentStore.ID_FIELD_NAME, id);
+            }
+        }
+        for (Map.Entry<String, BsonValue> entry : projection.entrySet()) {
+            var value = entry.getValue();
+            BsonValue projected;
+            if (isFlag(value)) {
+                projected = ExpressionEvaluator.isTruthy(value) ? FieldPaths.getValue(document, entry.getKey()) : null;
+            } else {
+                projected = ExpressionEvaluator.evaluate(value, document, variables);
+            }
+            if (projected != null) {
+                FieldPaths.setValue(result, entry.getKey(), projected);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isFlag(BsonValue value) {
+        return value.isNumber() || value.isBoolean();
+    }
+}
@@ -0,0 +1,110 @@
+package org.hibernate.omm.memory;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonNull;
+import org.bson.BsonValue;
+
+import java.util.Map;
+
+/**
+ * Applies update documents: either replacement, or the field update operators {@code $set}, {@code $unset},
+ * {@code $inc}, {@code $mul}, {@code $min}, {@code $max} and {@code $setOnInsert}.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+final class UpdateApplier {
+
+    private UpdateApplier() {
+    }
+
+    static boolean isReplacement(BsonDocument update) {
+        return update.isEmpty() || !update.getFirstKey().startsWith("$");
+    }
+
+    /**
+     * @param document document to update in place
+     * @param update update document
+     */
+    static void apply(BsonDocument document, BsonDocument update) {
+        if (isReplacement(update)) {
+            var id = document.get(DocumentStore.ID_FIELD_NAME);
+            document.clear();
+            if (id != null) {
+                document.put(DocumentStore.ID_FIELD_NAME, id);
+            }
+            for (Map.Entry<String, BsonValue> entry : update.entrySet()) {
+                if (!DocumentStore.ID_FIELD_NAME.equals(entry.getKey())) {
+                    document.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return;
+        }
+        for (Map.Entry<String, BsonValue> operation : update.entrySet()) {
+            var operator = operation.getKey();
+            for (Map.Entry<String, BsonValue> field : operation.getValue().asDocument().entrySet()) {
+                applyOperator(document, operator, field.getKey(), field.getValue());
+            }
+        }
+    }
+
+    /**
+     * Build the document inserted by an upsert matching nothing: the equality conditions of the filter updated by
+     * the update document, with {@code $setOnInsert} taking effect.
+     */
+    static BsonDocument createUpserted(BsonDocument filter, BsonDocument update) {
+        var document = new BsonDocument();
+        for (Map.Entry<String, BsonValue> condition : filter.entrySet()) {
+            var value = condition.getValue();
+            if (!condition.getKey().startsWith("$")
+                    && !(value.isDocument() && !value.asDocument().isEmpty()
+                            && value.asDocument().getFirstKey().startsWith("$"))) {
+                FieldPaths.setValue(document, condition.getKey(), value);
+            }
+        }
+        if (isReplacement(update)) {
+            apply(document, update);
+            return document;
+        }
+        for (Map.Entry<String, BsonValue> operation : update.entrySet()) {
+            var operator = "$setOnInsert".equals(operation.getKey()) ? "$set" : operation.getKey();
+            for (Map.Entry<String, BsonValue> field : operation.getValue().asDocument().entrySet()) {
+                applyOperator(document, operator, field.getKey(), field.getValue());
+            }
+        }
+        return document;
+    }
+
+    private static void applyOperator(BsonDocument document, String operator, String path, BsonValue operand) {
+        switch (operator) {
+            case "$set" -> FieldPaths.setValue(document, path, operand);
+            case "$unset" -> FieldPaths.removeValue(document, path);
+            case "$inc", "$mul" -> {
+                if (!operand.isNumber()) {
+                    throw InMemoryErrors.badValue("Cannot " + operator.substring(1) + " with non-numeric argument");
+                }
+                var current = FieldPaths.getValue(document, path);
+                if (current == null || current.isNull()) {
+                    current = new BsonInt32(0);
+                } else if (!current.isNumber()) {
+                    throw InMemoryErrors.badValue("Cannot apply " + operator + " to a value of non-numeric type");
+                }
+                var arithmeticOperator = "$inc".equals(operator) ? "$add" : "$multiply";
+                FieldPaths.setValue(document, path,
+                        ExpressionEvaluator.applyArithmetic(arithmeticOperator, current.asNumber(), operand.asNumber()));
+            }
+            case "$min", "$max" -> {
+                var current = FieldPaths.getValue(document, path);
+                int result = BsonValueComparator.INSTANCE.compare(operand, current == null ? BsonNull.VALUE : current);
+                if (current == null || ("$min".equals(operator) ? result < 0 : result > 0)) {
+                    FieldPaths.setValue(document, path, operand);
+                }
+            }
+            case "$setOnInsert" -> {
+                // only takes effect when upserting
+            }
+            default -> throw InMemoryErrors.badValue("Unknown modifier: " + operator);
+        }
+    }
+}
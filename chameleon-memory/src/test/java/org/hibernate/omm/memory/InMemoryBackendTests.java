@@ -0,0 +1,121 @@
+package org.hibernate.omm.memory;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.jdbc.MongoConnectionProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs Hibernate against the in-memory backend, no matter which backend the integration tests use.
+ *
+ * @author Nathan Xu
+ */
+class InMemoryBackendTests {
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void createSessionFactory() {
+        var cfg = new Configuration();
+        cfg.setProperty(MongoAvailableSettings.MONGODB_BACKEND, MongoConnectionProvider.IN_MEMORY_BACKEND);
+        cfg.setProperty(MongoAvailableSettings.MONGODB_DATABASE, "test");
+        cfg.addAnnotatedClass(Author.class);
+        cfg.addAnnotatedClass(Book.class);
+        sessionFactory = cfg.buildSessionFactory();
+    }
+
+    @AfterEach
+    void closeSessionFactory() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void testCrud() {
+        sessionFactory.inTransaction(session -> session.persist(new Book(1L, "War and Peace", null)));
+
+        sessionFactory.inTransaction(session -> session.find(Book.class, 1L).title = "Anna Karenina");
+        assertThat(sessionFactory.fromTransaction(session -> session.find(Book.class, 1L).title)).isEqualTo("Anna Karenina");
+
+        sessionFactory.inTransaction(session -> session.remove(session.find(Book.class, 1L)));
+        assertThat(sessionFactory.fromTransaction(session -> session.find(Book.class, 1L))).isNull();
+    }
+
+    @Test
+    void testRollback() {
+        sessionFactory.inSession(session -> {
+            var transaction = session.beginTransaction();
+            session.persist(new Book(1L, "War and Peace", null));
+            session.flush();
+            transaction.rollback();
+        });
+
+        assertThat(sessionFactory.fromTransaction(session -> session.find(Book.class, 1L))).isNull();
+    }
+
+    @Test
+    void testJoinQuery() {
+        sessionFactory.inTransaction(session -> {
+            var tolstoy = new Author(1L, "Leo Tolstoy");
+            var dostoevsky = new Author(2L, "Fyodor Dostoevsky");
+            session.persist(tolstoy);
+            session.persist(dostoevsky);
+            session.persist(new Book(1L, "War and Peace", tolstoy));
+            session.persist(new Book(2L, "Anna Karenina", tolstoy));
+            session.persist(new Book(3L, "Crime and Punishment", dostoevsky));
+        });
+
+        var titles = sessionFactory.fromTransaction(session -> session.createSelectionQuery(
+                        "select b.title from Book b where b.author.name = :name order by b.title", String.class)
+                .setParameter("name", "Leo Tolstoy")
+                .getResultList());
+
+        assertThat(titles).containsExactly("Anna Karenina", "War and Peace");
+    }
+
+    @Entity(name = "Author")
+    @Table(name = "authors")
+    static class Author {
+        @Id
+        Long id;
+
+        String name;
+
+        Author() {
+        }
+
+        Author(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Entity(name = "Book")
+    @Table(name = "books")
+    static class Book {
+        @Id
+        Long id;
+
+        String title;
+
+        @ManyToOne
+        Author author;
+
+        Book() {
+        }
+
+        Book(Long id, String title, Author author) {
+            this.id = id;
+            this.title = title;
+            this.author = author;
+        }
+    }
+}
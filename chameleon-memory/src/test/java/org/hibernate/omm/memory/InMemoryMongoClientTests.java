@@ -0,0 +1,157 @@
+package org.hibernate.omm.memory;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Nathan Xu
+ */
+class InMemoryMongoClientTests {
+
+    private MongoClient mongoClient;
+    private MongoCollection<BsonDocument> books;
+
+    @BeforeEach
+    void createClient() {
+        mongoClient = InMemoryMongoClient.create();
+        books = mongoClient.getDatabase("test").getCollection("books", BsonDocument.class);
+        books.insertMany(List.of(
+                BsonDocument.parse("{ _id: 1, title: \"War and Peace\", author: 1, year: 1869, tags: [\"novel\", \"war\"] }"),
+                BsonDocument.parse("{ _id: 2, title: \"Anna Karenina\", author: 1, year: { $numberLong: \"1878\" }, tags: [\"novel\"] }"),
+                BsonDocument.parse("{ _id: 3, title: \"Crime and Punishment\", author: 2, year: 1866.0, isbn: null }")));
+    }
+
+    @AfterEach
+    void closeClient() {
+        mongoClient.close();
+    }
+
+    @Test
+    void testFilterSemantics() {
+        assertThat(findIds("{ year: { $gte: 1869 } }")).containsExactly(1, 2);
+        assertThat(findIds("{ tags: \"war\" }")).containsExactly(1);
+        assertThat(findIds("{ isbn: null }")).containsExactly(1, 2, 3);
+        assertThat(findIds("{ isbn: { $exists: true } }")).containsExactly(3);
+        assertThat(findIds("{ title: { $gt: 1 } }")).isEmpty();
+        assertThat(findIds("{ $or: [ { _id: { $in: [1, 3] } }, { tags: { $size: 1 } } ] }")).containsExactly(1, 2, 3);
+        assertThat(findIds("{ $expr: { $lt: [ \"$year\", 1870 ] } }")).containsExactly(1, 3);
+    }
+
+    @Test
+    void testFindWithProjectionSortSkipLimit() {
+        var results = books.find(BsonDocument.parse("{ author: 1 }"))
+                .projection(BsonDocument.parse("{ f0: \"$title\", _id: 0 }"))
+                .sort(BsonDocument.parse("{ year: -1 }"))
+                .skip(1)
+                .limit(1)
+                .into(new ArrayList<>());
+
+        assertThat(results).containsExactly(BsonDocument.parse("{ f0: \"War and Peace\" }"));
+    }
+
+    @Test
+    void testLookupAndUnwind() {
+        var authors = mongoClient.getDatabase("test").getCollection("authors", BsonDocument.class);
+        authors.insertMany(List.of(
+                BsonDocument.parse("{ _id: 1, name: \"Leo Tolstoy\" }"),
+                BsonDocument.parse("{ _id: 2, name: \"Fyodor Dostoevsky\" }")));
+
+        var results = books.aggregate(List.of(
+                BsonDocument.parse("{ $lookup: { from: \"authors\", localField: \"author\", foreignField: \"_id\", as: \"a\" } }"),
+                BsonDocument.parse("{ $unwind: \"$a\" }"),
+                BsonDocument.parse("{ $match: { \"a.name\": \"Leo Tolstoy\" } }"),
+                BsonDocument.parse("{ $sort: { title: 1 } }"),
+                BsonDocument.parse("{ $project: { f0: \"$title\", f1: \"$a.name\", _id: 0 } }")
+        )).into(new ArrayList<>());
+
+        assertThat(results).containsExactly(
+                BsonDocument.parse("{ f0: \"Anna Karenina\", f1: \"Leo Tolstoy\" }"),
+                BsonDocument.parse("{ f0: \"War and Peace\", f1: \"Leo Tolstoy\" }"));
+    }
+
+    @Test
+    void testGroup() {
+        var results = books.aggregate(List.of(
+                BsonDocument.parse("{ $group: { _id: \"$author\", count: { $sum: 1 }, first: { $min: \"$year\" } } }")
+        )).into(new ArrayList<>());
+
+        assertThat(results).containsExactly(
+                BsonDocument.parse("{ _id: 1, count: 2, first: 1869 }"),
+                BsonDocument.parse("{ _id: 2, count: 1, first: 1866.0 }"));
+    }
+
+    @Test
+    void testUpdateAndDelete() {
+        var updateResult = books.updateMany(BsonDocument.parse("{ author: 1 }"),
+                BsonDocument.parse("{ $set: { author: 3 }, $inc: { year: 1 } }"));
+        assertThat(updateResult.getMatchedCount()).isEqualTo(2);
+        assertThat(updateResult.getModifiedCount()).isEqualTo(2);
+        assertThat(books.find(BsonDocument.parse("{ _id: 2 }")).first())
+                .isEqualTo(BsonDocument.parse("{ _id: 2, title: \"Anna Karenina\", author: 3, year: { $numberLong: \"1879\" }, tags: [\"novel\"] }"));
+
+        assertThat(books.deleteOne(BsonDocument.parse("{ author: 3 }")).getDeletedCount()).isEqualTo(1);
+        assertThat(books.deleteMany(BsonDocument.parse("{}")).getDeletedCount()).isEqualTo(2);
+        assertThat(books.countDocuments()).isZero();
+    }
+
+    @Test
+    void testIndexes() {
+        books.createIndex(BsonDocument.parse("{ year: 1 }"));
+        books.createIndex(BsonDocument.parse("{ title: 1 }"), new IndexOptions().unique(true));
+
+        assertThat(findIds("{ year: { $gt: 1866, $lt: 1878 } }")).containsExactly(1);
+        assertThat(findIds("{ year: { $in: [1866, 1878] } }")).containsExactly(2, 3);
+        assertThatThrownBy(() -> books.insertOne(BsonDocument.parse("{ _id: 4, title: \"War and Peace\" }")))
+                .isInstanceOfSatisfying(MongoCommandException.class, e -> assertThat(e.getErrorCode()).isEqualTo(11000));
+        assertThat(books.countDocuments()).isEqualTo(3);
+    }
+
+    @Test
+    void testUnorderedInsertGoesOnAfterDuplicateKey() {
+        assertThatThrownBy(() -> books.insertMany(List.of(
+                BsonDocument.parse("{ _id: 1 }"),
+                BsonDocument.parse("{ _id: 4 }")), new InsertManyOptions().ordered(false)))
+                .isInstanceOfSatisfying(MongoCommandException.class, e -> assertThat(e.getErrorCode()).isEqualTo(11000));
+        assertThat(findIds("{ _id: { $gt: 3 } }")).containsExactly(4);
+    }
+
+    @Test
+    void testTransactionAborted() {
+        try (var clientSession = mongoClient.startSession()) {
+            clientSession.startTransaction();
+            books.insertOne(clientSession, BsonDocument.parse("{ _id: 4 }"));
+            books.updateOne(clientSession, BsonDocument.parse("{ _id: 1 }"), BsonDocument.parse("{ $unset: { tags: \"\" } }"));
+            books.deleteOne(clientSession, BsonDocument.parse("{ _id: 2 }"));
+            clientSession.abortTransaction();
+        }
+
+        assertThat(findIds("{}")).containsExactly(1, 2, 3);
+        assertThat(findIds("{ tags: \"war\" }")).containsExactly(1);
+    }
+
+    @Test
+    void testUnknownCommandRejected() {
+        assertThatThrownBy(() -> mongoClient.getDatabase("test").runCommand(BsonDocument.parse("{ unknownCommand: 1 }")))
+                .isInstanceOfSatisfying(MongoCommandException.class, e -> assertThat(e.getErrorCode()).isEqualTo(59));
+    }
+
+    private List<Integer> findIds(String filter) {
+        var ids = new ArrayList<Integer>();
+        books.find(BsonDocument.parse(filter)).sort(BsonDocument.parse("{ _id: 1 }"))
+                .forEach(document -> ids.add(document.getInt32("_id").getValue()));
+        return ids;
+    }
+}
@@ -0,0 +1,31 @@
+package org.hibernate.omm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Read preference of the queries whose root is the annotated entity, e.g. routing reporting queries to secondaries.
+ * <p>
+ * Only applies outside of a transaction (transactions always read from primary), and is overridden by
+ * {@link org.hibernate.omm.cfg.MongoQueryHints#READ_PREFERENCE} query hint.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MongoReadPreference {
+
+    /**
+     * @return read preference mode name, e.g. {@code secondaryPreferred}
+     * @see com.mongodb.ReadPreference#valueOf(String)
+     */
+    String value();
+
+    /**
+     * @return maximum replication lag in seconds of the secondaries to read from; negative means no limit
+     */
+    long maxStalenessSeconds() default -1;
+}
@@ -1,8 +1,12 @@
 package org.hibernate.omm.ast;
 
+import com.mongodb.assertions.Assertions;
 import org.hibernate.LockMode;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.omm.exception.NotSupportedRuntimeException;
+import org.hibernate.omm.metrics.MongoMetrics;
+import org.hibernate.omm.metrics.MongoMetricsPhase;
+import org.hibernate.query.spi.QueryOptions;
 import org.hibernate.query.sqm.ComparisonOperator;
 import org.hibernate.query.sqm.sql.internal.SqmParameterInterpretation;
 import org.hibernate.sql.ast.Clause;
@@ -19,6 +23,7 @@ import org.hibernate.sql.ast.tree.predicate.Junction;
 import org.hibernate.sql.ast.tree.predicate.NegatedPredicate;
 import org.hibernate.sql.ast.tree.predicate.Predicate;
 import org.hibernate.sql.exec.spi.JdbcOperation;
+import org.hibernate.sql.exec.spi.JdbcParameterBindings;
 
 import java.util.Iterator;
 import java.util.List;
@@ -31,8 +36,35 @@ public class AbstractMongoQuerySqlTranslator<T extends JdbcOperation> extends Ab
 
     protected boolean inAggregateExpressionScope;
 
+    private final MongoMetrics metrics;
+
     public AbstractMongoQuerySqlTranslator(final SessionFactoryImplementor sessionFactory, final Statement statement) {
+        this(sessionFactory, statement, MongoMetrics.NOOP);
+    }
+
+    /**
+     * @param metrics metrics the translation time is recorded into
+     */
+    public AbstractMongoQuerySqlTranslator(
+            final SessionFactoryImplementor sessionFactory,
+            final Statement statement,
+            final MongoMetrics metrics) {
         super(sessionFactory, statement);
+        Assertions.notNull("metrics", metrics);
+        this.metrics = metrics;
+    }
+
+    /**
+     * The translation time is recorded into the {@link MongoMetricsPhase#TRANSLATE} metrics.
+     */
+    @Override
+    public T translate(JdbcParameterBindings jdbcParameterBindings, QueryOptions queryOptions) {
+        long startNanos = metrics.isEnabled() ? System.nanoTime() : 0L;
+        var jdbcOperation = super.translate(jdbcParameterBindings, queryOptions);
+        if (metrics.isEnabled()) {
+            metrics.recordPhase(MongoMetricsPhase.TRANSLATE, System.nanoTime() - startNanos);
+        }
+        return jdbcOperation;
     }
 
     @Override
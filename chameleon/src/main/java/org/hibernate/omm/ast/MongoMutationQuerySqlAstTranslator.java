@@ -2,6 +2,7 @@ package org.hibernate.omm.ast;
 
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.omm.exception.NotSupportedRuntimeException;
+import org.hibernate.omm.metrics.MongoMetrics;
 import org.hibernate.omm.util.CollectionUtil;
 import org.hibernate.sql.ast.Clause;
 import org.hibernate.sql.ast.tree.Statement;
@@ -28,6 +29,13 @@ public class MongoMutationQuerySqlAstTranslator<T extends JdbcOperation> extends
         super(sessionFactory, statement);
     }
 
+    public MongoMutationQuerySqlAstTranslator(
+            final SessionFactoryImplementor sessionFactory,
+            final Statement statement,
+            final MongoMetrics metrics) {
+        super(sessionFactory, statement, metrics);
+    }
+
     @Override
     public void visitStandardTableInsert(TableInsertStandard tableInsert) {
         getCurrentClauseStack().push(Clause.INSERT);
@@ -83,7 +91,8 @@ public class MongoMutationQuerySqlAstTranslator<T extends JdbcOperation> extends
         getClauseStack().push(Clause.VALUES);
 
         if (statement.getSourceSelectStatement() != null) {
-            // TODO implement using aggregate command
+            throw new IllegalStateException("insert statement with source select statement should have been translated by "
+                    + MongoSelectQueryAstTranslator.class.getSimpleName());
         } else {
             appendSql("insert: ");
             appendSql(writeStringHelper(statement.getTargetTable().getTableExpression()));
@@ -4,46 +4,80 @@ import com.mongodb.lang.Nullable;
 import org.hibernate.dialect.SelectItemReferenceStrategy;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.internal.util.collections.CollectionHelper;
+import org.hibernate.metamodel.mapping.EntityMappingType;
 import org.hibernate.metamodel.mapping.ModelPartContainer;
+import org.hibernate.omm.annotations.MongoReadPreference;
 import org.hibernate.omm.exception.NotSupportedRuntimeException;
 import org.hibernate.omm.exception.NotYetImplementedException;
+import org.hibernate.omm.metrics.MongoMetrics;
 import org.hibernate.omm.util.CollectionUtil;
+import org.hibernate.omm.util.ReadPreferenceUtil;
 import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.SortDirection;
 import org.hibernate.query.sqm.ComparisonOperator;
+import org.hibernate.query.sqm.FetchClauseType;
 import org.hibernate.sql.ast.Clause;
 import org.hibernate.sql.ast.SqlAstJoinType;
 import org.hibernate.sql.ast.SqlAstNodeRenderingMode;
+import org.hibernate.sql.ast.spi.AbstractSqlAstWalker;
 import org.hibernate.sql.ast.spi.SqlSelection;
+import org.hibernate.sql.ast.tree.SqlAstNode;
 import org.hibernate.sql.ast.tree.Statement;
+import org.hibernate.sql.ast.tree.expression.AggregateFunctionExpression;
 import org.hibernate.sql.ast.tree.expression.ColumnReference;
+import org.hibernate.sql.ast.tree.expression.Distinct;
 import org.hibernate.sql.ast.tree.expression.Expression;
+import org.hibernate.sql.ast.tree.expression.FunctionExpression;
+import org.hibernate.sql.ast.tree.expression.JdbcParameter;
+import org.hibernate.sql.ast.tree.expression.Literal;
 import org.hibernate.sql.ast.tree.expression.QueryLiteral;
+import org.hibernate.sql.ast.tree.expression.SelfRenderingExpression;
+import org.hibernate.sql.ast.tree.expression.SqlSelectionExpression;
 import org.hibernate.sql.ast.tree.expression.SqlTuple;
 import org.hibernate.sql.ast.tree.expression.SqlTupleContainer;
+import org.hibernate.sql.ast.tree.expression.Star;
 import org.hibernate.sql.ast.tree.from.FromClause;
 import org.hibernate.sql.ast.tree.from.LazyTableGroup;
 import org.hibernate.sql.ast.tree.from.NamedTableReference;
 import org.hibernate.sql.ast.tree.from.TableGroup;
 import org.hibernate.sql.ast.tree.from.TableGroupJoin;
+import org.hibernate.sql.ast.tree.insert.ConflictClause;
 import org.hibernate.sql.ast.tree.insert.InsertSelectStatement;
 import org.hibernate.sql.ast.tree.predicate.BooleanExpressionPredicate;
 import org.hibernate.sql.ast.tree.predicate.ComparisonPredicate;
+import org.hibernate.sql.ast.tree.predicate.Junction;
 import org.hibernate.sql.ast.tree.predicate.Predicate;
 import org.hibernate.sql.ast.tree.select.QueryGroup;
 import org.hibernate.sql.ast.tree.select.QueryPart;
 import org.hibernate.sql.ast.tree.select.QuerySpec;
 import org.hibernate.sql.ast.tree.select.SelectClause;
+import org.hibernate.sql.ast.tree.select.SortSpecification;
+import org.hibernate.sql.exec.spi.JdbcOperation;
 import org.hibernate.sql.exec.spi.JdbcOperationQuerySelect;
 
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import static org.hibernate.omm.util.StringUtil.writeStringHelper;
 
-public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslator<JdbcOperationQuerySelect> {
+/**
+ * Renders select statements as aggregate (or find) commands, as well as insert-select statements as aggregate
+ * commands ending with {@code $merge} stage (see {@link #visitInsertStatementOnly(InsertSelectStatement)}).
+ *
+ * @param <T> JDBC operation type; {@link JdbcOperationQuerySelect} for select statement
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public class MongoSelectQueryAstTranslator<T extends JdbcOperation> extends AbstractMongoQuerySqlTranslator<T> {
+
+    private static final String ID_FIELD = "_id";
 
     private static class PathTracker {
         private final Map<String, String> pathByQualifier = new HashMap<>();
@@ -79,6 +113,22 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
 
     private final PathTracker pathTracker = new PathTracker();
 
+    private List<Predicate> rootConjuncts = List.of();
+
+    private boolean pipelineStageRendered;
+
+    /**
+     * Whether current query spec is rendered as find command instead of aggregate command.
+     */
+    private boolean findCommand;
+
+    /**
+     * The {@code $group} stage of current query spec once it has been rendered; grouping keys and aggregate
+     * functions rendered afterwards (in HAVING, ORDER BY and SELECT clauses) refer to its output fields.
+     */
+    @Nullable
+    private GroupStage groupStage;
+
     @Nullable
     private String targetQualifier;
 
@@ -86,6 +136,13 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
         super(sessionFactory, statement);
     }
 
+    public MongoSelectQueryAstTranslator(
+            final SessionFactoryImplementor sessionFactory,
+            final Statement statement,
+            final MongoMetrics metrics) {
+        super(sessionFactory, statement, metrics);
+    }
+
     @Override
     public void visitQuerySpec(QuerySpec querySpec) {
         final QueryPart queryPartForRowNumbering = this.queryPartForRowNumbering;
@@ -93,6 +150,10 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
         final boolean needsSelectAliases = this.needsSelectAliases;
         final Predicate additionalWherePredicate = this.additionalWherePredicate;
         final ForUpdateClause forUpdate = this.forUpdate;
+        final List<Predicate> rootConjuncts = this.rootConjuncts;
+        final boolean pipelineStageRendered = this.pipelineStageRendered;
+        final boolean findCommand = this.findCommand;
+        final GroupStage groupStage = this.groupStage;
         try {
             this.additionalWherePredicate = null;
             this.forUpdate = null;
@@ -129,31 +190,74 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
                     }
                 }
             }
+            var mergingInsertStatement = getMergingInsertStatement(querySpec);
             queryPartStack.push(querySpec);
             if (queryGroupAlias != null) {
                 throw new NotSupportedRuntimeException("query group not supported");
             }
-            appendSql("{ aggregate: ");
+            // simple single-collection query is rendered as find command to save aggregation framework overhead
+            this.findCommand = mergingInsertStatement == null && isFindCommandApplicable(querySpec);
+            appendSql(this.findCommand ? "{ find: " : "{ aggregate: ");
+            // the root-only conjuncts of WHERE clause are rendered as leading $match in renderRootTableGroup()
+            // so the server could filter (using index) before any $lookup
+            var conjuncts = getConjuncts(querySpec.getWhereClauseRestrictions());
+            var rootQualifier = querySpec.getFromClause().getRoots().isEmpty() ?
+                    null :
+                    querySpec.getFromClause().getRoots().get(0).getPrimaryTableReference().getIdentificationVariable();
+            var joinedPathConjuncts = new ArrayList<Predicate>(conjuncts.size());
+            this.rootConjuncts = new ArrayList<>(conjuncts.size());
+            for (Predicate conjunct : conjuncts) {
+                if (this.findCommand || isRootOnly(conjunct, rootQualifier)) {
+                    this.rootConjuncts.add(conjunct);
+                } else {
+                    joinedPathConjuncts.add(conjunct);
+                }
+            }
+            this.pipelineStageRendered = false;
+            this.groupStage = null;
             visitFromClause(querySpec.getFromClause());
-            appendSql("{ $match: ");
-            visitWhereClause(querySpec.getWhereClauseRestrictions());
+            if (!joinedPathConjuncts.isEmpty()) {
+                openPipelineStage("$match");
+                renderConjuncts(joinedPathConjuncts, Clause.WHERE);
+                closePipelineStage();
+            }
+            renderGroupStage(querySpec);
+            renderHavingStage(querySpec);
 
             if (CollectionUtil.isNotEmpty(querySpec.getSortSpecifications())) {
-                appendSql(" }, { $sort: ");
+                openPipelineStage("$sort");
                 visitOrderBy(querySpec.getSortSpecifications());
+                closePipelineStage();
             }
-            append(" }, { $project: ");
-            visitSelectClause(querySpec.getSelectClause());
-            //visitGroupByClause( querySpec, dialect.getGroupBySelectItemReferenceStrategy() );
-            //visitHavingClause( querySpec );
+            // $skip and $limit right after $sort so server could adopt top-k sorting
             visitOffsetFetchClause(querySpec);
+            openPipelineStage("$project");
+            if (mergingInsertStatement == null) {
+                visitSelectClause(querySpec.getSelectClause());
+            } else {
+                renderMergeProjection(querySpec.getSelectClause(), mergingInsertStatement.getTargetColumns());
+            }
+            closePipelineStage();
+            if (mergingInsertStatement != null) {
+                renderMergeStage(mergingInsertStatement);
+            }
             // We render the FOR UPDATE clause in the parent query
             //if ( queryPartForRowNumbering == null ) {
             //visitForUpdateClause( querySpec );
             //}
-            appendSql(" } ] }");
+            if (!this.findCommand) {
+                appendSql(" ]");
+            }
+            if (mergingInsertStatement == null) {
+                renderReadPreference(querySpec);
+            }
+            appendSql(" }");
         } finally {
             this.queryPartStack.pop();
+            this.rootConjuncts = rootConjuncts;
+            this.pipelineStageRendered = pipelineStageRendered;
+            this.findCommand = findCommand;
+            this.groupStage = groupStage;
             this.queryPartForRowNumbering = queryPartForRowNumbering;
             this.queryPartForRowNumberingClauseDepth = queryPartForRowNumberingClauseDepth;
             this.needsSelectAliases = needsSelectAliases;
@@ -164,6 +268,639 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
         }
     }
 
+    /**
+     * Render insert-select statement as aggregate command over the source collection whose pipeline ends with
+     * {@code $project} stage shaping the target documents and {@code $merge} stage writing them into the target
+     * collection, so no document goes through the JVM. The documents are matched on {@code _id} (or the conflict
+     * clause columns) with existing ones, which fails the command ({@code on conflict do nothing} keeps the existing
+     * documents instead).
+     *
+     * @see org.hibernate.omm.jdbc.MongoStatement#executeUpdate(String)
+     */
+    @Override
+    protected void visitInsertStatementOnly(InsertSelectStatement statement) {
+        var sourceSelectStatement = statement.getSourceSelectStatement();
+        if (sourceSelectStatement == null) {
+            throw new IllegalStateException("insert statement without source select statement should have been translated by "
+                    + MongoMutationQuerySqlAstTranslator.class.getSimpleName());
+        }
+        if (!(sourceSelectStatement instanceof QuerySpec)) {
+            throw new NotSupportedRuntimeException("insert statement with query group as source not supported");
+        }
+        if (CollectionUtil.isNotEmpty(statement.getReturningColumns())) {
+            throw new NotSupportedRuntimeException("insert statement with returning columns not supported");
+        }
+        var conflictClause = statement.getConflictClause();
+        if (conflictClause != null) {
+            if (conflictClause.getConstraintName() != null) {
+                throw new NotSupportedRuntimeException("insert statement with conflict clause constraint name not supported");
+            }
+            if (conflictClause.isDoUpdate()) {
+                throw new NotSupportedRuntimeException("insert statement with conflict clause do update not supported");
+            }
+        }
+        registerAffectedTable(statement.getTargetTable());
+        sourceSelectStatement.accept(this);
+    }
+
+    /**
+     * Conflict clause is honoured by {@code $merge} stage natively rather than emulated.
+     */
+    @Override
+    protected @Nullable String getUniqueConstraintNameThatMayFail(InsertSelectStatement sqlAst) {
+        return null;
+    }
+
+    private @Nullable InsertSelectStatement getMergingInsertStatement(QuerySpec querySpec) {
+        return getStatement() instanceof InsertSelectStatement insertSelectStatement
+                && insertSelectStatement.getSourceSelectStatement() == querySpec ? insertSelectStatement : null;
+    }
+
+    /**
+     * Render the select items of the source query of insert-select statement as the fields of the target documents.
+     * {@code _id} is excluded unless it is a target column, for {@code $merge} to generate it.
+     */
+    private void renderMergeProjection(SelectClause selectClause, List<ColumnReference> targetColumns) {
+        var selectExpressions = new ArrayList<Expression>(targetColumns.size());
+        for (SqlSelection sqlSelection : selectClause.getSqlSelections()) {
+            if (sqlSelection.isVirtual()) {
+                continue;
+            }
+            var sqlTuple = SqlTupleContainer.getSqlTuple(sqlSelection.getExpression());
+            if (sqlTuple == null) {
+                selectExpressions.add(sqlSelection.getExpression());
+            } else {
+                selectExpressions.addAll(sqlTuple.getExpressions());
+            }
+        }
+        if (selectExpressions.size() != targetColumns.size()) {
+            throw new IllegalStateException("select items of insert statement don't match its target columns");
+        }
+        clauseStack.push(Clause.SELECT);
+        final SqlAstNodeRenderingMode original = parameterRenderingMode;
+        parameterRenderingMode = SqlAstNodeRenderingMode.DEFAULT;
+        appendSql("{ ");
+        try {
+            var idTargeted = false;
+            for (int i = 0; i < targetColumns.size(); i++) {
+                var fieldName = targetColumns.get(i).getColumnExpression();
+                idTargeted |= ID_FIELD.equals(fieldName);
+                if (i > 0) {
+                    appendSql(", ");
+                }
+                appendSql(fieldName);
+                appendSql(": ");
+                var expression = selectExpressions.get(i);
+                if (groupStage != null) {
+                    appendSql(writeStringHelper("$" + getGroupedFieldPath(groupStage, expression)));
+                } else if (expression instanceof ColumnReference columnReference) {
+                    appendSql(writeStringHelper("$" + pathTracker.renderColumnReference(columnReference)));
+                } else if (expression instanceof Literal || expression instanceof JdbcParameter) {
+                    appendSql("{ $literal: ");
+                    expression.accept(this);
+                    appendSql(" }");
+                } else {
+                    throw new NotYetImplementedException(
+                            "currently only column reference, literal and parameter supported in select clause of insert statement");
+                }
+            }
+            if (!idTargeted) {
+                appendSql(", _id: 0");
+            }
+            appendSql(" }");
+        } finally {
+            parameterRenderingMode = original;
+            clauseStack.pop();
+        }
+    }
+
+    private void renderMergeStage(InsertSelectStatement statement) {
+        openPipelineStage("$merge");
+        appendSql("{ into: ");
+        appendSql(writeStringHelper(statement.getTargetTable().getTableExpression()));
+        ConflictClause conflictClause = statement.getConflictClause();
+        if (conflictClause != null && !conflictClause.getConstraintColumnNames().isEmpty()) {
+            appendSql(", on: [ ");
+            var separator = NO_SEPARATOR;
+            for (String columnName : conflictClause.getConstraintColumnNames()) {
+                appendSql(separator);
+                appendSql(writeStringHelper(columnName));
+                separator = COMMA_SEPARATOR;
+            }
+            appendSql(" ]");
+        }
+        appendSql(conflictClause == null ? ", whenMatched: \"fail\"" : ", whenMatched: \"keepExisting\"");
+        appendSql(", whenNotMatched: \"insert\" }");
+        closePipelineStage();
+    }
+
+    /**
+     * Render the {@link MongoReadPreference} of the root entity, if any, as the last field of the command.
+     *
+     * @see ReadPreferenceUtil#applyReadPreference(String, String, long)
+     */
+    private void renderReadPreference(QuerySpec querySpec) {
+        var roots = querySpec.getFromClause().getRoots();
+        if (!roots.isEmpty() && roots.get(0).getModelPart() instanceof EntityMappingType entityMappingType) {
+            var readPreference = entityMappingType.getJavaType().getJavaTypeClass()
+                    .getAnnotation(MongoReadPreference.class);
+            if (readPreference != null) {
+                appendSql(ReadPreferenceUtil.renderReadPreferenceField(
+                        readPreference.value(), readPreference.maxStalenessSeconds()));
+            }
+        }
+    }
+
+    @Override
+    protected void renderOrderBy(boolean addWhitespace, List<SortSpecification> sortSpecifications) {
+        appendSql("{ ");
+        clauseStack.push(Clause.ORDER);
+        try {
+            String separator = NO_SEPARATOR;
+            for (SortSpecification sortSpecification : sortSpecifications) {
+                if (sortSpecification.isIgnoreCase()) {
+                    throw new NotSupportedRuntimeException("case insensitive sorting not supported");
+                }
+                var sqlTuple = SqlTupleContainer.getSqlTuple(sortSpecification.getSortExpression());
+                var sortExpressions = sqlTuple == null ?
+                        List.of(sortSpecification.getSortExpression()) :
+                        sqlTuple.getExpressions();
+                for (Expression sortExpression : sortExpressions) {
+                    appendSql(separator);
+                    renderSortField(sortExpression, sortSpecification.getSortOrder());
+                    separator = COMMA_SEPARATOR;
+                }
+            }
+        } finally {
+            clauseStack.pop();
+        }
+        appendSql(" }");
+    }
+
+    private void renderSortField(Expression sortExpression, SortDirection sortOrder) {
+        if (sortExpression instanceof SqlSelectionExpression sqlSelectionExpression) {
+            sortExpression = sqlSelectionExpression.getSelection().getExpression();
+        }
+        if (groupStage != null) {
+            appendSql(writeStringHelper(getGroupedFieldPath(groupStage, sortExpression)));
+            appendSql(sortOrder == SortDirection.DESCENDING ? ": -1" : ": 1");
+        } else if (sortExpression instanceof ColumnReference columnReference) {
+            appendSql(writeStringHelper(pathTracker.renderColumnReference(columnReference)));
+            appendSql(sortOrder == SortDirection.DESCENDING ? ": -1" : ": 1");
+        } else {
+            throw new NotYetImplementedException("currently only column reference supported for sorting");
+        }
+    }
+
+    @Override
+    protected void renderOffset(Expression offsetExpression, boolean renderOffsetRowsKeyword) {
+        openPipelineStage("$skip");
+        clauseStack.push(Clause.OFFSET);
+        try {
+            renderOffsetExpression(offsetExpression);
+        } finally {
+            clauseStack.pop();
+        }
+        closePipelineStage();
+    }
+
+    @Override
+    protected void renderFetch(
+            Expression fetchExpression,
+            @Nullable Expression offsetExpressionToAdd,
+            FetchClauseType fetchClauseType) {
+        if (fetchClauseType != FetchClauseType.ROWS_ONLY) {
+            throw new NotSupportedRuntimeException("unsupported fetch clause type: " + fetchClauseType);
+        }
+        if (offsetExpressionToAdd != null) {
+            throw new NotSupportedRuntimeException("fetch expression plus offset not supported");
+        }
+        openPipelineStage("$limit");
+        clauseStack.push(Clause.FETCH);
+        try {
+            renderFetchExpression(fetchExpression);
+        } finally {
+            clauseStack.pop();
+        }
+        closePipelineStage();
+    }
+
+    /**
+     * Append the opening of a stage of the aggregate pipeline being rendered, with separator if needed.
+     * The stage is supposed to be closed by {@link #closePipelineStage()}. For find command, the equivalent
+     * command field is rendered instead.
+     *
+     * @param stageName stage name (e.g. {@code $match})
+     */
+    private void openPipelineStage(String stageName) {
+        if (findCommand) {
+            appendSql(", ");
+            appendSql(getFindCommandField(stageName));
+        } else {
+            appendSql(pipelineStageRendered ? ", { " : "{ ");
+            appendSql(stageName);
+        }
+        appendSql(": ");
+        pipelineStageRendered = true;
+    }
+
+    private void closePipelineStage() {
+        if (!findCommand) {
+            appendSql(" }");
+        }
+    }
+
+    private static String getFindCommandField(String stageName) {
+        return switch (stageName) {
+            case "$match" -> "filter";
+            case "$sort" -> "sort";
+            case "$skip" -> "skip";
+            case "$limit" -> "limit";
+            case "$project" -> "projection";
+            default -> throw new IllegalStateException("stage not applicable to find command: " + stageName);
+        };
+    }
+
+    /**
+     * Find command is applicable if the query spec involves nothing but filtering, sorting, projection, skip
+     * and limit on a single collection, and the server is MongoDB 4.4+ (whose find command accepts the aggregation
+     * expressions of the projection rendered, e.g. {@code f0: "$_id"}). DISTINCT query is left to the aggregate
+     * pipeline, as find command returns duplicates.
+     */
+    private boolean isFindCommandApplicable(QuerySpec querySpec) {
+        if (!getDialect().getVersion().isSameOrAfter(4, 4)) {
+            return false;
+        }
+        var roots = querySpec.getFromClause().getRoots();
+        if (roots.size() != 1) {
+            return false;
+        }
+        var root = roots.get(0);
+        return !root.isVirtual()
+                && root.getPrimaryTableReference() instanceof NamedTableReference
+                && root.getTableReferenceJoins().isEmpty()
+                && root.getTableGroupJoins().isEmpty()
+                && root.getNestedTableGroupJoins().isEmpty()
+                && querySpec.getGroupByClauseExpressions().isEmpty()
+                && querySpec.getHavingClauseRestrictions() == null
+                && !querySpec.getSelectClause().isDistinct()
+                && collectAggregateFunctions(querySpec).isEmpty();
+    }
+
+    private static List<Predicate> getConjuncts(@Nullable Predicate predicate) {
+        if (predicate == null || predicate.isEmpty()) {
+            return List.of();
+        }
+        if (predicate instanceof Junction junction && junction.getNature() == Junction.Nature.CONJUNCTION) {
+            var conjuncts = new ArrayList<Predicate>();
+            for (Predicate nested : junction.getPredicates()) {
+                conjuncts.addAll(getConjuncts(nested));
+            }
+            return conjuncts;
+        }
+        return List.of(predicate);
+    }
+
+    private static boolean isRootOnly(Predicate predicate, @Nullable String rootQualifier) {
+        var collector = new ColumnQualifierCollector();
+        predicate.accept(collector);
+        if (collector.opaque) {
+            return false;
+        }
+        for (String qualifier : collector.qualifiers) {
+            if (qualifier == null || !qualifier.equals(rootQualifier)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void renderConjuncts(List<Predicate> conjuncts, Clause clause) {
+        clauseStack.push(clause);
+        try {
+            if (conjuncts.size() == 1) {
+                conjuncts.get(0).accept(this);
+            } else {
+                appendSql("{ $and: [ ");
+                for (int i = 0; i < conjuncts.size(); i++) {
+                    if (i > 0) {
+                        appendSql(", ");
+                    }
+                    conjuncts.get(i).accept(this);
+                }
+                appendSql(" ] }");
+            }
+        } finally {
+            clauseStack.pop();
+        }
+    }
+
+    /**
+     * Collect the qualifiers of all the column references within some SQL AST node, flagging as opaque if
+     * some node (e.g. custom self-rendering expression) can't be looked into.
+     */
+    private static class ColumnQualifierCollector extends AbstractSqlAstWalker {
+        private final Set<String> qualifiers = new HashSet<>();
+        private boolean opaque;
+
+        @Override
+        public void visitColumnReference(ColumnReference columnReference) {
+            qualifiers.add(columnReference.getQualifier());
+        }
+
+        @Override
+        public void visitSelfRenderingExpression(SelfRenderingExpression expression) {
+            if (expression instanceof FunctionExpression functionExpression) {
+                for (SqlAstNode argument : functionExpression.getArguments()) {
+                    argument.accept(this);
+                }
+            } else {
+                opaque = true;
+            }
+        }
+    }
+
+    /**
+     * Render {@code $group} stage for GROUP BY clause or aggregate functions. DISTINCT query without them is rendered
+     * as grouping by all the select items.
+     */
+    private void renderGroupStage(QuerySpec querySpec) {
+        var aggregates = collectAggregateFunctions(querySpec);
+        var distinct = querySpec.getSelectClause().isDistinct();
+        if (querySpec.getGroupByClauseExpressions().isEmpty() && aggregates.isEmpty()) {
+            if (querySpec.getHavingClauseRestrictions() != null) {
+                throw new NotSupportedRuntimeException("HAVING clause without grouping not supported");
+            }
+            if (!distinct) {
+                return;
+            }
+        } else if (distinct && !querySpec.getGroupByClauseExpressions().isEmpty()) {
+            throw new NotSupportedRuntimeException("DISTINCT along with GROUP BY clause not supported");
+        }
+        var newGroupStage = new GroupStage();
+        if (distinct && aggregates.isEmpty()) {
+            for (SqlSelection sqlSelection : querySpec.getSelectClause().getSqlSelections()) {
+                if (sqlSelection.isVirtual()) {
+                    continue;
+                }
+                var sqlTuple = SqlTupleContainer.getSqlTuple(sqlSelection.getExpression());
+                var keyExpressions = sqlTuple == null ?
+                        List.of(sqlSelection.getExpression()) :
+                        sqlTuple.getExpressions();
+                for (Expression keyExpression : keyExpressions) {
+                    if (keyExpression instanceof ColumnReference columnReference) {
+                        newGroupStage.addKey(pathTracker.renderColumnReference(columnReference));
+                    } else {
+                        throw new NotYetImplementedException(
+                                "currently only column reference supported in select clause of DISTINCT query");
+                    }
+                }
+            }
+        }
+        for (Expression groupByExpression : querySpec.getGroupByClauseExpressions()) {
+            var sqlTuple = SqlTupleContainer.getSqlTuple(groupByExpression);
+            var keyExpressions = sqlTuple == null ? List.of(groupByExpression) : sqlTuple.getExpressions();
+            for (Expression keyExpression : keyExpressions) {
+                if (keyExpression instanceof SqlSelectionExpression sqlSelectionExpression) {
+                    keyExpression = sqlSelectionExpression.getSelection().getExpression();
+                }
+                if (keyExpression instanceof ColumnReference columnReference) {
+                    newGroupStage.addKey(pathTracker.renderColumnReference(columnReference));
+                } else {
+                    throw new NotYetImplementedException("currently only column reference supported for grouping");
+                }
+            }
+        }
+        for (AggregateFunctionExpression aggregate : aggregates) {
+            newGroupStage.addAccumulator(renderAccumulator(aggregate),
+                    "count".equalsIgnoreCase(aggregate.getFunctionName()));
+        }
+
+        clauseStack.push(Clause.GROUP);
+        try {
+            if (newGroupStage.isKeyless()) {
+                renderKeylessGroupStages(newGroupStage);
+            } else {
+                openPipelineStage("$group");
+                newGroupStage.render(this);
+                closePipelineStage();
+            }
+        } finally {
+            clauseStack.pop();
+        }
+        this.groupStage = newGroupStage;
+    }
+
+    /**
+     * SQL aggregation without grouping always returns one row, whereas {@code $group} returns no document for empty
+     * input, so the grouping is wrapped in {@code $facet} and the default row (with {@code 0} for counts and
+     * {@code null} for other aggregate functions) is substituted if it yields nothing, e.g.:
+     * <pre>
+     * { $facet: { r: [ { $group: { _id: null, a0: { $sum: 1 } } } ] } },
+     * { $replaceRoot: { newRoot: { $ifNull: [ { $arrayElemAt: [ "$r", 0 ] }, { _id: null, a0: 0 } ] } } }
+     * </pre>
+     */
+    private void renderKeylessGroupStages(GroupStage keylessGroupStage) {
+        openPipelineStage("$facet");
+        appendSql("{ r: [ { $group: ");
+        keylessGroupStage.render(this);
+        appendSql(" } ] }");
+        closePipelineStage();
+
+        openPipelineStage("$replaceRoot");
+        appendSql("{ newRoot: { $ifNull: [ { $arrayElemAt: [ \"$r\", 0 ] }, ");
+        keylessGroupStage.renderDefaultRow(this);
+        appendSql(" ] } }");
+        closePipelineStage();
+    }
+
+    private static List<AggregateFunctionExpression> collectAggregateFunctions(QuerySpec querySpec) {
+        var aggregateCollector = new AggregateFunctionCollector();
+        querySpec.getSelectClause().accept(aggregateCollector);
+        if (querySpec.getHavingClauseRestrictions() != null) {
+            querySpec.getHavingClauseRestrictions().accept(aggregateCollector);
+        }
+        if (querySpec.getSortSpecifications() != null) {
+            for (SortSpecification sortSpecification : querySpec.getSortSpecifications()) {
+                sortSpecification.getSortExpression().accept(aggregateCollector);
+            }
+        }
+        return aggregateCollector.aggregates;
+    }
+
+    private void renderHavingStage(QuerySpec querySpec) {
+        var havingClauseRestrictions = querySpec.getHavingClauseRestrictions();
+        if (havingClauseRestrictions != null && !havingClauseRestrictions.isEmpty()) {
+            openPipelineStage("$match");
+            renderConjuncts(getConjuncts(havingClauseRestrictions), Clause.HAVING);
+            closePipelineStage();
+        }
+    }
+
+    @Override
+    public void visitSelfRenderingExpression(SelfRenderingExpression expression) {
+        if (groupStage != null && expression instanceof AggregateFunctionExpression aggregate) {
+            appendSql(writeStringHelper(groupStage.getAccumulatorField(renderAccumulator(aggregate))));
+        } else {
+            super.visitSelfRenderingExpression(expression);
+        }
+    }
+
+    private String getGroupedFieldPath(GroupStage groupStage, Expression expression) {
+        if (expression instanceof SqlSelectionExpression sqlSelectionExpression) {
+            expression = sqlSelectionExpression.getSelection().getExpression();
+        }
+        if (expression instanceof ColumnReference columnReference) {
+            return groupStage.getKeyPath(pathTracker.renderColumnReference(columnReference));
+        } else if (expression instanceof AggregateFunctionExpression aggregate) {
+            return groupStage.getAccumulatorField(renderAccumulator(aggregate));
+        } else {
+            throw new NotYetImplementedException("currently only grouping column or aggregate function supported after grouping");
+        }
+    }
+
+    /**
+     * Render the {@code $group} accumulator equivalent to some SQL aggregate function. As the rendering involves
+     * only column references, it also serves as the identity of the aggregate function within the query spec.
+     */
+    private String renderAccumulator(AggregateFunctionExpression aggregate) {
+        if (aggregate.getFilter() != null) {
+            throw new NotSupportedRuntimeException("aggregate function filter clause not supported");
+        }
+        var functionName = aggregate.getFunctionName();
+        var arguments = aggregate.getArguments();
+        if (arguments.size() != 1) {
+            throw new NotSupportedRuntimeException("aggregate function with multiple arguments not supported: " + functionName);
+        }
+        var argument = arguments.get(0);
+        if ("count".equalsIgnoreCase(functionName)) {
+            if (argument instanceof Star) {
+                return "{ $sum: 1 }";
+            }
+            // SQL counts non-null values only
+            return "{ $sum: { $cond: [ { $eq: [ { $ifNull: [ " + renderAccumulatorArgument(argument) + ", null ] }, null ] }, 0, 1 ] } }";
+        }
+        var operator = switch (functionName.toLowerCase(Locale.ROOT)) {
+            case "sum" -> "$sum";
+            case "avg" -> "$avg";
+            case "min" -> "$min";
+            case "max" -> "$max";
+            default -> throw new NotSupportedRuntimeException("unsupported aggregate function: " + functionName);
+        };
+        return "{ " + operator + ": " + renderAccumulatorArgument(argument) + " }";
+    }
+
+    private String renderAccumulatorArgument(SqlAstNode argument) {
+        if (argument instanceof Distinct) {
+            throw new NotSupportedRuntimeException("distinct aggregate function not supported");
+        }
+        if (argument instanceof Expression expression) {
+            var sqlTuple = SqlTupleContainer.getSqlTuple(expression);
+            if (sqlTuple != null && sqlTuple.getExpressions().size() == 1) {
+                argument = sqlTuple.getExpressions().get(0);
+            }
+        }
+        if (argument instanceof ColumnReference columnReference) {
+            return writeStringHelper("$" + pathTracker.renderColumnReference(columnReference));
+        }
+        throw new NotYetImplementedException("currently only column reference supported as aggregate function argument");
+    }
+
+    /**
+     * Grouping keys and accumulators of the {@code $group} stage, which are named positionally ({@code g0..gn}
+     * within {@code _id} and {@code a0..an} respectively) to avoid clashing with column names.
+     */
+    private static class GroupStage {
+        private final Map<String, String> keyFieldByColumnPath = new LinkedHashMap<>();
+        private final Map<String, String> accumulatorFieldByDefinition = new LinkedHashMap<>();
+        private final Set<String> countAccumulatorFields = new HashSet<>();
+
+        void addKey(String columnPath) {
+            keyFieldByColumnPath.putIfAbsent(columnPath, "g" + keyFieldByColumnPath.size());
+        }
+
+        void addAccumulator(String accumulatorDefinition, boolean count) {
+            var accumulatorField = accumulatorFieldByDefinition.computeIfAbsent(accumulatorDefinition,
+                    ignored -> "a" + accumulatorFieldByDefinition.size());
+            if (count) {
+                countAccumulatorFields.add(accumulatorField);
+            }
+        }
+
+        boolean isKeyless() {
+            return keyFieldByColumnPath.isEmpty();
+        }
+
+        String getKeyPath(String columnPath) {
+            var keyField = keyFieldByColumnPath.get(columnPath);
+            if (keyField == null) {
+                throw new NotSupportedRuntimeException("column not in GROUP BY clause: " + columnPath);
+            }
+            return "_id." + keyField;
+        }
+
+        String getAccumulatorField(String accumulatorDefinition) {
+            var accumulatorField = accumulatorFieldByDefinition.get(accumulatorDefinition);
+            if (accumulatorField == null) {
+                throw new IllegalStateException("aggregate function not collected: " + accumulatorDefinition);
+            }
+            return accumulatorField;
+        }
+
+        void render(MongoSelectQueryAstTranslator translator) {
+            translator.appendSql("{ _id: ");
+            if (keyFieldByColumnPath.isEmpty()) {
+                translator.appendSql("null");
+            } else {
+                translator.appendSql("{ ");
+                String separator = NO_SEPARATOR;
+                for (Map.Entry<String, String> entry : keyFieldByColumnPath.entrySet()) {
+                    translator.appendSql(separator);
+                    translator.appendSql(entry.getValue());
+                    translator.appendSql(": ");
+                    translator.appendSql(writeStringHelper("$" + entry.getKey()));
+                    separator = COMMA_SEPARATOR;
+                }
+                translator.appendSql(" }");
+            }
+            for (Map.Entry<String, String> entry : accumulatorFieldByDefinition.entrySet()) {
+                translator.appendSql(", ");
+                translator.appendSql(entry.getValue());
+                translator.appendSql(": ");
+                translator.appendSql(entry.getKey());
+            }
+            translator.appendSql(" }");
+        }
+
+        /**
+         * Render the document a keyless grouping of empty input corresponds to in SQL.
+         */
+        void renderDefaultRow(MongoSelectQueryAstTranslator translator) {
+            translator.appendSql("{ _id: null");
+            for (String accumulatorField : accumulatorFieldByDefinition.values()) {
+                translator.appendSql(", ");
+                translator.appendSql(accumulatorField);
+                translator.appendSql(countAccumulatorFields.contains(accumulatorField) ? ": 0" : ": null");
+            }
+            translator.appendSql(" }");
+        }
+    }
+
+    private static class AggregateFunctionCollector extends AbstractSqlAstWalker {
+        private final List<AggregateFunctionExpression> aggregates = new ArrayList<>();
+
+        @Override
+        public void visitSelfRenderingExpression(SelfRenderingExpression expression) {
+            if (expression instanceof AggregateFunctionExpression aggregate) {
+                aggregates.add(aggregate);
+            } else if (expression instanceof FunctionExpression functionExpression) {
+                for (SqlAstNode argument : functionExpression.getArguments()) {
+                    argument.accept(this);
+                }
+            }
+        }
+    }
+
     @Override
     public void visitFromClause(@Nullable FromClause fromClause) {
         if (fromClause == null || fromClause.getRoots().isEmpty()) {
@@ -204,8 +941,21 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
             tableGroupJoinCollector.addAll(tableGroup.getTableGroupJoins());
         } else {
             tableGroup.getPrimaryTableReference().accept(this);
-            appendSql(", pipeline: [ ");
-            processTableGroupJoins(tableGroup);
+            if (!findCommand) {
+                appendSql(", pipeline: [ ");
+            }
+            if (!rootConjuncts.isEmpty()) {
+                openPipelineStage("$match");
+                renderConjuncts(rootConjuncts, Clause.WHERE);
+                closePipelineStage();
+            }
+            if (!tableGroup.getTableGroupJoins().isEmpty()) {
+                if (pipelineStageRendered) {
+                    appendSql(", ");
+                }
+                processTableGroupJoins(tableGroup);
+                pipelineStageRendered = true;
+            }
         }
         ModelPartContainer modelPart = tableGroup.getModelPart();
         if (modelPart instanceof AbstractEntityPersister) {
@@ -327,7 +1077,11 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
                 } else {
                     parameterRenderingMode = defaultRenderingMode;
                 }
-                if (sqlSelection.getExpression() instanceof ColumnReference columnReference) {
+                if (groupStage != null) {
+                    appendSql("f" + i);
+                    appendSql(": ");
+                    appendSql(writeStringHelper("$" + getGroupedFieldPath(groupStage, sqlSelection.getExpression())));
+                } else if (sqlSelection.getExpression() instanceof ColumnReference columnReference) {
                     appendSql("f" + i); // field name doesn't matter for Hibernate ResultSet retrieval only relies on order since v6
                     appendSql(": \"$");
                     appendSql(pathTracker.renderColumnReference(columnReference));
@@ -567,10 +1321,12 @@ public class MongoSelectQueryAstTranslator extends AbstractMongoQuerySqlTranslat
             appendSql(columnReference.getQualifier().equals(targetQualifier) ? "$" : ("$$" + columnReference.getQualifier() + "_"));
             appendSql(columnReference.getColumnExpression());
             appendSql('"');
+        } else if (groupStage != null) {
+            appendSql(writeStringHelper(groupStage.getKeyPath(pathTracker.renderColumnReference(columnReference))));
         } else if (queryPartStack.getCurrent() instanceof QuerySpec) {
             if (!columnReference.getQualifier().equals(pathTracker.getRootQualifier())) {
                 appendSql('"');
-                appendSql(columnReference.getQualifier() + "." + columnReference.getColumnExpression());
+                appendSql(pathTracker.renderColumnReference(columnReference));
                 appendSql('"');
             } else {
                 appendSql(columnReference.getColumnExpression());
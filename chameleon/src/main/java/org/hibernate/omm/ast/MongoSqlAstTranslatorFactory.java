@@ -1,9 +1,16 @@
 package org.hibernate.omm.ast;
 
+import com.mongodb.lang.Nullable;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.omm.jdbc.MongoConnectionProvider;
+import org.hibernate.omm.jdbc.MongoMultiTenantConnectionProvider;
+import org.hibernate.omm.metrics.MongoMetrics;
 import org.hibernate.sql.ast.SqlAstTranslator;
 import org.hibernate.sql.ast.SqlAstTranslatorFactory;
 import org.hibernate.sql.ast.tree.MutationStatement;
+import org.hibernate.sql.ast.tree.insert.InsertSelectStatement;
 import org.hibernate.sql.ast.tree.select.SelectStatement;
 import org.hibernate.sql.exec.spi.JdbcOperationQueryMutation;
 import org.hibernate.sql.exec.spi.JdbcOperationQuerySelect;
@@ -12,18 +19,54 @@ import org.hibernate.sql.model.jdbc.JdbcMutationOperation;
 
 public class MongoSqlAstTranslatorFactory implements SqlAstTranslatorFactory {
 
+    /**
+     * Metrics of the {@link MongoConnectionProvider} of the session factory, resolved once rather than per
+     * translation.
+     */
+    private volatile @Nullable ResolvedMetrics resolvedMetrics;
+
+    private record ResolvedMetrics(SessionFactoryImplementor sessionFactory, MongoMetrics metrics) {
+    }
+
     @Override
     public SqlAstTranslator<JdbcOperationQuerySelect> buildSelectTranslator(final SessionFactoryImplementor sessionFactory, final SelectStatement statement) {
-        return new MongoSelectQueryAstTranslator(sessionFactory, statement);
+        return new MongoSelectQueryAstTranslator<>(sessionFactory, statement, getMetrics(sessionFactory));
     }
 
     @Override
     public SqlAstTranslator<? extends JdbcOperationQueryMutation> buildMutationTranslator(final SessionFactoryImplementor sessionFactory, final MutationStatement statement) {
-        return new MongoMutationQuerySqlAstTranslator<>(sessionFactory, statement);
+        if (statement instanceof InsertSelectStatement insertSelectStatement
+                && insertSelectStatement.getSourceSelectStatement() != null) {
+            // the source query is rendered as aggregate pipeline ending with $merge stage
+            return new MongoSelectQueryAstTranslator<>(sessionFactory, statement, getMetrics(sessionFactory));
+        }
+        return new MongoMutationQuerySqlAstTranslator<>(sessionFactory, statement, getMetrics(sessionFactory));
     }
 
     @Override
     public <O extends JdbcMutationOperation> SqlAstTranslator<O> buildModelMutationTranslator(final TableMutation<O> mutation, final SessionFactoryImplementor sessionFactory) {
-        return new MongoMutationQuerySqlAstTranslator<>(sessionFactory, mutation);
+        return new MongoMutationQuerySqlAstTranslator<>(sessionFactory, mutation, getMetrics(sessionFactory));
+    }
+
+    private MongoMetrics getMetrics(SessionFactoryImplementor sessionFactory) {
+        var resolved = resolvedMetrics;
+        if (resolved == null || resolved.sessionFactory() != sessionFactory) {
+            resolved = new ResolvedMetrics(sessionFactory, resolveMetrics(sessionFactory));
+            resolvedMetrics = resolved;
+        }
+        return resolved.metrics();
+    }
+
+    private static MongoMetrics resolveMetrics(SessionFactoryImplementor sessionFactory) {
+        var serviceRegistry = sessionFactory.getServiceRegistry();
+        var connectionProvider = serviceRegistry.getService(ConnectionProvider.class);
+        if (connectionProvider instanceof MongoConnectionProvider mongoConnectionProvider) {
+            return mongoConnectionProvider.getMetrics();
+        }
+        if (serviceRegistry.getService(MultiTenantConnectionProvider.class)
+                instanceof MongoMultiTenantConnectionProvider multiTenantConnectionProvider) {
+            return multiTenantConnectionProvider.getConnectionProvider().getMetrics();
+        }
+        return MongoMetrics.NOOP;
     }
 }
@@ -12,4 +12,128 @@ public interface MongoAvailableSettings {
     String MONGODB_CONNECTION_URL = "mongodb.connection.url";
     String MONGODB_DATABASE = "mongodb.database";
 
+    /**
+     * Whether the {@code MongoClient} (and its connection pool) is shared with the other {@code SessionFactory}s of
+     * the JVM configured with the same {@link #MONGODB_CONNECTION_URL} and this setting enabled, e.g. for
+     * database-per-tenant deployments. The shared client is closed when the last of them is closed. Defaults to
+     * {@code false}, i.e. each {@code SessionFactory} owns its client.
+     */
+    String MONGODB_CLIENT_SHARED = "mongodb.client.shared";
+
+    /**
+     * Backend the connections work against: {@code driver} for MongoDB server through the java driver, or
+     * {@code in-memory} for {@code org.hibernate.omm.memory.InMemoryMongoClient} of {@code chameleon-memory} module
+     * (to be put on the classpath), which lets tests and benchmarks run without server
+     * ({@link #MONGODB_CONNECTION_URL} is then optional, only telling shared clients apart). Defaults to
+     * {@code driver}.
+     */
+    String MONGODB_BACKEND = "mongodb.backend";
+
+    /**
+     * Prefix of the database names of the tenants when {@link org.hibernate.omm.jdbc.MongoMultiTenantConnectionProvider}
+     * is used, i.e. tenant {@code acme} works against database {@code <prefix>acme}. Defaults to empty string.
+     */
+    String MONGODB_TENANT_DATABASE_PREFIX = "mongodb.tenant.database_prefix";
+
+    /**
+     * {@link org.hibernate.omm.metrics.MongoMetrics} implementation recording per-phase timings and per-command
+     * statistics: an instance, a class or its name, or {@code default} for
+     * {@link org.hibernate.omm.metrics.DefaultMongoMetrics}. Defaults to none, i.e. nothing is recorded or timed.
+     * <p>
+     * With {@link #MONGODB_CLIENT_SHARED}, the commands observed on the shared client are recorded by the metrics of
+     * every {@code SessionFactory} sharing it.
+     */
+    String MONGODB_METRICS = "mongodb.metrics";
+
+    /**
+     * Whether the metrics are registered as JMX MBean {@code org.hibernate.omm:type=MongoMetrics,name=<database>}
+     * (if they implement {@link org.hibernate.omm.metrics.MongoMetricsMXBean}). Defaults to {@code false}.
+     */
+    String MONGODB_METRICS_JMX_ENABLED = "mongodb.metrics.jmx_enabled";
+
+    /**
+     * {@link com.mongodb.event.CommandListener} added to the {@code MongoClient}, e.g. for command logging or
+     * assertions on the commands sent: an instance, a class or its name. With {@link #MONGODB_CLIENT_SHARED}, only
+     * the listener of the {@code SessionFactory} creating the shared client is added. Ignored by the in-memory backend.
+     * Defaults to none.
+     */
+    String MONGODB_COMMAND_LISTENER = "mongodb.command.listener";
+
+    /**
+     * Maximum number of parsed command templates cached per connection provider; {@code 0} disables caching.
+     * Defaults to {@link org.hibernate.omm.jdbc.MongoCommandTemplateCache#DEFAULT_MAX_SIZE}.
+     */
+    String MONGODB_COMMAND_CACHE_MAX_SIZE = "mongodb.command.cache.max_size";
+
+    /**
+     * Path of the binary log every command executed by the JDBC layer is recorded into (with its bound parameters,
+     * timing and result cardinality), to be replayed by {@link org.hibernate.omm.replay.CommandReplayer}. The file is
+     * overwritten. Defaults to none, i.e. nothing is recorded.
+     */
+    String MONGODB_RECORDING_FILE = "mongodb.recording.file";
+
+    /**
+     * Whether JDBC batches and multi-document insert commands (e.g. HQL {@code insert ... values (...), (...)}) are
+     * sent as ordered writes (stopping at the first failure) or unordered ones (letting the server apply the writes
+     * in any order and continue on failures). Defaults to {@code true}. An insert command's own {@code ordered}
+     * field, if present, takes precedence.
+     */
+    String MONGODB_BATCH_ORDERED = "mongodb.batch.ordered";
+
+    /**
+     * Read concern level (e.g. {@code local}, {@code majority}) of the queries run outside of a transaction, i.e.
+     * those of read-only connections and those preceding the first write of a transaction. Defaults to the one of
+     * the connection URL, or the server default if absent.
+     *
+     * @see com.mongodb.ReadConcernLevel
+     */
+    String MONGODB_READ_CONCERN = "mongodb.read.concern";
+
+    /**
+     * Read preference mode name (e.g. {@code secondaryPreferred}) of the queries run outside of a transaction.
+     * Defaults to the one of the connection URL, or {@code primary} if absent. Overridden per entity by
+     * {@link org.hibernate.omm.annotations.MongoReadPreference}, per query by {@link MongoQueryHints} and per
+     * connection by {@link org.hibernate.omm.jdbc.MongoConnection#setReadPreference}.
+     *
+     * @see com.mongodb.ReadPreference#valueOf(String)
+     */
+    String MONGODB_READ_PREFERENCE = "mongodb.read.preference";
+
+    /**
+     * Read preference mode name of the queries of read-only connections (e.g. Spring's read-only transactions).
+     * Defaults to {@code secondaryPreferred}.
+     */
+    String MONGODB_READ_ONLY_READ_PREFERENCE = "mongodb.read.preference.read_only";
+
+    /**
+     * Maximum replication lag in seconds of the secondaries {@link #MONGODB_READ_PREFERENCE} and
+     * {@link #MONGODB_READ_ONLY_READ_PREFERENCE} may read from (at least 90). Defaults to no limit.
+     */
+    String MONGODB_READ_MAX_STALENESS = "mongodb.read.max_staleness";
+
+    /**
+     * Whether the client session of each connection is causally consistent, so its reads from secondaries observe
+     * its own preceding writes. Defaults to {@code true}.
+     */
+    String MONGODB_SESSION_CAUSALLY_CONSISTENT = "mongodb.session.causally_consistent";
+
+    /**
+     * Maximum attempts (including the first one) of a commit failing with unknown result, or of a transaction's first
+     * write failing with transient transaction error; {@code 1} disables retrying. Defaults to
+     * {@link org.hibernate.omm.jdbc.MongoTransactionRetryPolicy#DEFAULT_MAX_ATTEMPTS}.
+     */
+    String MONGODB_TRANSACTION_RETRY_MAX_ATTEMPTS = "mongodb.transaction.retry.max_attempts";
+
+    /**
+     * Upper bound in milliseconds of the jittered delay before the first transaction retry, doubled for each
+     * subsequent one. Defaults to {@link org.hibernate.omm.jdbc.MongoTransactionRetryPolicy#DEFAULT_INITIAL_BACKOFF_MILLIS}.
+     */
+    String MONGODB_TRANSACTION_RETRY_INITIAL_BACKOFF = "mongodb.transaction.retry.initial_backoff";
+
+    /**
+     * Cap in milliseconds of the jittered delay before any transaction retry. Defaults to
+     * {@link org.hibernate.omm.jdbc.MongoTransactionRetryPolicy#DEFAULT_MAX_BACKOFF_MILLIS}.
+     */
+    String MONGODB_TRANSACTION_RETRY_MAX_BACKOFF = "mongodb.transaction.retry.max_backoff";
+
 }
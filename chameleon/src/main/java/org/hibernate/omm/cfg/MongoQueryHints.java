@@ -0,0 +1,26 @@
+package org.hibernate.omm.cfg;
+
+/**
+ * OMM specific database hints, added as {@code name=value} through
+ * {@link org.hibernate.query.Query#addQueryHint(String)}, e.g.
+ * {@code query.addQueryHint(MongoQueryHints.READ_PREFERENCE + "=secondary")}.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public interface MongoQueryHints {
+
+    /**
+     * Read preference mode name of the query, taking precedence over
+     * {@link org.hibernate.omm.annotations.MongoReadPreference} and the connection's one. Ignored within a
+     * transaction.
+     *
+     * @see com.mongodb.ReadPreference#valueOf(String)
+     */
+    String READ_PREFERENCE = "readPreference";
+
+    /**
+     * Maximum replication lag in seconds of the secondaries {@link #READ_PREFERENCE} may read from.
+     */
+    String MAX_STALENESS_SECONDS = "maxStalenessSeconds";
+}
@@ -1,16 +1,24 @@
 package org.hibernate.omm.dialect;
 
+import org.hibernate.QueryTimeoutException;
 import org.hibernate.boot.model.FunctionContributions;
 import org.hibernate.boot.model.TypeContributions;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.dialect.DatabaseVersion;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.function.array.AbstractArrayContainsFunction;
 import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+import org.hibernate.exception.LockAcquisitionException;
+import org.hibernate.exception.spi.SQLExceptionConversionDelegate;
 import org.hibernate.metamodel.mapping.JdbcMapping;
 import org.hibernate.metamodel.mapping.JdbcMappingContainer;
 import org.hibernate.omm.ast.MongoSqlAstTranslatorFactory;
+import org.hibernate.omm.cfg.MongoQueryHints;
+import org.hibernate.omm.jdbc.exception.QueryTimeoutSQLException;
+import org.hibernate.omm.jdbc.exception.TransientTransactionSQLException;
 import org.hibernate.omm.type.ObjectIdJavaType;
 import org.hibernate.omm.type.ObjectIdJdbcType;
+import org.hibernate.omm.util.ReadPreferenceUtil;
 import org.hibernate.omm.util.StringUtil;
 import org.hibernate.query.ReturnableType;
 import org.hibernate.service.ServiceRegistry;
@@ -34,6 +42,12 @@ public class MongoDialect extends Dialect {
 
     public static final int MINIMUM_MONGODB_MAJOR_VERSION_SUPPORTED = 3;
 
+    /**
+     * Default value of {@value AvailableSettings#STATEMENT_FETCH_SIZE}, applied as cursor batch size so scrolling or
+     * streaming huge result sets keeps bounded heap without tuning.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private final static DatabaseVersion MINIMUM_VERSION = DatabaseVersion.make(MINIMUM_MONGODB_MAJOR_VERSION_SUPPORTED);
 
     public MongoDialect() {
@@ -42,10 +56,60 @@ public class MongoDialect extends Dialect {
 
     public MongoDialect(DatabaseVersion version) {
         super(version);
+        registerDefaultFetchSize();
     }
 
     public MongoDialect(DialectResolutionInfo dialectResolutionInfo) {
         super(dialectResolutionInfo);
+        registerDefaultFetchSize();
+    }
+
+    private void registerDefaultFetchSize() {
+        getDefaultProperties().setProperty(AvailableSettings.STATEMENT_FETCH_SIZE, Integer.toString(DEFAULT_FETCH_SIZE));
+    }
+
+    /**
+     * Apply {@link MongoQueryHints} to the query command; other hints are ignored, and so are all hints of write
+     * commands (including insert-select), which are always sent to the primary.
+     */
+    @Override
+    public String getQueryHintString(String query, List<String> hintList) {
+        if (!ReadPreferenceUtil.isQueryCommand(query)) {
+            return query;
+        }
+        String readPreferenceMode = null;
+        long maxStalenessSeconds = -1;
+        for (String hint : hintList) {
+            var separatorIndex = hint.indexOf('=');
+            if (separatorIndex < 0) {
+                continue;
+            }
+            var name = hint.substring(0, separatorIndex).trim();
+            var value = hint.substring(separatorIndex + 1).trim();
+            switch (name) {
+                case MongoQueryHints.READ_PREFERENCE -> readPreferenceMode = value;
+                case MongoQueryHints.MAX_STALENESS_SECONDS -> maxStalenessSeconds = Long.parseLong(value);
+                default -> {
+                }
+            }
+        }
+        if (readPreferenceMode == null) {
+            return query;
+        }
+        return ReadPreferenceUtil.applyReadPreference(query, readPreferenceMode, maxStalenessSeconds);
+    }
+
+    @Override
+    public SQLExceptionConversionDelegate buildSQLExceptionConversionDelegate() {
+        return (sqlException, message, sql) -> {
+            if (sqlException instanceof QueryTimeoutSQLException) {
+                return new QueryTimeoutException(message, sqlException, sql);
+            }
+            if (sqlException instanceof TransientTransactionSQLException) {
+                return new LockAcquisitionException(message, sqlException, sql);
+            }
+            return null;
+        };
     }
 
     @Override
@@ -0,0 +1,241 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.assertions.Assertions;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Parameterized command JSON (with JDBC style {@code ?} placeholders) parsed once into an immutable
+ * tree with typed parameter slots, so binding parameters is nothing more than dropping {@link BsonValue}s
+ * into those slots.
+ * <p>
+ * Only scalar constants (which are immutable) are shared among the bound commands; documents and arrays are
+ * built afresh on every binding, so mutating a bound command (e.g. the driver adding {@code _id} to the documents
+ * inserted) never leaks into the template. Templates are immutable and thread-safe, so they could be shared among
+ * connections (see {@link MongoCommandTemplateCache}).
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class MongoCommandTemplate {
+
+    /**
+     * Key of the single-entry document each {@code ?} placeholder is temporarily replaced with before parsing.
+     */
+    private static final String PARAMETER_PLACEHOLDER_KEY = "$$parameter";
+
+    private final String parameterizedCommandJson;
+    private final Node root;
+    private final String commandName;
+    private final String collectionName;
+    private final List<String> parameterPaths;
+    private final @Nullable List<String> projectFieldNames;
+
+    private MongoCommandTemplate(
+            String parameterizedCommandJson,
+            Node root,
+            String commandName,
+            String collectionName,
+            List<String> parameterPaths,
+            @Nullable List<String> projectFieldNames) {
+        this.parameterizedCommandJson = parameterizedCommandJson;
+        this.root = root;
+        this.commandName = commandName;
+        this.collectionName = collectionName;
+        this.parameterPaths = parameterPaths;
+        this.projectFieldNames = projectFieldNames;
+    }
+
+    /**
+     * Parse parameterized command JSON into template.
+     *
+     * @param parameterizedCommandJson command JSON with {@code ?} placeholders outside string literals
+     * @return compiled template
+     * @throws org.bson.json.JsonParseException if the JSON is malformed
+     */
+    public static MongoCommandTemplate compile(String parameterizedCommandJson) {
+        Assertions.notNull("parameterizedCommandJson", parameterizedCommandJson);
+        var length = parameterizedCommandJson.length();
+        var sb = new StringBuilder(length + 16);
+        var parameterCount = 0;
+        char quote = 0;
+        for (int i = 0; i < length; i++) {
+            char c = parameterizedCommandJson.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < length) {
+                    sb.append(parameterizedCommandJson.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                sb.append(c);
+            } else if (c == '?') {
+                sb.append("{ \"").append(PARAMETER_PLACEHOLDER_KEY).append("\": ").append(parameterCount++).append(" }");
+            } else {
+                sb.append(c);
+            }
+        }
+        var document = BsonDocument.parse(sb.toString());
+        var commandName = document.getFirstKey();
+        var parameterPaths = new ArrayList<String>(parameterCount);
+        var root = compileDocument(document, "", parameterPaths);
+        return new MongoCommandTemplate(
+                parameterizedCommandJson,
+                root,
+                commandName,
+                document.getString(commandName).getValue(),
+                List.copyOf(parameterPaths),
+                getProjectFieldNames(document)
+        );
+    }
+
+    @Nullable
+    private static List<String> getProjectFieldNames(BsonDocument command) {
+        if (command.getFirstKey().equals("find")) {
+            return command.isDocument("projection") ?
+                    List.copyOf(MongoStatement.getFieldNamesFromProjectDocument(command.getDocument("projection"))) :
+                    null;
+        }
+        var pipeline = command.get("pipeline");
+        if (pipeline == null || !pipeline.isArray() || pipeline.asArray().isEmpty()) {
+            return null;
+        }
+        var lastStage = pipeline.asArray().get(pipeline.asArray().size() - 1);
+        if (!lastStage.isDocument() || !lastStage.asDocument().isDocument("$project")) {
+            return null;
+        }
+        return List.copyOf(MongoStatement.getFieldNamesFromProjectDocument(lastStage.asDocument().getDocument("$project")));
+    }
+
+    /**
+     * @return the command JSON the template was compiled from
+     */
+    public String getParameterizedCommandJson() {
+        return parameterizedCommandJson;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public int getParameterCount() {
+        return parameterPaths.size();
+    }
+
+    /**
+     * @return dotted path of each parameter slot (e.g. {@code pipeline.0.$match._id.$eq}), ordered by parameter index
+     */
+    public List<String> getParameterPaths() {
+        return parameterPaths;
+    }
+
+    /**
+     * @return ordered field names of the trailing {@code $project} stage (or the {@code projection} of find command),
+     * or {@code null} if the command is neither an aggregate command ending with a {@code $project} stage nor a find
+     * command with projection
+     */
+    @Nullable
+    public List<String> getProjectFieldNames() {
+        return projectFieldNames;
+    }
+
+    /**
+     * Bind parameter values into the template's slots.
+     *
+     * @param parameterValues lookup of parameter value by JDBC parameter index (1-based)
+     * @return bound command document
+     */
+    public BsonDocument bind(IntFunction<BsonValue> parameterValues) {
+        return root.bind(parameterValues).asDocument();
+    }
+
+    private static Node compileDocument(BsonDocument document, String path, List<String> parameterPaths) {
+        var keys = new ArrayList<String>(document.size());
+        var values = new ArrayList<Node>(document.size());
+        for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+            keys.add(entry.getKey());
+            values.add(compileValue(entry.getValue(), childPath(path, entry.getKey()), parameterPaths));
+        }
+        return new DocumentNode(keys, values);
+    }
+
+    private static Node compileValue(BsonValue value, String path, List<String> parameterPaths) {
+        if (value.isDocument()) {
+            var document = value.asDocument();
+            if (document.size() == 1 && document.containsKey(PARAMETER_PLACEHOLDER_KEY)) {
+                parameterPaths.add(path);
+                return new ParameterNode(document.getInt32(PARAMETER_PLACEHOLDER_KEY).getValue() + 1);
+            }
+            return compileDocument(document, path, parameterPaths);
+        } else if (value.isArray()) {
+            var array = value.asArray();
+            var elements = new ArrayList<Node>(array.size());
+            for (int i = 0; i < array.size(); i++) {
+                elements.add(compileValue(array.get(i), childPath(path, Integer.toString(i)), parameterPaths));
+            }
+            return new ArrayNode(elements);
+        } else {
+            return new ConstantNode(value);
+        }
+    }
+
+    private static String childPath(String path, String name) {
+        return path.isEmpty() ? name : path + '.' + name;
+    }
+
+    private sealed interface Node permits ConstantNode, ParameterNode, DocumentNode, ArrayNode {
+        BsonValue bind(IntFunction<BsonValue> parameterValues);
+    }
+
+    /**
+     * Scalar constant; documents and arrays are never shared, as they are mutable.
+     */
+    private record ConstantNode(BsonValue value) implements Node {
+        @Override
+        public BsonValue bind(IntFunction<BsonValue> parameterValues) {
+            return value;
+        }
+    }
+
+    private record ParameterNode(int parameterIndex) implements Node {
+        @Override
+        public BsonValue bind(IntFunction<BsonValue> parameterValues) {
+            return parameterValues.apply(parameterIndex);
+        }
+    }
+
+    private record DocumentNode(List<String> keys, List<Node> values) implements Node {
+        @Override
+        public BsonValue bind(IntFunction<BsonValue> parameterValues) {
+            var document = new BsonDocument();
+            for (int i = 0; i < keys.size(); i++) {
+                document.append(keys.get(i), values.get(i).bind(parameterValues));
+            }
+            return document;
+        }
+    }
+
+    private record ArrayNode(List<Node> elements) implements Node {
+        @Override
+        public BsonValue bind(IntFunction<BsonValue> parameterValues) {
+            var array = new BsonArray();
+            for (Node element : elements) {
+                array.add(element.bind(parameterValues));
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.assertions.Assertions;
+import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
+import org.hibernate.omm.metrics.MongoMetrics;
+import org.hibernate.omm.metrics.MongoMetricsPhase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of {@link MongoCommandTemplate} keyed by command text, shared among all the connections
+ * of one {@link MongoConnectionProvider} so identical Hibernate generated commands are parsed only once.
+ * <p>
+ * Hibernate hands nothing but command text to the JDBC layer ({@link java.sql.Connection#prepareStatement(String)}),
+ * so the command text is the only key a translated command could be looked up by; this cache is what keeps JSON
+ * parsing off the execution path.
+ * <p>
+ * Hit, miss and eviction counters are exposed for sizing the cache in long-running services.
+ *
+ * @author Nathan Xu
+ * @see org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_COMMAND_CACHE_MAX_SIZE
+ * @since 1.0.0
+ */
+public class MongoCommandTemplateCache {
+
+    public static final int DEFAULT_MAX_SIZE = 2048;
+
+    private final int maxSize;
+    private final Map<String, MongoCommandTemplate> templates;
+    private final MongoMetrics metrics;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maxSize maximum entries to keep; {@code 0} disables caching
+     */
+    public MongoCommandTemplateCache(int maxSize) {
+        this(maxSize, MongoMetrics.NOOP);
+    }
+
+    /**
+     * @param maxSize maximum entries to keep; {@code 0} disables caching
+     * @param metrics metrics recording the parsing time of cache misses
+     */
+    public MongoCommandTemplateCache(int maxSize, MongoMetrics metrics) {
+        Assertions.isTrueArgument("maxSize should not be negative", maxSize >= 0);
+        Assertions.notNull("metrics", metrics);
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MongoCommandTemplate> eldest) {
+                if (size() > MongoCommandTemplateCache.this.maxSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the cached template of the command, compiling and caching it on miss.
+     *
+     * @param parameterizedCommandJson command JSON with {@code ?} placeholders
+     * @return compiled template
+     * @throws SimulatedSQLException if the command JSON is invalid
+     */
+    public MongoCommandTemplate get(String parameterizedCommandJson) throws SimulatedSQLException {
+        Assertions.notNull("parameterizedCommandJson", parameterizedCommandJson);
+        if (maxSize == 0) {
+            missCount.increment();
+            return compile(parameterizedCommandJson);
+        }
+        MongoCommandTemplate template;
+        synchronized (templates) {
+            template = templates.get(parameterizedCommandJson);
+        }
+        if (template != null) {
+            hitCount.increment();
+            return template;
+        }
+        missCount.increment();
+        // compile outside the lock; racing threads might compile the same command twice, which is harmless
+        template = compile(parameterizedCommandJson);
+        synchronized (templates) {
+            var existing = templates.putIfAbsent(parameterizedCommandJson, template);
+            return existing == null ? template : existing;
+        }
+    }
+
+    private MongoCommandTemplate compile(String parameterizedCommandJson) throws SimulatedSQLException {
+        if (!metrics.isEnabled()) {
+            return MongoPreparedStatement.compile(parameterizedCommandJson);
+        }
+        var start = System.nanoTime();
+        try {
+            return MongoPreparedStatement.compile(parameterizedCommandJson);
+        } finally {
+            metrics.recordPhase(MongoMetricsPhase.PARSE, System.nanoTime() - start);
+        }
+    }
+
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "MongoCommandTemplateCache{" +
+                "maxSize=" + maxSize +
+                ", size=" + size() +
+                ", hitCount=" + getHitCount() +
+                ", missCount=" + getMissCount() +
+                ", evictionCount=" + getEvictionCount() +
+                '}';
+    }
+}
@@ -1,45 +1,111 @@
 package org.hibernate.omm.jdbc;
 
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
 import com.mongodb.assertions.Assertions;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.lang.Nullable;
-import org.bson.Document;
 import org.hibernate.omm.jdbc.adapter.ConnectionAdapter;
-import org.hibernate.omm.jdbc.adapter.DatabaseMetaDataAdapter;
-import org.hibernate.omm.jdbc.exception.CommandRunFailSQLException;
 import org.hibernate.omm.jdbc.exception.NotSupportedSQLException;
 import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
+import org.hibernate.omm.jdbc.exception.TransientTransactionSQLException;
+import org.hibernate.omm.jdbc.exception.UnknownCommitResultSQLException;
+import org.hibernate.omm.metrics.MongoMetrics;
+import org.hibernate.omm.replay.CommandRecorder;
 
 import java.sql.Array;
 import java.sql.CallableStatement;
-import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.SQLWarning;
 import java.sql.Statement;
-import java.util.List;
 
 /**
  * @author Nathan Xu
  * @since 1.0.0
  */
 public class MongoConnection implements ConnectionAdapter {
-    private static final String DB_VERSION_QUERY_FIELD_NAME = "buildinfo";
-
     private final ClientSession clientSession;
     private final MongoDatabase mongoDatabase;
+    private final MongoCommandTemplateCache commandTemplateCache;
+    private final MongoConnectionSettings settings;
+    private final MongoServerInfoTracker serverInfoTracker;
+    private final MongoTransactionRetryPolicy retryPolicy;
+    private final MongoMetrics metrics;
+
+    @Nullable
+    private final CommandRecorder recorder;
+    private final int recordingConnectionId;
 
     private boolean autoCommit;
+    private boolean readOnly;
     private boolean closed;
 
     @Nullable
     private SQLWarning sqlWarning;
 
-    public MongoConnection(MongoDatabase mongoDatabase, ClientSession clientSession) {
+    @Nullable
+    private MongoDatabaseMetaData metaData;
+
+    @Nullable
+    private ReadPreference readPreference;
+
+    public MongoConnection(
+            MongoDatabase mongoDatabase,
+            ClientSession clientSession,
+            MongoCommandTemplateCache commandTemplateCache,
+            MongoConnectionSettings settings,
+            MongoServerInfoTracker serverInfoTracker,
+            MongoTransactionRetryPolicy retryPolicy,
+            MongoMetrics metrics) {
+        this(mongoDatabase, clientSession, commandTemplateCache, settings, serverInfoTracker, retryPolicy, metrics, null);
+    }
+
+    /**
+     * @param recorder recorder of the commands executed on this connection; {@code null} if not recording
+     */
+    public MongoConnection(
+            MongoDatabase mongoDatabase,
+            ClientSession clientSession,
+            MongoCommandTemplateCache commandTemplateCache,
+            MongoConnectionSettings settings,
+            MongoServerInfoTracker serverInfoTracker,
+            MongoTransactionRetryPolicy retryPolicy,
+            MongoMetrics metrics,
+            @Nullable CommandRecorder recorder) {
         Assertions.notNull("mongoDatabase", mongoDatabase);
+        Assertions.notNull("commandTemplateCache", commandTemplateCache);
+        Assertions.notNull("settings", settings);
+        Assertions.notNull("serverInfoTracker", serverInfoTracker);
+        Assertions.notNull("retryPolicy", retryPolicy);
+        Assertions.notNull("metrics", metrics);
         this.clientSession = clientSession;
         this.mongoDatabase = mongoDatabase;
+        this.commandTemplateCache = commandTemplateCache;
+        this.settings = settings;
+        this.serverInfoTracker = serverInfoTracker;
+        this.retryPolicy = retryPolicy;
+        this.metrics = metrics;
+        this.recorder = recorder;
+        this.recordingConnectionId = recorder == null ? 0 : recorder.nextConnectionId();
+    }
+
+    public MongoConnectionSettings getSettings() {
+        return settings;
+    }
+
+    MongoMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Nullable
+    CommandRecorder getRecorder() {
+        return recorder;
+    }
+
+    int getRecordingConnectionId() {
+        return recordingConnectionId;
     }
 
     @Override
@@ -48,47 +114,23 @@ public class MongoConnection implements ConnectionAdapter {
     }
 
     @Override
-    public PreparedStatement prepareStatement(String sql) {
-        return new MongoPreparedStatement(mongoDatabase, clientSession, this, sql);
+    public PreparedStatement prepareStatement(String sql) throws SimulatedSQLException {
+        return new MongoPreparedStatement(mongoDatabase, clientSession, this, commandTemplateCache.get(sql));
     }
 
     @Override
-    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) {
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SimulatedSQLException {
         return prepareStatement(sql);
     }
 
     @Override
     public DatabaseMetaData getMetaData() throws SimulatedSQLException {
-        Document result = mongoDatabase.runCommand(new Document(DB_VERSION_QUERY_FIELD_NAME, 1));
-        if (result.getDouble("ok") != 1.0) {
-            throw new CommandRunFailSQLException(result);
+        MongoServerInfo serverInfo = serverInfoTracker.getServerInfo(mongoDatabase);
+        if (metaData == null || metaData.getServerInfo() != serverInfo) {
+            metaData = new MongoDatabaseMetaData(serverInfo, this);
         }
-        String version = result.getString("version");
-        List<Integer> versionArray = result.getList("versionArray", Integer.class);
-
-        return new DatabaseMetaDataAdapter() {
-
-            @Override
-            public String getDatabaseProductVersion() {
-                return version;
-            }
-
-            @Override
-            public int getDatabaseMajorVersion() {
-                return versionArray.get(0);
-            }
-
-            @Override
-            public int getDatabaseMinorVersion() {
-                return versionArray.get(1);
-            }
-
-            @Override
-            public Connection getConnection() {
-                return MongoConnection.this;
-            }
-
-        };
+        return metaData;
     }
 
     @Override
@@ -101,28 +143,155 @@ public class MongoConnection implements ConnectionAdapter {
         return this.autoCommit;
     }
 
+    /**
+     * Disabling auto-commit does not start a transaction right away; it is started on the first write command (see
+     * {@link #executeWrite(WriteCommand)}), so units of work only reading never pay for a transaction.
+     */
     @Override
     public void setAutoCommit(boolean autoCommit) {
-        if (!autoCommit) {
-            this.clientSession.startTransaction();
+        if (autoCommit && !this.autoCommit && clientSession.hasActiveTransaction()) {
+            clientSession.commitTransaction();
         }
         this.autoCommit = autoCommit;
     }
 
+    /**
+     * Commit the transaction if started, retrying on {@value MongoException#UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL}
+     * as per {@link MongoTransactionRetryPolicy}.
+     *
+     * @throws SimulatedSQLException if the commit fails with transient error, or its result remains unknown (as
+     * {@link UnknownCommitResultSQLException}, not to be retried by the application)
+     */
     @Override
-    public void commit() {
-        if (!autoCommit) {
-            clientSession.commitTransaction();
+    public void commit() throws SimulatedSQLException {
+        if (!clientSession.hasActiveTransaction()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                clientSession.commitTransaction();
+                return;
+            } catch (MongoException e) {
+                if (!retryPolicy.retry(attempt, e, MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)) {
+                    throwIfTransient(e);
+                    if (e.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)) {
+                        throw new UnknownCommitResultSQLException(e.getMessage(), e);
+                    }
+                    throw e;
+                }
+            }
         }
     }
 
     @Override
     public void rollback() {
-        if (!autoCommit) {
+        if (clientSession.hasActiveTransaction()) {
             clientSession.abortTransaction();
         }
     }
 
+    /**
+     * Read-only connection never starts transaction, so its queries run as plain session reads with
+     * {@link MongoConnectionSettings#readConcern()}.
+     *
+     * @param readOnly whether this connection is read-only
+     * @throws SimulatedSQLException if a transaction is in progress
+     */
+    @Override
+    public void setReadOnly(boolean readOnly) throws SimulatedSQLException {
+        if (clientSession.hasActiveTransaction()) {
+            throw new SimulatedSQLException("read-only mode can't be changed within a transaction");
+        }
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Set the read preference of the queries run outside of a transaction on this connection, e.g. for a whole
+     * Hibernate session via {@code session.doWork(connection -> connection.unwrap(MongoConnection.class)
+     * .setReadPreference(ReadPreference.secondary()))}. Entity and query level read preferences take precedence.
+     *
+     * @param readPreference read preference; {@code null} to restore the configured one
+     */
+    public void setReadPreference(@Nullable ReadPreference readPreference) {
+        this.readPreference = readPreference;
+    }
+
+    /**
+     * @return the read preference of the queries run outside of a transaction on this connection: the one set
+     * explicitly, otherwise {@link MongoConnectionSettings#readOnlyReadPreference()} if read-only, otherwise
+     * {@link MongoConnectionSettings#readPreference()}; {@code null} means the client default
+     */
+    public @Nullable ReadPreference getReadPreference() {
+        if (readPreference != null) {
+            return readPreference;
+        }
+        return readOnly ? settings.readOnlyReadPreference() : settings.readPreference();
+    }
+
+    /**
+     * Run the write command, starting the transaction deferred by {@link #setAutoCommit(boolean)} beforehand.
+     * <p>
+     * If the command starts the transaction, it is re-run in a new transaction on
+     * {@value MongoException#TRANSIENT_TRANSACTION_ERROR_LABEL} as per {@link MongoTransactionRetryPolicy}, for
+     * nothing else has been done in the aborted one.
+     *
+     * @param writeCommand the write command
+     * @return the result of the write command
+     * @throws SimulatedSQLException if this connection is read-only, the write command fails or the transaction
+     * fails with transient error
+     */
+    <T> T executeWrite(WriteCommand<T> writeCommand) throws SimulatedSQLException {
+        if (readOnly) {
+            throw new SimulatedSQLException("write command not allowed on read-only connection");
+        }
+        var transactionStarting = !autoCommit && !clientSession.hasActiveTransaction();
+        if (transactionStarting) {
+            clientSession.startTransaction();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return writeCommand.execute();
+            } catch (MongoException e) {
+                if (!transactionStarting
+                        || !retryPolicy.retry(attempt, e, MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                    throwIfTransient(e);
+                    throw e;
+                }
+                clientSession.abortTransaction();
+                clientSession.startTransaction();
+            }
+        }
+    }
+
+    private static void throwIfTransient(MongoException e) throws TransientTransactionSQLException {
+        if (e.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+            throw new TransientTransactionSQLException(e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    interface WriteCommand<T> {
+        T execute() throws SimulatedSQLException;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SimulatedSQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SimulatedSQLException("not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
     @Override
     public void close() {
         this.clientSession.close();
@@ -1,19 +1,36 @@
 package org.hibernate.omm.jdbc;
 
+import com.mongodb.ClientSessionOptions;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.event.CommandListener;
+import com.mongodb.lang.Nullable;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.internal.util.config.ConfigurationHelper;
 import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.metrics.DefaultMongoMetrics;
+import org.hibernate.omm.metrics.MongoMetrics;
+import org.hibernate.omm.metrics.MongoMetricsCommandListener;
+import org.hibernate.omm.metrics.MongoMetricsMXBean;
+import org.hibernate.omm.replay.CommandRecorder;
 import org.hibernate.service.UnknownUnwrapTypeException;
 import org.hibernate.service.spi.Configurable;
 import org.hibernate.service.spi.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Map;
@@ -26,32 +43,220 @@ import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
  */
 public class MongoConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
 
-    public static @MonotonicNonNull MongoDatabase mongoDatabase;
+    private static final Logger LOG = LoggerFactory.getLogger(MongoConnectionProvider.class);
+
+    /**
+     * {@link MongoAvailableSettings#MONGODB_METRICS} value of {@link DefaultMongoMetrics}.
+     */
+    public static final String DEFAULT_METRICS = "default";
+
+    /**
+     * {@link MongoAvailableSettings#MONGODB_BACKEND} value of MongoDB server accessed through the java driver.
+     */
+    public static final String DRIVER_BACKEND = "driver";
+
+    /**
+     * {@link MongoAvailableSettings#MONGODB_BACKEND} value of the in-memory {@link MongoClient} provided by
+     * {@code chameleon-memory} module (see {@link #IN_MEMORY_MONGO_CLIENT_CLASS_NAME}).
+     */
+    public static final String IN_MEMORY_BACKEND = "in-memory";
+
+    /**
+     * Class of {@code chameleon-memory} module creating the in-memory {@link MongoClient} by its public static
+     * {@code create()} method. It is loaded by name, as the module is only needed on the classpath of tests and
+     * benchmarks.
+     */
+    public static final String IN_MEMORY_MONGO_CLIENT_CLASS_NAME = "org.hibernate.omm.memory.InMemoryMongoClient";
 
     private @MonotonicNonNull MongoClient mongoClient;
 
+    private @MonotonicNonNull MongoDatabase mongoDatabase;
+
+    private @MonotonicNonNull MongoServerInfoTracker serverInfoTracker;
+
+    /**
+     * Connection string of the client if shared with other providers; {@code null} if owned by this provider.
+     */
+    private @Nullable String sharedClientConnectionString;
+
+    private @MonotonicNonNull MongoCommandTemplateCache commandTemplateCache;
+
+    private MongoConnectionSettings connectionSettings = MongoConnectionSettings.DEFAULT;
+
+    private @MonotonicNonNull MongoTransactionRetryPolicy transactionRetryPolicy;
+
+    private MongoMetrics metrics = MongoMetrics.NOOP;
+
+    private @Nullable ObjectName metricsObjectName;
+
+    /**
+     * Listener of the client {@link #metrics} is registered to; {@code null} if none.
+     */
+    private @Nullable MongoMetricsCommandListener metricsCommandListener;
+
+    private @Nullable CommandRecorder recorder;
+
     @Override
     public void configure(Map<String, Object> configurationValues) {
-        String mongodbConnectionURL =
+        String backend = ConfigurationHelper.getString(
+                MongoAvailableSettings.MONGODB_BACKEND,
+                configurationValues,
+                DRIVER_BACKEND
+        );
+        if (!DRIVER_BACKEND.equals(backend) && !IN_MEMORY_BACKEND.equals(backend)) {
+            throw new IllegalStateException("invalid " + MongoAvailableSettings.MONGODB_BACKEND + ": " + backend);
+        }
+        boolean inMemory = IN_MEMORY_BACKEND.equals(backend);
+        String configuredConnectionURL =
                 (String) configurationValues.get(MongoAvailableSettings.MONGODB_CONNECTION_URL);
-        if (mongodbConnectionURL == null) {
+        if (configuredConnectionURL == null && !inMemory) {
             throw new IllegalStateException(MongoAvailableSettings.MONGODB_CONNECTION_URL + " must be configured");
         }
+        String mongodbConnectionURL = configuredConnectionURL == null ? "" : configuredConnectionURL;
         String mongodbDatabaseName =
                 (String) configurationValues.get(MongoAvailableSettings.MONGODB_DATABASE);
         if (mongodbDatabaseName == null) {
             throw new IllegalStateException(MongoAvailableSettings.MONGODB_DATABASE + " must be configured");
         }
+        metrics = resolveMetrics(configurationValues.get(MongoAvailableSettings.MONGODB_METRICS));
+        Object commandListenerSetting = configurationValues.get(MongoAvailableSettings.MONGODB_COMMAND_LISTENER);
+        @Nullable CommandListener commandListener = commandListenerSetting == null ?
+                null :
+                newInstance(commandListenerSetting, CommandListener.class, MongoAvailableSettings.MONGODB_COMMAND_LISTENER);
+        boolean sharedClient = ConfigurationHelper.getBoolean(
+                MongoAvailableSettings.MONGODB_CLIENT_SHARED,
+                configurationValues,
+                false
+        );
+        SharedMongoClients.TrackedMongoClient client;
+        if (sharedClient) {
+            String sharedClientKey = inMemory ? IN_MEMORY_BACKEND + ':' + mongodbConnectionURL : mongodbConnectionURL;
+            client = SharedMongoClients.acquire(sharedClientKey,
+                    () -> inMemory ?
+                            createInMemoryMongoClient() :
+                            createMongoClient(mongodbConnectionURL, commandListener));
+            sharedClientConnectionString = sharedClientKey;
+        } else {
+            client = inMemory ? createInMemoryMongoClient() : createMongoClient(mongodbConnectionURL, commandListener);
+        }
+        if (metrics.isEnabled() && client.metricsCommandListener() != null) {
+            metricsCommandListener = client.metricsCommandListener();
+            metricsCommandListener.register(metrics);
+        }
+        mongoClient = client.mongoClient();
+        serverInfoTracker = client.serverInfoTracker();
+        mongoDatabase = mongoClient.getDatabase(mongodbDatabaseName);
+        commandTemplateCache = new MongoCommandTemplateCache(ConfigurationHelper.getInt(
+                MongoAvailableSettings.MONGODB_COMMAND_CACHE_MAX_SIZE,
+                configurationValues,
+                MongoCommandTemplateCache.DEFAULT_MAX_SIZE
+        ), metrics);
+        connectionSettings = MongoConnectionSettings.from(configurationValues);
+        transactionRetryPolicy = MongoTransactionRetryPolicy.from(configurationValues);
+        if (ConfigurationHelper.getBoolean(MongoAvailableSettings.MONGODB_METRICS_JMX_ENABLED, configurationValues)) {
+            registerMetricsMBean(mongodbDatabaseName);
+        }
+        String recordingFile = ConfigurationHelper.getString(MongoAvailableSettings.MONGODB_RECORDING_FILE, configurationValues);
+        if (recordingFile != null) {
+            try {
+                recorder = CommandRecorder.open(Path.of(recordingFile));
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to open " + MongoAvailableSettings.MONGODB_RECORDING_FILE + ": " + recordingFile, e);
+            }
+        }
+    }
+
+    private static MongoMetrics resolveMetrics(@Nullable Object setting) {
+        if (setting == null) {
+            return MongoMetrics.NOOP;
+        }
+        if (setting instanceof MongoMetrics mongoMetrics) {
+            return mongoMetrics;
+        }
+        if (DEFAULT_METRICS.equals(setting)) {
+            return new DefaultMongoMetrics();
+        }
+        return newInstance(setting, MongoMetrics.class, MongoAvailableSettings.MONGODB_METRICS);
+    }
+
+    /**
+     * @param setting an instance of the type, a class or its name
+     * @param type expected type
+     * @param settingName name of the setting, for error reporting
+     * @return the instance, or a new instance of the class by its no-arg constructor
+     */
+    private static <T> T newInstance(Object setting, Class<T> type, String settingName) {
+        if (type.isInstance(setting)) {
+            return type.cast(setting);
+        }
+        try {
+            Class<?> clazz = setting instanceof Class<?> settingClass ? settingClass : Class.forName(setting.toString());
+            return type.cast(clazz.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("invalid " + settingName + ": " + setting, e);
+        }
+    }
+
+    private void registerMetricsMBean(String mongodbDatabaseName) {
+        if (!(metrics instanceof MongoMetricsMXBean)) {
+            LOG.warn("{} is not a {}; skip JMX registration", metrics.getClass().getName(), MongoMetricsMXBean.class.getSimpleName());
+            return;
+        }
+        try {
+            var objectName = new ObjectName("org.hibernate.omm:type=MongoMetrics,name=" + ObjectName.quote(mongodbDatabaseName));
+            var mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                objectName = new ObjectName(objectName + ",instance=" + Integer.toHexString(System.identityHashCode(this)));
+            }
+            mBeanServer.registerMBean(metrics, objectName);
+            metricsObjectName = objectName;
+        } catch (JMException e) {
+            LOG.warn("failed to register metrics MBean", e);
+        }
+    }
+
+    /**
+     * The metrics command listener is always added, as the client may be shared with providers configured with
+     * metrics later on; it does nothing until some metrics are registered.
+     */
+    private static SharedMongoClients.TrackedMongoClient createMongoClient(String mongodbConnectionURL,
+            @Nullable CommandListener commandListener) {
         ConnectionString connectionString = new ConnectionString(mongodbConnectionURL);
         CodecRegistry codecRegistry = fromRegistries(
                 MongoClientSettings.getDefaultCodecRegistry()
         );
-        MongoClientSettings clientSettings = MongoClientSettings.builder()
+        MongoServerInfoTracker serverInfoTracker = new MongoServerInfoTracker();
+        MongoMetricsCommandListener metricsCommandListener = new MongoMetricsCommandListener();
+        MongoClientSettings.Builder clientSettingsBuilder = MongoClientSettings.builder()
                 .applyConnectionString(connectionString)
                 .codecRegistry(codecRegistry)
-                .build();
-        mongoClient = MongoClients.create(clientSettings);
-        mongoDatabase = mongoClient.getDatabase(mongodbDatabaseName);
+                .applyToClusterSettings(builder -> builder.addClusterListener(serverInfoTracker))
+                .addCommandListener(metricsCommandListener);
+        if (commandListener != null) {
+            clientSettingsBuilder.addCommandListener(commandListener);
+        }
+        MongoClientSettings clientSettings = clientSettingsBuilder.build();
+        return new SharedMongoClients.TrackedMongoClient(MongoClients.create(clientSettings), serverInfoTracker,
+                metricsCommandListener);
+    }
+
+    /**
+     * No command listener or cluster listener is involved, so command metrics are not recorded and the topology stays
+     * unknown.
+     */
+    private static SharedMongoClients.TrackedMongoClient createInMemoryMongoClient() {
+        MongoClient inMemoryMongoClient;
+        try {
+            inMemoryMongoClient = (MongoClient) Class.forName(IN_MEMORY_MONGO_CLIENT_CLASS_NAME)
+                    .getMethod("create")
+                    .invoke(null);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(MongoAvailableSettings.MONGODB_BACKEND + " " + IN_MEMORY_BACKEND
+                    + " requires chameleon-memory module on the classpath", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("failed to create in-memory MongoClient", e);
+        }
+        return new SharedMongoClients.TrackedMongoClient(inMemoryMongoClient, new MongoServerInfoTracker(), null);
     }
 
     @Override
@@ -60,12 +265,84 @@ public class MongoConnectionProvider implements ConnectionProvider, Configurable
             throw new IllegalStateException(
                     "mongoDatabase instance should have been configured during Configurable mechanism");
         }
+        return getConnection(mongoDatabase);
+    }
+
+    /**
+     * @param mongoDatabase database the connection works against, e.g. the one of some tenant
+     * @return a new connection sharing this provider's client and caches
+     */
+    Connection getConnection(MongoDatabase mongoDatabase) {
+        if (mongoClient == null) {
+            throw new IllegalStateException(
+                    "mongoClient instance should have been configured during Configurable mechanism");
+        }
+        if (commandTemplateCache == null) {
+            throw new IllegalStateException(
+                    "commandTemplateCache instance should have been configured during Configurable mechanism");
+        }
+        if (serverInfoTracker == null) {
+            throw new IllegalStateException(
+                    "serverInfoTracker instance should have been configured during Configurable mechanism");
+        }
+        if (transactionRetryPolicy == null) {
+            throw new IllegalStateException(
+                    "transactionRetryPolicy instance should have been configured during Configurable mechanism");
+        }
+        ClientSession clientSession = mongoClient.startSession(ClientSessionOptions.builder()
+                .causallyConsistent(connectionSettings.causallyConsistent())
+                .build());
+        return new MongoConnection(
+                mongoDatabase,
+                clientSession,
+                commandTemplateCache,
+                connectionSettings,
+                serverInfoTracker,
+                transactionRetryPolicy,
+                metrics,
+                recorder
+        );
+    }
+
+    /**
+     * @param databaseName database name
+     * @return database handle on this provider's client
+     */
+    MongoDatabase getDatabase(String databaseName) {
         if (mongoClient == null) {
             throw new IllegalStateException(
                     "mongoClient instance should have been configured during Configurable mechanism");
         }
-        ClientSession clientSession = mongoClient.startSession();
-        return new MongoConnection(mongoDatabase, clientSession);
+        return mongoClient.getDatabase(databaseName);
+    }
+
+    /**
+     * @return the database this provider's connections work against, exposed for direct access via java driver
+     */
+    public @Nullable MongoDatabase getMongoDatabase() {
+        return mongoDatabase;
+    }
+
+    /**
+     * @return the command template cache shared by all the connections of this provider, exposed for monitoring
+     */
+    public @Nullable MongoCommandTemplateCache getCommandTemplateCache() {
+        return commandTemplateCache;
+    }
+
+    /**
+     * @return the transaction retry policy shared by all the connections of this provider, exposed for monitoring
+     */
+    public @Nullable MongoTransactionRetryPolicy getTransactionRetryPolicy() {
+        return transactionRetryPolicy;
+    }
+
+    /**
+     * @return the metrics shared by all the connections of this provider
+     * @see MongoAvailableSettings#MONGODB_METRICS
+     */
+    public MongoMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
@@ -88,10 +365,36 @@ public class MongoConnectionProvider implements ConnectionProvider, Configurable
         throw new UnknownUnwrapTypeException(unwrapType);
     }
 
+    /**
+     * Close the client owned by this provider, or release the shared one (closed once no provider refers to it).
+     */
     @Override
     public void stop() {
-        if (mongoClient != null) {
+        if (metricsObjectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsObjectName);
+            } catch (JMException e) {
+                LOG.warn("failed to unregister metrics MBean", e);
+            }
+            metricsObjectName = null;
+        }
+        if (metricsCommandListener != null) {
+            metricsCommandListener.unregister(metrics);
+            metricsCommandListener = null;
+        }
+        if (sharedClientConnectionString != null) {
+            SharedMongoClients.release(sharedClientConnectionString);
+            sharedClientConnectionString = null;
+        } else if (mongoClient != null) {
             mongoClient.close();
         }
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                LOG.warn("failed to close command recording", e);
+            }
+            recorder = null;
+        }
     }
 }
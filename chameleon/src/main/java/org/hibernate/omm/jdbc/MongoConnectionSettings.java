@@ -0,0 +1,72 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import com.mongodb.lang.Nullable;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.util.ReadPreferenceUtil;
+
+import java.util.Map;
+
+/**
+ * Immutable JDBC level settings resolved once by {@link MongoConnectionProvider} and shared by all of its
+ * connections and statements.
+ *
+ * @param orderedBatchWrites whether {@link java.sql.Statement#executeBatch()} and multi-document inserts issue
+ * ordered writes
+ * @param readConcern read concern of the queries run outside of a transaction; {@code null} means the client default
+ * @param readPreference read preference of the queries run outside of a transaction; {@code null} means the client
+ * default
+ * @param readOnlyReadPreference read preference of the queries of read-only connections
+ * @param causallyConsistent whether the client sessions are causally consistent, so reads from secondaries observe
+ * the preceding writes of the same connection
+ * @author Nathan Xu
+ * @see MongoAvailableSettings
+ * @since 1.0.0
+ */
+public record MongoConnectionSettings(
+        boolean orderedBatchWrites,
+        @Nullable ReadConcern readConcern,
+        @Nullable ReadPreference readPreference,
+        ReadPreference readOnlyReadPreference,
+        boolean causallyConsistent) {
+
+    public static final MongoConnectionSettings DEFAULT =
+            new MongoConnectionSettings(true, null, null, ReadPreference.secondaryPreferred(), true);
+
+    public static MongoConnectionSettings from(Map<String, Object> configurationValues) {
+        String readConcernLevel = ConfigurationHelper.getString(MongoAvailableSettings.MONGODB_READ_CONCERN,
+                configurationValues);
+        String readPreferenceMode = ConfigurationHelper.getString(MongoAvailableSettings.MONGODB_READ_PREFERENCE,
+                configurationValues);
+        String readOnlyReadPreferenceMode = ConfigurationHelper.getString(
+                MongoAvailableSettings.MONGODB_READ_ONLY_READ_PREFERENCE,
+                configurationValues);
+        long maxStalenessSeconds = ConfigurationHelper.getInt(
+                MongoAvailableSettings.MONGODB_READ_MAX_STALENESS,
+                configurationValues,
+                -1
+        );
+        return new MongoConnectionSettings(
+                ConfigurationHelper.getBoolean(
+                        MongoAvailableSettings.MONGODB_BATCH_ORDERED,
+                        configurationValues,
+                        DEFAULT.orderedBatchWrites()
+                ),
+                readConcernLevel == null ? DEFAULT.readConcern() : new ReadConcern(ReadConcernLevel.fromString(readConcernLevel)),
+                readPreferenceMode == null ?
+                        DEFAULT.readPreference() :
+                        ReadPreferenceUtil.toReadPreference(readPreferenceMode, maxStalenessSeconds),
+                readOnlyReadPreferenceMode == null ?
+                        DEFAULT.readOnlyReadPreference() :
+                        ReadPreferenceUtil.toReadPreference(readOnlyReadPreferenceMode, maxStalenessSeconds),
+                ConfigurationHelper.getBoolean(
+                        MongoAvailableSettings.MONGODB_SESSION_CAUSALLY_CONSISTENT,
+                        configurationValues,
+                        DEFAULT.causallyConsistent()
+                )
+        );
+    }
+}
@@ -0,0 +1,60 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.assertions.Assertions;
+import org.hibernate.omm.jdbc.adapter.DatabaseMetaDataAdapter;
+
+import java.sql.Connection;
+
+/**
+ * Immutable {@link java.sql.DatabaseMetaData} view over the {@link MongoServerInfo} shared by the connections of a
+ * {@link MongoConnectionProvider}; no server round trip is involved.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public class MongoDatabaseMetaData implements DatabaseMetaDataAdapter {
+
+    private final MongoServerInfo serverInfo;
+    private final Connection connection;
+
+    public MongoDatabaseMetaData(MongoServerInfo serverInfo, Connection connection) {
+        Assertions.notNull("serverInfo", serverInfo);
+        Assertions.notNull("connection", connection);
+        this.serverInfo = serverInfo;
+        this.connection = connection;
+    }
+
+    public MongoServerInfo getServerInfo() {
+        return serverInfo;
+    }
+
+    @Override
+    public String getDatabaseProductVersion() {
+        return serverInfo.version();
+    }
+
+    @Override
+    public int getDatabaseMajorVersion() {
+        return serverInfo.majorVersion();
+    }
+
+    @Override
+    public int getDatabaseMinorVersion() {
+        return serverInfo.minorVersion();
+    }
+
+    @Override
+    public boolean supportsBatchUpdates() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsTransactions() {
+        return serverInfo.supportsTransactions();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return connection;
+    }
+}
@@ -0,0 +1,107 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.assertions.Assertions;
+import com.mongodb.client.MongoDatabase;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Database-per-tenant {@link MultiTenantConnectionProvider}: the tenant identifier is resolved to the database named
+ * {@link MongoAvailableSettings#MONGODB_TENANT_DATABASE_PREFIX} followed by the identifier, on one client shared by
+ * all the tenants.
+ * <p>
+ * Apart from the cached database handles (created on the first connection of each tenant), the client, command
+ * template cache, server metadata and retry policy are shared, so the cost stays flat as tenants are added.
+ * {@link #getAnyConnection()} works against {@link MongoAvailableSettings#MONGODB_DATABASE}.
+ *
+ * @author Nathan Xu
+ * @see org.hibernate.cfg.AvailableSettings#MULTI_TENANT_CONNECTION_PROVIDER
+ * @since 1.0.0
+ */
+public class MongoMultiTenantConnectionProvider
+        implements MultiTenantConnectionProvider<String>, Configurable, Stoppable {
+
+    private final MongoConnectionProvider connectionProvider = new MongoConnectionProvider();
+
+    private final ConcurrentMap<String, MongoDatabase> tenantDatabases = new ConcurrentHashMap<>();
+
+    private String tenantDatabasePrefix = "";
+
+    @Override
+    public void configure(Map<String, Object> configurationValues) {
+        connectionProvider.configure(configurationValues);
+        tenantDatabasePrefix = ConfigurationHelper.getString(
+                MongoAvailableSettings.MONGODB_TENANT_DATABASE_PREFIX,
+                configurationValues,
+                ""
+        );
+    }
+
+    @Override
+    public Connection getAnyConnection() {
+        return connectionProvider.getConnection();
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        connectionProvider.closeConnection(connection);
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) {
+        return connectionProvider.getConnection(getTenantDatabase(tenantIdentifier));
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        connectionProvider.closeConnection(connection);
+    }
+
+    /**
+     * @param tenantIdentifier tenant identifier
+     * @return the cached database handle of the tenant
+     */
+    public MongoDatabase getTenantDatabase(String tenantIdentifier) {
+        Assertions.notNull("tenantIdentifier", tenantIdentifier);
+        return tenantDatabases.computeIfAbsent(tenantIdentifier,
+                identifier -> connectionProvider.getDatabase(tenantDatabasePrefix + identifier));
+    }
+
+    /**
+     * @return the underlying provider shared by all the tenants, exposed for monitoring
+     */
+    public MongoConnectionProvider getConnectionProvider() {
+        return connectionProvider;
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return false;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        tenantDatabases.clear();
+        connectionProvider.stop();
+    }
+}
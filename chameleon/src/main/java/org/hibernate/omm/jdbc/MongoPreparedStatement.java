@@ -4,26 +4,43 @@ import com.mongodb.assertions.Assertions;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonBinary;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import org.bson.types.Decimal128;
 import org.bson.types.ObjectId;
 import org.hibernate.engine.jdbc.mutation.JdbcValueBindings;
 import org.hibernate.engine.jdbc.mutation.TableInclusionChecker;
+import org.hibernate.omm.exception.NotSupportedRuntimeException;
 import org.hibernate.omm.exception.NotYetImplementedException;
 import org.hibernate.omm.jdbc.adapter.PreparedStatementAdapter;
 import org.hibernate.omm.jdbc.exception.NotSupportedSQLException;
 import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
-import org.hibernate.omm.util.StringUtil;
+import org.hibernate.omm.metrics.MongoMetricsPhase;
+import org.hibernate.omm.replay.RecordedCommand;
+import org.hibernate.omm.type.MongoSqlType;
+import org.hibernate.omm.util.TypeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.CharArrayWriter;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
-import java.sql.Connection;
 import java.sql.Date;
 import java.sql.NClob;
 import java.sql.ResultSet;
@@ -33,18 +50,16 @@ import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.Calendar;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Simulate JDBC's {@link java.sql.PreparedStatement} to create a virtual MongoDB JDBC driver
  * on top of MongoDB Java driver.
  *
  * @author Nathan Xu
- * @apiNote v2 extended JSON format is observed when generating command JSON string.
- * @see <a href="https://www.mongodb.com/docs/manual/reference/mongodb-extended-json/">MongoDB Extended JSON (v2)</a>
+ * @apiNote the parameterized command JSON is parsed only once into {@link MongoCommandTemplate} and parameters
+ * are bound as {@link BsonValue}s straight into its slots, so no JSON rendering or parsing happens per execution.
+ * @see MongoCommandTemplate
  * @since 1.0.0
  */
 public class MongoPreparedStatement extends MongoStatement
@@ -52,22 +67,42 @@ public class MongoPreparedStatement extends MongoStatement
 
     private static final Logger LOG = LoggerFactory.getLogger(MongoPreparedStatement.class);
 
-    private final String parameterizedCommandJson;
-    private final Map<Integer, String> parameters;
+    private final MongoCommandTemplate commandTemplate;
+    /**
+     * Bound parameter values indexed by JDBC parameter index minus one; {@code null} means not set yet.
+     */
+    private final BsonValue[] parameters;
 
     public MongoPreparedStatement(
             MongoDatabase mongoDatabase,
             ClientSession clientSession,
-            Connection connection,
-            String parameterizedCommandJson) {
+            MongoConnection connection,
+            String parameterizedCommandJson) throws SimulatedSQLException {
+        this(mongoDatabase, clientSession, connection, compile(parameterizedCommandJson));
+    }
+
+    public MongoPreparedStatement(
+            MongoDatabase mongoDatabase,
+            ClientSession clientSession,
+            MongoConnection connection,
+            MongoCommandTemplate commandTemplate) {
         super(mongoDatabase, clientSession, connection);
-        this.parameterizedCommandJson = parameterizedCommandJson;
-        this.parameters = new HashMap<>();
+        Assertions.notNull("commandTemplate", commandTemplate);
+        this.commandTemplate = commandTemplate;
+        this.parameters = new BsonValue[commandTemplate.getParameterCount()];
+    }
+
+    static MongoCommandTemplate compile(String parameterizedCommandJson) throws SimulatedSQLException {
+        try {
+            return MongoCommandTemplate.compile(parameterizedCommandJson);
+        } catch (JsonParseException | BsonInvalidOperationException cause) {
+            throw new SimulatedSQLException("invalid command JSON: " + parameterizedCommandJson, cause);
+        }
     }
 
     @Override
     public ResultSet executeQuery() throws SimulatedSQLException {
-        return executeQuery(getDeParameterizedBsonCommand());
+        return executeQuery(getDeParameterizedBsonCommand(), commandTemplate.getProjectFieldNames());
     }
 
     @Override
@@ -85,93 +120,95 @@ public class MongoPreparedStatement extends MongoStatement
      * TableInclusionChecker)
      */
     @Override
-    public void addBatch() {
-        // no-op
+    public void addBatch() throws SimulatedSQLException {
+        addBatch(getDeParameterizedBsonCommand());
+    }
+
+    @Override
+    public void clearParameters() {
+        Arrays.fill(parameters, null);
     }
 
     @Override
-    public void setNull(int parameterIndex, int sqlType) {
-        parameters.put(parameterIndex, "null");
+    public void setNull(int parameterIndex, int sqlType) throws SimulatedSQLException {
+        setParameter(parameterIndex, BsonNull.VALUE);
     }
 
     @Override
-    public void setBoolean(int parameterIndex, boolean x) {
-        parameters.put(parameterIndex, Boolean.toString(x));
+    public void setBoolean(int parameterIndex, boolean x) throws SimulatedSQLException {
+        setParameter(parameterIndex, BsonBoolean.valueOf(x));
     }
 
     @Override
-    public void setByte(int parameterIndex, byte x) {
-        parameters.put(parameterIndex, Byte.toString(x));
+    public void setByte(int parameterIndex, byte x) throws SimulatedSQLException {
+        setParameter(parameterIndex, new BsonInt32(x));
     }
 
     @Override
-    public void setShort(int parameterIndex, short x) {
-        parameters.put(parameterIndex, Short.toString(x));
+    public void setShort(int parameterIndex, short x) throws SimulatedSQLException {
+        setParameter(parameterIndex, new BsonInt32(x));
     }
 
     @Override
-    public void setInt(int parameterIndex, int x) {
-        parameters.put(parameterIndex, "{ \"$numberInt\": \"" + x + "\" }");
+    public void setInt(int parameterIndex, int x) throws SimulatedSQLException {
+        setParameter(parameterIndex, new BsonInt32(x));
     }
 
     @Override
-    public void setLong(int parameterIndex, long x) {
-        parameters.put(parameterIndex, "{ \"$numberLong\": \"" + x + "\" }");
+    public void setLong(int parameterIndex, long x) throws SimulatedSQLException {
+        setParameter(parameterIndex, new BsonInt64(x));
     }
 
     @Override
-    public void setFloat(int parameterIndex, float x) {
-        parameters.put(parameterIndex, Float.toString(x));
+    public void setFloat(int parameterIndex, float x) throws SimulatedSQLException {
+        setParameter(parameterIndex, new BsonDouble(x));
     }
 
     @Override
-    public void setDouble(int parameterIndex, double x) {
-        parameters.put(parameterIndex, "{ \"$numberDouble\": \"" + x + "\" }");
+    public void setDouble(int parameterIndex, double x) throws SimulatedSQLException {
+        setParameter(parameterIndex, new BsonDouble(x));
     }
 
     @Override
-    public void setBigDecimal(int parameterIndex, @Nullable BigDecimal x) {
-        parameters.put(parameterIndex, x == null ? "null" : "{ \"$numberDecimal\": \"" + x + "\" }");
+    public void setBigDecimal(int parameterIndex, @Nullable BigDecimal x) throws SimulatedSQLException {
+        setParameter(parameterIndex, x == null ? BsonNull.VALUE : new BsonDecimal128(new Decimal128(x)));
     }
 
     @Override
-    public void setString(int parameterIndex, @Nullable String x) {
-        parameters.put(parameterIndex, x == null ? "null" : StringUtil.writeStringHelper(x));
+    public void setString(int parameterIndex, @Nullable String x) throws SimulatedSQLException {
+        setParameter(parameterIndex, x == null ? BsonNull.VALUE : new BsonString(x));
     }
 
     @Override
-    public void setBytes(int parameterIndex, @Nullable byte[] x) {
-        parameters.put(parameterIndex, x == null ? "null" : "\"$binary\": {\"base64\": \"" + Base64.getEncoder().encodeToString(x) + "\", \"subType\": \"0\"}");
+    public void setBytes(int parameterIndex, @Nullable byte[] x) throws SimulatedSQLException {
+        // BsonBinary wraps the array without copying
+        setParameter(parameterIndex, x == null ? BsonNull.VALUE : new BsonBinary(x));
     }
 
     @Override
-    public void setDate(int parameterIndex, @Nullable Date x) {
-        parameters.put(parameterIndex, x == null ? "null" : "{\"$date\": {\"$numberLong\": \"" + x.toInstant().getEpochSecond() + "\"}}");
+    public void setDate(int parameterIndex, @Nullable Date x) throws SimulatedSQLException {
+        setParameter(parameterIndex, x == null ? BsonNull.VALUE : new BsonDateTime(x.getTime()));
     }
 
     @Override
-    public void setTime(int parameterIndex, @Nullable Time x) {
-        parameters.put(parameterIndex, x == null ? "null" : "{\"$date\": {\"$numberLong\": \"" + x.toInstant().getEpochSecond() + "\"}}");
+    public void setTime(int parameterIndex, @Nullable Time x) throws SimulatedSQLException {
+        setParameter(parameterIndex, x == null ? BsonNull.VALUE : new BsonDateTime(x.getTime()));
     }
 
     @Override
-    public void setTimestamp(int parameterIndex, @Nullable Timestamp x) {
-        parameters.put(
-                parameterIndex,
-                x == null ? "null" : "{\"$timestamp\": {\"" + x.toInstant().getEpochSecond() + "\": <t>, \"i\": 1}}"
-        );
+    public void setTimestamp(int parameterIndex, @Nullable Timestamp x) throws SimulatedSQLException {
+        setParameter(parameterIndex, x == null ? BsonNull.VALUE : new BsonDateTime(x.getTime()));
     }
 
     @Override
     public void setObject(int parameterIndex, @Nullable Object x, int targetSqlType)
             throws SimulatedSQLException {
         if (x == null) {
-            parameters.put(parameterIndex, "null");
+            setParameter(parameterIndex, BsonNull.VALUE);
         } else {
             switch (targetSqlType) {
-                case 3_000:
-                    ObjectId objectId = (ObjectId) x;
-                    parameters.put(parameterIndex, "{ \"$oid\": \"" + objectId.toHexString() + "\" }");
+                case MongoSqlType.OBJECT_ID:
+                    setParameter(parameterIndex, new BsonObjectId((ObjectId) x));
                     break;
                 default:
                     throw new NotSupportedSQLException("unknown MongoSqlType: " + targetSqlType);
@@ -190,59 +227,70 @@ public class MongoPreparedStatement extends MongoStatement
             } else {
                 iterable = ((Iterable<?>) x.getArray());
             }
-            parameters.put(parameterIndex, getArrayJson(iterable));
-        } catch (SQLException | IOException cause) {
+            var bsonArray = new BsonArray();
+            for (Object element : iterable) {
+                bsonArray.add(TypeUtil.wrap(element));
+            }
+            setParameter(parameterIndex, bsonArray);
+        } catch (SQLException | NotSupportedRuntimeException cause) {
             throw new SimulatedSQLException(cause.getMessage(), cause);
         }
     }
 
-    private String getArrayJson(Iterable<?> iterable) throws IOException {
-        var stringWriter = new CharArrayWriter();
-        stringWriter.write("[ ");
-        var first = true;
-        for (Object obj : iterable) {
-            if (!first) {
-                stringWriter.write(", ");
-            } else {
-                first = false;
-            }
-            stringWriter.write(obj instanceof String aStr ?
-                    StringUtil.writeStringHelper(aStr) :
-                    obj == null ? "null" : obj.toString());
+    private void setParameter(int parameterIndex, BsonValue value) throws SimulatedSQLException {
+        if (parameterIndex < 1 || parameterIndex > parameters.length) {
+            throw new SimulatedSQLException(String.format("parameter index out of range [1, %d]: %d",
+                    parameters.length, parameterIndex));
         }
-        stringWriter.write(" ]");
-        return stringWriter.toString();
+        parameters[parameterIndex - 1] = value;
     }
 
-    private String getDeParameterizedBsonCommand() {
-        int parameterIndex = 1;
-        int lastIndex = -1;
-        int index;
-        var sb = new StringBuilder();
-
-        while ((index = parameterizedCommandJson.indexOf('?', lastIndex + 1)) != -1) {
-            sb.append(parameterizedCommandJson, lastIndex + 1, index);
-            String parameterValue = parameters.get(parameterIndex++);
-            sb.append(parameterValue);
-            lastIndex = index;
+    /**
+     * Bind the current parameters into the command template compiled during construction.
+     *
+     * @return command ready to be sent to MongoDB
+     * @throws SimulatedSQLException if some parameter has not been set
+     */
+    protected BsonDocument getDeParameterizedBsonCommand() throws SimulatedSQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] == null) {
+                throw new SimulatedSQLException("parameter not set: " + (i + 1));
+            }
+        }
+        var metrics = connection.getMetrics();
+        var start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        var command = commandTemplate.bind(parameterIndex -> parameters[parameterIndex - 1]);
+        if (metrics.isEnabled()) {
+            metrics.recordPhase(MongoMetricsPhase.BIND, System.nanoTime() - start);
         }
-        sb.append(parameterizedCommandJson.substring(lastIndex + 1));
-        var command = sb.toString();
         if (LOG.isDebugEnabled()) {
-            LOG.debug("BSON command generated: {}", command);
+            LOG.debug("BSON command generated: {}", command.toJson());
         }
         return command;
     }
 
-    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
-    // the following methods are used in Hibernate internally and likely we need to override
-    // but for now we left them here for placeholders
+    /**
+     * @return the parameterized command JSON along with the parameters bound, so commands of the same shape share
+     * the JSON in the command log
+     */
+    @Override
+    protected RecordedCommand toRecordedCommand(BsonDocument command) {
+        return new RecordedCommand(commandTemplate.getParameterizedCommandJson(), new BsonArray(Arrays.asList(parameters)));
+    }
 
     @Override
-    public void setObject(int parameterIndex, @Nullable Object x) {
-        throw new NotYetImplementedException();
+    public void setObject(int parameterIndex, @Nullable Object x) throws SimulatedSQLException {
+        try {
+            setParameter(parameterIndex, TypeUtil.wrap(x));
+        } catch (NotSupportedRuntimeException cause) {
+            throw new NotSupportedSQLException(cause.getMessage(), cause);
+        }
     }
 
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // the following methods are used in Hibernate internally and likely we need to override
+    // but for now we left them here for placeholders
+
     @Override
     public void setBlob(int parameterIndex, @Nullable Blob x) {
         throw new NotYetImplementedException();
@@ -1,23 +1,26 @@
 package org.hibernate.omm.jdbc;
 
+import com.mongodb.MongoExecutionTimeoutException;
 import com.mongodb.assertions.Assertions;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.lang.Nullable;
-import org.bson.BsonBinary;
-import org.bson.BsonBoolean;
-import org.bson.BsonDateTime;
-import org.bson.BsonDecimal128;
-import org.bson.BsonDocument;
-import org.bson.BsonNumber;
-import org.bson.BsonString;
-import org.bson.BsonValue;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonArrayCodec;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
 import org.hibernate.omm.jdbc.adapter.ArrayAdapter;
 import org.hibernate.omm.jdbc.adapter.ResultSetAdapter;
 import org.hibernate.omm.jdbc.adapter.ResultSetMetaDataAdapter;
 import org.hibernate.omm.jdbc.exception.BsonNullValueSQLException;
 import org.hibernate.omm.jdbc.exception.CurrentDocumentNullSQLException;
+import org.hibernate.omm.jdbc.exception.QueryTimeoutSQLException;
 import org.hibernate.omm.jdbc.exception.ResultSetClosedSQLException;
 import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
+import org.hibernate.omm.metrics.MongoMetrics;
+import org.hibernate.omm.metrics.MongoMetricsPhase;
 import org.hibernate.omm.util.CollectionUtil;
 import org.hibernate.omm.util.TypeUtil;
 
@@ -33,28 +36,84 @@ import java.util.List;
 import static org.hibernate.internal.util.NullnessUtil.castNonNull;
 
 /**
+ * Rows are fetched as {@link RawBsonDocument} and decoded lazily: each getter advances a {@link BsonBinaryReader}
+ * over the raw bytes up to the requested column, decoding the value straight into the returned Java type without
+ * materializing any {@link org.bson.BsonDocument} tree. As the trailing {@code $project} stage fixes the field order
+ * and Hibernate reads columns in ascending order, decoding a row usually takes a single forward pass; reading a
+ * column before the current position restarts from the beginning of the row.
+ * <p>
+ * A field missing from the row (e.g. projected from a non-existing path) is treated as {@code null}.
+ *
  * @author Nathan Xu
  * @since 1.0.0
  */
 public class MongoResultSet implements ResultSetAdapter {
 
-    private final MongoCursor<BsonDocument> cursor;
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+    private static final BsonValueCodec BSON_VALUE_CODEC = new BsonValueCodec();
+    private static final BsonArrayCodec BSON_ARRAY_CODEC = new BsonArrayCodec();
+
+    private final MongoCursor<RawBsonDocument> cursor;
 
     private final List<String> fieldNames;
 
+    /**
+     * Statement the result set is generated from, for telling whether a cursor failure is due to cancellation.
+     */
+    @Nullable
+    private final MongoStatement statement;
+
+    private final MongoMetrics metrics;
+
     @Nullable
-    private BsonDocument currentDocument;
+    private RawBsonDocument currentDocument;
 
+    /**
+     * Reader over {@link #currentDocument}, created on first column access.
+     */
     @Nullable
-    private BsonValue lastRead;
+    private BsonBinaryReader reader;
+
+    /**
+     * 0-based index of the last column whose value the {@link #reader} has consumed; {@code -1} if none.
+     */
+    private int readerColumnIndex;
+
+    /**
+     * Number of field names of {@link #currentDocument} the {@link #reader} has read.
+     */
+    private int readerFieldCount;
+
+    private boolean lastReadNull;
 
     private boolean closed;
 
-    public MongoResultSet(MongoCursor<BsonDocument> cursor, final List<String> fieldNames) {
+    private long documentsReturned;
+
+    /**
+     * Time spent in the getters positioning the reader at the requested columns and decoding their values.
+     */
+    private long decodeNanos;
+
+    @FunctionalInterface
+    private interface ColumnDecoder<T> {
+        T decode() throws SimulatedSQLException;
+    }
+
+    public MongoResultSet(MongoCursor<RawBsonDocument> cursor, final List<String> fieldNames) {
+        this(cursor, fieldNames, null);
+    }
+
+    public MongoResultSet(
+            MongoCursor<RawBsonDocument> cursor,
+            final List<String> fieldNames,
+            @Nullable MongoStatement statement) {
         Assertions.notNull("cursor", cursor);
         Assertions.notNull("fieldNames", fieldNames);
         this.cursor = cursor;
         this.fieldNames = fieldNames;
+        this.statement = statement;
+        this.metrics = statement == null ? MongoMetrics.NOOP : statement.connection.getMetrics();
     }
 
     @Override
@@ -62,17 +121,37 @@ public class MongoResultSet implements ResultSetAdapter {
         if (closed) {
             throw new ResultSetClosedSQLException();
         }
-        if (cursor.hasNext()) {
-            currentDocument = cursor.next().toBsonDocument();
-            return true;
-        } else {
-            return false;
+        resetReader();
+        try {
+            if (cursor.hasNext()) {
+                currentDocument = cursor.next();
+                documentsReturned++;
+                return true;
+            } else {
+                currentDocument = null;
+                return false;
+            }
+        } catch (MongoExecutionTimeoutException e) {
+            throw new QueryTimeoutSQLException("query timed out", e);
+        } catch (RuntimeException e) {
+            if (statement != null && statement.isCancelled()) {
+                throw new QueryTimeoutSQLException("query cancelled", e);
+            }
+            throw e;
         }
     }
 
     @Override
     public void close() {
+        if (!closed && metrics.isEnabled()) {
+            metrics.recordDocumentsReturned(documentsReturned);
+            metrics.recordPhase(MongoMetricsPhase.DECODE, decodeNanos);
+        }
+        if (!closed && statement != null) {
+            statement.onResultSetClosed(documentsReturned);
+        }
         closed = true;
+        resetReader();
         cursor.close();
     }
 
@@ -81,144 +160,200 @@ public class MongoResultSet implements ResultSetAdapter {
         if (closed) {
             throw new ResultSetClosedSQLException();
         }
-        return lastRead != null && lastRead.isNull();
+        return lastReadNull;
     }
 
     @Override
     @Nullable
     public String getString(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonString bsonValue = castNonNull(currentDocument).getString(getKey(columnIndex));
-        lastRead = bsonValue;
-        return bsonValue.isNull() ? null : bsonValue.getValue();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeString(columnIndex)) : decodeString(columnIndex);
+    }
+
+    @Nullable
+    private String decodeString(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        if (bsonType == null) {
+            return null;
+        }
+        var reader = castNonNull(this.reader);
+        return switch (bsonType) {
+            case STRING -> reader.readString();
+            case SYMBOL -> reader.readSymbol();
+            default -> throw unexpectedBsonType(columnIndex, bsonType);
+        };
     }
 
     @Override
     public boolean getBoolean(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonBoolean bsonValue = castNonNull(currentDocument).getBoolean(getKey(columnIndex));
-        lastRead = bsonValue;
-        if (bsonValue.isNull()) {
-            throw new BsonNullValueSQLException();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeBoolean(columnIndex)) : decodeBoolean(columnIndex);
+    }
+
+    private boolean decodeBoolean(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToNonNullColumn(columnIndex);
+        if (bsonType != BsonType.BOOLEAN) {
+            throw unexpectedBsonType(columnIndex, bsonType);
         }
-        return bsonValue.getValue();
+        return castNonNull(reader).readBoolean();
     }
 
     @Override
     public byte getByte(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonNumber bsonValue = castNonNull(currentDocument).getNumber(getKey(columnIndex));
-        lastRead = bsonValue;
-        if (bsonValue.isNull()) {
-            throw new BsonNullValueSQLException();
-        }
-        return (byte) bsonValue.intValue();
+        return (byte) getInt(columnIndex);
     }
 
     @Override
     public short getShort(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonNumber bsonValue = castNonNull(currentDocument).getNumber(getKey(columnIndex));
-        lastRead = bsonValue;
-        if (bsonValue.isNull()) {
-            throw new BsonNullValueSQLException();
-        }
-        return (short) bsonValue.intValue();
+        return (short) getInt(columnIndex);
     }
 
     @Override
     public int getInt(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonNumber bsonValue = castNonNull(currentDocument).getNumber(getKey(columnIndex));
-        lastRead = bsonValue;
-        if (bsonValue.isNull()) {
-            throw new BsonNullValueSQLException();
-        }
-        return bsonValue.intValue();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeInt(columnIndex)) : decodeInt(columnIndex);
+    }
+
+    private int decodeInt(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToNonNullColumn(columnIndex);
+        var reader = castNonNull(this.reader);
+        return switch (bsonType) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> (int) reader.readInt64();
+            case DOUBLE -> (int) reader.readDouble();
+            case DECIMAL128 -> reader.readDecimal128().intValue();
+            default -> throw unexpectedBsonType(columnIndex, bsonType);
+        };
     }
 
     @Override
     public long getLong(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonNumber bsonValue = castNonNull(currentDocument).getNumber(getKey(columnIndex));
-        lastRead = bsonValue;
-        if (bsonValue.isNull()) {
-            throw new BsonNullValueSQLException();
-        }
-        return bsonValue.longValue();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeLong(columnIndex)) : decodeLong(columnIndex);
+    }
+
+    private long decodeLong(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToNonNullColumn(columnIndex);
+        var reader = castNonNull(this.reader);
+        return switch (bsonType) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            case DOUBLE -> (long) reader.readDouble();
+            case DECIMAL128 -> reader.readDecimal128().longValue();
+            default -> throw unexpectedBsonType(columnIndex, bsonType);
+        };
     }
 
     @Override
     public float getFloat(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonNumber bsonValue = castNonNull(currentDocument).getNumber(getKey(columnIndex));
-        lastRead = bsonValue;
-        if (bsonValue.isNull()) {
-            throw new BsonNullValueSQLException();
-        }
-        return (float) bsonValue.doubleValue();
+        return (float) getDouble(columnIndex);
     }
 
     @Override
     public double getDouble(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonNumber bsonValue = castNonNull(currentDocument).getNumber(getKey(columnIndex));
-        lastRead = bsonValue;
-        if (bsonValue.isNull()) {
-            throw new BsonNullValueSQLException();
-        }
-        return bsonValue.doubleValue();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeDouble(columnIndex)) : decodeDouble(columnIndex);
+    }
+
+    private double decodeDouble(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToNonNullColumn(columnIndex);
+        var reader = castNonNull(this.reader);
+        return switch (bsonType) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            case DOUBLE -> reader.readDouble();
+            case DECIMAL128 -> reader.readDecimal128().doubleValue();
+            default -> throw unexpectedBsonType(columnIndex, bsonType);
+        };
     }
 
     @Override
     @Nullable
     public byte[] getBytes(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonBinary bsonValue = castNonNull(currentDocument).getBinary(getKey(columnIndex));
-        lastRead = bsonValue;
-        return bsonValue.isNull() ? null : bsonValue.getData();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeBytes(columnIndex)) : decodeBytes(columnIndex);
+    }
+
+    @Nullable
+    private byte[] decodeBytes(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        if (bsonType == null) {
+            return null;
+        }
+        if (bsonType != BsonType.BINARY) {
+            throw unexpectedBsonType(columnIndex, bsonType);
+        }
+        return castNonNull(reader).readBinaryData().getData();
     }
 
     @Override
     @Nullable
     public Date getDate(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonDateTime bsonValue = castNonNull(currentDocument).getDateTime(getKey(columnIndex));
-        lastRead = bsonValue;
-        return bsonValue.isNull() ? null : new Date(bsonValue.getValue());
+        return metrics.isEnabled() ? timeDecoding(() -> decodeDate(columnIndex)) : decodeDate(columnIndex);
+    }
+
+    @Nullable
+    private Date decodeDate(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        return bsonType == null ? null : new Date(readDateTime(columnIndex, bsonType));
     }
 
     @Override
     @Nullable
     public Time getTime(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonDateTime bsonValue = castNonNull(currentDocument).getDateTime(getKey(columnIndex));
-        lastRead = bsonValue;
-        return bsonValue.isNull() ? null : new Time(bsonValue.getValue());
+        return metrics.isEnabled() ? timeDecoding(() -> decodeTime(columnIndex)) : decodeTime(columnIndex);
+    }
+
+    @Nullable
+    private Time decodeTime(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        return bsonType == null ? null : new Time(readDateTime(columnIndex, bsonType));
     }
 
     @Override
     @Nullable
     public Timestamp getTimestamp(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonDateTime bsonValue = castNonNull(currentDocument).getDateTime(getKey(columnIndex));
-        lastRead = bsonValue;
-        return bsonValue.isNull() ? null : new Timestamp(bsonValue.getValue());
+        return metrics.isEnabled() ? timeDecoding(() -> decodeTimestamp(columnIndex)) : decodeTimestamp(columnIndex);
+    }
+
+    @Nullable
+    private Timestamp decodeTimestamp(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        return bsonType == null ? null : new Timestamp(readDateTime(columnIndex, bsonType));
     }
 
     @Override
     @Nullable
     public BigDecimal getBigDecimal(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        BsonDecimal128 bsonValue = castNonNull(currentDocument).getDecimal128(getKey(columnIndex));
-        lastRead = bsonValue;
-        return bsonValue.isNull() ? null : bsonValue.getValue().bigDecimalValue();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeBigDecimal(columnIndex)) : decodeBigDecimal(columnIndex);
+    }
+
+    @Nullable
+    private BigDecimal decodeBigDecimal(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        if (bsonType == null) {
+            return null;
+        }
+        var reader = castNonNull(this.reader);
+        return switch (bsonType) {
+            case DECIMAL128 -> reader.readDecimal128().bigDecimalValue();
+            case INT32 -> BigDecimal.valueOf(reader.readInt32());
+            case INT64 -> BigDecimal.valueOf(reader.readInt64());
+            case DOUBLE -> BigDecimal.valueOf(reader.readDouble());
+            default -> throw unexpectedBsonType(columnIndex, bsonType);
+        };
     }
 
     @Override
+    @Nullable
     public Array getArray(int columnIndex) throws SimulatedSQLException {
-        beforeAccessCurrentDocumentField();
-        List<BsonValue> bsonValues = castNonNull(currentDocument).getArray(getKey(columnIndex)).getValues();
+        return metrics.isEnabled() ? timeDecoding(() -> decodeArray(columnIndex)) : decodeArray(columnIndex);
+    }
+
+    @Nullable
+    private Array decodeArray(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        if (bsonType == null) {
+            return null;
+        }
+        if (bsonType != BsonType.ARRAY) {
+            throw unexpectedBsonType(columnIndex, bsonType);
+        }
+        BsonArray bsonValues = BSON_ARRAY_CODEC.decode(castNonNull(reader), DECODER_CONTEXT);
         return new ArrayAdapter() {
 
             @Override
@@ -238,10 +373,19 @@ public class MongoResultSet implements ResultSetAdapter {
     @Override
     @Nullable
     public <T> T getObject(int columnIndex, Class<T> type) throws SimulatedSQLException {
+        return metrics.isEnabled() ?
+                timeDecoding(() -> decodeObject(columnIndex, type)) :
+                decodeObject(columnIndex, type);
+    }
+
+    @Nullable
+    private <T> T decodeObject(int columnIndex, Class<T> type) throws SimulatedSQLException {
         Assertions.notNull("type", type);
-        beforeAccessCurrentDocumentField();
-        var value = castNonNull(currentDocument).get(getKey(columnIndex));
-        return value == null ? null : type.cast(value);
+        var bsonType = moveToColumn(columnIndex);
+        if (bsonType == null) {
+            return null;
+        }
+        return type.cast(BSON_VALUE_CODEC.decode(castNonNull(reader), DECODER_CONTEXT));
     }
 
     @Override
@@ -266,8 +410,110 @@ public class MongoResultSet implements ResultSetAdapter {
         return fieldNames.indexOf(columnLabel) + 1;
     }
 
-    private String getKey(int columnIndex) throws SimulatedSQLException {
-        return fieldNames.get(columnIndex - 1);
+    /**
+     * Position the reader at the value of the column, skipping the values of the columns in between. The fields of
+     * the document might come in an order other than the columns' (e.g. the server always puts {@code _id} first), so
+     * a field not found after the reader position is looked for once more among the fields before it.
+     *
+     * @param columnIndex 1-based column index
+     * @return BSON type of the value, or {@code null} if the value is null or missing (in which case no value is
+     * left to read)
+     */
+    @Nullable
+    private BsonType moveToColumn(int columnIndex) throws SimulatedSQLException {
+        beforeAccessCurrentDocumentField();
+        var targetColumnIndex = columnIndex - 1;
+        var fieldName = fieldNames.get(targetColumnIndex);
+        if (reader == null || targetColumnIndex <= readerColumnIndex) {
+            startReader();
+        }
+        var skippedFieldCount = readerFieldCount;
+        var bsonType = moveToField(fieldName, Integer.MAX_VALUE);
+        if (bsonType == BsonType.END_OF_DOCUMENT && skippedFieldCount > 0) {
+            startReader();
+            bsonType = moveToField(fieldName, skippedFieldCount);
+        }
+        if (bsonType == BsonType.END_OF_DOCUMENT) {
+            // missing field; start over for next access
+            resetReader();
+            lastReadNull = true;
+            return null;
+        }
+        var bsonReader = castNonNull(reader);
+        readerColumnIndex = targetColumnIndex;
+        if (bsonType == BsonType.NULL || bsonType == BsonType.UNDEFINED) {
+            bsonReader.skipValue();
+            lastReadNull = true;
+            return null;
+        }
+        lastReadNull = false;
+        return bsonType;
+    }
+
+    private void startReader() {
+        resetReader();
+        reader = new BsonBinaryReader(castNonNull(currentDocument).getByteBuffer().asNIO());
+        reader.readStartDocument();
+    }
+
+    /**
+     * Advance the reader to the field, reading no more than the given number of fields.
+     *
+     * @return BSON type of the field's value, which is left to read; {@link BsonType#END_OF_DOCUMENT} if not found
+     */
+    private BsonType moveToField(String fieldName, int maxFieldCount) {
+        var bsonReader = castNonNull(reader);
+        for (int i = 0; i < maxFieldCount; i++) {
+            var bsonType = bsonReader.readBsonType();
+            if (bsonType == BsonType.END_OF_DOCUMENT) {
+                break;
+            }
+            readerFieldCount++;
+            if (bsonReader.readName().equals(fieldName)) {
+                return bsonType;
+            }
+            bsonReader.skipValue();
+        }
+        return BsonType.END_OF_DOCUMENT;
+    }
+
+    private BsonType moveToNonNullColumn(int columnIndex) throws SimulatedSQLException {
+        var bsonType = moveToColumn(columnIndex);
+        if (bsonType == null) {
+            throw new BsonNullValueSQLException();
+        }
+        return bsonType;
+    }
+
+    private <T> T timeDecoding(ColumnDecoder<T> decoder) throws SimulatedSQLException {
+        var start = System.nanoTime();
+        try {
+            return decoder.decode();
+        } finally {
+            decodeNanos += System.nanoTime() - start;
+        }
+    }
+
+    private long readDateTime(int columnIndex, BsonType bsonType) throws SimulatedSQLException {
+        if (bsonType != BsonType.DATE_TIME) {
+            throw unexpectedBsonType(columnIndex, bsonType);
+        }
+        return castNonNull(reader).readDateTime();
+    }
+
+    private SimulatedSQLException unexpectedBsonType(int columnIndex, BsonType bsonType) {
+        resetReader();
+        return new SimulatedSQLException(String.format("unexpected BSON type of column %d (%s): %s",
+                columnIndex, fieldNames.get(columnIndex - 1), bsonType));
+    }
+
+    private void resetReader() {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        readerColumnIndex = -1;
+        readerFieldCount = 0;
     }
 
     private void beforeAccessCurrentDocumentField() throws ResultSetClosedSQLException, CurrentDocumentNullSQLException {
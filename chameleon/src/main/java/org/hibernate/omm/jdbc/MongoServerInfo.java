@@ -0,0 +1,44 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.connection.ClusterType;
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of the server facts backing {@link java.sql.DatabaseMetaData}, resolved once by
+ * {@link MongoServerInfoTracker} and shared by all the connections of a {@link MongoConnectionProvider}.
+ *
+ * @param version server version string reported by {@code buildinfo}
+ * @param majorVersion server major version
+ * @param minorVersion server minor version
+ * @param clusterType topology type of the cluster the client is connected to
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public record MongoServerInfo(String version, int majorVersion, int minorVersion, ClusterType clusterType) {
+
+    static MongoServerInfo from(Document buildInfo, ClusterType clusterType) {
+        List<Integer> versionArray = buildInfo.getList("versionArray", Integer.class);
+        return new MongoServerInfo(buildInfo.getString("version"), versionArray.get(0), versionArray.get(1), clusterType);
+    }
+
+    MongoServerInfo withClusterType(ClusterType clusterType) {
+        return clusterType == this.clusterType
+                ? this
+                : new MongoServerInfo(version, majorVersion, minorVersion, clusterType);
+    }
+
+    /**
+     * Multi-document transactions require a replica set from 4.0 onwards, or a sharded cluster from 4.2 onwards.
+     *
+     * @return whether multi-document transactions are supported by the server
+     */
+    public boolean supportsTransactions() {
+        return switch (clusterType) {
+            case REPLICA_SET -> majorVersion >= 4;
+            case SHARDED -> majorVersion > 4 || (majorVersion == 4 && minorVersion >= 2);
+            default -> false;
+        };
+    }
+}
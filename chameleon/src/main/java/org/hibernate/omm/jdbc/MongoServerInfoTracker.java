@@ -0,0 +1,70 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.connection.ClusterDescription;
+import com.mongodb.connection.ClusterType;
+import com.mongodb.connection.ServerDescription;
+import com.mongodb.event.ClusterDescriptionChangedEvent;
+import com.mongodb.event.ClusterListener;
+import com.mongodb.lang.Nullable;
+import org.bson.Document;
+import org.hibernate.omm.jdbc.exception.CommandRunFailSQLException;
+import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
+
+/**
+ * Caches the {@link MongoServerInfo} of a {@link MongoConnectionProvider} so {@code buildinfo} is run once rather than
+ * on every {@link java.sql.Connection#getMetaData()} call.
+ * <p>
+ * Registered as the driver's {@link ClusterListener}, it keeps the topology type current and discards the cached
+ * server version whenever the wire versions of the cluster members change (e.g. after a rolling upgrade or failover
+ * to a server of different version), so it is fetched again on next demand.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public class MongoServerInfoTracker implements ClusterListener {
+    private static final String BUILD_INFO_COMMAND_NAME = "buildinfo";
+
+    private volatile ClusterType clusterType = ClusterType.UNKNOWN;
+    private volatile int maxWireVersion = -1;
+
+    @Nullable
+    private volatile MongoServerInfo serverInfo;
+
+    @Override
+    public void clusterDescriptionChanged(ClusterDescriptionChangedEvent event) {
+        ClusterDescription description = event.getNewDescription();
+        int newMaxWireVersion = description.getServerDescriptions().stream()
+                .filter(ServerDescription::isOk)
+                .mapToInt(ServerDescription::getMaxWireVersion)
+                .max()
+                .orElse(maxWireVersion);
+        if (newMaxWireVersion != maxWireVersion) {
+            maxWireVersion = newMaxWireVersion;
+            serverInfo = null;
+        }
+        clusterType = description.getType();
+    }
+
+    /**
+     * @param mongoDatabase database to run {@code buildinfo} against when no server info is cached
+     * @return the cached server info, fetched first if absent
+     * @throws SimulatedSQLException if {@code buildinfo} fails
+     */
+    public MongoServerInfo getServerInfo(MongoDatabase mongoDatabase) throws SimulatedSQLException {
+        MongoServerInfo cached = serverInfo;
+        if (cached == null) {
+            Document result = mongoDatabase.runCommand(new Document(BUILD_INFO_COMMAND_NAME, 1));
+            if (result.getDouble("ok") != 1.0) {
+                throw new CommandRunFailSQLException(result);
+            }
+            cached = MongoServerInfo.from(result, clusterType);
+            serverInfo = cached;
+        }
+        MongoServerInfo current = cached.withClusterType(clusterType);
+        if (current != cached) {
+            serverInfo = current;
+        }
+        return current;
+    }
+}
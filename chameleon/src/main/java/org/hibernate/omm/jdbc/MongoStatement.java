@@ -1,28 +1,61 @@
 package org.hibernate.omm.jdbc;
 
 import com.mongodb.assertions.Assertions;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.ClientSession;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoExecutionTimeoutException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
 import org.bson.BsonBoolean;
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
 import org.hibernate.omm.jdbc.adapter.StatementAdapter;
+import org.hibernate.omm.jdbc.exception.CommandRunFailSQLException;
 import org.hibernate.omm.jdbc.exception.NotSupportedSQLException;
+import org.hibernate.omm.jdbc.exception.QueryTimeoutSQLException;
 import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
 import org.hibernate.omm.jdbc.exception.StatementClosedSQLException;
+import org.hibernate.omm.replay.CommandRecorder;
+import org.hibernate.omm.replay.RecordedCommand;
+import org.hibernate.omm.replay.RecordedExecution;
+import org.hibernate.omm.util.ReadPreferenceUtil;
 import org.hibernate.sql.ast.tree.select.SelectClause;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Nathan Xu
@@ -33,11 +66,55 @@ public class MongoStatement implements StatementAdapter {
     protected final MongoDatabase mongoDatabase;
     protected final ClientSession clientSession;
 
-    protected final Connection connection;
+    protected final MongoConnection connection;
+
+    private static final String ID_FIELD = "_id";
+
+    /**
+     * Number of the documents written per {@code bulkWrite} when insert-select is not run by {@code $merge} stage.
+     */
+    private static final int INSERT_SELECT_BATCH_SIZE = 1000;
+
+    /**
+     * SQL state of integrity constraint violation, e.g. duplicate key.
+     */
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE = "23000";
+
+    private static final JsonWriterSettings EXTENDED_JSON_SETTINGS =
+            JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private final List<BsonDocument> batchCommands = new ArrayList<>();
+
+    /**
+     * Recorded forms of {@link #batchCommands}, only kept if recording.
+     */
+    private final List<RecordedCommand> batchRecordedCommands = new ArrayList<>();
+
+    /**
+     * Cursor batch size; {@code 0} means the driver default.
+     */
+    private int fetchSize;
+
+    /**
+     * Query timeout in seconds; {@code 0} means no limit.
+     */
+    private int queryTimeout;
+
+    @Nullable
+    private volatile MongoCursor<RawBsonDocument> openCursor;
+
+    private volatile boolean cancelled;
 
     private boolean closed;
 
-    public MongoStatement(MongoDatabase mongoDatabase, ClientSession clientSession, Connection connection) {
+    /**
+     * Query being recorded, till its result set is closed.
+     */
+    @Nullable
+    private RecordedCommand pendingQuery;
+    private long pendingQueryStartNanos;
+
+    public MongoStatement(MongoDatabase mongoDatabase, ClientSession clientSession, MongoConnection connection) {
         Assertions.notNull("mongoDatabase", mongoDatabase);
         Assertions.notNull("clientSession", clientSession);
         Assertions.notNull("connection", connection);
@@ -50,14 +127,170 @@ public class MongoStatement implements StatementAdapter {
     public ResultSet executeQuery(String sql) throws SimulatedSQLException {
         Assertions.notNull("sql", sql);
         throwExceptionIfClosed();
+        return executeQuery(BsonDocument.parse(sql));
+    }
 
-        var command = BsonDocument.parse(sql);
-        var collection = mongoDatabase.getCollection(command.getString("aggregate").getValue(),
-                BsonDocument.class);
+    protected ResultSet executeQuery(BsonDocument command) throws SimulatedSQLException {
+        return executeQuery(command, null);
+    }
+
+    /**
+     * @param command aggregate or find command
+     * @param fieldNames field names of the trailing $project stage (or find projection) if already known
+     * (e.g. cached); {@code null} means they need to be figured out from the command
+     * @return result set
+     * @throws SimulatedSQLException if this statement has been closed or the command is not supported
+     */
+    protected ResultSet executeQuery(BsonDocument command, @Nullable List<String> fieldNames) throws SimulatedSQLException {
+        throwExceptionIfClosed();
+        if (connection.getRecorder() == null) {
+            return doExecuteQuery(command, fieldNames);
+        }
+        var recordedCommand = toRecordedCommand(command);
+        var start = System.nanoTime();
+        pendingQuery = recordedCommand;
+        pendingQueryStartNanos = start;
+        try {
+            return doExecuteQuery(command, fieldNames);
+        } catch (SimulatedSQLException | RuntimeException e) {
+            pendingQuery = null;
+            record(RecordedExecution.Kind.QUERY, start, List.of(recordedCommand), -1, false);
+            throw e;
+        }
+    }
+
+    private ResultSet doExecuteQuery(BsonDocument command, @Nullable List<String> fieldNames) throws SimulatedSQLException {
+        var commandName = command.getFirstKey();
+        return switch (commandName) {
+            case "aggregate" -> executeAggregate(command, fieldNames);
+            case "find" -> executeFind(command, fieldNames);
+            default -> throw new NotSupportedSQLException("unsupported query command: " + commandName);
+        };
+    }
+
+    private ResultSet executeAggregate(BsonDocument command, @Nullable List<String> fieldNames) throws SimulatedSQLException {
+        var collection = getQueryDatabase(command).getCollection(command.getString("aggregate").getValue(),
+                RawBsonDocument.class);
         var pipeline = command.getArray("pipeline").stream().map(BsonValue::asDocument).toList();
-        var cursor = collection.aggregate(clientSession, pipeline).cursor();
-        var fieldNames = getFieldNamesFromProjectDocument(pipeline.get(pipeline.size() - 1).asDocument().getDocument("$project"));
-        return new MongoResultSet(cursor, fieldNames);
+        var aggregateIterable = collection.aggregate(clientSession, pipeline);
+        if (fetchSize > 0) {
+            aggregateIterable.batchSize(fetchSize);
+        }
+        if (queryTimeout > 0) {
+            aggregateIterable.maxTime(queryTimeout, TimeUnit.SECONDS);
+        }
+        if (fieldNames == null) {
+            fieldNames = getFieldNamesFromProjectDocument(pipeline.get(pipeline.size() - 1).asDocument().getDocument("$project"));
+        }
+        return new MongoResultSet(openCursor(aggregateIterable), fieldNames, this);
+    }
+
+    /**
+     * Run find command (rendered for simple single-collection queries) through {@link MongoCollection#find},
+     * bypassing aggregation framework overhead.
+     */
+    private ResultSet executeFind(BsonDocument command, @Nullable List<String> fieldNames) throws SimulatedSQLException {
+        var collection = getQueryDatabase(command).getCollection(command.getString("find").getValue(),
+                RawBsonDocument.class);
+        var projection = command.getDocument("projection");
+        var findIterable = collection.find(clientSession, command.getDocument("filter", new BsonDocument()))
+                .projection(projection);
+        if (command.containsKey("sort")) {
+            findIterable.sort(command.getDocument("sort"));
+        }
+        if (command.containsKey("skip")) {
+            findIterable.skip(command.getNumber("skip").intValue());
+        }
+        if (command.containsKey("limit")) {
+            findIterable.limit(command.getNumber("limit").intValue());
+        }
+        if (fetchSize > 0) {
+            findIterable.batchSize(fetchSize);
+        }
+        if (queryTimeout > 0) {
+            findIterable.maxTime(queryTimeout, TimeUnit.SECONDS);
+        }
+        if (fieldNames == null) {
+            fieldNames = getFieldNamesFromProjectDocument(projection);
+        }
+        return new MongoResultSet(openCursor(findIterable), fieldNames, this);
+    }
+
+    /**
+     * Queries outside of a transaction (deferred till the first write, see {@link MongoConnection#setAutoCommit})
+     * honour the configured read concern, and the read preference of the command (rendered from entity or query
+     * hint) or else of the connection; those within one inherit the transaction's.
+     */
+    private MongoDatabase getQueryDatabase(BsonDocument command) {
+        if (clientSession.hasActiveTransaction()) {
+            return mongoDatabase;
+        }
+        var queryDatabase = mongoDatabase;
+        var readConcern = connection.getSettings().readConcern();
+        if (readConcern != null) {
+            queryDatabase = queryDatabase.withReadConcern(readConcern);
+        }
+        var readPreference = ReadPreferenceUtil.getReadPreference(command);
+        if (readPreference == null) {
+            readPreference = connection.getReadPreference();
+        }
+        if (readPreference != null) {
+            queryDatabase = queryDatabase.withReadPreference(readPreference);
+        }
+        return queryDatabase;
+    }
+
+    /**
+     * Run the query and keep track of its cursor so it could be killed by {@link #cancel()} from another thread.
+     */
+    private MongoCursor<RawBsonDocument> openCursor(MongoIterable<RawBsonDocument> iterable) throws SimulatedSQLException {
+        cancelled = false;
+        MongoCursor<RawBsonDocument> cursor;
+        try {
+            cursor = iterable.cursor();
+        } catch (MongoExecutionTimeoutException e) {
+            throw new QueryTimeoutSQLException("query timed out", e);
+        }
+        openCursor = cursor;
+        if (cancelled) {
+            cursor.close();
+            throw new QueryTimeoutSQLException("query cancelled");
+        }
+        return cursor;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Record the query being recorded (if any), whose duration spans till its result set is closed.
+     *
+     * @param rowCount number of the rows read from the result set
+     */
+    void onResultSetClosed(long rowCount) {
+        var recordedCommand = pendingQuery;
+        if (recordedCommand != null) {
+            pendingQuery = null;
+            record(RecordedExecution.Kind.QUERY, pendingQueryStartNanos, List.of(recordedCommand), rowCount, true);
+        }
+    }
+
+    /**
+     * @param command command about to be executed
+     * @return the command in the form written into the command log; a complete command without parameters
+     */
+    protected RecordedCommand toRecordedCommand(BsonDocument command) {
+        return new RecordedCommand(command.toJson(EXTENDED_JSON_SETTINGS), new BsonArray());
+    }
+
+    private void record(RecordedExecution.Kind kind, long startNanos, List<RecordedCommand> commands, long resultCount,
+            boolean succeeded) {
+        CommandRecorder recorder = connection.getRecorder();
+        if (recorder != null) {
+            recorder.record(kind, startNanos, System.nanoTime(), connection.getRecordingConnectionId(), commands,
+                    resultCount, succeeded);
+        }
     }
 
     /**
@@ -67,7 +300,7 @@ public class MongoStatement implements StatementAdapter {
      * @return ordered field name list
      * @see org.hibernate.omm.ast.MongoSelectQueryAstTranslator#visitSelectClause(SelectClause)
      */
-    private List<String> getFieldNamesFromProjectDocument(BsonDocument projectDocument) {
+    static List<String> getFieldNamesFromProjectDocument(BsonDocument projectDocument) {
         // we rely on $project field renaming to ensure order
         // but we also skip '_id' explicitly (e.g. _id: 0)
         var fieldNames = new ArrayList<String>(projectDocument.size());
@@ -86,16 +319,156 @@ public class MongoStatement implements StatementAdapter {
     public int executeUpdate(String sql) throws SimulatedSQLException {
         Assertions.notNull("sql", sql);
         throwExceptionIfClosed();
-        BsonDocument command = BsonDocument.parse(sql);
+        return executeUpdate(BsonDocument.parse(sql));
+    }
 
+    protected int executeUpdate(BsonDocument command) throws SimulatedSQLException {
+        throwExceptionIfClosed();
+        if (connection.getRecorder() == null) {
+            return executeUpdateCommand(command);
+        }
+        var recordedCommand = toRecordedCommand(command);
+        var start = System.nanoTime();
+        var succeeded = false;
+        var updateCount = -1;
+        try {
+            updateCount = executeUpdateCommand(command);
+            succeeded = true;
+            return updateCount;
+        } finally {
+            record(RecordedExecution.Kind.UPDATE, start, List.of(recordedCommand), updateCount, succeeded);
+        }
+    }
+
+    private int executeUpdateCommand(BsonDocument command) throws SimulatedSQLException {
+        if ("aggregate".equals(command.getFirstKey())) {
+            return connection.executeWrite(() -> executeInsertSelectCommand(command));
+        }
+        return connection.executeWrite(() -> executeWriteCommand(command));
+    }
+
+    /**
+     * Run aggregate command ending with {@code $merge} stage (rendered for insert-select statement). The stage runs
+     * on server only in auto-commit mode and when the documents inserted can be counted beforehand (i.e. with
+     * {@code whenMatched: "fail"}, by counting the documents the preceding stages yield), for {@code $merge} is not
+     * allowed in transaction and reports no count. Otherwise the documents are read by the preceding stages and
+     * written by {@link #insertSelectedDocuments(MongoCollection, List, BsonDocument)} within the transaction.
+     *
+     * @return the number of the documents inserted into the target collection
+     */
+    private int executeInsertSelectCommand(BsonDocument command) throws SimulatedSQLException {
+        var pipeline = command.getArray("pipeline").stream().map(BsonValue::asDocument).toList();
+        if (pipeline.isEmpty() || !pipeline.get(pipeline.size() - 1).isDocument("$merge")) {
+            throw new NotSupportedSQLException("aggregate command without trailing $merge stage not supported for update");
+        }
+        var mergeStage = pipeline.get(pipeline.size() - 1).getDocument("$merge");
+        var sourcePipeline = pipeline.subList(0, pipeline.size() - 1);
+        var sourceCollection = mongoDatabase.getCollection(command.getString("aggregate").getValue(),
+                BsonDocument.class);
+        if (connection.getAutoCommit() && "fail".equals(getWhenMatched(mergeStage))) {
+            var countPipeline = new ArrayList<>(sourcePipeline);
+            countPipeline.add(new BsonDocument("$count", new BsonString("n")));
+            var countDocument = sourceCollection.aggregate(clientSession, countPipeline).first();
+            sourceCollection.aggregate(clientSession, pipeline).toCollection();
+            return countDocument == null ? 0 : countDocument.getNumber("n").intValue();
+        }
+        return insertSelectedDocuments(sourceCollection, sourcePipeline, mergeStage);
+    }
+
+    /**
+     * Write the documents yielded by the source pipeline as the {@code $merge} stage would: inserted if
+     * {@code whenMatched: "fail"}, or upserted with {@code $setOnInsert} on the {@code on} fields if
+     * {@code whenMatched: "keepExisting"}.
+     *
+     * @return the number of the documents inserted into the target collection
+     */
+    private int insertSelectedDocuments(MongoCollection<BsonDocument> sourceCollection,
+            List<BsonDocument> sourcePipeline, BsonDocument mergeStage) throws SimulatedSQLException {
+        var whenMatched = getWhenMatched(mergeStage);
+        if (!"fail".equals(whenMatched) && !"keepExisting".equals(whenMatched)) {
+            throw new NotSupportedSQLException("$merge stage with whenMatched other than fail or keepExisting not supported");
+        }
+        var into = mergeStage.get("into");
+        var targetCollection = mongoDatabase.getCollection(
+                into.isString() ? into.asString().getValue() : into.asDocument().getString("coll").getValue(),
+                BsonDocument.class);
+        var onFields = mergeStage.getArray("on", new BsonArray(List.of(new BsonString(ID_FIELD)))).stream()
+                .map(on -> on.asString().getValue())
+                .toList();
+        var insertedCount = 0;
+        var writeModels = new ArrayList<WriteModel<BsonDocument>>();
+        try (MongoCursor<BsonDocument> cursor = sourceCollection.aggregate(clientSession, sourcePipeline).cursor()) {
+            while (cursor.hasNext()) {
+                var document = cursor.next();
+                if ("fail".equals(whenMatched)) {
+                    writeModels.add(new InsertOneModel<>(document));
+                } else {
+                    var filter = new BsonDocument();
+                    onFields.forEach(onField -> filter.put(onField, document.get(onField, BsonNull.VALUE)));
+                    writeModels.add(new UpdateOneModel<>(filter, new BsonDocument("$setOnInsert", document),
+                            new UpdateOptions().upsert(true)));
+                }
+                if (writeModels.size() == INSERT_SELECT_BATCH_SIZE || !cursor.hasNext()) {
+                    var bulkWriteResult = targetCollection.bulkWrite(clientSession, writeModels);
+                    insertedCount += bulkWriteResult.getInsertedCount() + bulkWriteResult.getUpserts().size();
+                    writeModels.clear();
+                }
+            }
+        }
+        return insertedCount;
+    }
+
+    /**
+     * Run the write command as is with {@code maxTimeMS}, which the CRUD methods of {@link MongoCollection} offer no
+     * way to pass.
+     *
+     * @return the number of the documents inserted, modified or deleted
+     * @throws QueryTimeoutSQLException if the command exceeds the query timeout
+     * @throws CommandRunFailSQLException if the command reports write error
+     */
+    private int executeTimedWriteCommand(BsonDocument command) throws SimulatedSQLException {
+        var timedCommand = command.clone();
+        if ("insert".equals(command.getFirstKey()) && !command.containsKey("ordered")) {
+            timedCommand.append("ordered", BsonBoolean.valueOf(connection.getSettings().orderedBatchWrites()));
+        }
+        timedCommand.append("maxTimeMS", new BsonInt64(TimeUnit.SECONDS.toMillis(queryTimeout)));
+        final BsonDocument response;
+        try {
+            response = mongoDatabase.runCommand(clientSession, timedCommand, BsonDocument.class);
+        } catch (MongoExecutionTimeoutException e) {
+            throw new QueryTimeoutSQLException("write command timed out", e);
+        }
+        var writeErrors = response.getArray("writeErrors", new BsonArray());
+        var writeError = writeErrors.isEmpty() ? response.getDocument("writeConcernError", null) : writeErrors.get(0).asDocument();
+        if (writeError != null) {
+            throw new CommandRunFailSQLException(writeError.getString("errmsg").getValue(),
+                    writeError.getNumber("code").intValue(),
+                    writeError.containsKey("codeName") ? writeError.getString("codeName").getValue() : null);
+        }
+        return response.getNumber("update".equals(command.getFirstKey()) ? "nModified" : "n").intValue();
+    }
+
+    private static String getWhenMatched(BsonDocument mergeStage) {
+        return mergeStage.getString("whenMatched", new BsonString("merge")).getValue();
+    }
+
+    private int executeWriteCommand(BsonDocument command) throws SimulatedSQLException {
+        if (queryTimeout > 0) {
+            return executeTimedWriteCommand(command);
+        }
         String commandName = command.getFirstKey();
         MongoCollection<BsonDocument> collection = mongoDatabase.getCollection(command.getString(commandName).getValue(),
                 BsonDocument.class);
         switch (commandName) {
             case "insert":
-                BsonDocument document = command.getArray("documents").get(0).asDocument();
-                collection.insertOne(clientSession, document);
-                return 1;
+                var documents = command.getArray("documents").stream().map(BsonValue::asDocument).toList();
+                if (documents.size() == 1) {
+                    collection.insertOne(clientSession, documents.get(0));
+                    return 1;
+                }
+                var ordered = command.getBoolean("ordered", BsonBoolean.valueOf(connection.getSettings().orderedBatchWrites()));
+                var insertManyResult = collection.insertMany(clientSession, documents, new InsertManyOptions().ordered(ordered.getValue()));
+                return insertManyResult.getInsertedIds().size();
             case "update":
                 BsonDocument updateDocument = command.getArray("updates").get(0).asDocument();
                 boolean updateOne = updateDocument.getBoolean("multi", BsonBoolean.FALSE).getValue();
@@ -127,15 +500,53 @@ public class MongoStatement implements StatementAdapter {
         throw new NotSupportedSQLException();
     }
 
+    protected boolean execute(BsonDocument command) throws SimulatedSQLException {
+        throwExceptionIfClosed();
+        throw new NotSupportedSQLException();
+    }
+
     @Override
     public void close() {
         closed = true;
     }
 
+    /**
+     * Kill the server cursor of the query being iterated (if any), so that the thread iterating the result set gets
+     * {@link QueryTimeoutSQLException}. A query still waiting for its first batch is not interrupted.
+     *
+     * @throws SimulatedSQLException if this statement has been closed
+     */
     @Override
     public void cancel() throws SimulatedSQLException {
         throwExceptionIfClosed();
-        throw new NotSupportedSQLException();
+        cancelled = true;
+        var cursor = openCursor;
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Set the time limit of the queries and write commands executed afterwards, passed to server as
+     * {@code maxTimeMS}. Exceeding it leads to {@link QueryTimeoutSQLException}. Batches sent as {@code bulkWrite}
+     * are not limited, for the driver offers no way to pass {@code maxTimeMS} along.
+     *
+     * @param seconds time limit in seconds; {@code 0} means no limit
+     * @throws SimulatedSQLException if this statement has been closed or {@code seconds} is negative
+     */
+    @Override
+    public void setQueryTimeout(int seconds) throws SimulatedSQLException {
+        throwExceptionIfClosed();
+        if (seconds < 0) {
+            throw new SimulatedSQLException("query timeout should not be negative: " + seconds);
+        }
+        queryTimeout = seconds;
+    }
+
+    @Override
+    public int getQueryTimeout() throws SimulatedSQLException {
+        throwExceptionIfClosed();
+        return queryTimeout;
     }
 
     @Override
@@ -169,34 +580,277 @@ public class MongoStatement implements StatementAdapter {
         throw new NotSupportedSQLException();
     }
 
+    /**
+     * Set the batch size of the cursors of the queries executed afterwards, so scrolling large result sets keeps
+     * bounded heap.
+     *
+     * @param rows number of documents per cursor batch; {@code 0} means the driver default
+     * @throws SimulatedSQLException if this statement has been closed or {@code rows} is negative
+     * @see org.hibernate.cfg.AvailableSettings#STATEMENT_FETCH_SIZE
+     * @see org.hibernate.omm.dialect.MongoDialect#DEFAULT_FETCH_SIZE
+     */
     @Override
     public void setFetchSize(int rows) throws SimulatedSQLException {
         throwExceptionIfClosed();
-        throw new NotSupportedSQLException();
+        if (rows < 0) {
+            throw new SimulatedSQLException("fetch size should not be negative: " + rows);
+        }
+        fetchSize = rows;
     }
 
     @Override
     public int getFetchSize() throws SimulatedSQLException {
         throwExceptionIfClosed();
-        throw new NotSupportedSQLException();
+        return fetchSize;
     }
 
     @Override
     public void addBatch(String sql) throws SimulatedSQLException {
+        Assertions.notNull("sql", sql);
         throwExceptionIfClosed();
-        throw new NotSupportedSQLException();
+        addBatch(BsonDocument.parse(sql));
+    }
+
+    protected void addBatch(BsonDocument command) throws SimulatedSQLException {
+        throwExceptionIfClosed();
+        batchCommands.add(command);
+        if (connection.getRecorder() != null) {
+            batchRecordedCommands.add(toRecordedCommand(command));
+        }
     }
 
     @Override
     public void clearBatch() throws SimulatedSQLException {
         throwExceptionIfClosed();
-        throw new NotSupportedSQLException();
+        batchCommands.clear();
+        batchRecordedCommands.clear();
     }
 
+    /**
+     * Send the batched write commands as {@code bulkWrite}s, one per run of consecutive commands targeting the same
+     * collection and carrying at most one update or delete command.
+     * <p>
+     * MongoDB only reports aggregated counts for a bulk write, so an update or delete command never shares its bulk
+     * write with another one; otherwise the update counts of the commands could not be told apart, and Hibernate
+     * could not detect the stale versioned row among them. Per-statement update counts are therefore exact:
+     * <ul>
+     *     <li>insert command: the number of documents inserted</li>
+     *     <li>update or delete command: the number of documents matched, upserted or deleted by its bulk write
+     *     ({@link java.sql.Statement#SUCCESS_NO_INFO} if the write is unacknowledged)</li>
+     * </ul>
+     * Batched inserts are still sent together, along with the update or delete command following them.
+     * <p>
+     * If some write fails, {@link BatchUpdateException} reports the update counts of the commands known to have
+     * succeeded (see {@link #toBatchUpdateException}).
+     *
+     * @return update counts in the order the commands were added
+     * @throws SimulatedSQLException if this statement has been closed or some command is not a write command
+     * @throws BatchUpdateException if some write of the bulk writes fails
+     * @see org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_BATCH_ORDERED
+     */
     @Override
-    public int[] executeBatch() throws SimulatedSQLException {
+    public int[] executeBatch() throws SQLException {
         throwExceptionIfClosed();
-        throw new NotSupportedSQLException();
+        try {
+            if (batchCommands.isEmpty()) {
+                return new int[0];
+            }
+            if (batchRecordedCommands.isEmpty()) {
+                return executeBatchCommands();
+            }
+            var start = System.nanoTime();
+            var succeeded = false;
+            var updateCount = -1L;
+            try {
+                var updateCounts = executeBatchCommands();
+                updateCount = Arrays.stream(updateCounts).filter(count -> count > 0).asLongStream().sum();
+                succeeded = true;
+                return updateCounts;
+            } finally {
+                record(RecordedExecution.Kind.BATCH, start, List.copyOf(batchRecordedCommands), updateCount, succeeded);
+            }
+        } finally {
+            batchCommands.clear();
+            batchRecordedCommands.clear();
+        }
+    }
+
+    private int[] executeBatchCommands() throws SQLException {
+        var updateCounts = new int[batchCommands.size()];
+        var bulkWriteStart = new AtomicInteger();
+        var bulkWriteEnd = new AtomicInteger();
+        try {
+            return connection.executeWrite(() -> {
+                int start = 0;
+                while (start < batchCommands.size()) {
+                    var collectionName = getCollectionName(batchCommands.get(start));
+                    var updateOrDeleteIncluded = !isInsertCommand(batchCommands.get(start));
+                    int end = start + 1;
+                    while (end < batchCommands.size()) {
+                        var command = batchCommands.get(end);
+                        if (!collectionName.equals(getCollectionName(command))) {
+                            break;
+                        }
+                        if (!isInsertCommand(command)) {
+                            if (updateOrDeleteIncluded) {
+                                break;
+                            }
+                            updateOrDeleteIncluded = true;
+                        }
+                        end++;
+                    }
+                    bulkWriteStart.set(start);
+                    bulkWriteEnd.set(end);
+                    executeBulkWrite(collectionName, batchCommands.subList(start, end), updateCounts, start);
+                    start = end;
+                }
+                return updateCounts;
+            });
+        } catch (MongoBulkWriteException e) {
+            throw toBatchUpdateException(e, updateCounts, bulkWriteStart.get(), bulkWriteEnd.get());
+        }
+    }
+
+    /**
+     * Report the failure of a bulk write with the update counts of the preceding bulk writes and those of the failed
+     * one figured out from its partial result as follows:
+     * <ul>
+     *     <li>ordered bulk write: MongoDB stops at the first write error, so the update counts end before the command
+     *     of the failed write</li>
+     *     <li>unordered bulk write: every command gets an update count, {@link java.sql.Statement#EXECUTE_FAILED}
+     *     for the commands of the failed writes and for those of the subsequent bulk writes (never sent)</li>
+     * </ul>
+     * Duplicate key error is reported with SQL state {@value #INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE}, so that
+     * Hibernate translates it into {@link org.hibernate.exception.ConstraintViolationException}.
+     *
+     * @param e failure of the bulk write
+     * @param updateCounts update counts of the preceding bulk writes
+     * @param start index of the first command of the failed bulk write
+     * @param end index after the last command of the failed bulk write
+     * @return exception to throw
+     */
+    private BatchUpdateException toBatchUpdateException(MongoBulkWriteException e, int[] updateCounts, int start,
+            int end) {
+        // index of the command each write of the bulk write comes from
+        var writeCommandIndexes = new ArrayList<Integer>();
+        for (int i = start; i < end; i++) {
+            var command = batchCommands.get(i);
+            var writeCount = switch (command.getFirstKey()) {
+                case "insert" -> command.getArray("documents").size();
+                case "update" -> command.getArray("updates").size();
+                default -> command.getArray("deletes").size();
+            };
+            for (int j = 0; j < writeCount; j++) {
+                writeCommandIndexes.add(i);
+            }
+        }
+
+        final int[] batchUpdateCounts;
+        if (connection.getSettings().orderedBatchWrites()) {
+            var executedEnd = e.getWriteErrors().isEmpty() ?
+                    end :
+                    writeCommandIndexes.get(e.getWriteErrors().get(0).getIndex());
+            batchUpdateCounts = Arrays.copyOf(updateCounts, executedEnd);
+            for (int i = start; i < executedEnd; i++) {
+                batchUpdateCounts[i] = getUpdateCount(batchCommands.get(i), e.getWriteResult());
+            }
+        } else {
+            var failed = new boolean[updateCounts.length];
+            for (var writeError : e.getWriteErrors()) {
+                failed[writeCommandIndexes.get(writeError.getIndex())] = true;
+            }
+            batchUpdateCounts = Arrays.copyOf(updateCounts, updateCounts.length);
+            for (int i = start; i < batchUpdateCounts.length; i++) {
+                batchUpdateCounts[i] = failed[i] || i >= end ?
+                        EXECUTE_FAILED :
+                        getUpdateCount(batchCommands.get(i), e.getWriteResult());
+            }
+        }
+
+        int vendorCode;
+        if (!e.getWriteErrors().isEmpty()) {
+            vendorCode = e.getWriteErrors().get(0).getCode();
+        } else {
+            var writeConcernError = e.getWriteConcernError();
+            vendorCode = writeConcernError == null ? e.getCode() : writeConcernError.getCode();
+        }
+        var sqlState = ErrorCategory.fromErrorCode(vendorCode) == ErrorCategory.DUPLICATE_KEY ?
+                INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE :
+                null;
+        return new BatchUpdateException(e.getMessage(), sqlState, vendorCode, batchUpdateCounts, e);
+    }
+
+    /**
+     * @param command succeeded command of the bulk write, which carries no other update or delete command
+     * @param bulkWriteResult result of the bulk write
+     * @return update count of the command
+     */
+    private static int getUpdateCount(BsonDocument command, BulkWriteResult bulkWriteResult) {
+        if (isInsertCommand(command)) {
+            return command.getArray("documents").size();
+        }
+        if (!bulkWriteResult.wasAcknowledged()) {
+            return SUCCESS_NO_INFO;
+        }
+        return bulkWriteResult.getMatchedCount() + bulkWriteResult.getDeletedCount()
+                + bulkWriteResult.getUpserts().size();
+    }
+
+    private static boolean isInsertCommand(BsonDocument command) {
+        return "insert".equals(command.getFirstKey());
+    }
+
+    private void executeBulkWrite(String collectionName, List<BsonDocument> commands, int[] updateCounts, int offset)
+            throws SimulatedSQLException {
+        var writeModels = new ArrayList<WriteModel<BsonDocument>>(commands.size());
+        for (BsonDocument command : commands) {
+            var commandName = command.getFirstKey();
+            switch (commandName) {
+                case "insert":
+                    for (BsonValue document : command.getArray("documents")) {
+                        writeModels.add(new InsertOneModel<>(document.asDocument()));
+                    }
+                    break;
+                case "update":
+                    for (BsonValue update : command.getArray("updates")) {
+                        var updateDocument = update.asDocument();
+                        var filter = updateDocument.getDocument("q");
+                        var multi = updateDocument.getBoolean("multi", BsonBoolean.FALSE).getValue();
+                        if (multi) {
+                            writeModels.add(new UpdateManyModel<>(filter, updateDocument.getDocument("u")));
+                        } else {
+                            writeModels.add(new UpdateOneModel<>(filter, updateDocument.getDocument("u")));
+                        }
+                    }
+                    break;
+                case "delete":
+                    for (BsonValue delete : command.getArray("deletes")) {
+                        var deleteDocument = delete.asDocument();
+                        var filter = deleteDocument.getDocument("q");
+                        var deleteOne = deleteDocument.getNumber("limit", new BsonInt32(1)).intValue() == 1;
+                        if (deleteOne) {
+                            writeModels.add(new DeleteOneModel<>(filter));
+                        } else {
+                            writeModels.add(new DeleteManyModel<>(filter));
+                        }
+                    }
+                    break;
+                default:
+                    throw new NotSupportedSQLException("unknown write command in batch: " + commandName);
+            }
+        }
+
+        var collection = mongoDatabase.getCollection(collectionName, BsonDocument.class);
+        var bulkWriteOptions = new BulkWriteOptions().ordered(connection.getSettings().orderedBatchWrites());
+        var bulkWriteResult = collection.bulkWrite(clientSession, writeModels, bulkWriteOptions);
+
+        for (int i = 0; i < commands.size(); i++) {
+            updateCounts[offset + i] = getUpdateCount(commands.get(i), bulkWriteResult);
+        }
+    }
+
+    private static String getCollectionName(BsonDocument command) {
+        return command.getString(command.getFirstKey()).getValue();
     }
 
     @Override
@@ -215,7 +869,7 @@ public class MongoStatement implements StatementAdapter {
         return closed;
     }
 
-    private void throwExceptionIfClosed() throws StatementClosedSQLException {
+    protected void throwExceptionIfClosed() throws StatementClosedSQLException {
         if (closed) {
             throw new StatementClosedSQLException();
         }
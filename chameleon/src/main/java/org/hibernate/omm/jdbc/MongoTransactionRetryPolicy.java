@@ -0,0 +1,124 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.MongoException;
+import com.mongodb.assertions.Assertions;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry policy of the transient transaction errors labelled by MongoDB, shared among all the connections of one
+ * {@link MongoConnectionProvider}:
+ * <ul>
+ *     <li>{@value MongoException#UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL}: the commit is retried, which is
+ *     idempotent</li>
+ *     <li>{@value MongoException#TRANSIENT_TRANSACTION_ERROR_LABEL}: the transaction is restarted and the write
+ *     re-run, provided the failed write is the one starting the transaction (so nothing else is lost)</li>
+ * </ul>
+ * Retries are delayed by exponential backoff with full jitter. Retry and give-up counters are exposed for
+ * monitoring.
+ *
+ * @author Nathan Xu
+ * @see MongoAvailableSettings#MONGODB_TRANSACTION_RETRY_MAX_ATTEMPTS
+ * @since 1.0.0
+ */
+public class MongoTransactionRetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final int DEFAULT_INITIAL_BACKOFF_MILLIS = 10;
+    public static final int DEFAULT_MAX_BACKOFF_MILLIS = 1000;
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder giveUpCount = new LongAdder();
+
+    /**
+     * @param maxAttempts maximum attempts including the first one; {@code 1} disables retrying
+     * @param initialBackoffMillis upper bound of the delay before the first retry
+     * @param maxBackoffMillis upper bound of the delay before any retry
+     */
+    public MongoTransactionRetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        Assertions.isTrueArgument("maxAttempts should be positive", maxAttempts > 0);
+        Assertions.isTrueArgument("initialBackoffMillis should not be negative", initialBackoffMillis >= 0);
+        Assertions.isTrueArgument("maxBackoffMillis should not be less than initialBackoffMillis",
+                maxBackoffMillis >= initialBackoffMillis);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static MongoTransactionRetryPolicy from(Map<String, Object> configurationValues) {
+        return new MongoTransactionRetryPolicy(
+                ConfigurationHelper.getInt(
+                        MongoAvailableSettings.MONGODB_TRANSACTION_RETRY_MAX_ATTEMPTS,
+                        configurationValues,
+                        DEFAULT_MAX_ATTEMPTS
+                ),
+                ConfigurationHelper.getInt(
+                        MongoAvailableSettings.MONGODB_TRANSACTION_RETRY_INITIAL_BACKOFF,
+                        configurationValues,
+                        DEFAULT_INITIAL_BACKOFF_MILLIS
+                ),
+                ConfigurationHelper.getInt(
+                        MongoAvailableSettings.MONGODB_TRANSACTION_RETRY_MAX_BACKOFF,
+                        configurationValues,
+                        DEFAULT_MAX_BACKOFF_MILLIS
+                )
+        );
+    }
+
+    /**
+     * Decide whether the failed attempt should be retried, sleeping for the backoff delay if so; otherwise the
+     * give-up is counted.
+     *
+     * @param attempt the failed attempt, starting from {@code 1}
+     * @param exception the failure
+     * @param errorLabel the error label making the failure retryable
+     * @return whether to retry
+     * @throws SimulatedSQLException if interrupted while backing off
+     */
+    boolean retry(int attempt, MongoException exception, String errorLabel) throws SimulatedSQLException {
+        if (!exception.hasErrorLabel(errorLabel)) {
+            return false;
+        }
+        if (attempt >= maxAttempts) {
+            giveUpCount.increment();
+            return false;
+        }
+        retryCount.increment();
+        var backoffMillis = getBackoffMillis(attempt);
+        if (backoffMillis > 0) {
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SimulatedSQLException("interrupted while backing off transaction retry", e);
+            }
+        }
+        return true;
+    }
+
+    long getBackoffMillis(int attempt) {
+        var bound = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    public long getGiveUpCount() {
+        return giveUpCount.sum();
+    }
+}
@@ -0,0 +1,70 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.assertions.Assertions;
+import com.mongodb.client.MongoClient;
+import com.mongodb.lang.Nullable;
+import org.hibernate.omm.metrics.MongoMetricsCommandListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * JVM-wide registry of reference-counted {@link MongoClient}s keyed by connection string, so the
+ * {@link MongoConnectionProvider}s of several {@code SessionFactory}s pointing to the same cluster share one
+ * connection pool. A client is closed when the last provider acquiring it releases it.
+ *
+ * @author Nathan Xu
+ * @see org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_CLIENT_SHARED
+ * @since 1.0.0
+ */
+final class SharedMongoClients {
+
+    /**
+     * A client together with the tracker registered as its cluster listener and the metrics listener registered as
+     * its command listener ({@code null} if the client doesn't support command listeners), which dispatches to the
+     * metrics of every provider sharing the client.
+     */
+    record TrackedMongoClient(MongoClient mongoClient, MongoServerInfoTracker serverInfoTracker,
+            @Nullable MongoMetricsCommandListener metricsCommandListener) {
+    }
+
+    private static final class Entry {
+        private final TrackedMongoClient client;
+        private int referenceCount;
+
+        private Entry(TrackedMongoClient client) {
+            this.client = client;
+        }
+    }
+
+    private static final Map<String, Entry> ENTRIES = new HashMap<>();
+
+    private SharedMongoClients() {
+    }
+
+    /**
+     * @param connectionString connection string identifying the client
+     * @param clientFactory creates the client if none is shared for the connection string yet
+     * @return the shared client, whose reference count is incremented
+     */
+    static synchronized TrackedMongoClient acquire(String connectionString, Supplier<TrackedMongoClient> clientFactory) {
+        var entry = ENTRIES.computeIfAbsent(connectionString, ignored -> new Entry(clientFactory.get()));
+        entry.referenceCount++;
+        return entry.client;
+    }
+
+    /**
+     * Decrement the reference count of the shared client, closing it if no longer referenced.
+     *
+     * @param connectionString connection string identifying the client
+     */
+    static synchronized void release(String connectionString) {
+        var entry = ENTRIES.get(connectionString);
+        Assertions.assertNotNull(entry);
+        if (--entry.referenceCount == 0) {
+            ENTRIES.remove(connectionString);
+            entry.client.mongoClient().close();
+        }
+    }
+}
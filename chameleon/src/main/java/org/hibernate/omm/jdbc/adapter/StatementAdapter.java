@@ -6,6 +6,7 @@ import org.hibernate.omm.jdbc.exception.SimulatedSQLException;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 
@@ -146,7 +147,7 @@ public interface StatementAdapter extends Statement {
     }
 
     @Override
-    default int[] executeBatch() throws SimulatedSQLException {
+    default int[] executeBatch() throws SQLException {
         throw new NotSupportedSQLException();
     }
 
@@ -1,5 +1,6 @@
 package org.hibernate.omm.jdbc.exception;
 
+import com.mongodb.lang.Nullable;
 import org.bson.Document;
 
 /**
@@ -9,19 +10,23 @@ import org.bson.Document;
 public class CommandRunFailSQLException extends SimulatedSQLException {
 
     private final int code;
-    private final String codeName;
+    private final @Nullable String codeName;
 
     public CommandRunFailSQLException(Document response) {
-        super(response.getString("errmsg"));
-        this.code = response.getInteger("code");
-        this.codeName = response.getString("codeName");
+        this(response.getString("errmsg"), response.getInteger("code"), response.getString("codeName"));
+    }
+
+    public CommandRunFailSQLException(String reason, int code, @Nullable String codeName) {
+        super(reason);
+        this.code = code;
+        this.codeName = codeName;
     }
 
     public int getCode() {
         return code;
     }
 
-    public String getCodeName() {
+    public @Nullable String getCodeName() {
         return codeName;
     }
 }
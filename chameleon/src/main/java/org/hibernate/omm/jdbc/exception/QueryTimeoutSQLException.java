@@ -0,0 +1,27 @@
+package org.hibernate.omm.jdbc.exception;
+
+import com.mongodb.lang.Nullable;
+
+/**
+ * Thrown when a query exceeds its timeout ({@code maxTimeMS}) or is cancelled, translated into
+ * {@link org.hibernate.QueryTimeoutException} by the dialect.
+ *
+ * @author Nathan Xu
+ * @see org.hibernate.omm.dialect.MongoDialect#buildSQLExceptionConversionDelegate()
+ * @since 1.0.0
+ */
+public class QueryTimeoutSQLException extends SimulatedSQLException {
+
+    /**
+     * SQL state of "timeout expired".
+     */
+    public static final String SQL_STATE = "HYT00";
+
+    public QueryTimeoutSQLException(String reason) {
+        super(reason, SQL_STATE, null);
+    }
+
+    public QueryTimeoutSQLException(String reason, @Nullable Throwable cause) {
+        super(reason, SQL_STATE, cause);
+    }
+}
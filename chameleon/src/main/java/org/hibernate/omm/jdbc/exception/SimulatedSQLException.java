@@ -20,4 +20,8 @@ public class SimulatedSQLException extends SQLException {
     public SimulatedSQLException(@Nullable String reason, Throwable cause) {
         super(reason, cause);
     }
+
+    public SimulatedSQLException(@Nullable String reason, @Nullable String sqlState, @Nullable Throwable cause) {
+        super(reason, sqlState, cause);
+    }
 }
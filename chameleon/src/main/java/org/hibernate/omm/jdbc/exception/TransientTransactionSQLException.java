@@ -0,0 +1,25 @@
+package org.hibernate.omm.jdbc.exception;
+
+import com.mongodb.lang.Nullable;
+
+/**
+ * Thrown when a transaction fails with a transient error (e.g. write conflict or replica set election) that could not
+ * be retried by the connection, so the whole unit of work could be retried by the application. Translated into
+ * {@link org.hibernate.exception.LockAcquisitionException} by the dialect.
+ *
+ * @author Nathan Xu
+ * @see org.hibernate.omm.jdbc.MongoTransactionRetryPolicy
+ * @see org.hibernate.omm.dialect.MongoDialect#buildSQLExceptionConversionDelegate()
+ * @since 1.0.0
+ */
+public class TransientTransactionSQLException extends SimulatedSQLException {
+
+    /**
+     * SQL state of "serialization failure".
+     */
+    public static final String SQL_STATE = "40001";
+
+    public TransientTransactionSQLException(String reason, @Nullable Throwable cause) {
+        super(reason, SQL_STATE, cause);
+    }
+}
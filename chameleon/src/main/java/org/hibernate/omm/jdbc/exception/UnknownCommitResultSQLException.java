@@ -0,0 +1,24 @@
+package org.hibernate.omm.jdbc.exception;
+
+import com.mongodb.lang.Nullable;
+
+/**
+ * Thrown when the outcome of a transaction commit remains unknown after the commit retries of the connection, i.e.
+ * the transaction may or may not have been committed. Unlike {@link TransientTransactionSQLException}, the unit of
+ * work should not be blindly retried by the application, for it may have already taken effect.
+ *
+ * @author Nathan Xu
+ * @see org.hibernate.omm.jdbc.MongoTransactionRetryPolicy
+ * @since 1.0.0
+ */
+public class UnknownCommitResultSQLException extends SimulatedSQLException {
+
+    /**
+     * SQL state of "transaction resolution unknown".
+     */
+    public static final String SQL_STATE = "08007";
+
+    public UnknownCommitResultSQLException(String reason, @Nullable Throwable cause) {
+        super(reason, SQL_STATE, cause);
+    }
+}
@@ -0,0 +1,124 @@
+package org.hibernate.omm.metrics;
+
+import com.mongodb.assertions.Assertions;
+import com.mongodb.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process {@link MongoMetrics} keeping a {@link LatencyHistogram} per phase and per command type and collection,
+ * readable programmatically or over JMX (see {@link MongoMetricsMXBean}).
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public class DefaultMongoMetrics implements MongoMetrics, MongoMetricsMXBean {
+
+    private final Map<MongoMetricsPhase, LatencyHistogram> phaseHistograms = new EnumMap<>(MongoMetricsPhase.class);
+    private final ConcurrentMap<String, LatencyHistogram> commandHistograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> failedCommandCounts = new ConcurrentHashMap<>();
+
+    private final LongAdder documentsReturned = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    public DefaultMongoMetrics() {
+        for (MongoMetricsPhase phase : MongoMetricsPhase.values()) {
+            phaseHistograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void recordPhase(MongoMetricsPhase phase, long elapsedNanos) {
+        phaseHistograms.get(phase).record(elapsedNanos);
+    }
+
+    @Override
+    public void recordCommand(String commandName, @Nullable String collectionName, long elapsedNanos,
+            boolean succeeded) {
+        var key = collectionName == null ? commandName : commandName + ':' + collectionName;
+        commandHistograms.computeIfAbsent(key, ignored -> new LatencyHistogram()).record(elapsedNanos);
+        if (!succeeded) {
+            failedCommandCounts.computeIfAbsent(key, ignored -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void recordDocumentsReturned(long count) {
+        documentsReturned.add(count);
+    }
+
+    @Override
+    public void recordBytes(long sent, long received) {
+        bytesSent.add(sent);
+        bytesReceived.add(received);
+    }
+
+    public LatencyHistogram getPhaseHistogram(MongoMetricsPhase phase) {
+        Assertions.notNull("phase", phase);
+        return phaseHistograms.get(phase);
+    }
+
+    /**
+     * @param commandName command name, e.g. {@code find}
+     * @param collectionName target collection; {@code null} for database or admin commands
+     * @return the histogram of the command's server round trip latencies; {@code null} if none recorded
+     */
+    public @Nullable LatencyHistogram getCommandHistogram(String commandName, @Nullable String collectionName) {
+        Assertions.notNull("commandName", commandName);
+        return commandHistograms.get(collectionName == null ? commandName : commandName + ':' + collectionName);
+    }
+
+    @Override
+    public List<LatencySnapshot> getPhaseLatencies() {
+        var snapshots = new ArrayList<LatencySnapshot>(phaseHistograms.size());
+        phaseHistograms.forEach((phase, histogram) -> snapshots.add(histogram.snapshot(phase.name())));
+        return snapshots;
+    }
+
+    @Override
+    public List<LatencySnapshot> getCommandLatencies() {
+        var snapshots = new ArrayList<LatencySnapshot>(commandHistograms.size());
+        new TreeMap<>(commandHistograms).forEach((key, histogram) -> snapshots.add(histogram.snapshot(key)));
+        return snapshots;
+    }
+
+    @Override
+    public Map<String, Long> getFailedCommandCounts() {
+        var counts = new TreeMap<String, Long>();
+        failedCommandCounts.forEach((key, count) -> counts.put(key, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getDocumentsReturned() {
+        return documentsReturned.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public void reset() {
+        phaseHistograms.values().forEach(LatencyHistogram::reset);
+        commandHistograms.clear();
+        failedCommandCounts.clear();
+        documentsReturned.reset();
+        bytesSent.reset();
+        bytesReceived.reset();
+    }
+}
@@ -0,0 +1,126 @@
+package org.hibernate.omm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values (e.g. nanoseconds) in the spirit of HdrHistogram: values are counted in
+ * log-linear buckets, i.e. each power of two range is split into {@value #SUB_BUCKET_COUNT} linear sub-buckets, so
+ * percentiles are reported within about 3% relative error over the whole {@code long} range with fixed memory.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - 1 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * @param value value to record; negative value is recorded as {@code 0}
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(getBucketIndex(value));
+        totalCount.increment();
+        totalValue.add(value);
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the value in the middle of the bucket's range
+     */
+    static long getBucketValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        var shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        var lowest = (long) (SUB_BUCKET_COUNT | (bucketIndex % SUB_BUCKET_COUNT)) << shift;
+        return lowest + ((1L << shift) >>> 1);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        var count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * @param percentile percentile in range {@code [0, 100]}
+     * @return the approximate value at the percentile; {@code 0} if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        var snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        var target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulated += snapshot[i];
+            if (accumulated >= target) {
+                return Math.min(getBucketValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @param name name of the snapshot
+     * @return point-in-time summary of this histogram
+     */
+    public LatencySnapshot snapshot(String name) {
+        return new LatencySnapshot(
+                name,
+                getCount(),
+                getMean(),
+                getValueAtPercentile(50),
+                getValueAtPercentile(90),
+                getValueAtPercentile(99),
+                getValueAtPercentile(99.9),
+                getMax()
+        );
+    }
+
+    /**
+     * Clear the recorded values; values recorded concurrently might be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalValue.reset();
+        maxValue.set(0);
+    }
+}
@@ -0,0 +1,80 @@
+package org.hibernate.omm.metrics;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Point-in-time summary of a {@link LatencyHistogram}, with values in nanoseconds. Plain getters (rather than a
+ * record) so it maps to JMX {@code CompositeData}.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class LatencySnapshot {
+
+    private final String name;
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    @ConstructorParameters({"name", "count", "mean", "p50", "p90", "p99", "p999", "max"})
+    public LatencySnapshot(String name, long count, double mean, long p50, long p90, long p99, long p999, long max) {
+        this.name = name;
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{" +
+                "name='" + name + '\'' +
+                ", count=" + count +
+                ", mean=" + mean +
+                ", p50=" + p50 +
+                ", p90=" + p90 +
+                ", p99=" + p99 +
+                ", p999=" + p999 +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package org.hibernate.omm.metrics;
+
+import com.mongodb.lang.Nullable;
+
+/**
+ * Metrics SPI of the JDBC layer, configured by {@link org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_METRICS}.
+ * <p>
+ * Implementations are called on the execution path by many threads concurrently, so they should be thread-safe and
+ * cheap. {@link DefaultMongoMetrics} is the built-in implementation.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public interface MongoMetrics {
+
+    /**
+     * Records nothing; timing is skipped altogether.
+     */
+    MongoMetrics NOOP = new MongoMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordPhase(MongoMetricsPhase phase, long elapsedNanos) {
+        }
+
+        @Override
+        public void recordCommand(String commandName, @Nullable String collectionName, long elapsedNanos,
+                boolean succeeded) {
+        }
+
+        @Override
+        public void recordDocumentsReturned(long count) {
+        }
+
+        @Override
+        public void recordBytes(long sent, long received) {
+        }
+    };
+
+    /**
+     * @return whether anything is recorded; if not, callers skip timing
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @param phase client side phase
+     * @param elapsedNanos time spent in nanoseconds
+     */
+    void recordPhase(MongoMetricsPhase phase, long elapsedNanos);
+
+    /**
+     * Record a command sent to the server, as observed by the driver (including {@code getMore}s and the commands of
+     * the driver itself).
+     *
+     * @param commandName command name, e.g. {@code find}
+     * @param collectionName target collection; {@code null} for database or admin commands
+     * @param elapsedNanos round trip time in nanoseconds
+     * @param succeeded whether the command succeeded
+     */
+    void recordCommand(String commandName, @Nullable String collectionName, long elapsedNanos, boolean succeeded);
+
+    /**
+     * @param count number of documents returned to Hibernate by a result set
+     */
+    void recordDocumentsReturned(long count);
+
+    /**
+     * @param sent BSON size of the command sent
+     * @param received BSON size of the reply received
+     */
+    void recordBytes(long sent, long received);
+}
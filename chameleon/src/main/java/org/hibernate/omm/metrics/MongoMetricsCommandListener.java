@@ -0,0 +1,130 @@
+package org.hibernate.omm.metrics;
+
+import com.mongodb.assertions.Assertions;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver {@link CommandListener} feeding {@link MongoMetrics} with the server round trip latency, target collection
+ * and BSON sizes of every command.
+ * <p>
+ * A client may be shared by several providers (see
+ * {@link org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_CLIENT_SHARED}), so the listener is registered once on
+ * the client and every command is dispatched to all the metrics {@linkplain #register registered} at the time; the
+ * commands of one provider are thus also counted by the others sharing its client.
+ * <p>
+ * The driver doesn't expose wire sizes, so the command and reply are re-encoded to measure them unless they are
+ * already raw BSON; that cost is only paid while some metrics are registered.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public class MongoMetricsCommandListener implements CommandListener {
+
+    private static final BsonDocumentCodec BSON_DOCUMENT_CODEC = new BsonDocumentCodec();
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+
+    private final Map<MongoMetrics, Integer> registrations = new IdentityHashMap<>();
+    private volatile List<MongoMetrics> metricsList = List.of();
+
+    private final ConcurrentMap<Integer, StartedCommand> startedCommands = new ConcurrentHashMap<>();
+
+    private record StartedCommand(@Nullable String collectionName, long size) {
+    }
+
+    /**
+     * Start dispatching commands to the metrics; registering the same instance again only increments its
+     * registration count, so that commands are not recorded twice.
+     *
+     * @param metrics enabled metrics
+     */
+    public synchronized void register(MongoMetrics metrics) {
+        Assertions.notNull("metrics", metrics);
+        if (registrations.merge(metrics, 1, Integer::sum) == 1) {
+            metricsList = List.copyOf(registrations.keySet());
+        }
+    }
+
+    /**
+     * Stop dispatching commands to the metrics once it has been unregistered as many times as registered.
+     *
+     * @param metrics metrics previously registered
+     */
+    public synchronized void unregister(MongoMetrics metrics) {
+        Assertions.notNull("metrics", metrics);
+        if (registrations.computeIfPresent(metrics, (ignored, count) -> count == 1 ? null : count - 1) == null) {
+            metricsList = List.copyOf(registrations.keySet());
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (metricsList.isEmpty()) {
+            return;
+        }
+        var command = event.getCommand();
+        var collectionName = getCollectionName(event.getCommandName(), command);
+        startedCommands.put(event.getRequestId(), new StartedCommand(collectionName, getSize(command)));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        var startedCommand = startedCommands.remove(event.getRequestId());
+        var currentMetricsList = metricsList;
+        if (currentMetricsList.isEmpty()) {
+            return;
+        }
+        var collectionName = startedCommand == null ? null : startedCommand.collectionName();
+        var elapsedNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        var sent = startedCommand == null ? 0 : startedCommand.size();
+        var received = getSize(event.getResponse());
+        for (var metrics : currentMetricsList) {
+            metrics.recordCommand(event.getCommandName(), collectionName, elapsedNanos, true);
+            metrics.recordBytes(sent, received);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        var startedCommand = startedCommands.remove(event.getRequestId());
+        var collectionName = startedCommand == null ? null : startedCommand.collectionName();
+        var elapsedNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        var sent = startedCommand == null ? 0 : startedCommand.size();
+        for (var metrics : metricsList) {
+            metrics.recordCommand(event.getCommandName(), collectionName, elapsedNanos, false);
+            metrics.recordBytes(sent, 0);
+        }
+    }
+
+    @Nullable
+    private static String getCollectionName(String commandName, BsonDocument command) {
+        var value = command.get("getMore".equals(commandName) ? "collection" : commandName);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    private static long getSize(BsonDocument document) {
+        if (document instanceof RawBsonDocument rawBsonDocument) {
+            return rawBsonDocument.getByteBuffer().remaining();
+        }
+        try (var buffer = new BasicOutputBuffer(); var writer = new BsonBinaryWriter(buffer)) {
+            BSON_DOCUMENT_CODEC.encode(writer, document, ENCODER_CONTEXT);
+            return buffer.getPosition();
+        }
+    }
+}
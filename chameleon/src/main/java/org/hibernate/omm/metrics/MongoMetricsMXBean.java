@@ -0,0 +1,38 @@
+package org.hibernate.omm.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of {@link DefaultMongoMetrics}, registered if
+ * {@link org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_METRICS_JMX_ENABLED} is enabled. Latencies are in
+ * nanoseconds.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public interface MongoMetricsMXBean {
+
+    /**
+     * @return client side phase latencies, named after {@link MongoMetricsPhase}
+     */
+    List<LatencySnapshot> getPhaseLatencies();
+
+    /**
+     * @return server round trip latencies per command, named {@code <command>} or {@code <command>:<collection>}
+     */
+    List<LatencySnapshot> getCommandLatencies();
+
+    /**
+     * @return failed command counts, keyed like {@link #getCommandLatencies()}
+     */
+    Map<String, Long> getFailedCommandCounts();
+
+    long getDocumentsReturned();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    void reset();
+}
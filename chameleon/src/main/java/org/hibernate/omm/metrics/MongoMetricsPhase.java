@@ -0,0 +1,28 @@
+package org.hibernate.omm.metrics;
+
+/**
+ * Client side phases of running a command, timed by {@link MongoMetrics#recordPhase}. The time spent waiting on the
+ * server is recorded per command by {@link MongoMetrics#recordCommand} instead.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public enum MongoMetricsPhase {
+    /**
+     * Translating Hibernate's SQL AST into command JSON.
+     */
+    TRANSLATE,
+    /**
+     * Parsing command JSON into command template (on template cache miss).
+     */
+    PARSE,
+    /**
+     * Binding JDBC parameters into command template.
+     */
+    BIND,
+    /**
+     * Decoding the columns of the returned rows in the result set getters (positioning at the column and reading its
+     * value), per result set.
+     */
+    DECODE
+}
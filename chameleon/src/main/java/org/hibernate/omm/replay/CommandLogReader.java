@@ -0,0 +1,131 @@
+package org.hibernate.omm.replay;
+
+import com.mongodb.assertions.Assertions;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads back the executions of a log written by {@link CommandRecorder}; a truncated trailing record (e.g. the
+ * recording process crashed) is ignored.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class CommandLogReader implements Closeable {
+
+    private final DataInputStream inputStream;
+    private final Map<Integer, String> shapes = new HashMap<>();
+
+    private CommandLogReader(DataInputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * @param path log file
+     * @return reader positioned at the first record
+     * @throws IOException if the file can't be read or is not a command log
+     */
+    public static CommandLogReader open(Path path) throws IOException {
+        Assertions.notNull("path", path);
+        var inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        try {
+            var magic = new byte[CommandRecorder.MAGIC.length];
+            inputStream.readFully(magic);
+            if (!Arrays.equals(magic, CommandRecorder.MAGIC)) {
+                throw new IOException("not a command log of supported version: " + path);
+            }
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+        return new CommandLogReader(inputStream);
+    }
+
+    /**
+     * @param path log file
+     * @return all the executions of the log in recorded order
+     * @throws IOException if the file can't be read or is not a command log
+     */
+    public static List<RecordedExecution> readAll(Path path) throws IOException {
+        try (var reader = open(path)) {
+            var executions = new ArrayList<RecordedExecution>();
+            RecordedExecution execution;
+            while ((execution = reader.next()) != null) {
+                executions.add(execution);
+            }
+            return executions;
+        }
+    }
+
+    /**
+     * @return the next execution; {@code null} if the end of the log is reached
+     * @throws IOException if the log can't be read or is corrupted
+     */
+    @Nullable
+    public RecordedExecution next() throws IOException {
+        BsonDocument document;
+        while ((document = readDocument()) != null) {
+            if (document.containsKey("j")) {
+                shapes.put(document.getInt32("s").getValue(), document.getString("j").getValue());
+                continue;
+            }
+            var commands = new ArrayList<RecordedCommand>();
+            for (BsonValue command : document.getArray("x")) {
+                var shapeId = command.asDocument().getInt32("s").getValue();
+                var shape = shapes.get(shapeId);
+                if (shape == null) {
+                    throw new IOException("undefined command shape: " + shapeId);
+                }
+                commands.add(new RecordedCommand(shape, command.asDocument().getArray("p")));
+            }
+            return new RecordedExecution(
+                    RecordedExecution.Kind.valueOf(document.getString("k").getValue()),
+                    document.getInt64("t").getValue(),
+                    document.getInt64("d").getValue(),
+                    document.getInt32("c").getValue(),
+                    commands,
+                    document.getInt64("n").getValue(),
+                    document.getBoolean("ok").getValue()
+            );
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    @Nullable
+    private BsonDocument readDocument() throws IOException {
+        var lengthBytes = new byte[4];
+        try {
+            inputStream.readFully(lengthBytes);
+            var length = (lengthBytes[0] & 0xff) | (lengthBytes[1] & 0xff) << 8 | (lengthBytes[2] & 0xff) << 16
+                    | (lengthBytes[3] & 0xff) << 24;
+            if (length < 5) {
+                throw new IOException("corrupted command log: invalid document length " + length);
+            }
+            var bytes = Arrays.copyOf(lengthBytes, length);
+            inputStream.readFully(bytes, 4, length - 4);
+            return new RawBsonDocument(bytes);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.hibernate.omm.replay;
+
+import com.mongodb.assertions.Assertions;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the executions of the JDBC layer into a compact binary log, enabled by
+ * {@link org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_RECORDING_FILE} and read back by
+ * {@link CommandLogReader}.
+ * <p>
+ * The log starts with {@link #MAGIC}, followed by BSON documents of two kinds:
+ * <ul>
+ *     <li>shape definition {@code { s: <shape id>, j: <shape JSON> }}, written once before the first execution
+ *     referring to the shape</li>
+ *     <li>execution {@code { k: <kind>, t: <start offset>, d: <duration>, c: <connection id>, x: [ { s: <shape id>,
+ *     p: [<parameters>] }, ... ], n: <result count>, ok: <succeeded> }}, with times in nanoseconds</li>
+ * </ul>
+ * Recording is thread-safe and buffered, so the tail of the log is only complete once the recorder is closed. An I/O
+ * failure stops the recording rather than failing the execution being recorded.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class CommandRecorder implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommandRecorder.class);
+
+    /**
+     * Leading bytes of a command log, ending with the format version.
+     */
+    static final byte[] MAGIC = {'C', 'H', 'M', 'L', 'O', 'G', 0, 1};
+
+    private static final BsonDocumentCodec BSON_DOCUMENT_CODEC = new BsonDocumentCodec();
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+
+    private final OutputStream outputStream;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final Map<String, Integer> shapeIds = new HashMap<>();
+    private final BasicOutputBuffer buffer = new BasicOutputBuffer();
+
+    private boolean closed;
+
+    private CommandRecorder(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * @param path log file, overwritten if existing
+     * @return recorder writing into the file
+     * @throws IOException if the file can't be written
+     */
+    public static CommandRecorder open(Path path) throws IOException {
+        Assertions.notNull("path", path);
+        var outputStream = new BufferedOutputStream(Files.newOutputStream(path));
+        try {
+            outputStream.write(MAGIC);
+        } catch (IOException e) {
+            outputStream.close();
+            throw e;
+        }
+        return new CommandRecorder(outputStream);
+    }
+
+    /**
+     * @return id of a new connection, for the executions of a connection to be replayed in order
+     */
+    public int nextConnectionId() {
+        return connectionIds.incrementAndGet();
+    }
+
+    /**
+     * @param kind kind of the execution
+     * @param startNanos {@link System#nanoTime()} when the execution started
+     * @param endNanos {@link System#nanoTime()} when the execution ended
+     * @param connectionId id obtained from {@link #nextConnectionId()}
+     * @param commands the command executed, or the commands of a batch
+     * @param resultCount number of the rows read or documents written; {@code -1} if failed
+     * @param succeeded whether the execution succeeded
+     */
+    public synchronized void record(
+            RecordedExecution.Kind kind,
+            long startNanos,
+            long endNanos,
+            int connectionId,
+            List<RecordedCommand> commands,
+            long resultCount,
+            boolean succeeded) {
+        if (closed || commands.isEmpty()) {
+            return;
+        }
+        try {
+            var recordedCommands = new BsonArray();
+            for (RecordedCommand command : commands) {
+                recordedCommands.add(new BsonDocument("s", new BsonInt32(getShapeId(command.shape())))
+                        .append("p", command.parameters()));
+            }
+            write(new BsonDocument("k", new BsonString(kind.name()))
+                    .append("t", new BsonInt64(startNanos - this.startNanos))
+                    .append("d", new BsonInt64(endNanos - startNanos))
+                    .append("c", new BsonInt32(connectionId))
+                    .append("x", recordedCommands)
+                    .append("n", new BsonInt64(resultCount))
+                    .append("ok", BsonBoolean.valueOf(succeeded)));
+        } catch (IOException e) {
+            LOG.warn("failed to record command; recording stopped", e);
+            closeQuietly();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            outputStream.close();
+        }
+    }
+
+    private int getShapeId(String shape) throws IOException {
+        @Nullable Integer shapeId = shapeIds.get(shape);
+        if (shapeId == null) {
+            shapeId = shapeIds.size();
+            write(new BsonDocument("s", new BsonInt32(shapeId)).append("j", new BsonString(shape)));
+            shapeIds.put(shape, shapeId);
+        }
+        return shapeId;
+    }
+
+    private void write(BsonDocument document) throws IOException {
+        buffer.truncateToPosition(0);
+        try (var writer = new BsonBinaryWriter(buffer)) {
+            BSON_DOCUMENT_CODEC.encode(writer, document, ENCODER_CONTEXT);
+        }
+        buffer.pipe(outputStream);
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOG.debug("failed to close command log", e);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package org.hibernate.omm.replay;
+
+import com.mongodb.assertions.Assertions;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.jdbc.MongoCommandTemplate;
+import org.hibernate.omm.jdbc.MongoConnectionProvider;
+import org.hibernate.omm.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Re-executes the executions of a command log (see {@link CommandRecorder}) through the JDBC layer of a
+ * {@link MongoConnectionProvider}, against MongoDB server or the in-memory backend, and reports throughput and
+ * latency percentiles per command shape, so Chameleon versions could be compared on real traffic.
+ * <p>
+ * Each replaying thread has its own connection in auto-commit mode; the executions of a recorded connection are
+ * assigned to the same thread and replayed in recorded order, either at recorded pace (scaled by speed factor) or
+ * as fast as possible. Recorded transaction boundaries are not reproduced.
+ * <p>
+ * Also runnable from the command line:
+ * <pre>
+ * CommandReplayer &lt;log file&gt; --database=&lt;name&gt; [--url=&lt;connection string&gt;] [--backend=driver|in-memory]
+ *     [--speed=&lt;factor&gt;|max] [--concurrency=&lt;threads&gt;]
+ * </pre>
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class CommandReplayer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommandReplayer.class);
+
+    /**
+     * Speed factor of replaying as fast as possible.
+     */
+    public static final double MAXIMUM_SPEED = 0;
+
+    private static final JsonWriterSettings EXTENDED_JSON_SETTINGS =
+            JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private final MongoConnectionProvider connectionProvider;
+
+    public CommandReplayer(MongoConnectionProvider connectionProvider) {
+        Assertions.notNull("connectionProvider", connectionProvider);
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * @param executions executions read by {@link CommandLogReader}
+     * @param speed {@code 1} to replay at recorded pace, {@code 2} twice as fast, etc.; {@link #MAXIMUM_SPEED} to
+     * replay as fast as possible
+     * @param concurrency number of replaying threads
+     * @return replay report
+     * @throws InterruptedException if interrupted while waiting for the replaying threads
+     */
+    public ReplayReport replay(List<RecordedExecution> executions, double speed, int concurrency)
+            throws InterruptedException {
+        Assertions.notNull("executions", executions);
+        Assertions.isTrueArgument("speed should not be negative", speed >= 0);
+        Assertions.isTrueArgument("concurrency should be positive", concurrency > 0);
+        var partitions = new ArrayList<List<RecordedExecution>>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (RecordedExecution execution : executions) {
+            partitions.get(Math.floorMod(execution.connectionId(), concurrency)).add(execution);
+        }
+        long firstOffsetNanos = executions.stream().mapToLong(RecordedExecution::startOffsetNanos).min().orElse(0);
+        var statistics = new ConcurrentHashMap<ShapeKey, ShapeStatistics>();
+        var failure = new AtomicReference<Throwable>();
+        var threads = new ArrayList<Thread>(concurrency);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            var partition = partitions.get(i);
+            if (partition.isEmpty()) {
+                continue;
+            }
+            var thread = new Thread(() -> {
+                try {
+                    replay(partition, startNanos - firstOffsetNanos, speed, statistics);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "chameleon-replay-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (failure.get() != null) {
+            throw new IllegalStateException("replay failed", failure.get());
+        }
+        var shapes = new ArrayList<ReplayReport.ShapeReport>(statistics.size());
+        statistics.forEach((key, shapeStatistics) -> shapes.add(shapeStatistics.toReport(key)));
+        shapes.sort(Comparator.comparingLong(ReplayReport.ShapeReport::executionCount).reversed());
+        return new ReplayReport(elapsedNanos, shapes);
+    }
+
+    private void replay(List<RecordedExecution> executions, long originNanos, double speed,
+            Map<ShapeKey, ShapeStatistics> statistics) throws SQLException {
+        try (var connection = connectionProvider.getConnection()) {
+            connection.setAutoCommit(true);
+            for (RecordedExecution execution : executions) {
+                if (speed != MAXIMUM_SPEED) {
+                    long dueNanos = originNanos + (long) (execution.startOffsetNanos() / speed);
+                    long waitNanos;
+                    while ((waitNanos = dueNanos - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(waitNanos);
+                    }
+                }
+                long resultCount;
+                boolean succeeded;
+                long start = System.nanoTime();
+                try {
+                    resultCount = execute(connection, execution);
+                    succeeded = true;
+                } catch (SQLException | RuntimeException e) {
+                    LOG.debug("replayed execution failed: {}", execution.shape(), e);
+                    resultCount = -1;
+                    succeeded = false;
+                }
+                long elapsedNanos = System.nanoTime() - start;
+                statistics.computeIfAbsent(new ShapeKey(execution.shape(), execution.kind()), ignored -> new ShapeStatistics())
+                        .record(execution, elapsedNanos, resultCount, succeeded);
+            }
+        }
+    }
+
+    private static long execute(Connection connection, RecordedExecution execution) throws SQLException {
+        var commands = execution.commands();
+        if (execution.kind() == RecordedExecution.Kind.QUERY) {
+            try (var statement = prepare(connection, commands.get(0)); var resultSet = statement.executeQuery()) {
+                long rowCount = 0;
+                while (resultSet.next()) {
+                    rowCount++;
+                }
+                return rowCount;
+            }
+        }
+        if (execution.kind() == RecordedExecution.Kind.UPDATE) {
+            try (var statement = prepare(connection, commands.get(0))) {
+                return statement.executeUpdate();
+            }
+        }
+        var shape = execution.shape();
+        if (commands.stream().allMatch(command -> command.shape().equals(shape))) {
+            try (var statement = connection.prepareStatement(shape)) {
+                for (RecordedCommand command : commands) {
+                    bind(statement, command);
+                    statement.addBatch();
+                }
+                return sumUpdateCounts(statement.executeBatch());
+            }
+        }
+        try (var statement = connection.createStatement()) {
+            for (RecordedCommand command : commands) {
+                var parameters = command.parameters();
+                statement.addBatch(MongoCommandTemplate.compile(command.shape())
+                        .bind(parameterIndex -> parameters.get(parameterIndex - 1))
+                        .toJson(EXTENDED_JSON_SETTINGS));
+            }
+            return sumUpdateCounts(statement.executeBatch());
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, RecordedCommand command) throws SQLException {
+        var statement = connection.prepareStatement(command.shape());
+        try {
+            bind(statement, command);
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    private static void bind(PreparedStatement statement, RecordedCommand command) throws SQLException {
+        var parameters = command.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    /**
+     * @return the sum of the known update counts, as recorded for batches
+     */
+    static long sumUpdateCounts(int[] updateCounts) {
+        long sum = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount > 0) {
+                sum += updateCount;
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: CommandReplayer <log file> --database=<name> [--url=<connection string>]"
+                    + " [--backend=driver|in-memory] [--speed=<factor>|max] [--concurrency=<threads>]");
+            System.exit(1);
+        }
+        var options = new HashMap<String, String>();
+        for (int i = 1; i < args.length; i++) {
+            var option = args[i];
+            var equals = option.indexOf('=');
+            if (!option.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("invalid option: " + option);
+            }
+            options.put(option.substring(2, equals), option.substring(equals + 1));
+        }
+        var settings = new HashMap<String, Object>();
+        settings.put(MongoAvailableSettings.MONGODB_DATABASE, options.getOrDefault("database", "test"));
+        settings.put(MongoAvailableSettings.MONGODB_BACKEND, options.getOrDefault("backend", MongoConnectionProvider.DRIVER_BACKEND));
+        if (options.containsKey("url")) {
+            settings.put(MongoAvailableSettings.MONGODB_CONNECTION_URL, options.get("url"));
+        }
+        var speedOption = options.getOrDefault("speed", "1");
+        var speed = "max".equals(speedOption) ? MAXIMUM_SPEED : Double.parseDouble(speedOption);
+        var concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1"));
+
+        var executions = CommandLogReader.readAll(Path.of(args[0]));
+        var connectionProvider = new MongoConnectionProvider();
+        connectionProvider.configure(settings);
+        try {
+            System.out.println(new CommandReplayer(connectionProvider).replay(executions, speed, concurrency));
+        } finally {
+            connectionProvider.stop();
+        }
+    }
+
+    private record ShapeKey(String shape, RecordedExecution.Kind kind) {
+    }
+
+    private static final class ShapeStatistics {
+        private final LatencyHistogram recorded = new LatencyHistogram();
+        private final LatencyHistogram replayed = new LatencyHistogram();
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder resultMismatchCount = new LongAdder();
+
+        void record(RecordedExecution execution, long elapsedNanos, long resultCount, boolean succeeded) {
+            recorded.record(execution.durationNanos());
+            replayed.record(elapsedNanos);
+            if (!succeeded) {
+                errorCount.increment();
+            } else if (execution.succeeded() && resultCount != execution.resultCount()) {
+                resultMismatchCount.increment();
+            }
+        }
+
+        ReplayReport.ShapeReport toReport(ShapeKey key) {
+            return new ReplayReport.ShapeReport(
+                    key.shape(),
+                    key.kind(),
+                    replayed.getCount(),
+                    errorCount.sum(),
+                    resultMismatchCount.sum(),
+                    recorded.snapshot("recorded"),
+                    replayed.snapshot("replayed")
+            );
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.hibernate.omm.replay;
+
+import org.bson.BsonArray;
+
+/**
+ * A command as recorded by {@link CommandRecorder}.
+ *
+ * @param shape parameterized command JSON (with {@code ?} placeholders) of prepared statement, or the whole command
+ * JSON of plain statement
+ * @param parameters bound parameter values in JDBC parameter index order; empty for plain statement
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public record RecordedCommand(String shape, BsonArray parameters) {
+}
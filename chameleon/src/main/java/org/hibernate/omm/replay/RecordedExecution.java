@@ -0,0 +1,49 @@
+package org.hibernate.omm.replay;
+
+import java.util.List;
+
+/**
+ * An execution of the JDBC layer as recorded by {@link CommandRecorder}.
+ *
+ * @param kind kind of the execution
+ * @param startOffsetNanos start time relative to the start of the recording in nanoseconds
+ * @param durationNanos duration in nanoseconds: for query, till its result set is closed
+ * @param connectionId recording specific id of the connection the execution belongs to
+ * @param commands the command executed, or the commands of a batch
+ * @param resultCount number of the rows read from query result set, or the number of the documents written;
+ * {@code -1} if failed
+ * @param succeeded whether the execution succeeded
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public record RecordedExecution(
+        Kind kind,
+        long startOffsetNanos,
+        long durationNanos,
+        int connectionId,
+        List<RecordedCommand> commands,
+        long resultCount,
+        boolean succeeded) {
+
+    public enum Kind {
+        /**
+         * {@code find} or {@code aggregate} run through {@link java.sql.Statement#executeQuery}.
+         */
+        QUERY,
+        /**
+         * Write command run through {@link java.sql.Statement#executeUpdate}.
+         */
+        UPDATE,
+        /**
+         * Write commands run through {@link java.sql.Statement#executeBatch()}.
+         */
+        BATCH
+    }
+
+    /**
+     * @return the shape executions are grouped by when replayed, i.e. the shape of the (first) command
+     */
+    public String shape() {
+        return commands.get(0).shape();
+    }
+}
@@ -0,0 +1,76 @@
+package org.hibernate.omm.replay;
+
+import org.hibernate.omm.metrics.LatencySnapshot;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of {@link CommandReplayer#replay}, per command shape, with the recorded latencies next to the replayed
+ * ones for comparison.
+ *
+ * @param elapsedNanos wall time of the whole replay in nanoseconds
+ * @param shapes per shape reports, most executed first
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public record ReplayReport(long elapsedNanos, List<ShapeReport> shapes) {
+
+    /**
+     * @param shape command shape, see {@link RecordedExecution#shape()}
+     * @param kind kind of the executions
+     * @param executionCount number of the executions replayed
+     * @param errorCount number of the executions failed
+     * @param resultMismatchCount number of the executions whose result count differs from the recorded one
+     * @param recorded recorded latencies in nanoseconds
+     * @param replayed replayed latencies in nanoseconds
+     */
+    public record ShapeReport(
+            String shape,
+            RecordedExecution.Kind kind,
+            long executionCount,
+            long errorCount,
+            long resultMismatchCount,
+            LatencySnapshot recorded,
+            LatencySnapshot replayed) {
+    }
+
+    public long getExecutionCount() {
+        return shapes.stream().mapToLong(ShapeReport::executionCount).sum();
+    }
+
+    public long getErrorCount() {
+        return shapes.stream().mapToLong(ShapeReport::errorCount).sum();
+    }
+
+    /**
+     * @return executions per second
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getExecutionCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return human-readable report, latencies in microseconds
+     */
+    @Override
+    public String toString() {
+        var sb = new StringBuilder(String.format(Locale.ROOT, "%d executions in %.3f s (%.1f/s), %d errors%n",
+                getExecutionCount(), elapsedNanos / 1e9, getThroughput(), getErrorCount()));
+        for (ShapeReport shape : shapes) {
+            sb.append(String.format(Locale.ROOT, "%n%s %s%n  count=%d errors=%d mismatches=%d%n",
+                    shape.kind(), shape.shape(), shape.executionCount(), shape.errorCount(),
+                    shape.resultMismatchCount()));
+            appendLatencies(sb, "recorded", shape.recorded());
+            appendLatencies(sb, "replayed", shape.replayed());
+        }
+        return sb.toString();
+    }
+
+    private static void appendLatencies(StringBuilder sb, String name, LatencySnapshot snapshot) {
+        sb.append(String.format(Locale.ROOT, "  %s (us): mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f%n", name,
+                snapshot.getMean() / 1e3, snapshot.getP50() / 1e3, snapshot.getP90() / 1e3, snapshot.getP99() / 1e3,
+                snapshot.getMax() / 1e3));
+    }
+}
@@ -0,0 +1,102 @@
+package org.hibernate.omm.util;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.assertions.Assertions;
+import com.mongodb.lang.Nullable;
+import org.bson.BsonDocument;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers of the {@code $readPreference} field rendered as the last field of query commands, carrying the read
+ * preference of entity or query hint down to the JDBC layer.
+ *
+ * @author Nathan Xu
+ * @since 1.0.0
+ */
+public final class ReadPreferenceUtil {
+
+    public static final String READ_PREFERENCE_FIELD_NAME = "$readPreference";
+
+    private static final String MODE_FIELD_NAME = "mode";
+    private static final String MAX_STALENESS_SECONDS_FIELD_NAME = "maxStalenessSeconds";
+
+    private ReadPreferenceUtil() {
+    }
+
+    /**
+     * @param mode read preference mode name
+     * @param maxStalenessSeconds maximum staleness in seconds; negative means no limit
+     * @return the read preference
+     * @throws IllegalArgumentException if the mode is unknown or the staleness is not allowed for the mode
+     */
+    public static ReadPreference toReadPreference(String mode, long maxStalenessSeconds) {
+        Assertions.notNull("mode", mode);
+        if (maxStalenessSeconds < 0) {
+            return ReadPreference.valueOf(mode);
+        }
+        return ReadPreference.valueOf(mode, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param command query command
+     * @return the read preference carried by the command; {@code null} if absent
+     */
+    public static @Nullable ReadPreference getReadPreference(BsonDocument command) {
+        var readPreferenceDocument = command.getDocument(READ_PREFERENCE_FIELD_NAME, null);
+        if (readPreferenceDocument == null) {
+            return null;
+        }
+        var maxStalenessSeconds = readPreferenceDocument.containsKey(MAX_STALENESS_SECONDS_FIELD_NAME) ?
+                readPreferenceDocument.getNumber(MAX_STALENESS_SECONDS_FIELD_NAME).longValue() :
+                -1;
+        return toReadPreference(readPreferenceDocument.getString(MODE_FIELD_NAME).getValue(), maxStalenessSeconds);
+    }
+
+    /**
+     * Render {@code $readPreference} field (with leading comma) to be appended to the command's other fields.
+     *
+     * @param mode read preference mode name
+     * @param maxStalenessSeconds maximum staleness in seconds; negative means no limit
+     * @return rendered field
+     * @throws IllegalArgumentException if the mode is unknown or the staleness is not allowed for the mode
+     */
+    public static String renderReadPreferenceField(String mode, long maxStalenessSeconds) {
+        // fail fast on invalid read preference
+        toReadPreference(mode, maxStalenessSeconds);
+        var sb = new StringBuilder(", ").append(READ_PREFERENCE_FIELD_NAME).append(": { ")
+                .append(MODE_FIELD_NAME).append(": ").append(StringUtil.writeStringHelper(mode));
+        if (maxStalenessSeconds >= 0) {
+            sb.append(", ").append(MAX_STALENESS_SECONDS_FIELD_NAME).append(": ").append(maxStalenessSeconds);
+        }
+        return sb.append(" }").toString();
+    }
+
+    /**
+     * @param command rendered command
+     * @return whether the command is a query command the read preference applies to, that is, {@code find} or
+     * {@code aggregate} without {@code $merge} stage (rendered for insert-select statement)
+     */
+    public static boolean isQueryCommand(String command) {
+        Assertions.notNull("command", command);
+        return command.startsWith("{ find: ")
+                || command.startsWith("{ aggregate: ") && !command.contains("{ $merge: ");
+    }
+
+    /**
+     * Replace the {@code $readPreference} field of the rendered query command, or append one if absent.
+     *
+     * @param command rendered query command ending with {@code " }"}
+     * @param mode read preference mode name
+     * @param maxStalenessSeconds maximum staleness in seconds; negative means no limit
+     * @return the command with the read preference applied
+     */
+    public static String applyReadPreference(String command, String mode, long maxStalenessSeconds) {
+        Assertions.notNull("command", command);
+        var fieldIndex = command.lastIndexOf(", " + READ_PREFERENCE_FIELD_NAME + ": ");
+        var end = fieldIndex >= 0 ? fieldIndex : command.lastIndexOf(" }");
+        Assertions.isTrueArgument("command should end with ' }'", end >= 0);
+        return command.substring(0, end) + renderReadPreferenceField(mode, maxStalenessSeconds) + " }";
+    }
+}
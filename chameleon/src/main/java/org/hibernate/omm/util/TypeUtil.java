@@ -10,12 +10,19 @@ import org.bson.BsonDecimal128;
 import org.bson.BsonDouble;
 import org.bson.BsonInt32;
 import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
 import org.bson.BsonString;
 import org.bson.BsonTimestamp;
 import org.bson.BsonType;
 import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.hibernate.omm.exception.NotSupportedRuntimeException;
 
+import java.math.BigDecimal;
 import java.sql.Types;
+import java.util.Date;
 
 /**
  * @author Nathan Xu
@@ -61,4 +68,41 @@ public final class TypeUtil {
             default -> null;
         };
     }
+
+    public static BsonValue wrap(@Nullable Object value) {
+        if (value == null) {
+            return BsonNull.VALUE;
+        }
+        if (value instanceof BsonValue bsonValue) {
+            return bsonValue;
+        }
+        if (value instanceof String str) {
+            return new BsonString(str);
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return new BsonInt32(((Number) value).intValue());
+        }
+        if (value instanceof Long longValue) {
+            return new BsonInt64(longValue);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return new BsonDouble(((Number) value).doubleValue());
+        }
+        if (value instanceof BigDecimal bigDecimal) {
+            return new BsonDecimal128(new Decimal128(bigDecimal));
+        }
+        if (value instanceof Boolean booleanValue) {
+            return BsonBoolean.valueOf(booleanValue);
+        }
+        if (value instanceof ObjectId objectId) {
+            return new BsonObjectId(objectId);
+        }
+        if (value instanceof byte[] bytes) {
+            return new BsonBinary(bytes);
+        }
+        if (value instanceof Date date) {
+            return new BsonDateTime(date.getTime());
+        }
+        throw new NotSupportedRuntimeException("unsupported Java type: " + value.getClass().getName());
+    }
 }
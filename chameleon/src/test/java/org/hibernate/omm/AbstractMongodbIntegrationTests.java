@@ -3,6 +3,7 @@ package org.hibernate.omm;
 import com.mongodb.client.MongoDatabase;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
 import org.hibernate.omm.cfg.MongoAvailableSettings;
 import org.hibernate.omm.jdbc.MongoConnectionProvider;
 import org.junit.jupiter.api.AfterEach;
@@ -18,6 +19,8 @@ import java.util.List;
  *     <li>{@link MongoDatabase} instance to interact with Mongo via java driver</li>
  *     <li>guarantee that each test case will be run in a blank db state</li>
  * </ul>
+ * The tests run against MongoDB container, or against {@code org.hibernate.omm.memory.InMemoryMongoClient} with
+ * system property {@code chameleon.test.backend=in-memory} (e.g. {@code gradle test -Pchameleon.test.backend=in-memory}).
  *
  * @author Nathan Xu
  * @apiNote For current stage, perf is not as important as logic correctness, so a slow-but-safe approach is adopted
@@ -26,6 +29,12 @@ public abstract class AbstractMongodbIntegrationTests {
 
     private static final String MONGODB_DOCKER_IMAGE_NAME = "mongo:5.0.28";
 
+    /**
+     * Whether the tests run against the in-memory backend rather than MongoDB container.
+     */
+    public static final boolean IN_MEMORY_TEST_BACKEND =
+            MongoConnectionProvider.IN_MEMORY_BACKEND.equals(System.getProperty("chameleon.test.backend"));
+
     private MongoDBContainer mongoDBContainer;
 
     private SessionFactory sessionFactory;
@@ -33,14 +42,27 @@ public abstract class AbstractMongodbIntegrationTests {
     @BeforeEach
     void createSessionFactory() {
         Configuration cfg = new Configuration();
-        mongoDBContainer = new MongoDBContainer(MONGODB_DOCKER_IMAGE_NAME);
-        mongoDBContainer.start();
-        cfg.setProperty(MongoAvailableSettings.MONGODB_CONNECTION_URL, mongoDBContainer.getConnectionString());
+        if (IN_MEMORY_TEST_BACKEND) {
+            cfg.setProperty(MongoAvailableSettings.MONGODB_BACKEND, MongoConnectionProvider.IN_MEMORY_BACKEND);
+        } else {
+            mongoDBContainer = new MongoDBContainer(MONGODB_DOCKER_IMAGE_NAME);
+            mongoDBContainer.start();
+            cfg.setProperty(MongoAvailableSettings.MONGODB_CONNECTION_URL, mongoDBContainer.getConnectionString());
+        }
         cfg.setProperty(MongoAvailableSettings.MONGODB_DATABASE, "test");
         getAnnotatedClasses().forEach(cfg::addAnnotatedClass);
+        configure(cfg);
         sessionFactory = cfg.buildSessionFactory();
     }
 
+    /**
+     * Hook for testing cases to apply extra configuration before {@link SessionFactory} is built.
+     *
+     * @param cfg Hibernate configuration
+     */
+    protected void configure(Configuration cfg) {
+    }
+
     @AfterEach
     void closeSessionFactory() {
         if (sessionFactory != null) {
@@ -66,7 +88,11 @@ public abstract class AbstractMongodbIntegrationTests {
     }
 
     protected MongoDatabase getMongoDatabase() {
-        return MongoConnectionProvider.mongoDatabase;
+        var connectionProvider = (MongoConnectionProvider) sessionFactory
+                .getSessionFactoryOptions()
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        return connectionProvider.getMongoDatabase();
     }
 
 }
@@ -0,0 +1,42 @@
+package org.hibernate.omm;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link CommandListener} capturing the commands sent to the server, to be configured by
+ * {@link org.hibernate.omm.cfg.MongoAvailableSettings#MONGODB_COMMAND_LISTENER}. Not involved by the in-memory backend.
+ *
+ * @author Nathan Xu
+ */
+public class CommandCaptor implements CommandListener {
+
+    private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // the event's command is backed by a buffer released once the command is sent
+        commands.add(event.getCommand().clone());
+    }
+
+    /**
+     * @param commandName command name, e.g. {@code insert}
+     * @param collectionName target collection
+     * @return the commands of the name sent to the collection since last {@link #clear()}
+     */
+    public List<BsonDocument> getCommands(String commandName, String collectionName) {
+        return commands.stream()
+                .filter(command -> command.getFirstKey().equals(commandName)
+                        && new BsonString(collectionName).equals(command.get(commandName)))
+                .toList();
+    }
+
+    public void clear() {
+        commands.clear();
+    }
+}
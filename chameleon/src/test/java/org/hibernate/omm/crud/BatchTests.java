@@ -0,0 +1,192 @@
+package org.hibernate.omm.crud;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.bson.BsonDocument;
+import org.hibernate.StaleStateException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.hibernate.omm.CommandCaptor;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.junit.jupiter.api.Test;
+
+import java.sql.BatchUpdateException;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * @author Nathan Xu
+ */
+class BatchTests extends AbstractMongodbIntegrationTests {
+
+    private static final int BOOK_COUNT = 12;
+
+    private final CommandCaptor commandCaptor = new CommandCaptor();
+
+    @Override
+    protected void configure(Configuration cfg) {
+        cfg.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "5");
+        cfg.getProperties().put(MongoAvailableSettings.MONGODB_COMMAND_LISTENER, commandCaptor);
+    }
+
+    @Test
+    void testBatchInsertUpdateAndDelete() {
+        getSessionFactory().inTransaction(session -> LongStream.rangeClosed(1, BOOK_COUNT).forEach(id -> {
+            var book = new Book();
+            book.id = id;
+            book.title = "title " + id;
+            session.persist(book);
+        }));
+        assertThat(countBooks()).isEqualTo(BOOK_COUNT);
+
+        getSessionFactory().inTransaction(session -> session.createSelectionQuery("from Book", Book.class)
+                .getResultList()
+                .forEach(book -> book.title = book.title + " (revised)"));
+        getSessionFactory().inTransaction(session -> {
+            var books = session.createSelectionQuery("from Book", Book.class).getResultList();
+            assertThat(books).hasSize(BOOK_COUNT).allMatch(book -> book.title.endsWith(" (revised)"));
+            books.forEach(session::remove);
+        });
+        assertThat(countBooks()).isZero();
+    }
+
+    @Test
+    void testBatchSentAsOneBulkWrite() {
+        assumeFalse(IN_MEMORY_TEST_BACKEND, "command listener not involved by in-memory backend");
+
+        getSessionFactory().inTransaction(session -> LongStream.rangeClosed(1, 5).forEach(id -> {
+            var book = new Book();
+            book.id = id;
+            book.title = "title " + id;
+            session.persist(book);
+        }));
+
+        assertThat(commandCaptor.getCommands("insert", "books"))
+                .singleElement()
+                .satisfies(command -> assertThat(command.getArray("documents")).hasSize(5));
+    }
+
+    @Test
+    void testBatchUpdateCounts() {
+        getSessionFactory().inTransaction(session -> session.doWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.addBatch("{ insert: \"books\", documents: [ { _id: 1, title: \"Hamlet\" }, { _id: 2, title: \"Macbeth\" } ] }");
+                statement.addBatch("{ update: \"books\", updates: [ { q: { _id: { $eq: 1 } }, u: { $set: { title: \"King Lear\" } } } ] }");
+                statement.addBatch("{ delete: \"books\", deletes: [ { q: { _id: { $eq: 2 } }, limit: 1 } ] }");
+                statement.addBatch("{ delete: \"books\", deletes: [ { q: { _id: { $eq: 3 } }, limit: 1 } ] }");
+
+                // the last delete matching nothing
+                assertThat(statement.executeBatch()).containsExactly(2, 1, 1, 0);
+
+                statement.addBatch("{ update: \"books\", updates: [ { q: { _id: { $eq: 1 } }, u: { $set: { title: \"Othello\" } } } ] }");
+                statement.addBatch("{ delete: \"books\", deletes: [ { q: { _id: { $eq: 1 } }, limit: 1 } ] }");
+
+                assertThat(statement.executeBatch()).containsExactly(1, 1);
+            }
+        }));
+        assertThat(countBooks()).isZero();
+    }
+
+    @Test
+    void testStaleVersionInBatchDetected() {
+        getSessionFactory().inTransaction(session -> LongStream.rangeClosed(1, 3).forEach(id -> {
+            var poem = new Poem();
+            poem.id = id;
+            poem.title = "title " + id;
+            session.persist(poem);
+        }));
+
+        assertThatThrownBy(() -> getSessionFactory().inTransaction(session -> {
+            var poems = session.createSelectionQuery("from Poem", Poem.class).getResultList();
+            assertThat(poems).hasSize(3);
+            // concurrent update of the second poem
+            getMongoDatabase().getCollection("poems", BsonDocument.class).updateOne(
+                    Filters.eq("_id", 2L), Updates.inc("version", 1));
+            poems.forEach(poem -> poem.title = poem.title + " (revised)");
+        })).isInstanceOfAny(OptimisticLockException.class, StaleStateException.class);
+
+        getSessionFactory().inTransaction(session -> assertThat(session.createSelectionQuery("from Poem", Poem.class)
+                .getResultList()).noneMatch(poem -> poem.title.endsWith(" (revised)")));
+    }
+
+    @Test
+    void testBatchFailingOnDuplicateKey() {
+        getSessionFactory().inTransaction(session -> session.doWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.addBatch("{ insert: \"books\", documents: [ { _id: 1, title: \"Hamlet\" } ] }");
+                statement.addBatch("{ insert: \"books\", documents: [ { _id: 1, title: \"Macbeth\" } ] }");
+                statement.addBatch("{ insert: \"books\", documents: [ { _id: 2, title: \"Othello\" } ] }");
+
+                // ordered bulk write stops at the duplicate
+                assertThatThrownBy(statement::executeBatch)
+                        .isInstanceOfSatisfying(BatchUpdateException.class, e -> {
+                            assertThat(e.getUpdateCounts()).containsExactly(1);
+                            assertThat(e.getSQLState()).isEqualTo("23000");
+                            assertThat(e.getErrorCode()).isEqualTo(11000);
+                        });
+            }
+            // the server aborts the transaction on write error
+            connection.rollback();
+        }));
+        assertThat(countBooks()).isZero();
+    }
+
+    @Test
+    void testDuplicateKeyInBatchTranslatedToConstraintViolation() {
+        getSessionFactory().inTransaction(session -> {
+            var book = new Book();
+            book.id = 1L;
+            book.title = "Hamlet";
+            session.persist(book);
+        });
+
+        assertThatThrownBy(() -> getSessionFactory().inTransaction(session -> LongStream.rangeClosed(1, 3).forEach(id -> {
+            var book = new Book();
+            book.id = id;
+            book.title = "title " + id;
+            session.persist(book);
+        }))).isInstanceOf(ConstraintViolationException.class);
+        assertThat(countBooks()).isEqualTo(1);
+    }
+
+    private long countBooks() {
+        return getMongoDatabase().getCollection("books", BsonDocument.class).countDocuments();
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Book.class, Poem.class);
+    }
+
+    @Entity(name = "Book")
+    @Table(name = "books")
+    static class Book {
+        @Id
+        Long id;
+
+        String title;
+    }
+
+    @Entity(name = "Poem")
+    @Table(name = "poems")
+    static class Poem {
+        @Id
+        Long id;
+
+        String title;
+
+        @Version
+        int version;
+    }
+}
@@ -0,0 +1,157 @@
+package org.hibernate.omm.crud;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class InsertSelectTests extends AbstractMongodbIntegrationTests {
+
+    @BeforeEach
+    void persistShipments() {
+        getSessionFactory().inTransaction(session -> {
+            session.persist(new Shipment(1L, "Oslo", 2019));
+            session.persist(new Shipment(2L, "Cairo", 2021));
+            session.persist(new Shipment(3L, "Tokyo", 2023));
+        });
+    }
+
+    @Test
+    void testInsertSelect() {
+
+        // the following JSON command will be issued:
+        // { aggregate: "shipments", pipeline: [ { $match: { shippedYear: { $lt: ? } } },
+        //   { $project: { _id: "$_id", destination: "$destination", reason: { $literal: ? } } },
+        //   { $merge: { into: "archived_shipments", whenMatched: "fail", whenNotMatched: "insert" } } ] }
+        var insertedCount = getSessionFactory().fromTransaction(session -> session.createMutationQuery(
+                        "insert into ArchivedShipment (id, destination, reason) select s.id, s.destination, 'outdated' from Shipment s where s.shippedYear < :year")
+                .setParameter("year", 2022)
+                .executeUpdate());
+        assertThat(insertedCount).isEqualTo(2);
+
+        getSessionFactory().inTransaction(session -> {
+            var archivedShipments = session.createSelectionQuery("from ArchivedShipment order by id", ArchivedShipment.class).getResultList();
+            assertThat(archivedShipments).extracting(shipment -> shipment.destination).containsExactly("Oslo", "Cairo");
+            assertThat(archivedShipments).extracting(shipment -> shipment.reason).containsOnly("outdated");
+        });
+    }
+
+    @Test
+    void testInsertSelectOnConflictDoNothing() {
+        getSessionFactory().inTransaction(session -> session.persist(new ArchivedShipment(1L, "Oslo", "manual")));
+
+        var insertedCount = getSessionFactory().fromTransaction(session -> session.createMutationQuery(
+                        "insert into ArchivedShipment (id, destination, reason) select s.id, s.destination, 'outdated' from Shipment s on conflict do nothing")
+                .executeUpdate());
+        assertThat(insertedCount).isEqualTo(2);
+
+        getSessionFactory().inTransaction(session -> {
+            var archivedShipments = session.createSelectionQuery("from ArchivedShipment order by id", ArchivedShipment.class).getResultList();
+            assertThat(archivedShipments).extracting(shipment -> shipment.reason).containsExactly("manual", "outdated", "outdated");
+        });
+    }
+
+    @Test
+    void testInsertSelectRolledBack() {
+        getSessionFactory().inSession(session -> {
+            var transaction = session.beginTransaction();
+            var insertedCount = session.createMutationQuery(
+                            "insert into ArchivedShipment (id, destination, reason) select s.id, s.destination, 'outdated' from Shipment s")
+                    .executeUpdate();
+            assertThat(insertedCount).isEqualTo(3);
+            transaction.rollback();
+        });
+
+        assertThat(getMongoDatabase().getCollection("archived_shipments").countDocuments()).isZero();
+    }
+
+    @Test
+    void testInsertSelectAfterWriteInSameTransaction() {
+        var insertedCount = getSessionFactory().fromTransaction(session -> {
+            session.persist(new Shipment(4L, "Lima", 2018));
+            // the pending insertion is flushed before the insert-select, starting the transaction
+            return session.createMutationQuery(
+                            "insert into ArchivedShipment (id, destination, reason) select s.id, s.destination, 'outdated' from Shipment s where s.shippedYear < :year")
+                    .setParameter("year", 2020)
+                    .executeUpdate();
+        });
+        assertThat(insertedCount).isEqualTo(2);
+
+        getSessionFactory().inTransaction(session -> {
+            var archivedShipments = session.createSelectionQuery("from ArchivedShipment order by id", ArchivedShipment.class).getResultList();
+            assertThat(archivedShipments).extracting(shipment -> shipment.destination).containsExactly("Oslo", "Lima");
+        });
+    }
+
+    @Test
+    void testInsertSelectByMergeStageInAutoCommitMode() {
+        getSessionFactory().inSession(session -> session.doWork(connection -> {
+            connection.setAutoCommit(true);
+            try (var statement = connection.createStatement()) {
+                var insertedCount = statement.executeUpdate("{ aggregate: \"shipments\", pipeline: [ "
+                        + "{ $match: { shippedYear: { $gt: 2020 } } }, "
+                        + "{ $project: { _id: \"$_id\", destination: \"$destination\", reason: { $literal: \"outdated\" } } }, "
+                        + "{ $merge: { into: \"archived_shipments\", whenMatched: \"fail\", whenNotMatched: \"insert\" } } ] }");
+                assertThat(insertedCount).isEqualTo(2);
+            } finally {
+                connection.setAutoCommit(false);
+            }
+        }));
+
+        assertThat(getMongoDatabase().getCollection("archived_shipments").countDocuments()).isEqualTo(2);
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Shipment.class, ArchivedShipment.class);
+    }
+
+    @Entity(name = "Shipment")
+    @Table(name = "shipments")
+    static class Shipment {
+        @Id
+        Long id;
+
+        String destination;
+
+        int shippedYear;
+
+        Shipment() {
+        }
+
+        Shipment(Long id, String destination, int shippedYear) {
+            this.id = id;
+            this.destination = destination;
+            this.shippedYear = shippedYear;
+        }
+    }
+
+    @Entity(name = "ArchivedShipment")
+    @Table(name = "archived_shipments")
+    static class ArchivedShipment {
+        @Id
+        Long id;
+
+        String destination;
+
+        String reason;
+
+        ArchivedShipment() {
+        }
+
+        ArchivedShipment(Long id, String destination, String reason) {
+            this.id = id;
+            this.destination = destination;
+            this.reason = reason;
+        }
+    }
+}
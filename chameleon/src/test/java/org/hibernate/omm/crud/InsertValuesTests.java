@@ -0,0 +1,48 @@
+package org.hibernate.omm.crud;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class InsertValuesTests extends AbstractMongodbIntegrationTests {
+
+    @Test
+    void testMultipleValuesInserted() {
+
+        // the following JSON command will be issued:
+        // { insert: "books", documents: [ { _id: ?, title: ? }, { _id: ?, title: ? }, { _id: ?, title: ? } ] }
+        var insertedCount = getSessionFactory().fromTransaction(session -> session.createMutationQuery(
+                        "insert into Book (id, title) values (1, 'War and Peace'), (2, 'Anna Karenina'), (3, 'Resurrection')")
+                .executeUpdate());
+        assertThat(insertedCount).isEqualTo(3);
+
+        getSessionFactory().inTransaction(session -> {
+            var books = session.createSelectionQuery("from Book", Book.class).getResultList();
+            assertThat(books).extracting(book -> book.title)
+                    .containsExactlyInAnyOrder("War and Peace", "Anna Karenina", "Resurrection");
+        });
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Book.class);
+    }
+
+    @Entity(name = "Book")
+    @Table(name = "books")
+    static class Book {
+        @Id
+        Long id;
+
+        String title;
+    }
+}
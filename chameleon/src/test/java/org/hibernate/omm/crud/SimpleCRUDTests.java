@@ -33,7 +33,7 @@ class SimpleCRUDTests extends AbstractMongodbIntegrationTests {
     void testInsert() {
 
         // the following JSON command will be issued:
-        // { aggregate: "books", pipeline: [ { $match: { _id: { $eq: ? } }}, { $project: { _id: 1, author: 1, publishYear: 1, title: 1 } } ], cursor: {} }
+        // { find: "books", filter: { _id: { $eq: ? } }, projection: { f0: "$_id", f1: "$author", f2: "$publishYear", f3: "$title", _id: 0 } }
         var insertedBook = insertBook();
 
         getSessionFactory().inTransaction(session -> {
@@ -68,7 +68,7 @@ class SimpleCRUDTests extends AbstractMongodbIntegrationTests {
         var insertedBook = insertBook();
 
         // the following JSON command will be issued:
-        // { aggregate: "books", pipeline: [ { $match: { _id: { $eq: ? } }}, { $project: { _id: 1, author: 1, publishYear: 1, title: 1 } } ], cursor: {} }
+        // { find: "books", filter: { _id: { $eq: ? } }, projection: { f0: "$_id", f1: "$author", f2: "$publishYear", f3: "$title", _id: 0 } }
         getSessionFactory().inTransaction(session -> {
             var book = new Book();
             session.load(book, id);
@@ -82,7 +82,7 @@ class SimpleCRUDTests extends AbstractMongodbIntegrationTests {
         var insertedBook = insertBook();
 
         // the following JSON command will be issued:
-        // { aggregate: "books", pipeline: [ { $match: { _id: { $eq: ? } }}, { $project: { _id: 1, author: 1, publishYear: 1, title: 1 } } ], cursor: {} }
+        // { find: "books", filter: { _id: { $eq: ? } }, projection: { f0: "$_id", f1: "$author", f2: "$publishYear", f3: "$title", _id: 0 } }
         getSessionFactory().inTransaction(session -> {
             var query = session.createQuery("from Book where id = :id", Book.class);
             query.setParameter("id", id);
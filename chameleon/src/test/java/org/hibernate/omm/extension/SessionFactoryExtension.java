@@ -3,7 +3,9 @@ package org.hibernate.omm.extension;
 import jakarta.persistence.Entity;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
 import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.jdbc.MongoConnectionProvider;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
@@ -47,11 +49,14 @@ public class SessionFactoryExtension implements BeforeEachCallback, AfterEachCal
             throw new IllegalStateException("no Entity inner static class found with the testing class!");
         }
 
-        mongoDBContainer = new MongoDBContainer(MONGODB_DOCKER_IMAGE_NAME);
-        mongoDBContainer.start();
-
         var cfg = new Configuration();
-        cfg.setProperty(MongoAvailableSettings.MONGODB_CONNECTION_URL, mongoDBContainer.getConnectionString());
+        if (AbstractMongodbIntegrationTests.IN_MEMORY_TEST_BACKEND) {
+            cfg.setProperty(MongoAvailableSettings.MONGODB_BACKEND, MongoConnectionProvider.IN_MEMORY_BACKEND);
+        } else {
+            mongoDBContainer = new MongoDBContainer(MONGODB_DOCKER_IMAGE_NAME);
+            mongoDBContainer.start();
+            cfg.setProperty(MongoAvailableSettings.MONGODB_CONNECTION_URL, mongoDBContainer.getConnectionString());
+        }
         cfg.setProperty(MongoAvailableSettings.MONGODB_DATABASE, "test");
         annotatedClasses.forEach(cfg::addAnnotatedClass);
         sessionFactory = cfg.buildSessionFactory();
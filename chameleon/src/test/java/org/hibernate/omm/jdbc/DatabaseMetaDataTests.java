@@ -0,0 +1,67 @@
+package org.hibernate.omm.jdbc;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * @author Nathan Xu
+ */
+class DatabaseMetaDataTests extends AbstractMongodbIntegrationTests {
+
+    @BeforeAll
+    static void assumeMongoDBContainer() {
+        assumeFalse(IN_MEMORY_TEST_BACKEND, "server version and transaction support reported by MongoDB container only");
+    }
+
+    @Test
+    void testServerInfoSharedAcrossConnections() {
+        List<DatabaseMetaData> metaDataList = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            getSessionFactory().inTransaction(session -> session.doWork(connection -> {
+                var metaData = connection.getMetaData();
+                assertThat(connection.getMetaData()).isSameAs(metaData);
+                assertThat(metaData.getConnection()).isSameAs(connection);
+                metaDataList.add(metaData);
+            }));
+        }
+
+        var first = (MongoDatabaseMetaData) metaDataList.get(0);
+        var second = (MongoDatabaseMetaData) metaDataList.get(1);
+        assertThat(second.getServerInfo()).isSameAs(first.getServerInfo());
+        assertThat(first.getDatabaseProductVersion()).startsWith("5.0");
+        assertThat(first.getDatabaseMajorVersion()).isEqualTo(5);
+        assertThat(first.getDatabaseMinorVersion()).isZero();
+    }
+
+    @Test
+    void testTransactionsSupportedByReplicaSet() {
+        getSessionFactory().inTransaction(session -> session.doWork(connection ->
+                // the testing container is a single node replica set
+                assertThat(connection.getMetaData().supportsTransactions()).isTrue()));
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Book.class);
+    }
+
+    @Entity(name = "Book")
+    @Table(name = "books")
+    static class Book {
+        @Id
+        Long id;
+
+        String title;
+    }
+}
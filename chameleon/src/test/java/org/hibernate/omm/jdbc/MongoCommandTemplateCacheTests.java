@@ -0,0 +1,49 @@
+package org.hibernate.omm.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class MongoCommandTemplateCacheTests {
+
+    private static final String FIRST_COMMAND = "{ delete: \"books\", deletes: [ { q: { _id: { $eq: ? } }, limit: 0 } ] }";
+    private static final String SECOND_COMMAND = "{ delete: \"authors\", deletes: [ { q: { _id: { $eq: ? } }, limit: 0 } ] }";
+    private static final String THIRD_COMMAND = "{ delete: \"countries\", deletes: [ { q: { _id: { $eq: ? } }, limit: 0 } ] }";
+
+    @Test
+    void testHitAndMiss() throws SQLException {
+        var cache = new MongoCommandTemplateCache(10);
+        var template = cache.get(FIRST_COMMAND);
+        assertThat(cache.get(FIRST_COMMAND)).isSameAs(template);
+        assertThat(template.getCollectionName()).isEqualTo("books");
+        assertThat(template.getParameterPaths()).containsExactly("deletes.0.q._id.$eq");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() throws SQLException {
+        var cache = new MongoCommandTemplateCache(2);
+        var first = cache.get(FIRST_COMMAND);
+        cache.get(SECOND_COMMAND);
+        cache.get(FIRST_COMMAND);
+        cache.get(THIRD_COMMAND);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.get(FIRST_COMMAND)).isSameAs(first);
+        assertThat(cache.getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testCachingDisabled() throws SQLException {
+        var cache = new MongoCommandTemplateCache(0);
+        assertThat(cache.get(FIRST_COMMAND)).isNotSameAs(cache.get(FIRST_COMMAND));
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,71 @@
+package org.hibernate.omm.jdbc;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class MongoCommandTemplateTests {
+
+    @Test
+    void testBind() {
+        var template = MongoCommandTemplate.compile(
+                "{ aggregate: \"books\", pipeline: [ { $match: { $and: [ { _id: { $eq: ? } }, { title: { $in: [?, ?] } } ] } }, { $project: { f0: \"$_id\", _id: 0 } } ] }");
+        assertThat(template.getParameterCount()).isEqualTo(3);
+
+        Map<Integer, BsonValue> parameters = Map.of(1, new BsonInt32(1), 2, new BsonString("a"), 3, new BsonString("b"));
+        var command = template.bind(parameters::get);
+
+        assertThat(command).isEqualTo(BsonDocument.parse(
+                "{ aggregate: \"books\", pipeline: [ { $match: { $and: [ { _id: { $eq: 1 } }, { title: { $in: [\"a\", \"b\"] } } ] } }, { $project: { f0: \"$_id\", _id: 0 } } ] }"));
+    }
+
+    @Test
+    void testFindCommandProjectFieldNames() {
+        var template = MongoCommandTemplate.compile(
+                "{ find: \"books\", filter: { _id: { $eq: ? } }, limit: ?, projection: { f0: \"$_id\", f1: \"$title\", _id: 0 } }");
+        assertThat(template.getCommandName()).isEqualTo("find");
+        assertThat(template.getCollectionName()).isEqualTo("books");
+        assertThat(template.getParameterPaths()).containsExactly("filter._id.$eq", "limit");
+        assertThat(template.getProjectFieldNames()).containsExactly("f0", "f1");
+    }
+
+    @Test
+    void testQuestionMarkInStringLiteralNotTreatedAsParameter() {
+        var template = MongoCommandTemplate.compile("{ aggregate: \"books\", pipeline: [ { $match: { title: { $eq: \"why?\" }, author: 'who?' } } ] }");
+        assertThat(template.getParameterCount()).isZero();
+    }
+
+    @Test
+    void testConstantPartsShared() {
+        var template = MongoCommandTemplate.compile("{ insert: \"books\", documents: [ { _id: ?, title: \"War and Peace\" } ] }");
+        var first = template.bind(index -> new BsonInt32(1));
+        var second = template.bind(index -> new BsonInt32(2));
+
+        assertThat(first.getArray("documents").get(0).asDocument().getInt32("_id").getValue()).isEqualTo(1);
+        assertThat(second.getArray("documents").get(0).asDocument().getInt32("_id").getValue()).isEqualTo(2);
+        assertThat(first.get("insert")).isSameAs(second.get("insert"));
+    }
+
+    @Test
+    void testConstantDocumentsNotShared() {
+        var template = MongoCommandTemplate.compile("{ insert: \"books\", documents: [ { title: \"War and Peace\" } ] }");
+        var first = template.bind(index -> new BsonInt32(index));
+        // as the driver does to the inserted document without _id
+        first.getArray("documents").get(0).asDocument().put("_id", new BsonObjectId());
+        first.getArray("documents").add(new BsonDocument("title", new BsonString("Anna Karenina")));
+
+        var second = template.bind(index -> new BsonInt32(index));
+
+        assertThat(second).isEqualTo(BsonDocument.parse("{ insert: \"books\", documents: [ { title: \"War and Peace\" } ] }"));
+    }
+}
@@ -0,0 +1,175 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+import org.hibernate.omm.jdbc.exception.TransientTransactionSQLException;
+import org.hibernate.omm.jdbc.exception.UnknownCommitResultSQLException;
+import org.hibernate.omm.metrics.MongoMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Exercises the retries of {@link MongoConnection#executeWrite(MongoConnection.WriteCommand)} and
+ * {@link MongoConnection#commit()} against a client session stub failing as scripted.
+ *
+ * @author Nathan Xu
+ */
+class MongoConnectionRetryTests {
+
+    private final ClientSessionStub clientSessionStub = new ClientSessionStub();
+    private final MongoTransactionRetryPolicy retryPolicy = new MongoTransactionRetryPolicy(3, 0, 0);
+
+    private MongoConnection connection;
+
+    @BeforeEach
+    void createConnection() {
+        var mongoDatabase = (MongoDatabase) Proxy.newProxyInstance(MongoDatabase.class.getClassLoader(),
+                new Class<?>[] {MongoDatabase.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        connection = new MongoConnection(mongoDatabase, clientSessionStub.createProxy(), new MongoCommandTemplateCache(0),
+                MongoConnectionSettings.DEFAULT, new MongoServerInfoTracker(), retryPolicy, MongoMetrics.NOOP);
+    }
+
+    @Test
+    void testWriteStartingTransactionRetriedOnTransientTransactionError() throws SQLException {
+        var attempts = new AtomicInteger();
+
+        var result = connection.executeWrite(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw labelled(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+            }
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(2);
+        assertThat(clientSessionStub.startCount).isEqualTo(2);
+        assertThat(clientSessionStub.abortCount).isEqualTo(1);
+        assertThat(retryPolicy.getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testWriteGivingUpOnTransientTransactionError() {
+        var attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> connection.executeWrite(() -> {
+            attempts.incrementAndGet();
+            throw labelled(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        }))
+                .isInstanceOf(TransientTransactionSQLException.class)
+                .extracting(e -> ((SQLException) e).getSQLState())
+                .isEqualTo(TransientTransactionSQLException.SQL_STATE);
+
+        assertThat(attempts).hasValue(3);
+        assertThat(retryPolicy.getGiveUpCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testWriteNotRetriedOnceTransactionStartedByPreviousWrite() throws SQLException {
+        connection.executeWrite(() -> "first write");
+        var attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> connection.executeWrite(() -> {
+            attempts.incrementAndGet();
+            throw labelled(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        })).isInstanceOf(TransientTransactionSQLException.class);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(clientSessionStub.startCount).isEqualTo(1);
+        assertThat(retryPolicy.getRetryCount()).isZero();
+    }
+
+    @Test
+    void testCommitRetriedOnUnknownCommitResult() throws SQLException {
+        connection.executeWrite(() -> "write");
+        clientSessionStub.commitFailures.add(labelled(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL));
+
+        connection.commit();
+
+        assertThat(clientSessionStub.commitCount).isEqualTo(2);
+        assertThat(clientSessionStub.active).isFalse();
+        assertThat(retryPolicy.getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testCommitGivingUpOnUnknownCommitResultNotTransient() throws SQLException {
+        connection.executeWrite(() -> "write");
+        for (int i = 0; i < 3; i++) {
+            clientSessionStub.commitFailures.add(labelled(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL));
+        }
+
+        // the transaction may have been committed, so it must not be reported as retryable
+        assertThatThrownBy(connection::commit)
+                .isInstanceOf(UnknownCommitResultSQLException.class)
+                .isNotInstanceOf(TransientTransactionSQLException.class)
+                .extracting(e -> ((SQLException) e).getSQLState())
+                .isEqualTo(UnknownCommitResultSQLException.SQL_STATE);
+
+        assertThat(clientSessionStub.commitCount).isEqualTo(3);
+        assertThat(retryPolicy.getGiveUpCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testCommitFailingWithTransientTransactionError() throws SQLException {
+        connection.executeWrite(() -> "write");
+        clientSessionStub.commitFailures.add(labelled(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL));
+
+        assertThatThrownBy(connection::commit).isInstanceOf(TransientTransactionSQLException.class);
+
+        assertThat(clientSessionStub.commitCount).isEqualTo(1);
+    }
+
+    private static MongoException labelled(String errorLabel) {
+        var exception = new MongoException("transient");
+        exception.addLabel(errorLabel);
+        return exception;
+    }
+
+    private static class ClientSessionStub {
+        private final Deque<MongoException> commitFailures = new ArrayDeque<>();
+
+        private boolean active;
+        private int startCount;
+        private int abortCount;
+        private int commitCount;
+
+        ClientSession createProxy() {
+            return (ClientSession) Proxy.newProxyInstance(ClientSession.class.getClassLoader(),
+                    new Class<?>[] {ClientSession.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "hasActiveTransaction" -> active;
+                        case "startTransaction" -> {
+                            active = true;
+                            startCount++;
+                            yield null;
+                        }
+                        case "abortTransaction" -> {
+                            active = false;
+                            abortCount++;
+                            yield null;
+                        }
+                        case "commitTransaction" -> {
+                            commitCount++;
+                            var failure = commitFailures.poll();
+                            if (failure != null) {
+                                throw failure;
+                            }
+                            active = false;
+                            yield null;
+                        }
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+}
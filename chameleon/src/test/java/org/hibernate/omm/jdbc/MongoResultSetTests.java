@@ -0,0 +1,88 @@
+package org.hibernate.omm.jdbc;
+
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.hibernate.omm.memory.InMemoryCursor;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class MongoResultSetTests {
+
+    @Test
+    void testReadColumnsInOrder() throws SQLException {
+        try (var resultSet = createResultSet(List.of("f0", "f1", "f2"),
+                "{ f0: 1, f1: \"War and Peace\", f2: { $numberLong: \"1869\" } }",
+                "{ f0: 2, f1: \"Anna Karenina\", f2: { $numberLong: \"1878\" } }")) {
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getInt(1)).isEqualTo(1);
+            assertThat(resultSet.getString(2)).isEqualTo("War and Peace");
+            assertThat(resultSet.getLong(3)).isEqualTo(1869L);
+
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getInt(1)).isEqualTo(2);
+            assertThat(resultSet.getString(2)).isEqualTo("Anna Karenina");
+            assertThat(resultSet.getLong(3)).isEqualTo(1878L);
+
+            assertThat(resultSet.next()).isFalse();
+        }
+    }
+
+    @Test
+    void testReadColumnsOutOfOrder() throws SQLException {
+        try (var resultSet = createResultSet(List.of("f0", "f1", "f2"), "{ f0: 1, f1: \"War and Peace\", f2: 1869.5 }")) {
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getDouble(3)).isEqualTo(1869.5);
+            assertThat(resultSet.getString(2)).isEqualTo("War and Peace");
+            assertThat(resultSet.getString(2)).isEqualTo("War and Peace");
+            assertThat(resultSet.getInt(1)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testReadFieldsInOtherOrderThanColumns() throws SQLException {
+        try (var resultSet = createResultSet(List.of("f1", "f2", "_id"),
+                "{ _id: 1, f1: \"War and Peace\", f2: 1869 }",
+                "{ f2: 1878, _id: 2, f1: \"Anna Karenina\" }")) {
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getString(1)).isEqualTo("War and Peace");
+            assertThat(resultSet.getInt(2)).isEqualTo(1869);
+            assertThat(resultSet.getInt(3)).isEqualTo(1);
+            assertThat(resultSet.wasNull()).isFalse();
+
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getString(1)).isEqualTo("Anna Karenina");
+            assertThat(resultSet.getInt(2)).isEqualTo(1878);
+            assertThat(resultSet.getInt(3)).isEqualTo(2);
+            assertThat(resultSet.wasNull()).isFalse();
+        }
+    }
+
+    @Test
+    void testNullAndMissingFields() throws SQLException {
+        try (var resultSet = createResultSet(List.of("f0", "f1", "f2"), "{ f0: 1, f2: null }")) {
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getString(2)).isNull();
+            assertThat(resultSet.wasNull()).isTrue();
+            assertThat(resultSet.getString(3)).isNull();
+            assertThat(resultSet.wasNull()).isTrue();
+            assertThat(resultSet.getInt(1)).isEqualTo(1);
+            assertThat(resultSet.wasNull()).isFalse();
+        }
+    }
+
+    private static MongoResultSet createResultSet(List<String> fieldNames, String... documents) {
+        var iterator = Arrays.stream(documents)
+                .map(json -> new RawBsonDocument(BsonDocument.parse(json), new BsonDocumentCodec()))
+                .iterator();
+        return new MongoResultSet(new InMemoryCursor<>(iterator), fieldNames);
+    }
+}
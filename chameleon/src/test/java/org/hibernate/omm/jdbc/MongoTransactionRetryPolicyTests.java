@@ -0,0 +1,55 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.MongoException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class MongoTransactionRetryPolicyTests {
+
+    @Test
+    void testRetryUntilMaxAttempts() throws SQLException {
+        var policy = new MongoTransactionRetryPolicy(3, 0, 0);
+        var exception = labelled(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+
+        assertThat(policy.retry(1, exception, MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)).isTrue();
+        assertThat(policy.retry(2, exception, MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)).isTrue();
+        assertThat(policy.retry(3, exception, MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)).isFalse();
+
+        assertThat(policy.getRetryCount()).isEqualTo(2);
+        assertThat(policy.getGiveUpCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testNoRetryWithoutErrorLabel() throws SQLException {
+        var policy = new MongoTransactionRetryPolicy(3, 0, 0);
+        var exception = labelled(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+
+        assertThat(policy.retry(1, new MongoException("boom"), MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)).isFalse();
+        assertThat(policy.retry(1, exception, MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)).isFalse();
+
+        assertThat(policy.getRetryCount()).isZero();
+        assertThat(policy.getGiveUpCount()).isZero();
+    }
+
+    @Test
+    void testBackoffBoundedAndCapped() {
+        var policy = new MongoTransactionRetryPolicy(10, 10, 50);
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.getBackoffMillis(1)).isBetween(0L, 10L);
+            assertThat(policy.getBackoffMillis(2)).isBetween(0L, 20L);
+            assertThat(policy.getBackoffMillis(9)).isBetween(0L, 50L);
+        }
+    }
+
+    private static MongoException labelled(String errorLabel) {
+        var exception = new MongoException("transient");
+        exception.addLabel(errorLabel);
+        return exception;
+    }
+}
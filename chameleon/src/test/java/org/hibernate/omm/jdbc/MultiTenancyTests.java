@@ -0,0 +1,82 @@
+package org.hibernate.omm.jdbc;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class MultiTenancyTests extends AbstractMongodbIntegrationTests {
+
+    @Override
+    protected void configure(Configuration cfg) {
+        cfg.setProperty(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, MongoMultiTenantConnectionProvider.class.getName());
+        cfg.setProperty(MongoAvailableSettings.MONGODB_TENANT_DATABASE_PREFIX, "tenant_");
+    }
+
+    @Test
+    void testDatabasePerTenant() {
+        persistInTenant("acme", new Invoice(1L, 250L));
+        persistInTenant("globex", new Invoice(2L, 90L));
+
+        var connectionProvider = getMultiTenantConnectionProvider();
+        var acmeDatabase = connectionProvider.getTenantDatabase("acme");
+        assertThat(acmeDatabase.getName()).isEqualTo("tenant_acme");
+        assertThat(connectionProvider.getTenantDatabase("acme")).isSameAs(acmeDatabase);
+        assertThat(acmeDatabase.getCollection("invoices").countDocuments()).isEqualTo(1);
+        assertThat(connectionProvider.getTenantDatabase("globex").getCollection("invoices").countDocuments()).isEqualTo(1);
+
+        try (var session = getSessionFactory().withOptions().tenantIdentifier("acme").openSession()) {
+            assertThat(session.find(Invoice.class, 1L)).isNotNull();
+            assertThat(session.find(Invoice.class, 2L)).isNull();
+        }
+    }
+
+    private void persistInTenant(String tenantIdentifier, Invoice invoice) {
+        try (var session = getSessionFactory().withOptions().tenantIdentifier(tenantIdentifier).openSession()) {
+            var transaction = session.beginTransaction();
+            session.persist(invoice);
+            transaction.commit();
+        }
+    }
+
+    private MongoMultiTenantConnectionProvider getMultiTenantConnectionProvider() {
+        return (MongoMultiTenantConnectionProvider) getSessionFactory()
+                .getSessionFactoryOptions()
+                .getServiceRegistry()
+                .getService(MultiTenantConnectionProvider.class);
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Invoice.class);
+    }
+
+    @Entity(name = "Invoice")
+    @Table(name = "invoices")
+    static class Invoice {
+        @Id
+        Long id;
+
+        long amount;
+
+        Invoice() {
+        }
+
+        Invoice(Long id, long amount) {
+            this.id = id;
+            this.amount = amount;
+        }
+    }
+}
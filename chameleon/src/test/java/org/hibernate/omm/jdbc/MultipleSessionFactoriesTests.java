@@ -0,0 +1,105 @@
+package org.hibernate.omm.jdbc;
+
+import com.mongodb.lang.Nullable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.metrics.DefaultMongoMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * @author Nathan Xu
+ */
+class MultipleSessionFactoriesTests extends AbstractMongodbIntegrationTests {
+
+    private String connectionURL;
+
+    @Override
+    protected void configure(Configuration cfg) {
+        connectionURL = cfg.getProperty(MongoAvailableSettings.MONGODB_CONNECTION_URL);
+        cfg.setProperty(MongoAvailableSettings.MONGODB_CLIENT_SHARED, "true");
+    }
+
+    @Test
+    void testSessionFactoriesOfDifferentDatabasesSharingClient() {
+        try (var otherSessionFactory = buildOtherSessionFactory()) {
+            getSessionFactory().inTransaction(session -> session.persist(new Customer(1L, "Alice")));
+            otherSessionFactory.inTransaction(session -> session.persist(new Customer(2L, "Bob")));
+
+            assertThat(getMongoDatabase().getName()).isEqualTo("test");
+            assertThat(getMongoDatabase().getCollection("customers").countDocuments()).isEqualTo(1);
+            assertThat(otherSessionFactory.fromTransaction(session -> session.find(Customer.class, 1L))).isNull();
+            assertThat(otherSessionFactory.fromTransaction(session -> session.find(Customer.class, 2L))).isNotNull();
+        }
+
+        // the shared client is still open after the other session factory is closed
+        assertThat(getSessionFactory().fromTransaction(session -> session.find(Customer.class, 1L))).isNotNull();
+    }
+
+    @Test
+    void testMetricsOfSessionFactoryNotCreatingSharedClient() {
+        assumeFalse(IN_MEMORY_TEST_BACKEND, "command listener not involved by in-memory backend");
+        // the shared client was created by the session factory without metrics
+        try (var otherSessionFactory = buildOtherSessionFactory(MongoConnectionProvider.DEFAULT_METRICS)) {
+            var connectionProvider = (MongoConnectionProvider) otherSessionFactory.getSessionFactoryOptions()
+                    .getServiceRegistry()
+                    .getService(ConnectionProvider.class);
+            var metrics = (DefaultMongoMetrics) connectionProvider.getMetrics();
+
+            otherSessionFactory.inTransaction(session -> session.persist(new Customer(2L, "Bob")));
+
+            assertThat(metrics.getCommandLatencies())
+                    .filteredOn(snapshot -> snapshot.getName().startsWith("insert:"))
+                    .singleElement()
+                    .satisfies(snapshot -> assertThat(snapshot.getCount()).isEqualTo(1));
+        }
+    }
+
+    private SessionFactory buildOtherSessionFactory() {
+        return buildOtherSessionFactory(null);
+    }
+
+    private SessionFactory buildOtherSessionFactory(@Nullable String metrics) {
+        var cfg = new Configuration();
+        if (metrics != null) {
+            cfg.setProperty(MongoAvailableSettings.MONGODB_METRICS, metrics);
+        }
+        cfg.setProperty(MongoAvailableSettings.MONGODB_CONNECTION_URL, connectionURL);
+        cfg.setProperty(MongoAvailableSettings.MONGODB_DATABASE, "other");
+        cfg.setProperty(MongoAvailableSettings.MONGODB_CLIENT_SHARED, "true");
+        cfg.addAnnotatedClass(Customer.class);
+        return cfg.buildSessionFactory();
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Customer.class);
+    }
+
+    @Entity(name = "Customer")
+    @Table(name = "customers")
+    static class Customer {
+        @Id
+        Long id;
+
+        String name;
+
+        Customer() {
+        }
+
+        Customer(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
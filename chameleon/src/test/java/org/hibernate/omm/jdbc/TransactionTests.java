@@ -0,0 +1,79 @@
+package org.hibernate.omm.jdbc;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Nathan Xu
+ */
+class TransactionTests extends AbstractMongodbIntegrationTests {
+
+    @Test
+    void testTransactionStartedOnFirstWriteRolledBack() {
+        getSessionFactory().inSession(session -> {
+            var transaction = session.beginTransaction();
+            session.persist(new Account(1L, 100L));
+            session.flush();
+            transaction.rollback();
+        });
+
+        assertThat(getMongoDatabase().getCollection("accounts").countDocuments()).isZero();
+    }
+
+    @Test
+    void testReadBeforeFirstWriteCommitted() {
+        getSessionFactory().inTransaction(session -> {
+            assertThat(session.find(Account.class, 1L)).isNull();
+            session.persist(new Account(1L, 100L));
+        });
+
+        assertThat(getMongoDatabase().getCollection("accounts").countDocuments()).isEqualTo(1);
+    }
+
+    @Test
+    void testReadOnlyConnectionRejectsWrites() {
+        getSessionFactory().inTransaction(session -> session.doWork(connection -> {
+            connection.setReadOnly(true);
+            try (var statement = connection.createStatement()) {
+                assertThat(connection.isReadOnly()).isTrue();
+                assertThatThrownBy(() -> statement.executeUpdate("{ insert: \"accounts\", documents: [ { _id: 1, balance: 100 } ] }"))
+                        .isInstanceOf(SQLException.class);
+            } finally {
+                connection.setReadOnly(false);
+            }
+        }));
+
+        assertThat(getMongoDatabase().getCollection("accounts").countDocuments()).isZero();
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Account.class);
+    }
+
+    @Entity(name = "Account")
+    @Table(name = "accounts")
+    static class Account {
+        @Id
+        Long id;
+
+        long balance;
+
+        Account() {
+        }
+
+        Account(Long id, long balance) {
+            this.id = id;
+            this.balance = balance;
+        }
+    }
+}
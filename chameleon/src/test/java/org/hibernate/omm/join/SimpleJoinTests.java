@@ -4,20 +4,33 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
+import org.hibernate.cfg.Configuration;
 import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.hibernate.omm.CommandCaptor;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 /**
  * @author Nathan Xu
  */
 class SimpleJoinTests extends AbstractMongodbIntegrationTests {
 
+    private final CommandCaptor commandCaptor = new CommandCaptor();
+
+    @Override
+    protected void configure(Configuration cfg) {
+        cfg.getProperties().put(MongoAvailableSettings.MONGODB_COMMAND_LISTENER, commandCaptor);
+    }
+
     @Test
     void test() {
         var country = new Country();
@@ -41,13 +54,65 @@ class SimpleJoinTests extends AbstractMongodbIntegrationTests {
         City city = new City();
 
         // the following Bson command will be issued:
-        // { aggregate: "cities", pipeline: [ { $lookup: { from: "province", localField: "province_id", foreignField: "_id", as: "p1_0", pipeline: [ { $lookup: { from: "countries", localField: "country_id", foreignField: "_id", as: "c2_0" } }, { $unwind: "$c2_0" } ] } }, { $unwind: "$p1_0" }, { $match: { _id: { $eq: ? } } }, { $project: { f0: "$_id", f1: "$name", f2: "$p1_0._id", f3: "$p1_0.c2_0._id", f4: "$p1_0.c2_0.name", f5: "$p1_0.name", _id: 0 } } ], cursor: {} }
+        // { aggregate: "cities", pipeline: [ { $match: { _id: { $eq: ? } } }, { $lookup: { from: "province", localField: "province_id", foreignField: "_id", as: "p1_0", pipeline: [ { $lookup: { from: "countries", localField: "country_id", foreignField: "_id", as: "c2_0" } }, { $unwind: "$c2_0" } ] } }, { $unwind: "$p1_0" }, { $project: { f0: "$_id", f1: "$name", f2: "$p1_0._id", f3: "$p1_0.c2_0._id", f4: "$p1_0.c2_0.name", f5: "$p1_0.name", _id: 0 } } ], cursor: {} }
         getSessionFactory().inTransaction(session -> session.load(city, 3));
 
         assertThat(city.province).usingRecursiveComparison().isEqualTo(province);
         assertThat(city.province.country).usingRecursiveComparison().isEqualTo(country);
     }
 
+    @Test
+    void testRootRestrictionMatchedBeforeLookup() {
+        var country = new Country();
+        country.id = 1;
+        country.name = "China";
+        var province = new Province();
+        province.id = 2;
+        province.country = country;
+        province.name = "Jilin";
+
+        getSessionFactory().inTransaction(session -> {
+            session.persist(country);
+            session.persist(province);
+            for (int i = 3; i <= 5; i++) {
+                City city = new City();
+                city.id = i;
+                city.province = province;
+                city.name = "City " + i;
+                session.persist(city);
+            }
+        });
+        commandCaptor.clear();
+
+        // the following Bson command will be issued:
+        // { aggregate: "cities", pipeline: [ { $match: { name: { $eq: ? } } }, { $lookup: { from: "province", localField: "province_id", foreignField: "_id", as: "p1_0" } }, { $unwind: "$p1_0" }, { $match: { "p1_0.name": { $eq: ? } } }, { $project: { ... } } ] }
+        var cities = getSessionFactory().fromTransaction(session ->
+                session.createSelectionQuery("from City c where c.name = :name and c.province.name = :provinceName", City.class)
+                        .setParameter("name", "City 4")
+                        .setParameter("provinceName", "Jilin")
+                        .getResultList());
+
+        assertThat(cities).extracting(c -> c.id).containsExactly(4);
+
+        assumeFalse(IN_MEMORY_TEST_BACKEND, "command listener not involved by in-memory backend");
+        assertThat(commandCaptor.getCommands("aggregate", "cities")).singleElement().satisfies(command -> {
+            var pipeline = command.getArray("pipeline");
+            var stageNames = pipeline.stream().map(stage -> stage.asDocument().getFirstKey()).toList();
+            var firstLookupIndex = stageNames.indexOf("$lookup");
+            assertThat(firstLookupIndex).isPositive();
+            // the root-only restriction leads the pipeline, the joined path one follows the $lookup
+            assertThat(getStage(pipeline.get(0), "$match"))
+                    .isEqualTo(BsonDocument.parse("{ name: { $eq: \"City 4\" } }"));
+            assertThat(stageNames.subList(1, firstLookupIndex)).doesNotContain("$match");
+            assertThat(stageNames.lastIndexOf("$match")).isGreaterThan(firstLookupIndex);
+        });
+    }
+
+    private static BsonDocument getStage(BsonValue stage, String stageName) {
+        assertThat(stage.asDocument().getFirstKey()).isEqualTo(stageName);
+        return stage.asDocument().getDocument(stageName);
+    }
+
     @Override
     public List<Class<?>> getAnnotatedClasses() {
         return List.of(Country.class, Province.class, City.class);
@@ -0,0 +1,59 @@
+package org.hibernate.omm.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author Nathan Xu
+ */
+class LatencyHistogramTests {
+
+    @Test
+    void testPercentilesWithinRelativeError() {
+        var histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getMax()).isEqualTo(100_000_000);
+        assertThat(histogram.getMean()).isEqualTo(50_000_500.0);
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(50_000_000, within(50_000_000 * 0.03));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(99_000_000, within(99_000_000 * 0.03));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000_000);
+    }
+
+    @Test
+    void testSmallValuesExact() {
+        var histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(-1);
+
+        assertThat(histogram.getValueAtPercentile(0)).isZero();
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(3);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(7);
+    }
+
+    @Test
+    void testBucketValueWithinBucket() {
+        for (long value : new long[] {32, 33, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            var bucketIndex = LatencyHistogram.getBucketIndex(value);
+            assertThat(LatencyHistogram.getBucketIndex(LatencyHistogram.getBucketValue(bucketIndex)))
+                    .isEqualTo(bucketIndex);
+        }
+    }
+
+    @Test
+    void testReset() {
+        var histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.reset();
+
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMax()).isZero();
+        assertThat(histogram.getValueAtPercentile(99)).isZero();
+    }
+}
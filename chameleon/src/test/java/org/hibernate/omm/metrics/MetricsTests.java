@@ -0,0 +1,103 @@
+package org.hibernate.omm.metrics;
+
+import com.mongodb.MongoCommandException;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.bson.BsonDocument;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.jdbc.MongoConnectionProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * @author Nathan Xu
+ */
+class MetricsTests extends AbstractMongodbIntegrationTests {
+
+    @BeforeAll
+    static void assumeMongoDBContainer() {
+        assumeFalse(IN_MEMORY_TEST_BACKEND, "command listener not involved by in-memory backend");
+    }
+
+    @Override
+    protected void configure(Configuration cfg) {
+        cfg.setProperty(MongoAvailableSettings.MONGODB_METRICS, MongoConnectionProvider.DEFAULT_METRICS);
+    }
+
+    @Test
+    void testPhasesAndCommandsRecorded() {
+        getSessionFactory().inTransaction(session -> {
+            session.persist(new Movie(1L, "Metropolis"));
+            session.persist(new Movie(2L, "Nosferatu"));
+        });
+        var metrics = getMetrics();
+        metrics.reset();
+
+        var titles = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                "select title from Movie where id > :id order by id", String.class).setParameter("id", 0L).getResultList());
+
+        assertThat(titles).containsExactly("Metropolis", "Nosferatu");
+        for (var phase : MongoMetricsPhase.values()) {
+            assertThat(metrics.getPhaseHistogram(phase).getCount()).as(phase.name()).isPositive();
+        }
+        assertThat(metrics.getCommandLatencies())
+                .filteredOn(snapshot -> snapshot.getName().endsWith(":movies"))
+                .singleElement()
+                .satisfies(snapshot -> assertThat(snapshot.getCount()).isEqualTo(1));
+        assertThat(metrics.getDocumentsReturned()).isEqualTo(2);
+        assertThat(metrics.getBytesSent()).isPositive();
+        assertThat(metrics.getBytesReceived()).isPositive();
+        assertThat(metrics.getFailedCommandCounts()).isEmpty();
+    }
+
+    @Test
+    void testFailedCommandCounted() {
+        var metrics = getMetrics();
+        metrics.reset();
+
+        assertThatThrownBy(() -> getMongoDatabase().runCommand(BsonDocument.parse("{ unknownCommand: 1 }")))
+                .isInstanceOf(MongoCommandException.class);
+
+        assertThat(metrics.getFailedCommandCounts()).containsKey("unknownCommand");
+    }
+
+    private DefaultMongoMetrics getMetrics() {
+        var connectionProvider = (MongoConnectionProvider) getSessionFactory()
+                .getSessionFactoryOptions()
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        return (DefaultMongoMetrics) connectionProvider.getMetrics();
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Movie.class);
+    }
+
+    @Entity(name = "Movie")
+    @Table(name = "movies")
+    static class Movie {
+        @Id
+        Long id;
+
+        String title;
+
+        Movie() {
+        }
+
+        Movie(Long id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.hibernate.omm.query;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.hibernate.omm.CommandCaptor;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class DistinctTests extends AbstractMongodbIntegrationTests {
+
+    private final CommandCaptor commandCaptor = new CommandCaptor();
+
+    @Override
+    protected void configure(Configuration cfg) {
+        cfg.getProperties().put(MongoAvailableSettings.MONGODB_COMMAND_LISTENER, commandCaptor);
+    }
+
+    @BeforeEach
+    void setUp() {
+        getSessionFactory().inTransaction(session -> {
+            session.persist(new Song(1L, "So What", "jazz"));
+            session.persist(new Song(2L, "Paranoid", "rock"));
+            session.persist(new Song(3L, "Take Five", "jazz"));
+            session.persist(new Song(4L, "Heroes", "rock"));
+            session.persist(new Song(5L, "Blue in Green", "jazz"));
+        });
+        commandCaptor.clear();
+    }
+
+    @Test
+    void testDistinctQuery() {
+        var genres = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                "select distinct genre from Song order by genre", String.class).getResultList());
+
+        assertThat(genres).containsExactly("jazz", "rock");
+        if (!IN_MEMORY_TEST_BACKEND) {
+            // find command would return duplicates
+            assertThat(commandCaptor.getCommands("find", "songs")).isEmpty();
+            assertThat(commandCaptor.getCommands("aggregate", "songs")).hasSize(1);
+        }
+    }
+
+    @Test
+    void testDistinctQueryWithLimit() {
+        var genres = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                "select distinct genre from Song where id > 1 order by genre desc", String.class)
+                .setMaxResults(1)
+                .getResultList());
+
+        assertThat(genres).containsExactly("rock");
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Song.class);
+    }
+
+    @Entity(name = "Song")
+    @Table(name = "songs")
+    static class Song {
+        @Id
+        Long id;
+
+        String title;
+
+        String genre;
+
+        Song() {
+        }
+
+        Song(Long id, String title, String genre) {
+            this.id = id;
+            this.title = title;
+            this.genre = genre;
+        }
+    }
+}
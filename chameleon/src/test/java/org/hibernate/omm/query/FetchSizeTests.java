@@ -0,0 +1,76 @@
+package org.hibernate.omm.query;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.ScrollMode;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class FetchSizeTests extends AbstractMongodbIntegrationTests {
+
+    @Override
+    protected void configure(Configuration cfg) {
+        cfg.setProperty(AvailableSettings.STATEMENT_FETCH_SIZE, "3");
+    }
+
+    @BeforeEach
+    void setUp() {
+        getSessionFactory().inTransaction(session -> LongStream.rangeClosed(1, 10).forEach(id -> {
+            var book = new Book();
+            book.id = id;
+            book.title = "title " + id;
+            session.persist(book);
+        }));
+    }
+
+    @Test
+    void testResultStreamAcrossBatches() {
+        getSessionFactory().inTransaction(session -> {
+            try (var books = session.createSelectionQuery("from Book order by id", Book.class).getResultStream()) {
+                assertThat(books.map(book -> book.id)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+            }
+        });
+    }
+
+    @Test
+    void testScrollWithQueryFetchSize() {
+        getSessionFactory().inTransaction(session -> {
+            var query = session.createSelectionQuery("from Book where id > :id order by id", Book.class)
+                    .setParameter("id", 4L)
+                    .setFetchSize(2);
+            try (var books = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                var count = 0;
+                while (books.next()) {
+                    count++;
+                }
+                assertThat(count).isEqualTo(6);
+            }
+        });
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Book.class);
+    }
+
+    @Entity(name = "Book")
+    @Table(name = "books")
+    static class Book {
+        @Id
+        Long id;
+
+        String title;
+    }
+}
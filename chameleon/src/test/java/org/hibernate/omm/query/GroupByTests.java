@@ -0,0 +1,113 @@
+package org.hibernate.omm.query;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * @author Nathan Xu
+ */
+class GroupByTests extends AbstractMongodbIntegrationTests {
+
+    @BeforeEach
+    void setUp() {
+        getSessionFactory().inTransaction(session -> {
+            session.persist(new City(1, "Canada", "Toronto", 2_700_000));
+            session.persist(new City(2, "Canada", "Montreal", 1_800_000));
+            session.persist(new City(3, "Canada", "Vancouver", 600_000));
+            session.persist(new City(4, "China", "Beijing", 21_000_000));
+            session.persist(new City(5, "China", "Shanghai", 24_000_000));
+            session.persist(new City(6, "Iceland", "Reykjavik", 140_000));
+        });
+    }
+
+    @Test
+    void testGroupByWithHaving() {
+        // the following JSON command will be issued:
+        // { aggregate: "cities", pipeline: [ { $group: { _id: { g0: "$country" }, a0: { $sum: { $cond: [ ... ] } }, a1: { $avg: "$population" }, a2: { $max: "$population" } } }, { $match: { "a0": { $gt: ? } } }, { $sort: { "_id.g0": 1 } }, { $project: { f0: "$_id.g0", f1: "$a0", f2: "$a1", f3: "$a2", _id: 0 } } ] }
+        var rows = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                        "select c.country, count(c), avg(c.population), max(c.population) from City c " +
+                                "group by c.country having count(c) > :minCount order by c.country",
+                        Object[].class)
+                .setParameter("minCount", 1L)
+                .getResultList());
+
+        assertThat(rows).extracting(row -> tuple(row[0], row[1], row[2], row[3])).containsExactly(
+                tuple("Canada", 3L, 1_700_000.0, 2_700_000),
+                tuple("China", 2L, 22_500_000.0, 24_000_000)
+        );
+    }
+
+    @Test
+    void testGroupByOrderedByAggregateFunction() {
+        var countries = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                        "select c.country from City c where c.population > :minPopulation " +
+                                "group by c.country order by sum(c.population) desc",
+                        String.class)
+                .setParameter("minPopulation", 500_000)
+                .getResultList());
+
+        assertThat(countries).containsExactly("China", "Canada");
+    }
+
+    @Test
+    void testAggregateFunctionsWithoutGroupBy() {
+        var row = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                        "select count(c), min(c.population), sum(c.population) from City c", Object[].class)
+                .getSingleResult());
+
+        assertThat(row).containsExactly(6L, 140_000, 50_240_000L);
+
+        // SQL returns exactly one row even if nothing is aggregated
+        var rowOfNoMatch = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                        "select count(c), min(c.population), sum(c.population) from City c where c.population < 0",
+                        Object[].class)
+                .getSingleResult());
+
+        assertThat(rowOfNoMatch).containsExactly(0L, null, null);
+
+        getSessionFactory().inTransaction(session -> session.createMutationQuery("delete from City").executeUpdate());
+
+        var rowOfEmptyCollection = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                        "select count(c), min(c.population), sum(c.population) from City c", Object[].class)
+                .getSingleResult());
+
+        assertThat(rowOfEmptyCollection).containsExactly(0L, null, null);
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(City.class);
+    }
+
+    @Entity(name = "City")
+    @Table(name = "cities")
+    static class City {
+        @Id
+        int id;
+
+        String country;
+
+        String name;
+
+        int population;
+
+        City() {
+        }
+
+        City(int id, String country, String name, int population) {
+            this.id = id;
+            this.country = country;
+            this.name = name;
+            this.population = population;
+        }
+    }
+}
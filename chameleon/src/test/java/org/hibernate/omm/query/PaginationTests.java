@@ -0,0 +1,68 @@
+package org.hibernate.omm.query;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class PaginationTests extends AbstractMongodbIntegrationTests {
+
+    @Test
+    void testFirstResultAndMaxResults() {
+        getSessionFactory().inTransaction(session -> LongStream.rangeClosed(1, 10).forEach(id -> {
+            var book = new Book();
+            book.id = id;
+            book.title = "title " + id;
+            session.persist(book);
+        }));
+
+        // the following JSON command will be issued:
+        // { find: "books", sort: { "_id": -1 }, skip: ?, limit: ?, projection: { f0: "$_id", f1: "$title", _id: 0 } }
+        getSessionFactory().inTransaction(session -> {
+            var books = session.createSelectionQuery("from Book order by id desc", Book.class)
+                    .setFirstResult(2)
+                    .setMaxResults(3)
+                    .getResultList();
+            assertThat(books).extracting(book -> book.id).containsExactly(8L, 7L, 6L);
+        });
+    }
+
+    @Test
+    void testLimitAndOffsetInQuery() {
+        getSessionFactory().inTransaction(session -> LongStream.rangeClosed(1, 10).forEach(id -> {
+            var book = new Book();
+            book.id = id;
+            book.title = "title " + id;
+            session.persist(book);
+        }));
+
+        getSessionFactory().inTransaction(session -> {
+            var books = session.createSelectionQuery("from Book order by id limit 2 offset 4", Book.class)
+                    .getResultList();
+            assertThat(books).extracting(book -> book.id).containsExactly(5L, 6L);
+        });
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Book.class);
+    }
+
+    @Entity(name = "Book")
+    @Table(name = "books")
+    static class Book {
+        @Id
+        Long id;
+
+        String title;
+    }
+}
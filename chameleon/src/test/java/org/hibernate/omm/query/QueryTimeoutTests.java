@@ -0,0 +1,91 @@
+package org.hibernate.omm.query;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.QueryTimeoutException;
+import jakarta.persistence.Table;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * @author Nathan Xu
+ */
+class QueryTimeoutTests extends AbstractMongodbIntegrationTests {
+
+    @BeforeAll
+    static void assumeMongoDBContainer() {
+        assumeFalse(IN_MEMORY_TEST_BACKEND, "server-side javascript not supported by in-memory backend");
+    }
+
+    /**
+     * Server-side javascript condition keeping the command running beyond its {@code maxTimeMS}.
+     */
+    private static final String SLOW_CONDITION =
+            "{ $expr: { $function: { body: \"function() { sleep(3000); return true; }\", args: [], lang: \"js\" } } }";
+
+    @BeforeEach
+    void persistTask() {
+        getSessionFactory().inTransaction(session -> {
+            var task = new Task();
+            task.id = 1L;
+            task.status = "open";
+            session.persist(task);
+        });
+    }
+
+    @Test
+    void testQueryTimeout() {
+        var slowQuery = "{ aggregate: \"tasks\", pipeline: [" +
+                "{ $match: " + SLOW_CONDITION + " }, " +
+                "{ $project: { _id: 1, status: 1 } }" +
+                "] }";
+        getSessionFactory().inTransaction(session -> assertThatThrownBy(() ->
+                session.createNativeQuery(slowQuery, Task.class)
+                        .setTimeout(1)
+                        .getResultList()
+        ).isInstanceOf(QueryTimeoutException.class));
+    }
+
+    @Test
+    void testWriteTimeout() {
+        var slowUpdate = "{ update: \"tasks\", updates: [ { q: " + SLOW_CONDITION + ", " +
+                "u: { $set: { status: \"done\" } }, multi: false } ] }";
+        getSessionFactory().inSession(session -> {
+            var transaction = session.beginTransaction();
+            try {
+                assertThatThrownBy(() ->
+                        session.createNativeMutationQuery(slowUpdate)
+                                .setTimeout(1)
+                                .executeUpdate()
+                ).isInstanceOf(QueryTimeoutException.class);
+            } finally {
+                transaction.rollback();
+            }
+        });
+
+        getSessionFactory().inTransaction(session ->
+                assertThat(session.find(Task.class, 1L).status).isEqualTo("open"));
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Task.class);
+    }
+
+    @Entity(name = "Task")
+    @Table(name = "tasks")
+    static class Task {
+        @Id
+        Long id;
+
+        String status;
+    }
+}
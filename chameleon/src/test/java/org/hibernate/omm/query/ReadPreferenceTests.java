@@ -0,0 +1,165 @@
+package org.hibernate.omm.query;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.lang.Nullable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.omm.AbstractMongodbIntegrationTests;
+import org.hibernate.omm.CommandCaptor;
+import org.hibernate.omm.annotations.MongoReadPreference;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.cfg.MongoQueryHints;
+import org.hibernate.omm.jdbc.MongoConnection;
+import org.hibernate.omm.util.ReadPreferenceUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Asserts the read preference the driver sends along with the queries. The testing container is a single node
+ * replica set, so the queries are served by the primary whatever the read preference is.
+ *
+ * @author Nathan Xu
+ */
+class ReadPreferenceTests extends AbstractMongodbIntegrationTests {
+
+    private final CommandCaptor commandCaptor = new CommandCaptor();
+
+    @BeforeAll
+    static void assumeMongoDBContainer() {
+        assumeFalse(IN_MEMORY_TEST_BACKEND, "read preference not sent by in-memory backend");
+    }
+
+    @Override
+    protected void configure(Configuration cfg) {
+        cfg.getProperties().put(MongoAvailableSettings.MONGODB_COMMAND_LISTENER, commandCaptor);
+    }
+
+    @BeforeEach
+    void setUp() {
+        getSessionFactory().inTransaction(session -> {
+            session.persist(new Article(1L, "Release notes"));
+            session.persist(new Report(1L, "Sales"));
+        });
+        commandCaptor.clear();
+    }
+
+    @Test
+    void testEntityReadPreference() {
+        var reports = getSessionFactory().fromTransaction(session -> session.createSelectionQuery(
+                "from Report where title = :title", Report.class).setParameter("title", "Sales").getResultList());
+
+        assertThat(reports).extracting(report -> report.id).containsExactly(1L);
+        assertThat(getSentReadPreference("reports"))
+                .isEqualTo(ReadPreference.secondaryPreferred(120, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testQueryHintReadPreference() {
+        var articles = getSessionFactory().fromTransaction(session -> session.createQuery("from Article", Article.class)
+                .addQueryHint(MongoQueryHints.READ_PREFERENCE + "=nearest")
+                .getResultList());
+
+        assertThat(articles).extracting(article -> article.id).containsExactly(1L);
+        assertThat(getSentReadPreference("articles")).isEqualTo(ReadPreference.nearest());
+    }
+
+    @Test
+    void testQueryHintOverridesEntityReadPreference() {
+        var reports = getSessionFactory().fromTransaction(session -> session.createQuery("from Report", Report.class)
+                .addQueryHint(MongoQueryHints.READ_PREFERENCE + "=nearest")
+                .addQueryHint(MongoQueryHints.MAX_STALENESS_SECONDS + "=90")
+                .getResultList());
+
+        assertThat(reports).extracting(report -> report.id).containsExactly(1L);
+        assertThat(getSentReadPreference("reports")).isEqualTo(ReadPreference.nearest(90, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testQueryHintReadPreferenceIgnoredByMutationQuery() {
+        var updatedCount = getSessionFactory().fromTransaction(session -> session.createQuery(
+                        "update Article set title = :title where id = 1")
+                .setParameter("title", "Changelog")
+                .addQueryHint(MongoQueryHints.READ_PREFERENCE + "=secondaryPreferred")
+                .executeUpdate());
+
+        assertThat(updatedCount).isEqualTo(1);
+        assertThat(commandCaptor.getCommands("update", "articles"))
+                .singleElement()
+                .satisfies(command -> assertThat(ReadPreferenceUtil.getReadPreference(command)).isNull());
+    }
+
+    @Test
+    void testReadOnlyConnectionReadsFromSecondaryPreferred() {
+        getSessionFactory().inTransaction(session -> {
+            session.doWork(connection -> {
+                connection.setReadOnly(true);
+                assertThat(connection.unwrap(MongoConnection.class).getReadPreference())
+                        .isEqualTo(ReadPreference.secondaryPreferred());
+            });
+            assertThat(session.createSelectionQuery("from Article", Article.class).getResultList()).hasSize(1);
+            session.doWork(connection -> connection.setReadOnly(false));
+        });
+
+        assertThat(getSentReadPreference("articles")).isEqualTo(ReadPreference.secondaryPreferred());
+    }
+
+    /**
+     * @param collectionName collection queried once by {@code find} command
+     * @return read preference sent along with the command by the driver
+     */
+    @Nullable
+    private ReadPreference getSentReadPreference(String collectionName) {
+        var commands = commandCaptor.getCommands("find", collectionName);
+        assertThat(commands).hasSize(1);
+        return ReadPreferenceUtil.getReadPreference(commands.get(0));
+    }
+
+    @Override
+    public List<Class<?>> getAnnotatedClasses() {
+        return List.of(Article.class, Report.class);
+    }
+
+    @Entity(name = "Article")
+    @Table(name = "articles")
+    static class Article {
+        @Id
+        Long id;
+
+        String title;
+
+        Article() {
+        }
+
+        Article(Long id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+    }
+
+    @Entity(name = "Report")
+    @Table(name = "reports")
+    @MongoReadPreference(value = "secondaryPreferred", maxStalenessSeconds = 120)
+    static class Report {
+        @Id
+        Long id;
+
+        String title;
+
+        Report() {
+        }
+
+        Report(Long id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.hibernate.omm.replay;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.bson.BsonString;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.omm.cfg.MongoAvailableSettings;
+import org.hibernate.omm.jdbc.MongoConnectionProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Nathan Xu
+ */
+class CommandRecorderTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordAndReplay() throws Exception {
+        var log = tempDir.resolve("commands.log");
+        var sessionFactory = buildSessionFactory(log);
+        try {
+            sessionFactory.inTransaction(session -> {
+                session.persist(new Product(1L, "Keyboard"));
+                session.persist(new Product(2L, "Mouse"));
+                session.persist(new Product(3L, "Monitor"));
+            });
+            sessionFactory.inTransaction(session -> session.createMutationQuery(
+                            "update Product set name = :name where id = :id")
+                    .setParameter("name", "Monitor stand")
+                    .setParameter("id", 3L)
+                    .executeUpdate());
+            var names = sessionFactory.fromTransaction(session -> session.createSelectionQuery(
+                            "select p.name from Product p where p.id > :id order by p.id", String.class)
+                    .setParameter("id", 1L)
+                    .getResultList());
+            assertThat(names).containsExactly("Mouse", "Monitor stand");
+        } finally {
+            sessionFactory.close();
+        }
+
+        var executions = CommandLogReader.readAll(log);
+        assertThat(executions).extracting(RecordedExecution::kind).containsExactly(
+                RecordedExecution.Kind.BATCH, RecordedExecution.Kind.UPDATE, RecordedExecution.Kind.QUERY);
+        assertThat(executions).allSatisfy(execution -> assertThat(execution.succeeded()).isTrue());
+
+        var batch = executions.get(0);
+        assertThat(batch.commands()).hasSize(3).allSatisfy(command -> assertThat(command.shape()).isEqualTo(batch.shape()));
+        assertThat(batch.shape()).contains("?");
+        assertThat(batch.resultCount()).isEqualTo(3);
+
+        var update = executions.get(1);
+        assertThat(update.commands().get(0).parameters()).contains(new BsonString("Monitor stand"));
+        assertThat(update.resultCount()).isEqualTo(1);
+
+        var query = executions.get(2);
+        assertThat(query.resultCount()).isEqualTo(2);
+        assertThat(query.connectionId()).isNotEqualTo(batch.connectionId());
+
+        var connectionProvider = new MongoConnectionProvider();
+        connectionProvider.configure(Map.of(
+                MongoAvailableSettings.MONGODB_BACKEND, MongoConnectionProvider.IN_MEMORY_BACKEND,
+                MongoAvailableSettings.MONGODB_DATABASE, "test"));
+        try {
+            var report = new CommandReplayer(connectionProvider).replay(executions, CommandReplayer.MAXIMUM_SPEED, 1);
+            assertThat(report.getExecutionCount()).isEqualTo(3);
+            assertThat(report.getErrorCount()).isZero();
+            assertThat(report.shapes()).hasSize(3)
+                    .allSatisfy(shape -> assertThat(shape.resultMismatchCount()).isZero());
+        } finally {
+            connectionProvider.stop();
+        }
+    }
+
+    private static SessionFactory buildSessionFactory(Path log) {
+        var cfg = new Configuration();
+        cfg.setProperty(MongoAvailableSettings.MONGODB_BACKEND, MongoConnectionProvider.IN_MEMORY_BACKEND);
+        cfg.setProperty(MongoAvailableSettings.MONGODB_DATABASE, "test");
+        cfg.setProperty(MongoAvailableSettings.MONGODB_RECORDING_FILE, log.toString());
+        cfg.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "10");
+        cfg.addAnnotatedClass(Product.class);
+        return cfg.buildSessionFactory();
+    }
+
+    @Entity(name = "Product")
+    @Table(name = "products")
+    static class Product {
+        @Id
+        Long id;
+
+        String name;
+
+        Product() {
+        }
+
+        Product(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -75,7 +75,7 @@ class ObjectIdTypeTests {
         var insertedBook = insertBook();
 
         // the following JSON command will be issued:
-        // { aggregate: "books", pipeline: [ { $match: { _id: { $eq: ? } }}, { $project: { _id: 1, author: 1, publishYear: 1, title: 1 } } ], cursor: {} }
+        // { find: "books", filter: { _id: { $eq: ? } }, projection: { f0: "$_id", f1: "$author", f2: "$publishYear", f3: "$title", _id: 0 } }
         sessionFactory.inTransaction(session -> {
             var book = new Book();
             session.load(book, objectId);
@@ -89,7 +89,7 @@ class ObjectIdTypeTests {
         var insertedBook = insertBook();
 
         // the following JSON command will be issued:
-        // { aggregate: "books", pipeline: [ { $match: { _id: { $eq: ? } }}, { $project: { _id: 1, author: 1, publishYear: 1, title: 1 } } ], cursor: {} }
+        // { find: "books", filter: { _id: { $eq: ? } }, projection: { f0: "$_id", f1: "$author", f2: "$publishYear", f3: "$title", _id: 0 } }
         sessionFactory.inTransaction(session -> {
             var query = session.createQuery("from Book where id = :id", Book.class);
             query.setParameter("id", objectId);